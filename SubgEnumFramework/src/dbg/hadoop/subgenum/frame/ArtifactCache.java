@@ -0,0 +1,241 @@
+package dbg.hadoop.subgenum.frame;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.log4j.Logger;
+
+import dbg.hadoop.subgraphs.utils.Config;
+import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.Utility;
+
+/**
+ * The intermediate results that the queries share (enum.artifact.cache=true): the squares of
+ * house, the chordal squares of solarsquare and the 4-cliques of near5clique. <br>
+ * A result that is completely enumerated gets a fingerprint file (_ARTIFACT, ignored by the
+ * input formats) with the settings it depends on (maxSize, Bloom filter, compression, ...)
+ * and the modification times of the inputs it is computed from. A later query whose
+ * fingerprint is the same reuses the result instead of computing it again, as the
+ * skip.* flags do by hand. <br>
+ * With enum.artifact.quota.mb, the artifacts whose inputs changed are deleted, then the least
+ * recently used ones until the others fit in the quota.
+ */
+public class ArtifactCache {
+	private static Logger log = Logger.getLogger(ArtifactCache.class);
+
+	public static final String SQUARE = "frame.square.res";
+	public static final String CHORDAL_SQUARE = "frame.csquare.res";
+	public static final String CLIQUE = "frame.clique.res";
+	private static final String[] ARTIFACTS = { SQUARE, CHORDAL_SQUARE, CLIQUE };
+
+	public static final String FINGERPRINT = "_ARTIFACT";
+	private static final String INPUT = "input\t";
+
+	/**
+	 * @return Whether the artifact is there with the fingerprint of the current settings,
+	 * it is then marked as used
+	 */
+	public static boolean isValid(InputInfo inputInfo, String artifact) throws IOException{
+		if(!inputInfo.isArtifactCache){
+			return false;
+		}
+		FileSystem fs = Utility.getFS();
+		Path file = new Path(inputInfo.workDir + artifact, FINGERPRINT);
+		if(!fs.exists(file)){
+			return false;
+		}
+		String expected = fingerprint(fs, inputInfo, artifact);
+		if(expected == null || !expected.equals(read(fs, file))){
+			log.info("[ArtifactCache] " + artifact + " was computed with other settings or inputs");
+			return false;
+		}
+		fs.setTimes(file, System.currentTimeMillis(), -1);
+		log.info("[ArtifactCache] Reusing " + inputInfo.workDir + artifact);
+		return true;
+	}
+
+	/**
+	 * Fingerprint the artifact that has just been enumerated
+	 */
+	public static void record(InputInfo inputInfo, String artifact) throws IOException{
+		if(!inputInfo.isArtifactCache){
+			return;
+		}
+		FileSystem fs = Utility.getFS();
+		Path dir = new Path(inputInfo.workDir + artifact);
+		String content = fingerprint(fs, inputInfo, artifact);
+		if(content == null || !fs.isDirectory(dir)){
+			return;
+		}
+		PrintStream out = new PrintStream(fs.create(new Path(dir, FINGERPRINT), true));
+		out.print(content);
+		out.close();
+		collect(fs, inputInfo, artifact);
+	}
+
+	/**
+	 * @return The settings and the inputs the artifact depends on, one per line,
+	 * null if the artifact cannot be reused
+	 */
+	private static String fingerprint(FileSystem fs, InputInfo inputInfo, String artifact) throws IOException{
+		String workDir = inputInfo.workDir;
+		List<Path> inputs = new ArrayList<Path>();
+		StringBuilder sb = new StringBuilder();
+		sb.append("artifact\t").append(artifact).append("\n");
+		sb.append("graph\t").append(inputInfo.inputFilePath).append("\n");
+		sb.append("compression\t").append(inputInfo.isResultCompression).append("\n");
+		if(artifact.equals(SQUARE)){
+			sb.append("maxSize\t").append(inputInfo.maxSize).append("\n");
+			sb.append("workBudget\t").append(inputInfo.workBudget).append("\n");
+			appendBloomFilter(sb, inputInfo);
+			// The skew split writes the square partitioned
+			sb.append("skewSplit\t").append(inputInfo.isSkewSplit).append("\n");
+			if(inputInfo.isSkewSplit){
+				sb.append("skewThresh\t").append(inputInfo.squarePartitionThresh).append("\n");
+				sb.append("skewMaxShards\t").append(inputInfo.skewMaxShards).append("\n");
+			}
+			inputs.add(new Path(inputInfo.isCSRInput ? workDir + Config.csrGraphFile
+					: workDir + Config.adjListDir + "." + inputInfo.maxSize));
+			inputs.add(new Path(workDir + "nonsmallneigh"));
+			if(inputInfo.enableBF){
+				inputs.add(new Path(workDir + Config.bloomFilterFileDir));
+			}
+		}
+		else if(artifact.equals(CHORDAL_SQUARE)){
+			// The non-overlapping job only counts, and outputDir moves the result
+			if(inputInfo.isNonOverlapping || inputInfo.outputDir != null){
+				return null;
+			}
+			// The reducer only tests the Bloom filter when it writes the squares uncompressed
+			// (the chordalsquare query turns it off, solarsquare does not)
+			if(!inputInfo.isResultCompression){
+				appendBloomFilter(sb, inputInfo);
+				if(inputInfo.enableBF){
+					inputs.add(new Path(workDir + Config.bloomFilterFileDir));
+				}
+			}
+			inputs.add(new Path(workDir + "triangle.res"));
+		}
+		else if(artifact.equals(CLIQUE)){
+			sb.append("cliqueNumVertices\t").append(inputInfo.cliqueNumVertices).append("\n");
+			inputs.add(new Path(workDir + "triangle.res"));
+			inputs.add(new Path(workDir + Config.cliques));
+		}
+		else{
+			return null;
+		}
+		for(Path input : inputs){
+			if(!fs.exists(input)){
+				return null;
+			}
+			sb.append(INPUT).append(fs.makeQualified(input)).append("\t")
+				.append(getModificationTime(fs, input)).append("\n");
+		}
+		return sb.toString();
+	}
+
+	private static void appendBloomFilter(StringBuilder sb, InputInfo inputInfo){
+		sb.append("bloomFilter\t").append(inputInfo.enableBF).append("\n");
+		if(inputInfo.enableBF){
+			sb.append("falsePositive\t").append(inputInfo.falsePositive).append("\n");
+			sb.append("exactBloomFilter\t").append(inputInfo.isExactBF).append("\n");
+		}
+	}
+
+	/**
+	 * @return The last modification of the file, or of the directory and its files
+	 */
+	private static long getModificationTime(FileSystem fs, Path path) throws IOException{
+		FileStatus status = fs.getFileStatus(path);
+		long res = status.getModificationTime();
+		if(status.isDirectory()){
+			for(FileStatus child : fs.listStatus(path)){
+				res = Math.max(res, child.getModificationTime());
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Delete the stale artifacts, then the least recently used ones beyond enum.artifact.quota.mb
+	 * @param keep The artifact of the current query, never deleted
+	 */
+	private static void collect(FileSystem fs, InputInfo inputInfo, String keep) throws IOException{
+		if(inputInfo.artifactQuotaMB <= 0){
+			return;
+		}
+		List<FileStatus> live = new ArrayList<FileStatus>();
+		long total = 0L;
+		for(String artifact : ARTIFACTS){
+			Path dir = new Path(inputInfo.workDir + artifact);
+			Path file = new Path(dir, FINGERPRINT);
+			if(!fs.exists(file)){
+				continue;
+			}
+			if(!artifact.equals(keep) && isStale(fs, file)){
+				log.info("[ArtifactCache] Deleting " + dir + ", its inputs changed");
+				fs.delete(dir, true);
+				continue;
+			}
+			total += fs.getContentSummary(dir).getLength();
+			if(!artifact.equals(keep)){
+				live.add(fs.getFileStatus(file));
+			}
+		}
+		// The least recently used first
+		Collections.sort(live, new Comparator<FileStatus>() {
+			@Override
+			public int compare(FileStatus a, FileStatus b) {
+				long x = Math.max(a.getAccessTime(), a.getModificationTime());
+				long y = Math.max(b.getAccessTime(), b.getModificationTime());
+				return (x < y) ? -1 : ((x == y) ? 0 : 1);
+			}
+		});
+		long quota = inputInfo.artifactQuotaMB << 20;
+		for(int i = 0; i < live.size() && total > quota; ++i){
+			Path dir = live.get(i).getPath().getParent();
+			long size = fs.getContentSummary(dir).getLength();
+			log.info("[ArtifactCache] Deleting " + dir + " (" + (size >> 20) + " MB) for enum.artifact.quota.mb = "
+					+ inputInfo.artifactQuotaMB);
+			fs.delete(dir, true);
+			total -= size;
+		}
+	}
+
+	/**
+	 * @return Whether an input of the fingerprint is gone or changed
+	 */
+	private static boolean isStale(FileSystem fs, Path file) throws IOException{
+		for(String line : read(fs, file).split("\n")){
+			if(!line.startsWith(INPUT)){
+				continue;
+			}
+			String[] fields = line.split("\t");
+			Path input = new Path(fields[1]);
+			if(!fs.exists(input) || getModificationTime(fs, input) != Long.parseLong(fields[2])){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String read(FileSystem fs, Path file) throws IOException{
+		StringBuilder sb = new StringBuilder();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(fs.open(file)));
+		String line;
+		while((line = reader.readLine()) != null){
+			sb.append(line).append("\n");
+		}
+		reader.close();
+		return sb.toString();
+	}
+}
@@ -0,0 +1,182 @@
+package dbg.hadoop.subgenum.frame;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.filecache.DistributedCache;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.util.ToolRunner;
+import org.apache.log4j.Logger;
+
+import dbg.hadoop.subgenum.prepare.CoreDecomposition;
+import dbg.hadoop.subgenum.prepare.CoreInitHyperMapper;
+import dbg.hadoop.subgraphs.io.HVArray;
+import dbg.hadoop.subgraphs.utils.Config;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.SideDataCache;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.Utility;
+import dbg.hadoop.subgraphs.utils.offheap.LongSet;
+import dbg.hadoop.subgraphs.utils.offheap.LongStores;
+
+/**
+ * The k-core pruning of triangle.res before the clique jobs (enum.core.pruning=true), which
+ * includes the 4-clique stage of near5clique. Every vertex of a k-clique has a core number of
+ * at least k - 1, so the triangles with a vertex outside that core cannot take part in any result.
+ * (The triangle of a near-5-clique has a vertex of degree 2, so the near-5-clique join itself
+ * reads all the triangles.) <br>
+ * The triangles of the c-core are written once to triangle.res.core&lt;c&gt;, and reused until
+ * triangle.res changes. When the graph is prepared in the core order, the hypervertices carry
+ * their core numbers already; otherwise CoreDecomposition first finds the vertices of the c-core
+ * (coreFile.&lt;c&gt;), with the estimates capped at c, and the filter reads them as side data. <br>
+ * The clique jobs only read triangle.res, so adjList2.* is left as it is.
+ */
+public class CorePruning {
+	private static Logger log = Logger.getLogger(CorePruning.class);
+
+	public static final String MIN_CORE = "core.pruning.min";
+	// The hypervertices carry the core numbers, no side data is needed
+	public static final String CORE_ORDER = "core.pruning.order";
+
+	/**
+	 * @param minCore The core number every vertex of the pattern has at least
+	 * @return The triangles to enumerate from, triangle.res if it is not pruned
+	 */
+	@SuppressWarnings("deprecation")
+	public static String getTriangleDir(InputInfo inputInfo, int minCore) throws Exception{
+		String workDir = inputInfo.workDir;
+		String triangleDir = workDir + "triangle.res";
+		// Every vertex of a triangle is in the 2-core
+		if(!inputInfo.isCorePruning || minCore <= 2){
+			return triangleDir;
+		}
+		FileSystem fs = Utility.getFS();
+		String outputDir = triangleDir + ".core" + minCore;
+		if(isUpToDate(fs, new Path(outputDir), new Path(triangleDir))){
+			log.info("[Frame-core] Reusing " + outputDir);
+			return outputDir;
+		}
+		if(fs.isDirectory(new Path(outputDir))){
+			fs.delete(new Path(outputDir), true);
+		}
+
+		Configuration conf = new Configuration();
+		conf.setInt(MIN_CORE, minCore);
+		boolean isCoreOrder = fs.exists(new Path(workDir + Config.coreFileDir));
+		conf.setBoolean(CORE_ORDER, isCoreOrder);
+		if(!isCoreOrder){
+			String coreDir = workDir + Config.coreFileDir + "." + minCore;
+			if(!isUpToDate(fs, new Path(coreDir), new Path(workDir + Config.preparedFileDir))){
+				long begin = System.currentTimeMillis();
+				CoreDecomposition.run(inputInfo, CoreInitHyperMapper.class,
+						workDir + Config.preparedFileDir, coreDir, minCore);
+				log.info("[Frame-core] " + minCore + "-core: " + (System.currentTimeMillis() - begin) / 1000 + "s");
+			}
+			for(FileStatus f : fs.listStatus(new Path(coreDir))){
+				if(f.getPath().getName().startsWith("part-")){
+					DistributedCache.addCacheFile(f.getPath().toUri(), conf);
+				}
+			}
+		}
+
+		String[] opts = { triangleDir, "", outputDir, "0", inputInfo.jarFile };
+		ToolRunner.run(conf, new GeneralDriver("Frame Core Pruning " + minCore,
+				CorePruningMapper.class, null,
+				NullWritable.class, HVArray.class, // OutputKV
+				SequenceFileInputFormat.class,
+				SequenceFileOutputFormat.class,
+				null), opts);
+		return outputDir;
+	}
+
+	/**
+	 * @return Whether output was written after the last change of input
+	 */
+	private static boolean isUpToDate(FileSystem fs, Path output, Path input) throws IOException{
+		if(!fs.exists(output) || !fs.exists(input)){
+			return false;
+		}
+		long built = fs.getFileStatus(output).getModificationTime();
+		if(fs.getFileStatus(input).getModificationTime() > built){
+			return false;
+		}
+		for(FileStatus status : fs.listStatus(input)){
+			if(status.getModificationTime() > built){
+				return false;
+			}
+		}
+		return true;
+	}
+}
+
+/**
+ * Keep the triangles whose three vertices are in the MIN_CORE-core
+ */
+class CorePruningMapper extends StageMapper<NullWritable, HVArray, NullWritable, HVArray> {
+	private int minCore = 0;
+	private LongSet coreVertices = null;
+
+	@Override
+	public void map(NullWritable _key, HVArray _value, Context context)
+			throws IOException, InterruptedException {
+		for(int i = 0; i < _value.size(); ++i){
+			if(!isInCore(_value.get(i))){
+				return;
+			}
+		}
+		context.write(_key, _value);
+	}
+
+	private boolean isInCore(long v){
+		if(coreVertices == null){
+			return HyperVertex.Degree(v) >= minCore;
+		}
+		return coreVertices.contains(HyperVertex.VertexID(v));
+	}
+
+	@SuppressWarnings("deprecation")
+	@Override
+	protected void setup(Context context) throws IOException, InterruptedException {
+		Configuration conf = context.getConfiguration();
+		minCore = conf.getInt(CorePruning.MIN_CORE, 0);
+		if(conf.getBoolean(CorePruning.CORE_ORDER, false)){
+			return;
+		}
+		// The vertices of the core, shared with the other tasks of this JVM and never modified
+		final String store = conf.get(LongStores.STORE, LongStores.HEAP);
+		coreVertices = SideDataCache.get("coreVertices." + store, conf,
+				SideDataCache.getLocalCacheFiles(conf, "part-m-"),
+				new SideDataCache.Loader<LongSet>() {
+					@Override
+					public LongSet load(Configuration conf, Path[] files) throws IOException {
+						File indexFile = SideDataCache.getIndexFile("coreVertices", files);
+						LongSet res = LongStores.openIndex(store, indexFile);
+						if (res != null) {
+							return res;
+						}
+						res = LongStores.newSet(store);
+						LocalFileSystem fs = new LocalFileSystem();
+						IntWritable key = new IntWritable();
+						IntWritable val = new IntWritable();
+						for (Path p : files) {
+							SequenceFile.Reader reader = new SequenceFile.Reader(fs, p, conf);
+							while (reader.next(key, val)) {
+								res.add(key.get());
+							}
+							reader.close();
+						}
+						return LongStores.seal(store, res, indexFile);
+					}
+				});
+	}
+}
@@ -4,6 +4,7 @@ import gnu.trove.list.array.TLongArrayList;
 
 import java.io.IOException;
 import java.net.URI;
+import java.nio.LongBuffer;
 import java.util.ArrayList;
 import java.util.Iterator;
 
@@ -11,23 +12,29 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.InputFormat;
 import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.filecache.DistributedCache;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
 import org.apache.hadoop.util.ToolRunner;
 
+import dbg.hadoop.subgraphs.io.CSRAdjListInputFormat;
+import dbg.hadoop.subgraphs.io.CSRGraphWriter;
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HVArrayComparator;
 import dbg.hadoop.subgraphs.io.HVArrayGroupComparator;
 import dbg.hadoop.subgraphs.io.HVArraySign;
 import dbg.hadoop.subgraphs.io.HVArraySignComparator;
 import dbg.hadoop.subgraphs.io.HyperVertexAdjList;
+import dbg.hadoop.subgraphs.io.TriangleIndex;
 import dbg.hadoop.subgraphs.utils.BloomFilterOpr;
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.Utility;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 public class EnumChordalSquare {
 
@@ -80,20 +87,47 @@ public class EnumChordalSquare {
 		else { // Non-overlapping case
 			String[] opts = { workDir + "triangle.res", workDir + Config.adjListDir + "." + inputInfo.maxSize,	
 					workDir + "frame.csquare.res", inputInfo.numReducers, inputInfo.jarFile };
-			ToolRunner.run(conf, new GeneralDriver(
-					"Frame Chordal Square NonOverlap",
-					EnumCSNOPTriMapper.class,
-					EnumCSNOPTTMapper.class,
-					EnumCSNOPReducer.class,
-					NullWritable.class,
-					LongWritable.class, // OutputKV
-					HVArraySign.class,
-					LongWritable.class, // MapOutputKV
-					SequenceFileInputFormat.class,
-					SequenceFileInputFormat.class,
-					SequenceFileOutputFormat.class,
-					HVArraySignComparator.class, HVArrayGroupComparator.class),
-					opts);
+			@SuppressWarnings("rawtypes")
+			Class<? extends InputFormat> adjListInputFormat = SequenceFileInputFormat.class;
+			// The twintwigs of the batch are already in the map output format
+			String twinTwigs = QueryBatch.getTwinTwigs(inputInfo, QueryBatch.CHORDAL_SQUARE);
+			if(twinTwigs != null){
+				opts[1] = twinTwigs;
+			}
+			else if(inputInfo.isCSRInput){
+				opts[1] = CSRGraphWriter.ensure(Utility.getFS(), workDir).toString();
+				adjListInputFormat = CSRAdjListInputFormat.class;
+				CSRAdjListInputFormat.configure(conf, new Path(opts[1]), inputInfo.maxSize, inputInfo.workBudget);
+			}
+			if(twinTwigs == null && TriangleBroadcast.configure(conf, inputInfo)){
+				// Map-only, the twintwigs probe the broadcast triangle index
+				String[] opts2 = { opts[1], "", opts[2], "0", inputInfo.jarFile };
+				ToolRunner.run(conf, new GeneralDriver(
+						"Frame Chordal Square NonOverlap Broadcast",
+						EnumCSNOPBroadcastMapper.class,
+						null,
+						NullWritable.class,
+						LongWritable.class, // OutputKV
+						adjListInputFormat,
+						SequenceFileOutputFormat.class,
+						null), opts2);
+			}
+			else {
+				ToolRunner.run(conf, new GeneralDriver(
+						"Frame Chordal Square NonOverlap",
+						EnumCSNOPTriMapper.class,
+						twinTwigs != null ? Mapper.class : EnumCSNOPTTMapper.class,
+						EnumCSNOPReducer.class,
+						NullWritable.class,
+						LongWritable.class, // OutputKV
+						HVArraySign.class,
+						LongWritable.class, // MapOutputKV
+						SequenceFileInputFormat.class,
+						adjListInputFormat,
+						SequenceFileOutputFormat.class,
+						HVArraySignComparator.class, HVArrayGroupComparator.class),
+						opts);
+			}
 		}
 	}
 	
@@ -118,27 +152,33 @@ public class EnumChordalSquare {
 }
 
 class EnumChordalSquareMapper extends
-	Mapper<NullWritable, HVArray, HVArray, LongWritable> {
+	StageMapper<NullWritable, HVArray, HVArray, LongWritable> {
+	private HVArray outputKey = new HVArray();
+	private LongWritable outputValue = new LongWritable();
 	
 	@Override
 	public void map(NullWritable _key, HVArray _value, Context context)
 			throws IOException, InterruptedException {
-		context.write(new HVArray(_value.getSecond(), _value.getLast()),
-				new LongWritable(_value.getFirst()));
-		context.write(new HVArray(_value.getFirst(), _value.getLast()),
-				new LongWritable(_value.getSecond()));
-		context.write(new HVArray(_value.getFirst(), _value.getSecond()),
-				new LongWritable(_value.getLast()));
+		outputKey.set(_value.getSecond(), _value.getLast());
+		outputValue.set(_value.getFirst());
+		context.write(outputKey, outputValue);
+		outputKey.set(_value.getFirst(), _value.getLast());
+		outputValue.set(_value.getSecond());
+		context.write(outputKey, outputValue);
+		outputKey.set(_value.getFirst(), _value.getSecond());
+		outputValue.set(_value.getLast());
+		context.write(outputKey, outputValue);
 	}
 }
 
 class EnumChordalSquareReducer extends	
-	Reducer<HVArray,LongWritable, HVArray, HVArray> {
+	StageReducer<HVArray,LongWritable, HVArray, HVArray> {
 	
 	private static TLongArrayList heap = null;
 	private static boolean isResultCompression = true;
 	private static boolean enableBF = false;
 	private static BloomFilterOpr bloomfilterOpr = null;
+	private HVArray outputValue = new HVArray();
 	
 	@Override
 	public void reduce(HVArray _key, Iterable<LongWritable> values,
@@ -151,8 +191,10 @@ class EnumChordalSquareReducer extends
 		long[] array = heap.toArray();
 		boolean isOutput = true;
 		if(isResultCompression) {
-			if(array.length > 1)
-				context.write(_key, new HVArray(array));
+			if(array.length > 1){
+				outputValue.set(array);
+				context.write(_key, outputValue);
+			}
 		}
 		else{
 			for(int i = 0; i < array.length - 1; ++i){
@@ -161,8 +203,10 @@ class EnumChordalSquareReducer extends
 						isOutput = bloomfilterOpr.get().test(HyperVertex.VertexID(array[i]), 
 								HyperVertex.VertexID(array[j]));
 					}
-					if(isOutput)
-						context.write(_key, new HVArray(array[i], array[j]));
+					if(isOutput){
+						outputValue.set(array[i], array[j]);
+						context.write(_key, outputValue);
+					}
 				}
 			}
 		}
@@ -197,10 +241,11 @@ class EnumChordalSquareReducer extends
 } 
 
 class EnumChordalSquareCountReducer extends
-		Reducer<HVArray, LongWritable, NullWritable, LongWritable> {
+		StageReducer<HVArray, LongWritable, NullWritable, LongWritable> {
 	
 	private static TLongArrayList heap = null;
 	private static boolean isResultCompression = true;
+	private static PatternCounter counter = null;
 
 	@Override
 	public void reduce(HVArray _key, Iterable<LongWritable> values,
@@ -226,9 +271,7 @@ class EnumChordalSquareCountReducer extends
 				}
 			}
 		}
-		if(count > 0) {
-			context.write(NullWritable.get(), new LongWritable(count));
-		}
+		counter.add(context, count);
 	}
 	
 	@Override
@@ -236,19 +279,27 @@ class EnumChordalSquareCountReducer extends
 		Configuration conf = context.getConfiguration();
 		heap = new TLongArrayList();
 		isResultCompression = conf.getBoolean("result.compression", true);
+		counter = new PatternCounter(conf);
 	}
 
+	@Override
+	public void cleanup(Context context) {
+		counter.flush(context);
+	}
 }
 
 
 class ChordalSquareCountMapper extends
-		Mapper<HVArray, HVArray, NullWritable, LongWritable> {
+		StageMapper<HVArray, HVArray, NullWritable, LongWritable> {
+	private LongWritable outputValue = new LongWritable();
 	@Override
 	public void map(HVArray _key, HVArray _value, Context context)
 			throws IOException, InterruptedException {
 		long size = _value.size();
-		if(size > 1)
-			context.write(NullWritable.get(), new LongWritable(size * (size - 1) / 2));
+		if(size > 1){
+			outputValue.set(size * (size - 1) / 2);
+			context.write(NullWritable.get(), outputValue);
+		}
 	}
 }
 
@@ -258,17 +309,22 @@ class ChordalSquareCountMapper extends
  *
  */
 class EnumCSNOPTriMapper extends
-		Mapper<NullWritable, HVArray, HVArraySign, LongWritable> {
+		StageMapper<NullWritable, HVArray, HVArraySign, LongWritable> {
+	private HVArraySign outputKey = new HVArraySign();
+	private LongWritable outputValue = new LongWritable();
 
 	@Override
 	public void map(NullWritable _key, HVArray _value, Context context)
 			throws IOException, InterruptedException {
-		context.write(new HVArraySign(_value.getSecond(), _value.getLast(),
-				Config.SMALLSIGN), new LongWritable(_value.getFirst()));
-		context.write(new HVArraySign(_value.getFirst(), _value.getLast(),
-				Config.SMALLSIGN), new LongWritable(_value.getSecond()));
-		context.write(new HVArraySign(_value.getFirst(), _value.getSecond(),
-				Config.SMALLSIGN), new LongWritable(_value.getLast()));
+		outputKey.set(_value.getSecond(), _value.getLast(), Config.SMALLSIGN);
+		outputValue.set(_value.getFirst());
+		context.write(outputKey, outputValue);
+		outputKey.set(_value.getFirst(), _value.getLast(), Config.SMALLSIGN);
+		outputValue.set(_value.getSecond());
+		context.write(outputKey, outputValue);
+		outputKey.set(_value.getFirst(), _value.getSecond(), Config.SMALLSIGN);
+		outputValue.set(_value.getLast());
+		context.write(outputKey, outputValue);
 	}
 }
 
@@ -277,9 +333,14 @@ class EnumCSNOPTriMapper extends
  * @author robeen
  *
  */
-class EnumCSNOPTTMapper extends
-	Mapper<LongWritable, HyperVertexAdjList, HVArraySign, LongWritable> {
+abstract class CSNOPTTMapper<KEYOUT, VALUEOUT> extends
+	StageMapper<LongWritable, HyperVertexAdjList, KEYOUT, VALUEOUT> {
 
+	/**
+	 * The twintwig (v1, center, v2)
+	 */
+	protected abstract void emit(long v1, long v2, LongWritable center, Context context)
+			throws IOException, InterruptedException;
 
 	@Override
 	public void map(LongWritable _key, HyperVertexAdjList _value,
@@ -294,8 +355,7 @@ class EnumCSNOPTTMapper extends
 			// Generate TwinTwig 1
 			for (int i = 0; i < largerThanThis.length - 1; ++i) {
 				for (int j = i + 1; j < largerThanThis.length; ++j) {
-					context.write(new HVArraySign(largerThanThis[i],
-							largerThanThis[j], Config.LARGESIGN), _key);
+					emit(largerThanThis[i], largerThanThis[j], _key, context);
 				}
 			}
 		}
@@ -304,13 +364,11 @@ class EnumCSNOPTTMapper extends
 			for (int i = 0; i < smallerThanThisG1.length; ++i) {
 				// Generate TwinTwig 3
 				for (int k = i + 1; k < smallerThanThisG1.length; ++k) {
-					context.write(new HVArraySign(smallerThanThisG1[i],
-								smallerThanThisG1[k], Config.LARGESIGN), _key);
+					emit(smallerThanThisG1[i], smallerThanThisG1[k], _key, context);
 				}
 				// Generate TwinTwig 2
 				for (int j = 0; j < largerThanThis.length; ++j) {
-					context.write(new HVArraySign(smallerThanThisG1[i],
-								largerThanThis[j], Config.LARGESIGN), _key);
+					emit(smallerThanThisG1[i], largerThanThis[j], _key, context);
 				}
 			}
 		}
@@ -318,18 +376,60 @@ class EnumCSNOPTTMapper extends
 		else {
 			for (int i = 0; i < smallerThanThisG0.length; ++i) {
 				for (int j = 0; j < smallerThanThisG1.length; ++j) {
-					context.write(new HVArraySign(smallerThanThisG0[i],
-							smallerThanThisG1[j], Config.LARGESIGN), _key);
+					emit(smallerThanThisG0[i], smallerThanThisG1[j], _key, context);
 				}
 			}
 		}
 	}
 }
 
+class EnumCSNOPTTMapper extends CSNOPTTMapper<HVArraySign, LongWritable> {
+	private HVArraySign outputKey = new HVArraySign();
+
+	@Override
+	protected void emit(long v1, long v2, LongWritable center, Context context)
+			throws IOException, InterruptedException {
+		outputKey.set(v1, v2, Config.LARGESIGN);
+		context.write(outputKey, center);
+	}
+}
+
+/**
+ * The broadcast variant of EnumCSNOPTTMapper with EnumCSNOPReducer, in a map-only job:
+ * the triangles of an edge are probed in the TriangleIndex
+ */
+class EnumCSNOPBroadcastMapper extends CSNOPTTMapper<NullWritable, LongWritable> {
+	private TriangleIndex triangleIndex = null;
+	private PatternCounter counter = null;
+	private long count = 0L;
+
+	@Override
+	protected void emit(long v1, long v2, LongWritable center, Context context) {
+		LongBuffer thirds = triangleIndex.getThirds(v1, v2);
+		if(thirds.limit() > 0){
+			count += TriangleIndex.countLess(thirds, center.get());
+		}
+	}
+
+	@Override
+	public void setup(Context context) throws IOException {
+		triangleIndex = TriangleBroadcast.get(context.getConfiguration());
+		counter = new PatternCounter(context.getConfiguration());
+		count = 0L;
+	}
+
+	@Override
+	public void cleanup(Context context) throws IOException, InterruptedException {
+		counter.add(context, count);
+		counter.flush(context);
+	}
+}
+
 class EnumCSNOPReducer extends
-		Reducer<HVArraySign, LongWritable, NullWritable, LongWritable> {
+		StageReducer<HVArraySign, LongWritable, NullWritable, LongWritable> {
 
 	private static ArrayList<Long> heap = new ArrayList<Long>();
+	private LongWritable outputValue = new LongWritable();
 
 	@Override
 	public void reduce(HVArraySign _key, Iterable<LongWritable> values,
@@ -354,6 +454,7 @@ class EnumCSNOPReducer extends
 				}
 			}
 		}
-		context.write(NullWritable.get(), new LongWritable(count));
+		outputValue.set(count);
+		context.write(NullWritable.get(), outputValue);
 	}
 }
\ No newline at end of file
@@ -5,16 +5,16 @@ import java.io.IOException;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
-import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.util.ToolRunner;
 
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.utils.Graph;
 import dbg.hadoop.subgraphs.utils.InputInfo;
 import dbg.hadoop.subgraphs.utils.CliqueEncoder;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 public class EnumClique {
 
@@ -28,7 +28,9 @@ public class EnumClique {
 		conf.setStrings("clique.number.vertices", inputInfo.cliqueNumVertices);
 		conf.setBoolean("result.compression", inputInfo.isResultCompression);
 
-		String[] opts = { workDir + "triangle.res", "", workDir + "frame.clique.res",	
+		String triangleDir = CorePruning.getTriangleDir(inputInfo,
+				Integer.parseInt(inputInfo.cliqueNumVertices) - 1);
+		String[] opts = { triangleDir, "", workDir + "frame.clique.res",	
 					inputInfo.numReducers, inputInfo.jarFile, inputInfo.cliqueNumVertices};
 		
 		if(isCountOnly){
@@ -70,18 +72,22 @@ public class EnumClique {
 }
 
 class EnumCliqueMapper extends
-	Mapper<NullWritable, HVArray, LongWritable, HVArray> {
+	StageMapper<NullWritable, HVArray, LongWritable, HVArray> {
+	private LongWritable outputKey = new LongWritable();
+	private HVArray outputValue = new HVArray();
 	@Override
 	public void map(NullWritable _key, HVArray _value, Context context)
 			throws IOException, InterruptedException {
-		context.write(new LongWritable(_value.getFirst()),
-				new HVArray(_value.getSecond(), _value.getLast()));
+		outputKey.set(_value.getFirst());
+		outputValue.set(_value.getSecond(), _value.getLast());
+		context.write(outputKey, outputValue);
 	}
 }
 
 @SuppressWarnings("deprecation")
 class EnumCliqueCountReducer extends 
-	Reducer<LongWritable,HVArray, LongWritable, LongWritable> {
+	StageReducer<LongWritable,HVArray, LongWritable, LongWritable> {
+	private LongWritable outputValue = new LongWritable();
 
 	@Override
 	public void reduce(LongWritable _key, Iterable<HVArray> values, Context context) throws IOException, InterruptedException{
@@ -96,13 +102,15 @@ class EnumCliqueCountReducer extends
 		Configuration conf = context.getConfiguration();
 		int k = Integer.parseInt(conf.get("clique.number.vertices"));
 		long numclique = G.countCliquesOfSize(k - 1);
-		context.write(_key,new LongWritable(numclique));
+		outputValue.set(numclique);
+		context.write(_key, outputValue);
 	}
 }
 
 @SuppressWarnings("deprecation")
 class EnumCliqueEnumReducer extends
-		Reducer<LongWritable, HVArray, LongWritable, HVArray> {
+		StageReducer<LongWritable, HVArray, LongWritable, HVArray> {
+	private HVArray outputValue = new HVArray();
 	//private static TLongLongHashMap cliqueMap = null;
 
 	@Override
@@ -120,13 +128,15 @@ class EnumCliqueEnumReducer extends
 		Configuration conf = context.getConfiguration();
 		int k = Integer.parseInt(conf.get("clique.number.vertices"));
 		long[] cliqueEnc = G.enumCliqueOfSize(k - 1, _key.get());
-		if(cliqueEnc != null)
-			context.write(_key, new HVArray(cliqueEnc));
+		if(cliqueEnc != null){
+			outputValue.set(cliqueEnc);
+			context.write(_key, outputValue);
+		}
 	}
 }
 
 class CliqueCountMapper1 extends
-		Mapper<LongWritable, LongWritable, NullWritable, LongWritable> {
+		StageMapper<LongWritable, LongWritable, NullWritable, LongWritable> {
 	@Override
 	public void map(LongWritable _key, LongWritable _value, Context context)
 			throws IOException, InterruptedException {
@@ -136,12 +146,14 @@ class CliqueCountMapper1 extends
 }
 
 class CliqueCountMapper2 extends
-		Mapper<LongWritable, HVArray, NullWritable, LongWritable> {
+		StageMapper<LongWritable, HVArray, NullWritable, LongWritable> {
+	private LongWritable outputValue = new LongWritable();
 	@Override
 	public void map(LongWritable _key, HVArray _value, Context context)
 			throws IOException, InterruptedException {
 		long count = CliqueEncoder.getNumCliquesFromEncodedArray(_value.toArrays());
-		context.write(NullWritable.get(), new LongWritable(count));
+		outputValue.set(count);
+		context.write(NullWritable.get(), outputValue);
 		//System.out.println(HyperVertex.VertexID(_key.get()) + "\t" + count);
 	}
 }
@@ -1,6 +1,5 @@
 package dbg.hadoop.subgenum.frame;
 
-import gnu.trove.map.hash.TLongLongHashMap;
 import gnu.trove.set.hash.TLongHashSet;
 
 import java.io.IOException;
@@ -8,12 +7,9 @@ import java.io.IOException;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.filecache.DistributedCache;
 import org.apache.hadoop.fs.FileStatus;
-import org.apache.hadoop.fs.LocalFileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.io.SequenceFile;
 import org.apache.hadoop.io.Text;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
 import org.apache.hadoop.util.ToolRunner;
@@ -25,6 +21,8 @@ import dbg.hadoop.subgraphs.utils.Graph;
 import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.utils.InputInfo;
 import dbg.hadoop.subgraphs.utils.Utility;
+import dbg.hadoop.subgraphs.utils.offheap.LongLongMap;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 @SuppressWarnings("deprecation")
 public class EnumCliqueDebug {
@@ -77,7 +75,7 @@ public class EnumCliqueDebug {
 }
 
 class EnumCliqueV1DebugReducer extends
-		Reducer<LongWritable, HVArray, LongWritable, Text> {
+		StageReducer<LongWritable, HVArray, LongWritable, Text> {
 	// private static TLongLongHashMap cliqueMap = null;
 
 	@Override
@@ -106,8 +104,8 @@ class EnumCliqueV1DebugReducer extends
 }
 
 class EnumCliqueV2DebugReducer extends
-		Reducer<LongWritable, HVArray, LongWritable, Text> {
-	private static TLongLongHashMap cliqueMap = null;
+		StageReducer<LongWritable, HVArray, LongWritable, Text> {
+	private static LongLongMap cliqueMap = null;
 	private static TLongHashSet localCliqueSet = null;
 	private static Graph g = null;
 	
@@ -116,7 +114,7 @@ class EnumCliqueV2DebugReducer extends
 			Context context) throws IOException, InterruptedException {
 		g.clear();
 		int cnt = 0;
-		boolean mapHasKey = cliqueMap.contains(_key.get());
+		boolean mapHasKey = cliqueMap.containsKey(_key.get());
 		boolean noAddEdge = mapHasKey;
 		for (HVArray val : values) {
 			noAddEdge = mapHasKey;
@@ -154,47 +152,14 @@ class EnumCliqueV2DebugReducer extends
 	public void setup(Context context) throws IOException {
 		Configuration conf = context.getConfiguration();
 		g = new Graph();
-		if (cliqueMap == null) {
-			localCliqueSet = new TLongHashSet();
-			cliqueMap = new TLongLongHashMap();
-			Path[] paths = DistributedCache.getLocalCacheFiles(conf);
-			for (int i = 0; i < paths.length; ++i) {
-				if (paths[i].toString().contains("part-r-")) {
-					LocalFileSystem fs = new LocalFileSystem();
-					if (paths[i].toString().contains("part-r-")
-							&& !paths[i].toString().endsWith(".crc")) {
-						SequenceFile.Reader reader = new SequenceFile.Reader(
-								fs, paths[i], conf);
-						LongWritable key = null;
-						HVArray val = null;
-						try {
-							key = (LongWritable) reader.getKeyClass()
-									.newInstance();
-							val = (HVArray) reader.getValueClass()
-									.newInstance();
-						} catch (InstantiationException e) {
-							e.printStackTrace();
-						} catch (IllegalAccessException e) {
-							e.printStackTrace();
-						}
-						while (reader.next(key, val)) {
-							for (long v : val.toArrays()) {
-								cliqueMap.put(v, key.get());
-							}
-						}
-						reader.close();
-					}
-				}
-			}
-		}
+		localCliqueSet = new TLongHashSet();
+		// Shared with the other tasks of this JVM, never modified
+		cliqueMap = Utility.getCliqueMap(conf);
 	}
 	
 	@Override
 	public void cleanup(Context context){
-		if(cliqueMap != null){
-			cliqueMap.clear();
-			cliqueMap = null;
-		}
+		cliqueMap = null;
 	}
 }
 
@@ -1,6 +1,5 @@
 package dbg.hadoop.subgenum.frame;
 
-import gnu.trove.map.hash.TLongLongHashMap;
 import gnu.trove.set.hash.TLongHashSet;
 
 import java.io.IOException;
@@ -8,23 +7,23 @@ import java.io.IOException;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.filecache.DistributedCache;
 import org.apache.hadoop.fs.FileStatus;
-import org.apache.hadoop.fs.LocalFileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.io.SequenceFile;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
-import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.util.ToolRunner;
 
 import dbg.hadoop.subgraphs.io.HVArray;
+import dbg.hadoop.subgraphs.io.LoadAwarePartitioner;
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.Graph;
 import dbg.hadoop.subgraphs.utils.InputInfo;
 import dbg.hadoop.subgraphs.utils.CliqueEncoder;
 import dbg.hadoop.subgraphs.utils.Utility;
+import dbg.hadoop.subgraphs.utils.offheap.LongLongMap;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 @SuppressWarnings("deprecation")
 public class EnumCliqueV2 {
@@ -37,13 +36,19 @@ public class EnumCliqueV2 {
 		Configuration conf = new Configuration();
 		conf.setBoolean("count.only", isCountOnly);
 		conf.setStrings("clique.number.vertices", inputInfo.cliqueNumVertices);
+		if(inputInfo.isLoadAware){
+			LoadAwarePartitioner.configure(conf, workDir, inputInfo.cliqueNumVertices + "clique",
+					Integer.parseInt(inputInfo.numReducers), inputInfo.loadCost);
+		}
 		
 		FileStatus[] files = Utility.getFS().listStatus(new Path(workDir + Config.cliques));
 		for(FileStatus f : files){
 			DistributedCache.addCacheFile(f.getPath().toUri(), conf);
 		}
 
-		String[] opts = { workDir + "triangle.res", "", workDir + "frame.clique.res",	
+		String triangleDir = CorePruning.getTriangleDir(inputInfo,
+				Integer.parseInt(inputInfo.cliqueNumVertices) - 1);
+		String[] opts = { triangleDir, "", workDir + "frame.clique.res",	
 					inputInfo.numReducers, inputInfo.jarFile, inputInfo.cliqueNumVertices};
 		
 
@@ -75,28 +80,34 @@ public class EnumCliqueV2 {
 }
 
 class EnumCliqueV2Mapper extends
-	Mapper<NullWritable, HVArray, LongWritable, HVArray> {
+	StageMapper<NullWritable, HVArray, LongWritable, HVArray> {
+	private LongWritable outputKey = new LongWritable();
+	private HVArray outputValue = new HVArray();
 	@Override
 	public void map(NullWritable _key, HVArray _value, Context context)
 			throws IOException, InterruptedException {
-		context.write(new LongWritable(_value.getFirst()),
-				new HVArray(_value.getSecond(), _value.getLast()));
+		outputKey.set(_value.getFirst());
+		outputValue.set(_value.getSecond(), _value.getLast());
+		context.write(outputKey, outputValue);
 	}
 }
 
 class EnumCliqueV2EnumReducer extends
-		Reducer<LongWritable, HVArray, LongWritable, HVArray> {
-	private static TLongLongHashMap cliqueMap = null;
+		StageReducer<LongWritable, HVArray, LongWritable, HVArray> {
+	private static LongLongMap cliqueMap = null;
 	private static TLongHashSet localCliqueSet = null;
 	private static boolean isCountOnly = false;
+	private static boolean recordLoad = false;
 	private static Graph g = null;
+	private HVArray outputValue = new HVArray();
 	
 	@Override
 	public void reduce(LongWritable _key, Iterable<HVArray> values,
 			Context context) throws IOException, InterruptedException {
+		long begin = System.nanoTime();
 		g.clear();
 		localCliqueSet.clear();
-		boolean mapHasKey = cliqueMap.contains(_key.get());
+		boolean mapHasKey = cliqueMap.containsKey(_key.get());
 		boolean noAddEdge = mapHasKey;
 		for (HVArray val : values) {
 			noAddEdge = mapHasKey;
@@ -118,76 +129,53 @@ class EnumCliqueV2EnumReducer extends
 		Configuration conf = context.getConfiguration();
 		int k = Integer.parseInt(conf.get("clique.number.vertices"));
 		long[] cliqueEnc = g.enumClique(k - 1, _key.get(), isCountOnly);
-		if(cliqueEnc != null)
-			context.write(_key, new HVArray(cliqueEnc));
+		if(cliqueEnc != null){
+			outputValue.set(cliqueEnc);
+			context.write(_key, outputValue);
+		}
+		if(recordLoad){
+			LoadAwarePartitioner.record(context, _key.get(), begin);
+		}
 	}
 	
 	@Override
 	public void setup(Context context) throws IOException {
 		Configuration conf = context.getConfiguration();
 		isCountOnly = conf.getBoolean("count.only", false);
+		recordLoad = LoadAwarePartitioner.isRecording(conf);
 		g = new Graph();
-		if (cliqueMap == null) {
-			localCliqueSet = new TLongHashSet();
-			cliqueMap = new TLongLongHashMap();
-			Path[] paths = DistributedCache.getLocalCacheFiles(conf);
-			LongWritable key = null;
-			HVArray val = null;
-			for (int i = 0; i < paths.length; ++i) {
-				if (paths[i].toString().contains("part-r-")) {
-					LocalFileSystem fs = new LocalFileSystem();
-					if (paths[i].toString().contains("part-r-")
-							&& !paths[i].toString().endsWith(".crc")) {
-						SequenceFile.Reader reader = new SequenceFile.Reader(
-								fs, paths[i], conf);
-						try {
-							key = (LongWritable) reader.getKeyClass()
-									.newInstance();
-							val = (HVArray) reader.getValueClass()
-									.newInstance();
-						} catch (InstantiationException e) {
-							e.printStackTrace();
-						} catch (IllegalAccessException e) {
-							e.printStackTrace();
-						}
-						while (reader.next(key, val)) {
-							for (long v : val.toArrays()) {
-								cliqueMap.put(v, key.get());
-							}
-						}
-						reader.close();
-					}
-				}
-			}
-		}
+		localCliqueSet = new TLongHashSet();
+		// Shared with the other tasks of this JVM, never modified
+		cliqueMap = Utility.getCliqueMap(conf);
 	}
 	
 	@Override
 	public void cleanup(Context context){
-		if(cliqueMap != null){
-			cliqueMap.clear();
-			cliqueMap = null;
-		}
+		cliqueMap = null;
 	}
 }
 
 class CliqueCountV2Mapper1 extends
-		Mapper<LongWritable, HVArray, NullWritable, LongWritable> {
+		StageMapper<LongWritable, HVArray, NullWritable, LongWritable> {
+	private LongWritable outputValue = new LongWritable();
 	@Override
 	public void map(LongWritable _key, HVArray _value, Context context)
 			throws IOException, InterruptedException {
-		context.write(NullWritable.get(), new LongWritable(_value.getFirst()));
+		outputValue.set(_value.getFirst());
+		context.write(NullWritable.get(), outputValue);
 		//System.out.println(HyperVertex.VertexID(_key.get()) + "\t" + _value.getFirst());
 	}
 }
 
 class CliqueCountV2Mapper2 extends
-		Mapper<LongWritable, HVArray, NullWritable, LongWritable> {
+		StageMapper<LongWritable, HVArray, NullWritable, LongWritable> {
+	private LongWritable outputValue = new LongWritable();
 	@Override
 	public void map(LongWritable _key, HVArray _value, Context context)
 			throws IOException, InterruptedException {
 		long count = CliqueEncoder.getNumCliquesFromEncodedArrayV2(_value.toArrays());
-		context.write(NullWritable.get(), new LongWritable(count));
+		outputValue.set(count);
+		context.write(NullWritable.get(), outputValue);
 		//if (_key.get() == HyperVertex.get(100009, 15))
 		//System.out.println(HyperVertex.VertexID(_key.get()) + "\t" + count);
 	}
@@ -4,28 +4,36 @@ import gnu.trove.list.array.TLongArrayList;
 import gnu.trove.set.hash.TLongHashSet;
 
 import java.io.IOException;
+import java.nio.LongBuffer;
 import java.util.Arrays;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.InputFormat;
 import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.Mapper.Context;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
 import org.apache.hadoop.util.ToolRunner;
 
+import dbg.hadoop.subgraphs.io.CSRAdjListInputFormat;
+import dbg.hadoop.subgraphs.io.CSRGraphWriter;
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HVArrayGroupComparator;
 import dbg.hadoop.subgraphs.io.HVArraySign;
 import dbg.hadoop.subgraphs.io.HVArraySignComparator;
 import dbg.hadoop.subgraphs.io.HyperVertexAdjList;
+import dbg.hadoop.subgraphs.io.TriangleIndex;
 import dbg.hadoop.subgraphs.utils.BinarySearch;
 import dbg.hadoop.subgraphs.utils.BloomFilterOpr;
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.Utility;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 public class EnumHouse {
 
@@ -40,9 +48,9 @@ public class EnumHouse {
 		}
 		inputInfo.isCountOnly = isCountOnly;
 		
-		// Partition the square
-		conf.setBoolean("enum.house.square.partition", inputInfo.isSquarePartition);
-		if(inputInfo.isSquarePartition){
+		// Partition the square, which the square job already does when it splits the heavy groups
+		conf.setBoolean("enum.house.square.partition", inputInfo.isSquarePartition || inputInfo.isSkewSplit);
+		if(inputInfo.isSquarePartition && !inputInfo.isSkewSplit){
 			GeneralPartitioner.run(workDir + "frame.square.res", inputInfo.squarePartitionThresh, 
 					inputInfo.numReducers, inputInfo.jarFile);
 		}
@@ -51,7 +59,7 @@ public class EnumHouse {
 		String[] opts2 = { workDir + "triangle.res", workDir + "frame.square.res",	
 				workDir + "frame.house.res", inputInfo.numReducers, inputInfo.jarFile };
 		
-		if(inputInfo.isSquarePartition){
+		if(inputInfo.isSquarePartition && !inputInfo.isSkewSplit){
 			opts2[1] = workDir + "frame.square.res.part";
 		}
 		
@@ -71,6 +79,18 @@ public class EnumHouse {
 						SequenceFileOutputFormat.class,
 						HVArraySignComparator.class,
 						HVArrayGroupComparator.class), opts2);
+			} else if (TriangleBroadcast.configure(conf, inputInfo)) {
+				// Map-only, the squares probe the broadcast triangle index
+				String[] opts3 = { opts2[1], "", opts2[2], "0", inputInfo.jarFile };
+				ToolRunner.run(conf, new GeneralDriver(
+						"Frame House Broadcast",
+						EnumHouseBroadcastMapper.class,
+						null,
+						NullWritable.class,
+						LongWritable.class, // OutputKV
+						SequenceFileInputFormat.class,
+						SequenceFileOutputFormat.class,
+						null), opts3);
 			} else {
 				ToolRunner.run(conf, new GeneralDriver(
 						"Frame House",
@@ -90,16 +110,28 @@ public class EnumHouse {
 		}
 		else{ // The non-overlapping case, using twintwig instead of triangle
 			opts2[0] = workDir + Config.adjListDir + "." + inputInfo.maxSize;
+			@SuppressWarnings("rawtypes")
+			Class<? extends InputFormat> adjListInputFormat = SequenceFileInputFormat.class;
+			// The twintwigs of the batch are already in the map output format
+			String twinTwigs = QueryBatch.getTwinTwigs(inputInfo, QueryBatch.HOUSE);
+			if(twinTwigs != null){
+				opts2[0] = twinTwigs;
+			}
+			else if(inputInfo.isCSRInput){
+				opts2[0] = CSRGraphWriter.ensure(Utility.getFS(), workDir).toString();
+				adjListInputFormat = CSRAdjListInputFormat.class;
+				CSRAdjListInputFormat.configure(conf, new Path(opts2[0]), inputInfo.maxSize, inputInfo.workBudget);
+			}
 			ToolRunner.run(conf, new GeneralDriver(
 					"Frame House",
-					EnumHouseTTMapper.class,
+					twinTwigs != null ? Mapper.class : EnumHouseTTMapper.class,
 					EnumHouseSquareMapper.class,
 					EnumHouseCountReducer.class,
 					NullWritable.class,
 					LongWritable.class, // OutputKV
 					HVArraySign.class,
 					HVArray.class, // MapOutputKV
-					SequenceFileInputFormat.class,
+					adjListInputFormat,
 					SequenceFileInputFormat.class,
 					SequenceFileOutputFormat.class,
 					HVArraySignComparator.class,
@@ -125,17 +157,22 @@ public class EnumHouse {
 }
 
 class EnumHouseTriangleMapper extends
-	Mapper<NullWritable, HVArray, HVArraySign, HVArray>{
+	StageMapper<NullWritable, HVArray, HVArraySign, HVArray>{
+	private HVArraySign outputKey = new HVArraySign();
+	private HVArray outputValue = new HVArray();
 	
 	@Override
 	public void map(NullWritable _key, HVArray _value, Context context) 
 		throws IOException, InterruptedException {
-			context.write(new HVArraySign(_value.getSecond(), _value.getLast(), Config.SMALLSIGN),
-					new HVArray(_value.getFirst()));
-			context.write(new HVArraySign(_value.getFirst(), _value.getLast(), Config.SMALLSIGN),
-					new HVArray(_value.getSecond()));
-			context.write(new HVArraySign(_value.getFirst(), _value.getSecond(), Config.SMALLSIGN),
-					new HVArray(_value.getLast()));
+			outputKey.set(_value.getSecond(), _value.getLast(), Config.SMALLSIGN);
+			outputValue.set(_value.getFirst());
+			context.write(outputKey, outputValue);
+			outputKey.set(_value.getFirst(), _value.getLast(), Config.SMALLSIGN);
+			outputValue.set(_value.getSecond());
+			context.write(outputKey, outputValue);
+			outputKey.set(_value.getFirst(), _value.getSecond(), Config.SMALLSIGN);
+			outputValue.set(_value.getLast());
+			context.write(outputKey, outputValue);
 	}
 }
 
@@ -145,7 +182,8 @@ class EnumHouseTriangleMapper extends
  *
  */
 class EnumHouseTTMapper extends
-	Mapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
+	StageMapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
+	private HVArraySign outputKey = new HVArraySign();
 
 
 	@Override
@@ -162,8 +200,8 @@ class EnumHouseTTMapper extends
 			// Generate TwinTwig 1
 			for (int i = 0; i < largerThanThis.length - 1; ++i) {
 				for (int j = i + 1; j < largerThanThis.length; ++j) {
-					context.write(new HVArraySign(largerThanThis[i],
-							largerThanThis[j], Config.SMALLSIGN), outputVal);
+					outputKey.set(largerThanThis[i], largerThanThis[j], Config.SMALLSIGN);
+					context.write(outputKey, outputVal);
 				}
 			}
 		}
@@ -172,13 +210,13 @@ class EnumHouseTTMapper extends
 			for (int i = 0; i < smallerThanThisG1.length; ++i) {
 				// Generate TwinTwig 3
 				for (int k = i + 1; k < smallerThanThisG1.length; ++k) {
-					context.write(new HVArraySign(smallerThanThisG1[i],
-								smallerThanThisG1[k], Config.SMALLSIGN), outputVal);
+					outputKey.set(smallerThanThisG1[i], smallerThanThisG1[k], Config.SMALLSIGN);
+					context.write(outputKey, outputVal);
 				}
 				// Generate TwinTwig 2
 				for (int j = 0; j < largerThanThis.length; ++j) {
-					context.write(new HVArraySign(smallerThanThisG1[i],
-								largerThanThis[j], Config.SMALLSIGN), outputVal);
+					outputKey.set(smallerThanThisG1[i], largerThanThis[j], Config.SMALLSIGN);
+					context.write(outputKey, outputVal);
 				}
 			}
 		}
@@ -186,8 +224,8 @@ class EnumHouseTTMapper extends
 		else {
 			for (int i = 0; i < smallerThanThisG0.length; ++i) {
 				for (int j = 0; j < smallerThanThisG1.length; ++j) {
-					context.write(new HVArraySign(smallerThanThisG0[i],
-							smallerThanThisG1[j], Config.SMALLSIGN), outputVal);
+					outputKey.set(smallerThanThisG0[i], smallerThanThisG1[j], Config.SMALLSIGN);
+					context.write(outputKey, outputVal);
 				}
 			}
 		}
@@ -195,12 +233,20 @@ class EnumHouseTTMapper extends
 }
 
 
-class EnumHouseSquareMapper extends
-		Mapper<HVArray, HVArray, HVArraySign, HVArray> {
+/**
+ * Unfolds the compressed squares of frame.square.res into the edges (v1, v2) they may share
+ * with a triangle, each with the square vertices (the vertex opposite to v1, then the others)
+ * that EnumHouseReducer and EnumHouseCountReducer join against the triangles of the edge
+ */
+abstract class HouseSquareMapper<KEYOUT, VALUEOUT> extends
+		StageMapper<HVArray, HVArray, KEYOUT, VALUEOUT> {
 	private static boolean enableBF = false;
 	private static BloomFilterOpr bloomfilterOpr = null;
 	private static boolean isSquarePartition = false;
 	
+	protected abstract void emit(long v1, long v2, TLongArrayList square, Context context)
+			throws IOException, InterruptedException;
+	
 	@Override
 	public void map(HVArray _key, HVArray _value, Context context)
 			throws IOException, InterruptedException {
@@ -237,8 +283,7 @@ class EnumHouseSquareMapper extends
 							HyperVertex.VertexID(v1), HyperVertex.VertexID(v2));
 				}
 				if (isOutput) {
-					context.write(new HVArraySign(v1, v2, Config.LARGESIGN),
-							new HVArray(arrayBuffer.toArray()));
+					emit(v1, v2, arrayBuffer, context);
 				}
 				arrayBuffer.set(0, v2);
 				if (enableBF) {
@@ -246,8 +291,7 @@ class EnumHouseSquareMapper extends
 							HyperVertex.VertexID(v1), HyperVertex.VertexID(v4));
 				}
 				if (isOutput) {
-					context.write(new HVArraySign(v1, v4, Config.LARGESIGN),
-							new HVArray(arrayBuffer.toArray()));
+					emit(v1, v4, arrayBuffer, context);
 				}
 				arrayBuffer.clear();
 			}
@@ -265,8 +309,7 @@ class EnumHouseSquareMapper extends
 							HyperVertex.VertexID(v2), HyperVertex.VertexID(v3));
 					}
 					if(isOutput){
-						context.write(new HVArraySign(v2, v3, Config.LARGESIGN),
-								new HVArray(arrayBuffer.toArray()));
+						emit(v2, v3, arrayBuffer, context);
 					}
 				}
 				else{
@@ -275,8 +318,7 @@ class EnumHouseSquareMapper extends
 							HyperVertex.VertexID(v3), HyperVertex.VertexID(v2));
 					}
 					if(isOutput){
-						context.write(new HVArraySign(v3, v2, Config.LARGESIGN),
-								new HVArray(arrayBuffer.toArray()));
+						emit(v3, v2, arrayBuffer, context);
 					}
 				}
 				arrayBuffer.set(0, v2);
@@ -286,8 +328,7 @@ class EnumHouseSquareMapper extends
 							HyperVertex.VertexID(v3), HyperVertex.VertexID(v4));
 					}
 					if(isOutput){
-						context.write(new HVArraySign(v3, v4, Config.LARGESIGN),
-								new HVArray(arrayBuffer.toArray()));
+						emit(v3, v4, arrayBuffer, context);
 					}
 				}
 				else{
@@ -296,8 +337,7 @@ class EnumHouseSquareMapper extends
 							HyperVertex.VertexID(v4), HyperVertex.VertexID(v3));
 					}
 					if(isOutput){
-						context.write(new HVArraySign(v4, v3, Config.LARGESIGN),
-								new HVArray(arrayBuffer.toArray()));
+						emit(v4, v3, arrayBuffer, context);
 					}
 				}
 				arrayBuffer.clear();
@@ -322,8 +362,7 @@ class EnumHouseSquareMapper extends
 					HyperVertex.VertexID(v1), HyperVertex.VertexID(v2));
 			}
 			if(isOutput){
-				context.write(new HVArraySign(v1, v2, Config.LARGESIGN),
-						new HVArray(arrayBuffer.toArray()));
+				emit(v1, v2, arrayBuffer, context);
 			}
 			arrayBuffer.set(0, v2);
 			if (enableBF) {
@@ -331,8 +370,7 @@ class EnumHouseSquareMapper extends
 					HyperVertex.VertexID(v1), HyperVertex.VertexID(v4));
 			}
 			if(isOutput){
-				context.write(new HVArraySign(v1, v4, Config.LARGESIGN),
-						new HVArray(arrayBuffer.toArray()));
+				emit(v1, v4, arrayBuffer, context);
 			}
 			arrayBuffer.clear();
 		}
@@ -349,8 +387,7 @@ class EnumHouseSquareMapper extends
 							HyperVertex.VertexID(v2), HyperVertex.VertexID(v3));
 					}
 					if(isOutput){
-						context.write(new HVArraySign(v2, v3, Config.LARGESIGN),
-								new HVArray(arrayBuffer.toArray()));
+						emit(v2, v3, arrayBuffer, context);
 					}
 				} else {
 					if (enableBF) {
@@ -358,8 +395,7 @@ class EnumHouseSquareMapper extends
 							HyperVertex.VertexID(v3), HyperVertex.VertexID(v2));
 					}
 					if(isOutput){
-						context.write(new HVArraySign(v3, v2, Config.LARGESIGN),
-								new HVArray(arrayBuffer.toArray()));
+						emit(v3, v2, arrayBuffer, context);
 					}
 				}
 				arrayBuffer.set(0, v2);
@@ -369,8 +405,7 @@ class EnumHouseSquareMapper extends
 							HyperVertex.VertexID(v3), HyperVertex.VertexID(v4));
 					}
 					if(isOutput){
-						context.write(new HVArraySign(v3, v4, Config.LARGESIGN),
-								new HVArray(arrayBuffer.toArray()));
+						emit(v3, v4, arrayBuffer, context);
 					}
 				} else {
 					if (enableBF) {
@@ -378,8 +413,7 @@ class EnumHouseSquareMapper extends
 							HyperVertex.VertexID(v4), HyperVertex.VertexID(v3));
 					}
 					if(isOutput){
-						context.write(new HVArraySign(v4, v3, Config.LARGESIGN),
-								new HVArray(arrayBuffer.toArray()));
+						emit(v4, v3, arrayBuffer, context);
 					}
 				}
 				arrayBuffer.clear();
@@ -388,7 +422,7 @@ class EnumHouseSquareMapper extends
 	}
 	
 	@Override
-	public void setup(Context context) {
+	public void setup(Context context) throws IOException {
 		Configuration conf = context.getConfiguration();
 		enableBF = false;
 		isSquarePartition = conf.getBoolean("enum.house.square.partition", false);
@@ -406,8 +440,66 @@ class EnumHouseSquareMapper extends
 	}
 }
 
+class EnumHouseSquareMapper extends HouseSquareMapper<HVArraySign, HVArray> {
+	private HVArraySign outputKey = new HVArraySign();
+	private HVArray outputValue = new HVArray();
+	
+	@Override
+	protected void emit(long v1, long v2, TLongArrayList square, Context context)
+			throws IOException, InterruptedException {
+		outputKey.set(v1, v2, Config.LARGESIGN);
+		outputValue.set(square.toArray());
+		context.write(outputKey, outputValue);
+	}
+}
+
+/**
+ * The broadcast variant of EnumHouseSquareMapper with EnumHouseCountReducer, in a map-only job:
+ * the triangles of an edge are probed in the TriangleIndex, nothing is shuffled
+ */
+class EnumHouseBroadcastMapper extends HouseSquareMapper<NullWritable, LongWritable> {
+	private TriangleIndex triangleIndex = null;
+	private PatternCounter counter = null;
+	private long count = 0L;
+	
+	@Override
+	protected void emit(long v1, long v2, TLongArrayList square, Context context) {
+		LongBuffer thirds = triangleIndex.getThirds(v1, v2);
+		if(thirds.limit() == 0){
+			return;
+		}
+		int tmpSize = TriangleIndex.countDistinct(thirds);
+		if(TriangleIndex.contains(thirds, square.get(0))){
+			tmpSize -= 1;
+		}
+		for(int j = 1; j < square.size(); ++j){
+			if(TriangleIndex.contains(thirds, square.get(j))){
+				count += (tmpSize - 1);
+			}
+			else{
+				count += tmpSize;
+			}
+		}
+	}
+	
+	@Override
+	public void setup(Context context) throws IOException {
+		super.setup(context);
+		triangleIndex = TriangleBroadcast.get(context.getConfiguration());
+		counter = new PatternCounter(context.getConfiguration());
+		count = 0L;
+	}
+	
+	@Override
+	public void cleanup(Context context) throws IOException, InterruptedException {
+		counter.add(context, count);
+		counter.flush(context);
+	}
+}
+
 class EnumHouseReducer extends
-	Reducer<HVArraySign, HVArray, HVArray, HVArray> {
+	StageReducer<HVArraySign, HVArray, HVArray, HVArray> {
+	private HVArray outputValue = new HVArray();
 	
 	//private static TLongArrayList triangleList = null;
 	private static TLongArrayList resList = null;
@@ -434,8 +526,10 @@ class EnumHouseReducer extends
 			}
 		}
 		resList.set(0, len);
-		if(len > 0)
-			context.write(new HVArray(_key.vertexArray), new HVArray(resList.toArray()));
+		if(len > 0){
+			outputValue.set(resList.toArray());
+			context.write(_key.vertexArray, outputValue);
+		}
 	}
 	
 	@Override
@@ -453,10 +547,11 @@ class EnumHouseReducer extends
 	}
 }
 
-class EnumHouseCountReducer extends Reducer<HVArraySign, HVArray, 
+class EnumHouseCountReducer extends StageReducer<HVArraySign, HVArray, 
 	NullWritable, LongWritable> {
 
 	private static TLongHashSet triSet = null;
+	private static PatternCounter counter = null;
 
 	@Override
 	public void reduce(HVArraySign _key, Iterable<HVArray> _values,
@@ -487,27 +582,29 @@ class EnumHouseCountReducer extends Reducer<HVArraySign, HVArray,
 			}
 		}
 
-		if (count > 0)
-			context.write(NullWritable.get(), new LongWritable(count));
+		counter.add(context, count);
 	}
 
 	@Override
 	public void setup(Context context) {
+		counter = new PatternCounter(context.getConfiguration());
 		// triangleList = new TLongArrayList();
 		triSet = new TLongHashSet();
 	}
 
 	@Override
 	public void cleanup(Context context) {
+		counter.flush(context);
 		triSet.clear();
 		triSet = null;
 	}
 }
 
 class HouseCountMapper extends
-		Mapper<HVArray, HVArray, NullWritable, LongWritable> {
+		StageMapper<HVArray, HVArray, NullWritable, LongWritable> {
 	
 	private static TLongHashSet triSet = null;
+	private LongWritable outputValue = new LongWritable();
 	
 	@Override
 	public void map(HVArray _key, HVArray _value, Context context)
@@ -545,7 +642,8 @@ class HouseCountMapper extends
 			System.out.println(HyperVertex.HVArrayToString(array));
 			System.exit(1);
 		}
-		context.write(NullWritable.get(), new LongWritable(count));
+		outputValue.set(count);
+		context.write(NullWritable.get(), outputValue);
 	}
 	
 	@Override
@@ -3,23 +3,19 @@ package dbg.hadoop.subgenum.frame;
 import gnu.trove.iterator.TLongIterator;
 import gnu.trove.list.array.TLongArrayList;
 import gnu.trove.list.linked.TLongLinkedList;
-import gnu.trove.map.hash.TLongLongHashMap;
 import gnu.trove.set.hash.TLongHashSet;
 
 import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.LongBuffer;
 import java.util.Arrays;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.filecache.DistributedCache;
 import org.apache.hadoop.fs.FileStatus;
-import org.apache.hadoop.fs.LocalFileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.io.SequenceFile;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
 import org.apache.hadoop.util.ToolRunner;
@@ -28,10 +24,14 @@ import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HVArrayGroupComparator;
 import dbg.hadoop.subgraphs.io.HVArraySign;
 import dbg.hadoop.subgraphs.io.HVArraySignComparator;
+import dbg.hadoop.subgraphs.io.TriangleIndex;
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.utils.InputInfo;
 import dbg.hadoop.subgraphs.utils.Utility;
+import dbg.hadoop.subgraphs.utils.offheap.LongLongMap;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 public class EnumNear5Clique {
 
@@ -76,6 +76,18 @@ public class EnumNear5Clique {
 					SequenceFileOutputFormat.class,
 					HVArraySignComparator.class, HVArrayGroupComparator.class),
 					opts);
+		} else if (TriangleBroadcast.configure(conf, inputInfo)) {
+			// Map-only, the cliques probe the broadcast triangle index
+			String[] opts2 = { opts[1], "", opts[2], "0", inputInfo.jarFile };
+			ToolRunner.run(conf, new GeneralDriver(
+					"Frame Near5Clique Broadcast",
+					EnumNear5CliqueBroadcastMapper.class,
+					null,
+					NullWritable.class,
+					LongWritable.class, // OutputKV
+					SequenceFileInputFormat.class,
+					SequenceFileOutputFormat.class,
+					null), opts2);
 		} else {
 			ToolRunner.run(conf, new GeneralDriver(
 					"Frame Near5Clique",
@@ -131,13 +143,25 @@ public class EnumNear5Clique {
  * @author robeen
  *
  */
-class EnumNear5CliqueMapper extends 
-	Mapper<LongWritable, HVArray, HVArraySign, HVArray> {
+abstract class Near5CliqueMapper<KEYOUT, VALUEOUT> extends 
+	StageMapper<LongWritable, HVArray, KEYOUT, VALUEOUT> {
 	
-	private static TLongLongHashMap cliqueMap = null;
+	private static LongLongMap cliqueMap = null;
 	private static TLongLinkedList list = null;
 	private static boolean isCompress = false;
 
+	/**
+	 * The edge (v1, v2) of a 4-clique with its two other vertices v3, v4
+	 */
+	protected abstract void emit(long v1, long v2, long v3, long v4, Context context)
+			throws IOException, InterruptedException;
+
+	/**
+	 * The edge (v1, v2) of the compressed cliques: v1, v2 with every two vertices of the array
+	 */
+	protected abstract void emit(long v1, long v2, long[] clique, Context context)
+			throws IOException, InterruptedException;
+
 	@Override
 	public void map(LongWritable _key, HVArray _value, Context context)
 		throws IOException, InterruptedException {
@@ -184,18 +208,12 @@ class EnumNear5CliqueMapper extends
 			return;
 		}
 		for(int i = 0; i < array.length; i += 3){
-			context.write(new HVArraySign(key.get(), array[i], Config.LARGESIGN), 
-				new HVArray(array[i + 1], array[i + 2]));
-			context.write(new HVArraySign(key.get(), array[i + 1], Config.LARGESIGN), 
-				new HVArray(array[i], array[i + 2]));
-			context.write(new HVArraySign(key.get(), array[i + 2], Config.LARGESIGN), 
-				new HVArray(array[i], array[i + 1]));
-			context.write(new HVArraySign(array[i], array[i + 1], Config.LARGESIGN), 
-				new HVArray(key.get(), array[i + 2]));
-			context.write(new HVArraySign(array[i], array[i + 2], Config.LARGESIGN), 
-				new HVArray(key.get(), array[i + 1]));
-			context.write(new HVArraySign(array[i + 1], array[i + 2], Config.LARGESIGN), 
-				new HVArray(key.get(), array[i]));
+			emit(key.get(), array[i], array[i + 1], array[i + 2], context);
+			emit(key.get(), array[i + 1], array[i], array[i + 2], context);
+			emit(key.get(), array[i + 2], array[i], array[i + 1], context);
+			emit(array[i], array[i + 1], key.get(), array[i + 2], context);
+			emit(array[i], array[i + 2], key.get(), array[i + 1], context);
+			emit(array[i + 1], array[i + 2], key.get(), array[i], context);
 		}
 	}
 
@@ -212,8 +230,7 @@ class EnumNear5CliqueMapper extends
 			for (int i = 0; i < array.length; ++i) {
 				v1 = array[i];
 				list.removeAt(i);
-				context.write(new HVArraySign(v0, v1, Config.LARGESIGN),
-						new HVArray(list.toArray()));
+				emit(v0, v1, list.toArray(), context);
 				list.insert(i, v1);
 			}
 			list.insert(0, v0);
@@ -225,8 +242,7 @@ class EnumNear5CliqueMapper extends
 					v1 = array[j];
 					list.removeAt(i + 1);
 					list.removeAt(j);
-					context.write(new HVArraySign(v0, v1, Config.LARGESIGN),
-							new HVArray(list.toArray()));
+					emit(v0, v1, list.toArray(), context);
 					// Add back i, j
 					list.insert(i + 1, v0);
 					list.insert(j + 1, v1);
@@ -291,49 +307,105 @@ class EnumNear5CliqueMapper extends
 		Configuration conf = context.getConfiguration();
 		isCompress = conf.getBoolean("result.compression", false);
 		list = new TLongLinkedList();
-		if (cliqueMap == null) {
-			cliqueMap = new TLongLongHashMap();
-			Path[] paths = DistributedCache.getLocalCacheFiles(conf);
-			for (int i = 0; i < paths.length; ++i) {
-				if (paths[i].toString().contains("part-r-")) {
-					LocalFileSystem fs = new LocalFileSystem();
-					if (paths[i].toString().contains("part-r-")
-							&& !paths[i].toString().endsWith(".crc")) {
-						SequenceFile.Reader reader = new SequenceFile.Reader(
-								fs, paths[i], conf);
-						LongWritable key = null;
-						HVArray val = null;
-						try {
-							key = (LongWritable) reader.getKeyClass()
-									.newInstance();
-							val = (HVArray) reader.getValueClass()
-									.newInstance();
-						} catch (InstantiationException e) {
-							e.printStackTrace();
-						} catch (IllegalAccessException e) {
-							e.printStackTrace();
-						}
-						while (reader.next(key, val)) {
-							for (long v : val.toArrays()) {
-								cliqueMap.put(v, key.get());
-							}
-						}
-						reader.close();
-					}
-				}
-			}
-		}
+		// Shared with the other tasks of this JVM, never modified
+		cliqueMap = Utility.getCliqueMap(conf);
 	}
 
 	@Override
-	public void cleanup(Context context){
+	public void cleanup(Context context) throws IOException, InterruptedException{
 		list.clear();
 		list = null;
 	}
 }
 
+class EnumNear5CliqueMapper extends Near5CliqueMapper<HVArraySign, HVArray> {
+	private HVArraySign outputKey = new HVArraySign();
+	private HVArray outputValue = new HVArray();
+
+	@Override
+	protected void emit(long v1, long v2, long v3, long v4, Context context)
+			throws IOException, InterruptedException {
+		outputKey.set(v1, v2, Config.LARGESIGN);
+		outputValue.set(v3, v4);
+		context.write(outputKey, outputValue);
+	}
+
+	@Override
+	protected void emit(long v1, long v2, long[] clique, Context context)
+			throws IOException, InterruptedException {
+		outputKey.set(v1, v2, Config.LARGESIGN);
+		outputValue.set(clique);
+		context.write(outputKey, outputValue);
+	}
+}
+
+/**
+ * The broadcast variant of EnumNear5CliqueMapper with EnumNear5CliqueCountReducer, in a
+ * map-only job: the triangles of an edge are probed in the TriangleIndex
+ */
+class EnumNear5CliqueBroadcastMapper extends Near5CliqueMapper<NullWritable, LongWritable> {
+	private TriangleIndex triangleIndex = null;
+	private PatternCounter counter = null;
+	private long count = 0L;
+
+	@Override
+	protected void emit(long v1, long v2, long v3, long v4, Context context) {
+		LongBuffer thirds = triangleIndex.getThirds(v1, v2);
+		if(thirds.limit() == 0){
+			return;
+		}
+		count += TriangleIndex.countDistinct(thirds);
+		if(TriangleIndex.contains(thirds, v3)){
+			count -= 1;
+		}
+		if(TriangleIndex.contains(thirds, v4)){
+			count -= 1;
+		}
+	}
+
+	@Override
+	protected void emit(long v1, long v2, long[] clique, Context context) {
+		if(clique.length <= 2){
+			if(clique.length == 2){
+				emit(v1, v2, clique[0], clique[1], context);
+			}
+			return;
+		}
+		LongBuffer thirds = triangleIndex.getThirds(v1, v2);
+		if(thirds.limit() == 0){
+			return;
+		}
+		int triSize = TriangleIndex.countDistinct(thirds);
+		int numIn = 0;
+		for(int j = 0; j < clique.length; ++j){
+			if(TriangleIndex.contains(thirds, clique[j])){
+				++numIn;
+			}
+		}
+		// Every pair (j, k) adds triSize, minus one for each of them that is a third vertex
+		long n = clique.length;
+		count += (n * (n - 1) / 2) * triSize - numIn * (n - 1);
+	}
+
+	@Override
+	public void setup(Context context) throws IOException{
+		super.setup(context);
+		triangleIndex = TriangleBroadcast.get(context.getConfiguration());
+		counter = new PatternCounter(context.getConfiguration());
+		count = 0L;
+	}
+
+	@Override
+	public void cleanup(Context context) throws IOException, InterruptedException{
+		counter.add(context, count);
+		counter.flush(context);
+		super.cleanup(context);
+	}
+}
+
 class EnumNear5CliqueReducer extends
-	Reducer<HVArraySign, HVArray, HVArray, HVArray> {
+	StageReducer<HVArraySign, HVArray, HVArray, HVArray> {
+	private HVArray outputValue = new HVArray();
 	
 	//private static TLongArrayList triangleList = null;
 	private static TLongArrayList resList = null;
@@ -371,7 +443,8 @@ class EnumNear5CliqueReducer extends
 						long v3 = value.getFirst();
 						long v4 = value.getSecond();
 						if(v1 != v3 && v1 != v4) {
-							context.write(new HVArray(_key.vertexArray), new HVArray(v1, v3, v4));
+							outputValue.set(v1, v3, v4);
+							context.write(_key.vertexArray, outputValue);
 						}
 					}
 				}	
@@ -379,8 +452,10 @@ class EnumNear5CliqueReducer extends
 		}
 		if(isCompress) {
 			resList.set(0, len);
-			if(len > 0)
-				context.write(new HVArray(_key.vertexArray), new HVArray(resList.toArray()));
+			if(len > 0){
+				outputValue.set(resList.toArray());
+				context.write(_key.vertexArray, outputValue);
+			}
 		}
 	}
 	
@@ -398,10 +473,11 @@ class EnumNear5CliqueReducer extends
 }
 
 class EnumNear5CliqueCountReducer extends
-		Reducer<HVArraySign, HVArray, NullWritable, LongWritable> {
+		StageReducer<HVArraySign, HVArray, NullWritable, LongWritable> {
 
 	// private static TLongArrayList triangleList = null;
 	private static TLongHashSet triSet = null;
+	private static PatternCounter counter = null;
 	private static boolean isCompress = false;
 
 	@Override
@@ -458,12 +534,12 @@ class EnumNear5CliqueCountReducer extends
 				}
 			}
 		}
-		if(count > 0)
-			context.write(NullWritable.get(), new LongWritable(count));
+		counter.add(context, count);
 	}
 
 	@Override
 	public void setup(Context context) {
+		counter = new PatternCounter(context.getConfiguration());
 		triSet = new TLongHashSet();
 		isCompress = context.getConfiguration().getBoolean(
 				"result.compression", false);
@@ -471,15 +547,17 @@ class EnumNear5CliqueCountReducer extends
 
 	@Override
 	public void cleanup(Context context) {
+		counter.flush(context);
 		triSet.clear();
 		triSet = null;
 	}
 }
 
 class Near5CliqueCountMapper extends
-		Mapper<HVArray, HVArray, NullWritable, LongWritable> {
+		StageMapper<HVArray, HVArray, NullWritable, LongWritable> {
 	
 	private static TLongHashSet triSet = null;
+	private LongWritable outputValue = new LongWritable();
 	
 	@Override
 	public void map(HVArray _key, HVArray _value, Context context)
@@ -528,8 +606,10 @@ class Near5CliqueCountMapper extends
 				i += cliqueSize + 1;
 			}
 		}
-		if(count > 0)
-			context.write(NullWritable.get(), new LongWritable(count));
+		if(count > 0){
+			outputValue.set(count);
+			context.write(NullWritable.get(), outputValue);
+		}
 	}
 	
 	@Override
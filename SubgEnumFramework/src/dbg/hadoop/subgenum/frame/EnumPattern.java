@@ -0,0 +1,598 @@
+package dbg.hadoop.subgenum.frame;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.util.ToolRunner;
+import org.apache.log4j.Logger;
+
+import dbg.hadoop.subgenum.planner.DegreeStats;
+import dbg.hadoop.subgenum.planner.JoinUnit;
+import dbg.hadoop.subgenum.planner.PatternGraph;
+import dbg.hadoop.subgenum.planner.PlanNode;
+import dbg.hadoop.subgenum.planner.QueryPlanner;
+import dbg.hadoop.subgraphs.io.HVArray;
+import dbg.hadoop.subgraphs.io.HVArrayGroupComparator;
+import dbg.hadoop.subgraphs.io.HVArraySign;
+import dbg.hadoop.subgraphs.io.HVArraySignComparator;
+import dbg.hadoop.subgraphs.io.HyperVertexAdjList;
+import dbg.hadoop.subgraphs.utils.Config;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.Utility;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
+
+/**
+ * Enumerate an arbitrary pattern (enum.pattern=0-1,1-2,...) with the plan chosen by
+ * {@link QueryPlanner}: every join of the plan is one job, whose reducers join the matches
+ * of its two sides on their common pattern vertices. <br>
+ * A side is a star unit (read from adjList2.0), a triangle unit (read from triangle.res) or the
+ * output of an earlier join, which is (NullWritable, HVArray) with the data vertices in the
+ * order of the pattern vertex ids.
+ */
+public class EnumPattern {
+	private static Logger log = Logger.getLogger(EnumPattern.class);
+
+	public static final String RES = "frame.pattern.res";
+	public static final String CNT = "frame.pattern.cnt";
+
+	public static void run(InputInfo inputInfo) throws Exception{
+		String workDir = inputInfo.workDir;
+		PatternGraph pattern = new PatternGraph(inputInfo.pattern);
+		boolean useTriangles = Utility.getFS().exists(new Path(workDir + "triangle.res"));
+		DegreeStats stats = DegreeStats.read(Utility.getFS(),
+				new Path(workDir + Config.degreeFileDir), pattern.size() - 1);
+
+		PlanNode plan = new QueryPlanner(pattern, stats, useTriangles).plan(inputInfo.planMode);
+		log.info("[Frame-pattern] Pattern: " + pattern + ", plan: " + plan + ", jobs: "
+				+ Math.max(1, plan.numJoins()));
+
+		List<String> tmpDirs = new ArrayList<String>();
+		execute(inputInfo, pattern, plan, true, tmpDirs);
+		for(String dir : tmpDirs){
+			Utility.getFS().delete(new Path(dir), true);
+		}
+	}
+
+	/**
+	 * Run the jobs of the sub-plan in post-order
+	 * @return The output directory of the node
+	 */
+	@SuppressWarnings("rawtypes")
+	private static String execute(InputInfo inputInfo, PatternGraph pattern, PlanNode node,
+			boolean isRoot, List<String> tmpDirs) throws Exception{
+		String workDir = inputInfo.workDir;
+		if(node.isUnit() && !isRoot){
+			return unitInput(workDir, node.getUnit());
+		}
+		String outputDir = isRoot ? workDir + RES : workDir + RES + "." + (tmpDirs.size() + 1);
+		if(!isRoot){
+			tmpDirs.add(outputDir);
+		}
+
+		Configuration conf = new Configuration();
+		conf.setBoolean("result.compression", inputInfo.isResultCompression);
+		conf.set(PatternSide.PATTERN, pattern.toString());
+		conf.set(PatternSide.OUTPUT, PatternSide.toList(node.getVertexMask()));
+		boolean countOnly = isRoot && inputInfo.isCountOnly;
+		conf.setBoolean(PatternSide.COUNT_ONLY, countOnly);
+
+		String[] opts = { "", "", outputDir, inputInfo.numReducers, inputInfo.jarFile };
+		Class<? extends Mapper> mapper1 = PatternLeftMapper.class;
+		Class<? extends Mapper> mapper2 = null;
+		if(node.isUnit()){
+			// A single unit pattern: scan it
+			conf.setInt(PatternSide.NUM_SIDES, 1);
+			conf.set(PatternSide.KEY, String.valueOf(node.getUnit().getVertices()[0]));
+			setSide(conf, 0, node);
+			opts[0] = unitInput(workDir, node.getUnit());
+		}
+		else{
+			String leftInput = execute(inputInfo, pattern, node.getLeft(), false, tmpDirs);
+			String rightInput = execute(inputInfo, pattern, node.getRight(), false, tmpDirs);
+			conf.setInt(PatternSide.NUM_SIDES, 2);
+			conf.set(PatternSide.KEY, PatternSide.toList(
+					node.getLeft().getVertexMask() & node.getRight().getVertexMask()));
+			setSide(conf, 0, node.getLeft());
+			setSide(conf, 1, node.getRight());
+			opts[0] = leftInput;
+			if(leftInput.equals(rightInput)){
+				// Both sides are read from the same input, which MultipleInputs can only map once
+				mapper1 = PatternBothMapper.class;
+			}
+			else{
+				opts[1] = rightInput;
+				mapper2 = PatternRightMapper.class;
+			}
+		}
+
+		Utility.getFS().delete(new Path(outputDir), true);
+		String name = "Frame Pattern " + node;
+		if(mapper2 == null){
+			ToolRunner.run(conf, new GeneralDriver(name,
+					mapper1, PatternJoinReducer.class,
+					NullWritable.class, countOnly ? LongWritable.class : HVArray.class, // OutputKV
+					HVArraySign.class, HVArray.class, // MapOutputKV
+					SequenceFileInputFormat.class,
+					SequenceFileOutputFormat.class,
+					HVArraySignComparator.class,
+					HVArrayGroupComparator.class), opts);
+		}
+		else{
+			ToolRunner.run(conf, new GeneralDriver(name,
+					mapper1, mapper2, PatternJoinReducer.class,
+					NullWritable.class, countOnly ? LongWritable.class : HVArray.class, // OutputKV
+					HVArraySign.class, HVArray.class, // MapOutputKV
+					SequenceFileInputFormat.class,
+					SequenceFileInputFormat.class,
+					SequenceFileOutputFormat.class,
+					HVArraySignComparator.class,
+					HVArrayGroupComparator.class), opts);
+		}
+		return outputDir;
+	}
+
+	private static String unitInput(String workDir, JoinUnit unit){
+		return (unit.getType() == JoinUnit.STAR) ? workDir + Config.adjListDir + ".0"
+				: workDir + "triangle.res";
+	}
+
+	private static void setSide(Configuration conf, int side, PlanNode node){
+		String prefix = PatternSide.SIDE + side;
+		if(node.isUnit()){
+			JoinUnit unit = node.getUnit();
+			conf.setInt(prefix + ".type", unit.getType() == JoinUnit.STAR ?
+					PatternSide.STAR : PatternSide.TRIANGLE);
+			StringBuilder sb = new StringBuilder();
+			for(int v : unit.getVertices()){
+				sb.append(sb.length() > 0 ? "," : "").append(v);
+			}
+			conf.set(prefix + ".vertices", sb.toString());
+		}
+		else{
+			conf.setInt(prefix + ".type", PatternSide.RELATION);
+			conf.set(prefix + ".vertices", PatternSide.toList(node.getVertexMask()));
+		}
+	}
+
+	public static void countOnce(InputInfo inputInfo) throws Exception{
+		if (inputInfo.isCountPatternOnce) {
+			String[] opts = { inputInfo.workDir + RES, inputInfo.workDir + CNT,
+					inputInfo.numReducers, inputInfo.jarFile };
+			if(inputInfo.isCountOnly) {
+				ToolRunner.run(new Configuration(), new GeneralPatternCountDriver(
+						GeneralPatternCountIdentityMapper.class), opts);
+			}
+			else {
+				ToolRunner.run(new Configuration(), new GeneralPatternCountDriver(
+						PatternCountMapper.class), opts);
+			}
+		}
+	}
+}
+
+/**
+ * The settings of a join job, shared by its mappers and reducer
+ */
+class PatternSide {
+	static final String PATTERN = "planner.pattern";
+	static final String NUM_SIDES = "planner.sides";
+	static final String SIDE = "planner.side";
+	static final String KEY = "planner.key";
+	static final String OUTPUT = "planner.output";
+	static final String COUNT_ONLY = "planner.count.only";
+
+	static final int STAR = 0;
+	static final int TRIANGLE = 1;
+	static final int RELATION = 2;
+
+	int type;
+	// The pattern vertices of the side, a star has its center first
+	int[] vertices;
+	// The positions in vertices of the join key and of the rest
+	int[] keyPos;
+	int[] restPos;
+	// checks[i]: the order constraints {a, b} (positions, data(a) < data(b)) whose later
+	// position is i, checked as soon as position i is assigned
+	int[][][] checks;
+
+	PatternSide(Configuration conf, int side, int[] key, int[][] order){
+		type = conf.getInt(SIDE + side + ".type", RELATION);
+		vertices = parseList(conf.get(SIDE + side + ".vertices"));
+		keyPos = new int[key.length];
+		restPos = new int[vertices.length - key.length];
+		for(int i = 0, r = 0; i < vertices.length; ++i){
+			int k = indexOf(key, vertices[i]);
+			if(k >= 0){
+				keyPos[k] = i;
+			}
+			else{
+				restPos[r++] = i;
+			}
+		}
+		List<List<int[]>> lists = new ArrayList<List<int[]>>();
+		for(int i = 0; i < vertices.length; ++i){
+			lists.add(new ArrayList<int[]>());
+		}
+		for(int[] c : order){
+			int a = indexOf(vertices, c[0]), b = indexOf(vertices, c[1]);
+			if(a >= 0 && b >= 0){
+				lists.get(Math.max(a, b)).add(new int[]{ a, b });
+			}
+		}
+		checks = new int[vertices.length][][];
+		for(int i = 0; i < vertices.length; ++i){
+			checks[i] = lists.get(i).toArray(new int[0][]);
+		}
+	}
+
+	/**
+	 * @return Whether the values assigned to positions 0 .. i satisfy the constraints ending at i
+	 */
+	boolean check(long[] values, int i){
+		for(int[] c : checks[i]){
+			if(HyperVertex.compare(values[c[0]], values[c[1]]) >= 0){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static int indexOf(int[] array, int v){
+		for(int i = 0; i < array.length; ++i){
+			if(array[i] == v){
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	static int[] parseList(String s){
+		String[] items = s.split(",");
+		int[] res = new int[items.length];
+		for(int i = 0; i < items.length; ++i){
+			res[i] = Integer.parseInt(items[i].trim());
+		}
+		return res;
+	}
+
+	/**
+	 * @return The vertices of mask in ascending order, like "0,2,3"
+	 */
+	static String toList(int mask){
+		StringBuilder sb = new StringBuilder();
+		for(int v = 0; mask >> v != 0; ++v){
+			if((mask & (1 << v)) != 0){
+				sb.append(sb.length() > 0 ? "," : "").append(v);
+			}
+		}
+		return sb.toString();
+	}
+}
+
+/**
+ * Emit the matches of one side: key = (join key values, side sign), value = the rest of the match
+ */
+abstract class PatternSideMapper extends StageMapper<Writable, Writable, HVArraySign, HVArray> {
+	private PatternSide[] sides = null;
+	private long[] values = null;
+	private HVArraySign outputKey = new HVArraySign();
+	private HVArray outputValue = new HVArray();
+
+	protected abstract int[] getSides();
+
+	@Override
+	public void map(Writable _key, Writable _value, Context context)
+			throws IOException, InterruptedException{
+		for(int i = 0; i < sides.length; ++i){
+			PatternSide side = sides[i];
+			int sign = (getSides()[i] == 0) ? Config.SMALLSIGN : Config.LARGESIGN;
+			switch(side.type){
+			case PatternSide.STAR:
+				long[] neighbors = ((HyperVertexAdjList) _value).getNeighbors();
+				values[0] = ((LongWritable) _key).get();
+				if(side.vertices.length - 1 <= neighbors.length){
+					enumStar(side, neighbors, 1, sign, context);
+				}
+				break;
+			case PatternSide.TRIANGLE:
+				long[] triangle = ((HVArray) _value).toArrays();
+				for(int[] perm : PERMUTATIONS){
+					values[0] = triangle[perm[0]];
+					values[1] = triangle[perm[1]];
+					values[2] = triangle[perm[2]];
+					if(side.check(values, 1) && side.check(values, 2)){
+						emit(side, sign, context);
+					}
+				}
+				break;
+			default:
+				HVArray relation = (HVArray) _value;
+				for(int j = 0; j < relation.size(); ++j){
+					values[j] = relation.get(j);
+				}
+				emit(side, sign, context);
+			}
+		}
+	}
+
+	private static final int[][] PERMUTATIONS = { {0, 1, 2}, {0, 2, 1}, {1, 0, 2},
+		{1, 2, 0}, {2, 0, 1}, {2, 1, 0} };
+
+	/**
+	 * Assign the distinct neighbors to the leaves from position i on
+	 */
+	private void enumStar(PatternSide side, long[] neighbors, int i, int sign, Context context)
+			throws IOException, InterruptedException{
+		if(i == side.vertices.length){
+			emit(side, sign, context);
+			return;
+		}
+		for(long v : neighbors){
+			boolean used = false;
+			for(int j = 1; j < i && !used; ++j){
+				used = (values[j] == v);
+			}
+			if(used){
+				continue;
+			}
+			values[i] = v;
+			if(side.check(values, i)){
+				enumStar(side, neighbors, i + 1, sign, context);
+			}
+		}
+	}
+
+	private void emit(PatternSide side, int sign, Context context)
+			throws IOException, InterruptedException{
+		long[] key = new long[side.keyPos.length];
+		for(int i = 0; i < key.length; ++i){
+			key[i] = values[side.keyPos[i]];
+		}
+		long[] rest = new long[side.restPos.length];
+		for(int i = 0; i < rest.length; ++i){
+			rest[i] = values[side.restPos[i]];
+		}
+		outputKey.set(key, sign);
+		outputValue.set(rest);
+		context.write(outputKey, outputValue);
+	}
+
+	@Override
+	public void setup(Context context){
+		Configuration conf = context.getConfiguration();
+		PatternGraph pattern = new PatternGraph(conf.get(PatternSide.PATTERN));
+		int[] key = PatternSide.parseList(conf.get(PatternSide.KEY));
+		int[] ids = getSides();
+		sides = new PatternSide[ids.length];
+		for(int i = 0; i < ids.length; ++i){
+			sides[i] = new PatternSide(conf, ids[i], key, pattern.getOrderConstraints());
+		}
+		values = new long[pattern.size()];
+	}
+}
+
+class PatternLeftMapper extends PatternSideMapper {
+	@Override
+	protected int[] getSides(){
+		return new int[]{ 0 };
+	}
+}
+
+class PatternRightMapper extends PatternSideMapper {
+	@Override
+	protected int[] getSides(){
+		return new int[]{ 1 };
+	}
+}
+
+class PatternBothMapper extends PatternSideMapper {
+	@Override
+	protected int[] getSides(){
+		return new int[]{ 0, 1 };
+	}
+}
+
+/**
+ * Join the buffered left matches with the streamed right matches of a join key,
+ * keeping the combinations with distinct vertices that satisfy the cross-side order constraints
+ */
+class PatternJoinReducer extends
+		StageReducer<HVArraySign, HVArray, NullWritable, Writable> {
+	private static int numSides = 0;
+	private static boolean countOnly = false;
+	private static PatternSide left = null;
+	private static PatternSide right = null;
+	// For every output vertex: 0 key, 1 left rest, 2 right rest, and the index there
+	private static int[] source = null;
+	private static int[] index = null;
+	// The order constraints {left rest index, right rest index, sign}, sign < 0: left smaller
+	private static int[][] crossChecks = null;
+	private static List<long[]> leftList = null;
+	private LongWritable outputValue = new LongWritable();
+
+	@Override
+	public void reduce(HVArraySign _key, Iterable<HVArray> _values, Context context)
+			throws IOException, InterruptedException{
+		long count = 0L;
+		if(numSides == 1){
+			for(HVArray value : _values){
+				if(countOnly){
+					++count;
+				}
+				else{
+					context.write(NullWritable.get(),
+							combine(_key.vertexArray, EMPTY, value.toArrays()));
+				}
+			}
+		}
+		else{
+			if(_key.sign != Config.SMALLSIGN){
+				return;
+			}
+			leftList.clear();
+			for(HVArray value : _values){
+				if(_key.sign == Config.SMALLSIGN){
+					leftList.add(value.toArrays());
+					continue;
+				}
+				long[] r = value.toArrays();
+				for(long[] l : leftList){
+					if(!isValid(l, r)){
+						continue;
+					}
+					if(countOnly){
+						++count;
+					}
+					else{
+						context.write(NullWritable.get(), combine(_key.vertexArray, l, r));
+					}
+				}
+			}
+		}
+		if(countOnly && count > 0){
+			outputValue.set(count);
+			context.write(NullWritable.get(), outputValue);
+		}
+	}
+
+	private static final long[] EMPTY = new long[0];
+
+	private static boolean isValid(long[] l, long[] r){
+		for(long u : l){
+			for(long v : r){
+				if(u == v){
+					return false;
+				}
+			}
+		}
+		for(int[] c : crossChecks){
+			int cmp = HyperVertex.compare(l[c[0]], r[c[1]]);
+			if((c[2] < 0 && cmp >= 0) || (c[2] > 0 && cmp <= 0)){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static HVArray combine(HVArray key, long[] l, long[] r){
+		long[] res = new long[source.length];
+		for(int i = 0; i < res.length; ++i){
+			switch(source[i]){
+			case 0:
+				res[i] = key.get(index[i]);
+				break;
+			case 1:
+				res[i] = l[index[i]];
+				break;
+			default:
+				res[i] = r[index[i]];
+			}
+		}
+		return new HVArray(res);
+	}
+
+	@Override
+	public void setup(Context context){
+		Configuration conf = context.getConfiguration();
+		PatternGraph pattern = new PatternGraph(conf.get(PatternSide.PATTERN));
+		int[][] order = pattern.getOrderConstraints();
+		int[] key = PatternSide.parseList(conf.get(PatternSide.KEY));
+		numSides = conf.getInt(PatternSide.NUM_SIDES, 2);
+		countOnly = conf.getBoolean(PatternSide.COUNT_ONLY, false);
+		// With a single side, the values are the rest of the side
+		right = new PatternSide(conf, 0, key, order);
+		left = null;
+		if(numSides == 2){
+			left = right;
+			right = new PatternSide(conf, 1, key, order);
+		}
+
+		int[] output = PatternSide.parseList(conf.get(PatternSide.OUTPUT));
+		source = new int[output.length];
+		index = new int[output.length];
+		for(int i = 0; i < output.length; ++i){
+			int k = PatternSide.indexOf(key, output[i]);
+			if(k >= 0){
+				source[i] = 0;
+				index[i] = k;
+				continue;
+			}
+			k = (left == null) ? -1 : restIndex(left, output[i]);
+			if(k >= 0){
+				source[i] = 1;
+				index[i] = k;
+			}
+			else{
+				source[i] = 2;
+				index[i] = restIndex(right, output[i]);
+			}
+		}
+
+		List<int[]> checks = new ArrayList<int[]>();
+		if(left != null){
+			for(int[] c : order){
+				int a = restIndex(left, c[0]), b = restIndex(right, c[1]);
+				if(a >= 0 && b >= 0){
+					checks.add(new int[]{ a, b, -1 });
+				}
+				a = restIndex(left, c[1]);
+				b = restIndex(right, c[0]);
+				if(a >= 0 && b >= 0){
+					checks.add(new int[]{ a, b, 1 });
+				}
+			}
+		}
+		crossChecks = checks.toArray(new int[0][]);
+		leftList = new ArrayList<long[]>();
+	}
+
+	private static int restIndex(PatternSide side, int v){
+		for(int i = 0; i < side.restPos.length; ++i){
+			if(side.vertices[side.restPos[i]] == v){
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public void cleanup(Context context){
+		leftList = null;
+	}
+}
+
+class PatternCountMapper extends
+		StageMapper<NullWritable, HVArray, NullWritable, LongWritable> {
+	private static long count = 0L;
+	private LongWritable outputValue = new LongWritable();
+
+	@Override
+	public void map(NullWritable _key, HVArray _value, Context context)
+			throws IOException, InterruptedException {
+		++count;
+	}
+
+	@Override
+	public void setup(Context context){
+		count = 0L;
+	}
+
+	@Override
+	public void cleanup(Context context) throws IOException, InterruptedException {
+		if(count > 0){
+			outputValue.set(count);
+			context.write(NullWritable.get(), outputValue);
+		}
+	}
+}
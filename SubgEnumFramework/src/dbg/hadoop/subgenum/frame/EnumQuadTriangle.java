@@ -9,8 +9,6 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.filecache.DistributedCache;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
@@ -21,6 +19,9 @@ import dbg.hadoop.subgraphs.io.HVArrayComparator;
 import dbg.hadoop.subgraphs.utils.BinarySearch;
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.Intersection;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 
 @SuppressWarnings("deprecation")
@@ -67,7 +68,8 @@ public class EnumQuadTriangle{
 }
 
 class EnumQuadTriangleMapper extends
-	Mapper<HVArray, HVArray, HVArray, HVArray> {
+	StageMapper<HVArray, HVArray, HVArray, HVArray> {
+	private HVArray outputKey = new HVArray();
 	
 	@Override
 	public void map(HVArray _key, HVArray _value,
@@ -83,15 +85,18 @@ class EnumQuadTriangleMapper extends
 		
 		for(long v4 : oldArray){
 			out.set(0, v3);
-			context.write(new HVArray(v1, v4), out);
+			outputKey.set(v1, v4);
+			context.write(outputKey, out);
 			out.set(0, v1);
-			context.write(new HVArray(v3, v4), out);
+			outputKey.set(v3, v4);
+			context.write(outputKey, out);
 		}
 	}
 }
 
 class EnumQuadTriangleReducer extends
-	Reducer<HVArray, HVArray, NullWritable, LongWritable> {
+	StageReducer<HVArray, HVArray, NullWritable, LongWritable> {
+	private LongWritable outputValue = new LongWritable();
 	
 	@Override
 	public void reduce(HVArray key, Iterable<HVArray> values, 
@@ -122,8 +127,10 @@ class EnumQuadTriangleReducer extends
 				count += n * m - c;
 			}
 		}
-		if(count != 0)
-			context.write(NullWritable.get(), new LongWritable(count));
+		if(count != 0){
+			outputValue.set(count);
+			context.write(NullWritable.get(), outputValue);
+		}
 	}
 	
 
@@ -137,30 +144,7 @@ class EnumQuadTriangleReducer extends
 	 * @return
 	 */
 	public static int numCommonElems(long[] array1, long[] array2){
-		if(array1.length == 0 || array2.length == 0){
-			return 0;
-		}
-		int len1 = array1.length, len2 = array2.length;
-		// One array's smallest value is larger than the other's largeset one
-		// it is not possible to have overlap.
-		if(array1[1] > array2[len2 - 1] || array2[1] > array1[len1 - 1]){
-			return 0;
-		}
-		int pos1 = 1, pos2 = 1;
-		int result = 0;
-		while(pos1 < len1 && pos2 < len2){
-			if(array1[pos1] == array2[pos2]){
-				++result;
-				++pos1;
-				++pos2;
-			}
-			else if(array1[pos1] < array2[pos2]){
-				++pos1;
-			}
-			else{
-				++pos2;
-			}
-		}
-		return result;
+		// Skip the pivots at position 0
+		return Intersection.count(array1, 1, array1.length, array2, 1, array2.length);
 	}
 }
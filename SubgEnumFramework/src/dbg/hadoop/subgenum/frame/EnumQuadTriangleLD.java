@@ -8,8 +8,6 @@ import java.util.List;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.filecache.DistributedCache;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
@@ -23,6 +21,8 @@ import dbg.hadoop.subgraphs.utils.BinarySearch;
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 @SuppressWarnings("deprecation")
 public class EnumQuadTriangleLD{
@@ -94,7 +94,8 @@ public class EnumQuadTriangleLD{
  *
  */
 class EnumQuadTriangleLDStage2Mapper1 extends
-	Mapper<HVArray, HVArray, HVArraySign, HVArray>{
+	StageMapper<HVArray, HVArray, HVArraySign, HVArray>{
+	private HVArraySign outputKey = new HVArraySign();
 	
 	@Override
 	public void map(HVArray key, HVArray value, Context context) 
@@ -110,15 +111,19 @@ class EnumQuadTriangleLDStage2Mapper1 extends
 
 		for (long v2 : oldArray) {
 			out.set(0, v3);
-			context.write(new HVArraySign(v1, v2, Config.LARGESIGN), out);
+			outputKey.set(v1, v2, Config.LARGESIGN);
+			context.write(outputKey, out);
 			out.set(0, v1);
-			context.write(new HVArraySign(v3, v2, Config.LARGESIGN), out);
+			outputKey.set(v3, v2, Config.LARGESIGN);
+			context.write(outputKey, out);
 		}
 	}
 }
 
 class EnumQuadTriangleLDStage2Mapper2 extends
-	Mapper<NullWritable, HVArray, HVArraySign, HVArray>{
+	StageMapper<NullWritable, HVArray, HVArraySign, HVArray>{
+	private HVArraySign outputKey = new HVArraySign();
+	private HVArray outputValue = new HVArray();
 	
 	@Override
 	public void map(NullWritable key, HVArray value, Context context) 
@@ -128,17 +133,29 @@ class EnumQuadTriangleLDStage2Mapper2 extends
 		long v2 = value.getSecond();
 		long v3 = value.getLast();
 		
-		context.write(new HVArraySign(v1, v2, Config.SMALLSIGN),  new HVArray(v3));
-		context.write(new HVArraySign(v2, v1, Config.SMALLSIGN),  new HVArray(v3));
-		context.write(new HVArraySign(v2, v3, Config.SMALLSIGN),  new HVArray(v1));
-		context.write(new HVArraySign(v3, v2, Config.SMALLSIGN),  new HVArray(v1));
-		context.write(new HVArraySign(v1, v3, Config.SMALLSIGN),  new HVArray(v2));
-		context.write(new HVArraySign(v3, v1, Config.SMALLSIGN),  new HVArray(v2));
+		outputKey.set(v1, v2, Config.SMALLSIGN);
+		outputValue.set(v3);
+		context.write(outputKey, outputValue);
+		outputKey.set(v2, v1, Config.SMALLSIGN);
+		outputValue.set(v3);
+		context.write(outputKey, outputValue);
+		outputKey.set(v2, v3, Config.SMALLSIGN);
+		outputValue.set(v1);
+		context.write(outputKey, outputValue);
+		outputKey.set(v3, v2, Config.SMALLSIGN);
+		outputValue.set(v1);
+		context.write(outputKey, outputValue);
+		outputKey.set(v1, v3, Config.SMALLSIGN);
+		outputValue.set(v2);
+		context.write(outputKey, outputValue);
+		outputKey.set(v3, v1, Config.SMALLSIGN);
+		outputValue.set(v2);
+		context.write(outputKey, outputValue);
 	}
 }
 
 class EnumQuadTriangleLDStage2Reducer extends
-	Reducer<HVArraySign, HVArray, HVArray, HVArray>{
+	StageReducer<HVArraySign, HVArray, HVArray, HVArray>{
 	
 	private static final List<Long> heap = new ArrayList<Long>();
 	@Override
@@ -172,7 +189,8 @@ class EnumQuadTriangleLDStage2Reducer extends
 
 
 class EnumQuadTriangleLDStage3Mapper extends
-	Mapper<HVArray, HVArray, HVArraySign, HVArray>{
+	StageMapper<HVArray, HVArray, HVArraySign, HVArray>{
+	private HVArraySign outputKey = new HVArraySign();
 	
 	@Override
 	public void map(HVArray key, HVArray value, Context context) 
@@ -183,15 +201,17 @@ class EnumQuadTriangleLDStage3Mapper extends
 		long v5 = value.getSecond();
 		
 		value.set(1, v4);
-		context.write(new HVArraySign(v1, v5, Config.LARGESIGN), value);
+		outputKey.set(v1, v5, Config.LARGESIGN);
+		context.write(outputKey, value);
 	}
 }
 
 
 class EnumQuadTriangleLDStage3Reducer extends
-	Reducer<HVArraySign, HVArray, NullWritable, LongWritable>{
+	StageReducer<HVArraySign, HVArray, NullWritable, LongWritable>{
 	
 	private static final List<Long> heap = new ArrayList<Long>();
+	private LongWritable outputValue = new LongWritable();
 	@Override
 	public void reduce(HVArraySign key, Iterable<HVArray> values, Context context)
 			throws IOException, InterruptedException{
@@ -225,7 +245,8 @@ class EnumQuadTriangleLDStage3Reducer extends
 			}
 		}
 		if(count != 0){
-			context.write(NullWritable.get(), new LongWritable(count));
+			outputValue.set(count);
+			context.write(NullWritable.get(), outputValue);
 		}
 	}
 	
@@ -10,12 +10,10 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.Reducer.Context;
 import org.apache.hadoop.mapreduce.filecache.DistributedCache;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.util.ToolRunner;
 
 import dbg.hadoop.subgraphs.io.HVArray;
@@ -25,6 +23,8 @@ import dbg.hadoop.subgraphs.utils.BloomFilterOpr;
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 @SuppressWarnings("deprecation")
 public class EnumSolarSquare{
@@ -103,21 +103,25 @@ public class EnumSolarSquare{
 
 
 class EnumSolarSquareMapper extends
-		Mapper<HVArray, HVArray, HVArray, LongWritable> {
+		StageMapper<HVArray, HVArray, HVArray, LongWritable> {
 	
 	private boolean isCompress = true;
 	private boolean isPart = false;
 	private static boolean enableBF = false;
 	private static BloomFilterOpr bloomfilterOpr = null;
+	private HVArray outputKey = new HVArray();
+	private LongWritable outputValue = new LongWritable();
 	
 	@Override
 	public void map(HVArray _key, HVArray _value,
 			Context context) throws IOException, InterruptedException {
 		if(!isCompress){
-			context.write(new HVArray(_key.getFirst(), _value.getFirst(), _value.getSecond()),
-				new LongWritable(_key.getSecond()));
-			context.write(new HVArray(_key.getSecond(), _value.getFirst(), _value.getSecond()),
-				new LongWritable(_key.getFirst()));
+			outputKey.set(_key.getFirst(), _value.getFirst(), _value.getSecond());
+			outputValue.set(_key.getSecond());
+			context.write(outputKey, outputValue);
+			outputKey.set(_key.getSecond(), _value.getFirst(), _value.getSecond());
+			outputValue.set(_key.getFirst());
+			context.write(outputKey, outputValue);
 		} else {
 			if(!isPart)
 				this.processCompressChordalSquare(_key, _value.toArrays(), context);
@@ -137,10 +141,12 @@ class EnumSolarSquareMapper extends
 							HyperVertex.VertexID(array[j]));
 				}
 				if(isOutput){
-					context.write(new HVArray(_key.getFirst(), array[i], array[j]),
-						new LongWritable(_key.getSecond()));
-					context.write(new HVArray(_key.getSecond(), array[i], array[j]),
-						new LongWritable(_key.getFirst()));
+					outputKey.set(_key.getFirst(), array[i], array[j]);
+					outputValue.set(_key.getSecond());
+					context.write(outputKey, outputValue);
+					outputKey.set(_key.getSecond(), array[i], array[j]);
+					outputValue.set(_key.getFirst());
+					context.write(outputKey, outputValue);
 				}
 			}
 		}
@@ -161,10 +167,12 @@ class EnumSolarSquareMapper extends
 								HyperVertex.VertexID(array[j]));
 					}
 					if(isOutput){
-						context.write(new HVArray(_key.getFirst(), array[i], array[j]),
-							new LongWritable(_key.getSecond()));
-						context.write(new HVArray(_key.getSecond(), array[i], array[j]),
-							new LongWritable(_key.getFirst()));
+						outputKey.set(_key.getFirst(), array[i], array[j]);
+						outputValue.set(_key.getSecond());
+						context.write(outputKey, outputValue);
+						outputKey.set(_key.getSecond(), array[i], array[j]);
+						outputValue.set(_key.getFirst());
+						context.write(outputKey, outputValue);
 					}
 				}
 			}
@@ -195,10 +203,11 @@ class EnumSolarSquareMapper extends
 }
 
 class EnumSolarSquareReducer extends
-	Reducer<HVArray, LongWritable, HVArray, HVArray> {
+	StageReducer<HVArray, LongWritable, HVArray, HVArray> {
 	
 	private boolean isCompress = true;
 	private TLongArrayList heap = null;
+	private HVArray outputValue = new HVArray();
 	
 	@Override
 	public void reduce(HVArray _key, Iterable<LongWritable> values, Context context) 
@@ -213,11 +222,13 @@ class EnumSolarSquareReducer extends
 			int largeThanMinIndex = BinarySearch.findLargeIndex(_key.getSecond(), array);
 			for (int i = 0; i < largeThanMinIndex; ++i) {
 				for (int j = i + 1; j < array.length; ++j) {
-					context.write(_key, new HVArray(array[i], array[j]));
+					outputValue.set(array[i], array[j]);
+					context.write(_key, outputValue);
 				}
 			}
 		} else {
-			context.write(_key, new HVArray(array));
+			outputValue.set(array);
+			context.write(_key, outputValue);
 		}
 	}
 
@@ -244,10 +255,11 @@ class EnumSolarSquareReducer extends
  *
  */
 class EnumSolarSquareCountReducer extends
-		Reducer<HVArray, LongWritable, NullWritable, LongWritable> {
+		StageReducer<HVArray, LongWritable, NullWritable, LongWritable> {
 	
 	private boolean isCompress = true;
 	private TLongArrayList heap = null;
+	private LongWritable outputValue = new LongWritable();
 
 	@Override
 	public void reduce(HVArray _key, Iterable<LongWritable> values,
@@ -273,8 +285,10 @@ class EnumSolarSquareCountReducer extends
 				}
 			}
 		}
-		if(count > 0)
-			context.write(NullWritable.get(), new LongWritable(count));
+		if(count > 0){
+			outputValue.set(count);
+			context.write(NullWritable.get(), outputValue);
+		}
 	}
 
 	@Override
@@ -285,14 +299,17 @@ class EnumSolarSquareCountReducer extends
 }
 
 class SolarSquareCountMapper extends
-		Mapper<HVArray, HVArray, NullWritable, LongWritable> {
+		StageMapper<HVArray, HVArray, NullWritable, LongWritable> {
+	private LongWritable outputValue = new LongWritable();
 	@Override
 	public void map(HVArray _key, HVArray _value, Context context)
 			throws IOException, InterruptedException {
 		long count = 0L;
 		int largeThanMinIndex = BinarySearch.findLargeIndex(_key.getSecond(), _value.toArrays());
 		count = (2 * _value.size() - 1 - largeThanMinIndex) * largeThanMinIndex / 2;
-		if(count > 0)
-			context.write(NullWritable.get(), new LongWritable(count));
+		if(count > 0){
+			outputValue.set(count);
+			context.write(NullWritable.get(), outputValue);
+		}
 	}
 }
\ No newline at end of file
@@ -8,11 +8,9 @@ import java.io.IOException;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.filecache.DistributedCache;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.util.ToolRunner;
 
 import dbg.hadoop.subgraphs.io.HVArray;
@@ -22,6 +20,8 @@ import dbg.hadoop.subgraphs.io.HVArraySign;
 import dbg.hadoop.subgraphs.io.HVArraySignComparator;
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 @SuppressWarnings("deprecation")
 public class EnumSolarSquareLD{
@@ -85,7 +85,9 @@ public class EnumSolarSquareLD{
  *
  */
 class EnumSolarSquareS2TriangleMapper extends
-	Mapper<NullWritable, HVArray, HVArraySign, HVArray> {
+	StageMapper<NullWritable, HVArray, HVArraySign, HVArray> {
+	private HVArraySign outputKey = new HVArraySign();
+	private HVArray outputValue = new HVArray();
 
 	@Override
 	public void map(NullWritable _key, HVArray _value, Context context)
@@ -93,14 +95,22 @@ class EnumSolarSquareS2TriangleMapper extends
 		long v1 = _value.getFirst();
 		long v2 = _value.getSecond();
 		long v3 = _value.getLast();
-		context.write(new HVArraySign(v1, v3, Config.SMALLSIGN), new HVArray(v2));
-		context.write(new HVArraySign(v2, v3, Config.SMALLSIGN), new HVArray(v1));
-		context.write(new HVArraySign(v3, v2, Config.SMALLSIGN), new HVArray(v1));
+		outputKey.set(v1, v3, Config.SMALLSIGN);
+		outputValue.set(v2);
+		context.write(outputKey, outputValue);
+		outputKey.set(v2, v3, Config.SMALLSIGN);
+		outputValue.set(v1);
+		context.write(outputKey, outputValue);
+		outputKey.set(v3, v2, Config.SMALLSIGN);
+		outputValue.set(v1);
+		context.write(outputKey, outputValue);
 	}
 }
 
 class EnumSolarSquareS2CSquareMapper extends
-	Mapper<HVArray, HVArray, HVArraySign, HVArray>{
+	StageMapper<HVArray, HVArray, HVArraySign, HVArray>{
+	private HVArraySign outputKey = new HVArraySign();
+	private HVArray outputValue = new HVArray();
 	
 	@Override
 	public void map(HVArray _key, HVArray _value, Context context)
@@ -110,15 +120,20 @@ class EnumSolarSquareS2CSquareMapper extends
 		long v3 = _key.getSecond();
 		long v4 = _value.getSecond();
 		
-		context.write(new HVArraySign(v1, v2, Config.LARGESIGN), new HVArray(v3, v4));
-		context.write(new HVArraySign(v3, v2, Config.LARGESIGN), new HVArray(v1, v4));
+		outputKey.set(v1, v2, Config.LARGESIGN);
+		outputValue.set(v3, v4);
+		context.write(outputKey, outputValue);
+		outputKey.set(v3, v2, Config.LARGESIGN);
+		outputValue.set(v1, v4);
+		context.write(outputKey, outputValue);
 	}
 }
 
 class EnumSolarSquareS2Reducer extends
-	Reducer<HVArraySign, HVArray, NullWritable, HVArray>{
+	StageReducer<HVArraySign, HVArray, NullWritable, HVArray>{
 	
 	private static TLongArrayList list = new TLongArrayList();
+	private HVArray outputValue = new HVArray();
 	
 	@Override
 	public void reduce(HVArraySign _key, Iterable<HVArray> values, Context context)
@@ -144,7 +159,8 @@ class EnumSolarSquareS2Reducer extends
 					
 					if(v1 < v3 && v1 < v4){
 						long[] temp = {v0, v1, v2, v3, v4};
-						context.write(NullWritable.get(), new HVArray(temp));
+						outputValue.set(temp);
+						context.write(NullWritable.get(), outputValue);
 					}
 				}
 			}
@@ -154,7 +170,9 @@ class EnumSolarSquareS2Reducer extends
 
 
 class EnumSolarSquareS3Mapper extends
-	Mapper<NullWritable, HVArray, HVArray, HVArray> {
+	StageMapper<NullWritable, HVArray, HVArray, HVArray> {
+	private HVArray outputKey = new HVArray();
+	private HVArray outputValue = new HVArray();
 
 	@Override
 	public void map(NullWritable _key, HVArray _value, Context context)
@@ -164,23 +182,28 @@ class EnumSolarSquareS3Mapper extends
 		long v2 = _value.get(2);
 		long v3 = _value.get(3);
 		long v4 = _value.get(4);
-		context.write(new HVArray(v1, v4), new HVArray(v0, v2, v3));
+		outputKey.set(v1, v4);
+		outputValue.set(v0, v2, v3);
+		context.write(outputKey, outputValue);
 	}
 }
 
 class EnumSolarSquareS3EdgeMapper extends
-		Mapper<LongWritable, LongWritable, HVArray, HVArray> {
+		StageMapper<LongWritable, LongWritable, HVArray, HVArray> {
 	
 	private static final HVArray minusOne = new HVArray(-1L);
+	private HVArray outputKey = new HVArray();
 	@Override
 	public void map(LongWritable _key, LongWritable _value, Context context)
 			throws IOException, InterruptedException {
-		context.write(new HVArray(_key.get(), _value.get()), minusOne);
+		outputKey.set(_key.get(), _value.get());
+		context.write(outputKey, minusOne);
 	}
 }
 
 class EnumSolarSquareS3Reducer extends
-		Reducer<HVArray, HVArray, NullWritable, LongWritable> {
+		StageReducer<HVArray, HVArray, NullWritable, LongWritable> {
+	private LongWritable outputValue = new LongWritable();
 
 	@Override
 	public void reduce(HVArray _key, Iterable<HVArray> values, Context context)
@@ -196,7 +219,8 @@ class EnumSolarSquareS3Reducer extends
 			}
 		}
 		if(isOut && count != 0){
-			context.write(NullWritable.get(), new LongWritable(count));
+			outputValue.set(count);
+			context.write(NullWritable.get(), outputValue);
 		}
 	}
 }
\ No newline at end of file
@@ -1,9 +1,10 @@
 package dbg.hadoop.subgenum.frame;
 import gnu.trove.list.array.TLongArrayList;
-import gnu.trove.set.hash.TLongHashSet;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.util.Arrays;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.filecache.DistributedCache;
@@ -14,22 +15,29 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.SequenceFile;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.InputFormat;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
 import org.apache.hadoop.util.ToolRunner;
 
+import dbg.hadoop.subgraphs.io.CSRAdjListInputFormat;
+import dbg.hadoop.subgraphs.io.CSRGraphWriter;
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HVArrayComparator;
 import dbg.hadoop.subgraphs.io.HyperVertexAdjList;
+import dbg.hadoop.subgraphs.io.SaltedHVArrayPartitioner;
 import dbg.hadoop.subgraphs.utils.BinarySearch;
 import dbg.hadoop.subgraphs.utils.BloomFilterOpr;
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.utils.HyperVertexHeap;
 import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.SideDataCache;
 import dbg.hadoop.subgraphs.utils.Utility;
+import dbg.hadoop.subgraphs.utils.offheap.LongSet;
+import dbg.hadoop.subgraphs.utils.offheap.LongStores;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 @SuppressWarnings("deprecation")
 public class EnumSquare {
@@ -37,21 +45,35 @@ public class EnumSquare {
 	public static void run(InputInfo inputInfo) throws Exception {
 		String workDir = inputInfo.workDir;
 		int maxSize = inputInfo.maxSize;
+		// Read the adjacency lists from the memory-mapped CSR file instead of adjList2.x
+		boolean isCSRInput = inputInfo.isCSRInput;
+		Path csrFile = isCSRInput ? CSRGraphWriter.ensure(Utility.getFS(), workDir) 
+				: new Path(workDir + Config.csrGraphFile);
+		@SuppressWarnings("rawtypes")
+		Class<? extends InputFormat> adjListInputFormat = isCSRInput ? 
+				CSRAdjListInputFormat.class : SequenceFileInputFormat.class;
 
 		if(!Utility.getFS().isDirectory(new Path(workDir + "nonsmallneigh"))){
-			String[] opts0 = { workDir + "adjList2.0", "", workDir + "nonsmallneigh",
-					inputInfo.numReducers, inputInfo.jarFile};
-			ToolRunner.run(new Configuration(), new GeneralDriver("CalNonSmall", 
+			Configuration conf0 = new Configuration();
+			if(isCSRInput){
+				CSRAdjListInputFormat.configure(conf0, csrFile, 0);
+			}
+			String[] opts0 = { isCSRInput ? csrFile.toString() : workDir + "adjList2.0", "", 
+					workDir + "nonsmallneigh", inputInfo.numReducers, inputInfo.jarFile};
+			ToolRunner.run(conf0, new GeneralDriver("CalNonSmall", 
 					CalNonSmallMapper.class, 
 					CalNonSmallReducer.class, 
 					NullWritable.class, LongWritable.class, //OutputKV
 					//HVArray.class, LongWritable.class, //MapOutputKV
-					SequenceFileInputFormat.class, 
+					adjListInputFormat, 
 					SequenceFileOutputFormat.class,
 					null), opts0);
 		}
 		
 		Configuration conf = new Configuration();
+		if(isCSRInput){
+			CSRAdjListInputFormat.configure(conf, csrFile, maxSize, inputInfo.workBudget);
+		}
 		
 		FileStatus[] files = Utility.getFS().listStatus(new Path(workDir + "nonsmallneigh"));
 		for(FileStatus f : files){
@@ -60,6 +82,9 @@ public class EnumSquare {
 		//DistributedCache.addCacheFile(new URI(new Path(workDir).toUri().toString() + "/nonsmallneigh"), conf);
 		
 		conf.setInt("mapred.input.max.size", maxSize);
+		if(inputInfo.isSkewSplit){
+			SkewSplit.configure(conf, inputInfo);
+		}
 		conf.setBoolean("enable.bloom.filter", inputInfo.enableBF);
 		conf.setFloat("bloom.filter.false.positive.rate", inputInfo.falsePositive);
 		if(inputInfo.enableBF){
@@ -68,7 +93,7 @@ public class EnumSquare {
 					Config.bloomFilterFileDir + "/" + bloomFilterFileName), conf);
 		}
 		
-		String[] opts = { workDir + "adjList2." + maxSize, "",
+		String[] opts = { isCSRInput ? csrFile.toString() : workDir + "adjList2." + maxSize, "",
 				workDir + "frame.square.res",  inputInfo.numReducers, inputInfo.jarFile };
 		if (!inputInfo.isCountOnly) {
 			ToolRunner.run(conf, new GeneralDriver("Frame Square",
@@ -77,7 +102,7 @@ public class EnumSquare {
 					HVArray.class, // OutputKV
 					HVArray.class,
 					LongWritable.class, // MapOutputKV
-					SequenceFileInputFormat.class,
+					adjListInputFormat,
 					SequenceFileOutputFormat.class, HVArrayComparator.class),
 					opts);
 		} else {
@@ -87,7 +112,7 @@ public class EnumSquare {
 					LongWritable.class, // OutputKV
 					HVArray.class,
 					LongWritable.class, // MapOutputKV
-					SequenceFileInputFormat.class,
+					adjListInputFormat,
 					SequenceFileOutputFormat.class, HVArrayComparator.class),
 					opts);
 		}
@@ -103,7 +128,10 @@ public class EnumSquare {
 						GeneralPatternCountIdentityMapper.class), opts2);
 			}
 			else {
-				ToolRunner.run(new Configuration(), new GeneralPatternCountDriver(
+				// The square is written partitioned when the heavy groups are split
+				Configuration conf = new Configuration();
+				conf.setBoolean(SkewSplit.ENABLED, inputInfo.isSkewSplit);
+				ToolRunner.run(conf, new GeneralPatternCountDriver(
 					SquareCountMapper.class), opts2);
 			}
 		}
@@ -112,7 +140,7 @@ public class EnumSquare {
 }
 
 class CalNonSmallMapper extends
-		Mapper<LongWritable, HyperVertexAdjList, NullWritable, LongWritable> {
+		StageMapper<LongWritable, HyperVertexAdjList, NullWritable, LongWritable> {
 	public void map(LongWritable _key, HyperVertexAdjList _value,
 			Context context) throws IOException, InterruptedException {
 		if (_value.getSmallNum() == 0)
@@ -122,7 +150,7 @@ class CalNonSmallMapper extends
 }
 
 class CalNonSmallReducer extends
-		Reducer<NullWritable, LongWritable, NullWritable, LongWritable> {
+		StageReducer<NullWritable, LongWritable, NullWritable, LongWritable> {
 	@Override
 	public void reduce(NullWritable _key, Iterable<LongWritable> values,
 			Context context) throws IOException, InterruptedException {
@@ -134,11 +162,13 @@ class CalNonSmallReducer extends
 }
 
 @SuppressWarnings("deprecation")
-class EnumSquareMapper extends Mapper<LongWritable, HyperVertexAdjList, HVArray, LongWritable> {
-	private static TLongHashSet invalidNodeSet = null;
+class EnumSquareMapper extends StageMapper<LongWritable, HyperVertexAdjList, HVArray, LongWritable> {
+	private static LongSet invalidNodeSet = null;
 	private static boolean enableBF = false;
 	private static BloomFilterOpr bloomfilterOpr = null;
 	private static int maxSize = 0;
+	private static SkewSplit skewSplit = null;
+	private HVArray outputKey = new HVArray();
 	
 	public void map(LongWritable _key, HyperVertexAdjList _value, Context context) throws IOException, InterruptedException{
 		if (maxSize == 0) {
@@ -200,7 +230,7 @@ class EnumSquareMapper extends Mapper<LongWritable, HyperVertexAdjList, HVArray,
 								HyperVertex.VertexID(v1), HyperVertex.VertexID(v2));
 					}
 					if(isOutput){
-						context.write(new HVArray(v1, v2), _key);
+						write(v1, v2, _key, context);
 					}
 				}
 			}
@@ -215,21 +245,36 @@ class EnumSquareMapper extends Mapper<LongWritable, HyperVertexAdjList, HVArray,
 								HyperVertex.VertexID(v1), HyperVertex.VertexID(v2));
 					}
 					if(isOutput){
-						context.write(new HVArray(v1, v2), _key);
+						write(v1, v2, _key, context);
 					}
 				}
 			}
 		}
 	}
 
+	private void write(long v1, long v2, LongWritable center, Context context)
+			throws IOException, InterruptedException{
+		int numShards = (skewSplit == null) ? 1 : skewSplit.numShards(v1, v2);
+		if(numShards == 1){
+			outputKey.set(v1, v2);
+			context.write(outputKey, center);
+			return;
+		}
+		// The center goes to every pair of shards that contains its own
+		int s = skewSplit.shardOf(center.get(), numShards);
+		for(int j = 0; j < numShards; ++j){
+			outputKey.set(v1, v2, SaltedHVArrayPartitioner.salt(numShards,
+					Math.min(s, j), Math.max(s, j)));
+			context.write(outputKey, center);
+		}
+	}
+
 	@Override
 	protected void setup(Context context) throws IOException, InterruptedException {
 		// TODO Auto-generated method stub
 		Configuration conf = context.getConfiguration();
 		maxSize = conf.getInt("mapred.input.max.size", 0);
-		LocalFileSystem fs = new LocalFileSystem();
-
-		Path[] paths = DistributedCache.getLocalCacheFiles(conf);
+		skewSplit = SkewSplit.get(conf);
 		enableBF = conf.getBoolean("enable.bloom.filter", false);
 		try {
 			if (enableBF && bloomfilterOpr == null) {
@@ -238,39 +283,44 @@ class EnumSquareMapper extends Mapper<LongWritable, HyperVertexAdjList, HVArray,
 				bloomfilterOpr.obtainBloomFilter(conf);
 			}
 
-			// Read the invalid nodes
-			if (invalidNodeSet == null) {
-				invalidNodeSet = new TLongHashSet();
-				NullWritable key = NullWritable.get();
-				LongWritable val = null;
-				for (int i = 0; i < paths.length; ++i) {
-					if (paths[i].toString().contains("part-r-")) {
-						SequenceFile.Reader reader = new SequenceFile.Reader(fs, paths[i], conf);
-						val = (LongWritable) reader.getValueClass()
-								.newInstance();
-						
-						while (reader.next(key, val)) {
-							invalidNodeSet.add(val.get());
+			// Read the invalid nodes, shared with the other tasks of this JVM and never modified
+			final String store = conf.get(LongStores.STORE, LongStores.HEAP);
+			invalidNodeSet = SideDataCache.get("invalidNodeSet." + store, conf,
+					SideDataCache.getLocalCacheFiles(conf, "part-r-"),
+					new SideDataCache.Loader<LongSet>() {
+						@Override
+						public LongSet load(Configuration conf, Path[] files) throws IOException {
+							File indexFile = SideDataCache.getIndexFile("invalidNodeSet", files);
+							LongSet res = LongStores.openIndex(store, indexFile);
+							if (res != null) {
+								return res;
+							}
+							res = LongStores.newSet(store);
+							LocalFileSystem fs = new LocalFileSystem();
+							NullWritable key = NullWritable.get();
+							LongWritable val = new LongWritable();
+							for (Path p : files) {
+								SequenceFile.Reader reader = new SequenceFile.Reader(fs, p, conf);
+								while (reader.next(key, val)) {
+									res.add(val.get());
+								}
+								reader.close();
+							}
+							return LongStores.seal(store, res, indexFile);
 						}
-						reader.close();
-					}
-				}
-			}
+					});
 		} catch (ClassNotFoundException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
-		} catch (InstantiationException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		} catch (IllegalAccessException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		} 
+		}
 	}
 }
 
-class EnumSquareReducer extends	Reducer<HVArray,LongWritable, HVArray, HVArray> {
+class EnumSquareReducer extends	StageReducer<HVArray,LongWritable, HVArray, HVArray> {
 	private static TLongArrayList list = null;
+	private static SkewSplit skewSplit = null;
+	private HVArray outputKey = new HVArray();
+	private HVArray outputValue = new HVArray();
 	
 	@Override
 	public void reduce(HVArray _key, Iterable<LongWritable> values, Context context) 
@@ -280,12 +330,28 @@ class EnumSquareReducer extends	Reducer<HVArray,LongWritable, HVArray, HVArray>
 			list.add(val.get());
 		}
 		list.sort();
-		context.write(_key, new HVArray(list.toArray()));
+		if(skewSplit == null){
+			outputValue.set(list.toArray());
+			context.write(_key, outputValue);
+		}
+		// Write the partitioned square, as GeneralPartitioner does
+		else if(_key.size() == 2){
+			outputValue.set(list.toArray(), null);
+			context.write(_key, outputValue);
+		}
+		else{
+			HVArray part = skewSplit.partition(list.toArray(), _key.getLast());
+			if(part != null){
+				outputKey.set(_key.getFirst(), _key.getSecond());
+				context.write(outputKey, part);
+			}
+		}
 	}
 	
 	@Override
 	public void setup(Context context){
 		list = new TLongArrayList();
+		skewSplit = SkewSplit.get(context.getConfiguration());
 	}
 	
 	@Override
@@ -296,8 +362,10 @@ class EnumSquareReducer extends	Reducer<HVArray,LongWritable, HVArray, HVArray>
 }
 
 class EnumSquareCountReducer extends
-		Reducer<HVArray, LongWritable, NullWritable, LongWritable> {
+		StageReducer<HVArray, LongWritable, NullWritable, LongWritable> {
 	private static TLongArrayList list = null;
+	private static SkewSplit skewSplit = null;
+	private static PatternCounter counter = null;
 
 	@Override
 	public void reduce(HVArray _key, Iterable<LongWritable> values,
@@ -309,34 +377,63 @@ class EnumSquareCountReducer extends
 		list.sort();
 		long[] array = list.toArray();
 		long count = 0L;
-		int largeThanMinIndex = BinarySearch.findLargeIndex(_key.getFirst(), array);
-		count = (2 * list.size() - 1 - largeThanMinIndex) * largeThanMinIndex / 2;
-		if(count > 0)
-			context.write(NullWritable.get(), new LongWritable(count));
+		if(_key.size() == 3){
+			count = skewSplit.count(_key.getFirst(), array, _key.getLast());
+		}
+		else{
+			int largeThanMinIndex = BinarySearch.findLargeIndex(_key.getFirst(), array);
+			count = (2 * list.size() - 1 - largeThanMinIndex) * largeThanMinIndex / 2;
+		}
+		counter.add(context, count);
 	}
 
 	@Override
 	public void setup(Context context) {
+		counter = new PatternCounter(context.getConfiguration());
 		list = new TLongArrayList();
+		skewSplit = SkewSplit.get(context.getConfiguration());
 	}
 
 	@Override
 	public void cleanup(Context context) {
+		counter.flush(context);
 		list.clear();
 		list = null;
 	}
 }
 
 class SquareCountMapper extends
-		Mapper<HVArray, HVArray, NullWritable, LongWritable> {
+		StageMapper<HVArray, HVArray, NullWritable, LongWritable> {
+	private static boolean isSquarePartition = false;
+	private LongWritable outputValue = new LongWritable();
+
 	@Override
 	public void map(HVArray _key, HVArray _value, Context context)
 			throws IOException, InterruptedException {
 		long count = 0L;
-		int largeThanMinIndex = BinarySearch.findLargeIndex(_key.getFirst(), _value.toArrays());
-		count = (2 * _value.size() - 1 - largeThanMinIndex) * largeThanMinIndex / 2;
-		if(count > 0)
-			context.write(NullWritable.get(), new LongWritable(count));
+		long[] array = _value.toArrays();
+		if(!isSquarePartition || array[0] == -1){
+			if(isSquarePartition){
+				array = Arrays.copyOfRange(array, 1, array.length);
+			}
+			int largeThanMinIndex = BinarySearch.findLargeIndex(_key.getFirst(), array);
+			count = (2 * array.length - 1 - largeThanMinIndex) * largeThanMinIndex / 2;
+		}
+		else{
+			// Every vertex of the first group is smaller than those of the second
+			long[] group1 = Arrays.copyOfRange(array, 1, (int)array[0] + 1);
+			count = (long) BinarySearch.findLargeIndex(_key.getFirst(), group1)
+					* (array.length - 1 - group1.length);
+		}
+		if(count > 0){
+			outputValue.set(count);
+			context.write(NullWritable.get(), outputValue);
+		}
+	}
+
+	@Override
+	public void setup(Context context) {
+		isSquarePartition = context.getConfiguration().getBoolean(SkewSplit.ENABLED, false);
 	}
 }
 
@@ -8,8 +8,6 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.RawComparator;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
 import org.apache.hadoop.util.ToolRunner;
@@ -22,6 +20,8 @@ import dbg.hadoop.subgraphs.io.HVArraySignComparator;
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.InputInfo;
 import dbg.hadoop.subgraphs.utils.Utility;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 public class EnumTwinCSquare {
 
@@ -68,7 +68,9 @@ public class EnumTwinCSquare {
 }
 
 class EnumTwinCSquareMapper extends
-Mapper<HVArray, HVArray, HVArray, HVArray> {
+StageMapper<HVArray, HVArray, HVArray, HVArray> {
+	private HVArray outputKey = new HVArray();
+	private HVArray outputValue = new HVArray();
 
 	@Override
 	public void map(HVArray _key, HVArray _value, Context context)
@@ -81,10 +83,18 @@ Mapper<HVArray, HVArray, HVArray, HVArray> {
 			v2 = array[i];
 			for(int j = i + 1; j < array.length; ++j){
 				v4 = array[j];
-				context.write(new HVArray(v3, v4),  new HVArray(v1, v2));
-				context.write(new HVArray(v3, v2),  new HVArray(v1, v4));
-				context.write(new HVArray(v1, v4),  new HVArray(v3, v2));
-				context.write(new HVArray(v1, v2),  new HVArray(v3, v4));
+				outputKey.set(v3, v4);
+				outputValue.set(v1, v2);
+				context.write(outputKey, outputValue);
+				outputKey.set(v3, v2);
+				outputValue.set(v1, v4);
+				context.write(outputKey, outputValue);
+				outputKey.set(v1, v4);
+				outputValue.set(v3, v2);
+				context.write(outputKey, outputValue);
+				outputKey.set(v1, v2);
+				outputValue.set(v3, v4);
+				context.write(outputKey, outputValue);
 			}
 		}
 	}
@@ -92,7 +102,7 @@ Mapper<HVArray, HVArray, HVArray, HVArray> {
 
 /*
 class EnumTwinCSquareMapper2 extends
-Mapper<HVArray, HVArray, HVArraySign, HVArray> {
+StageMapper<HVArray, HVArray, HVArraySign, HVArray> {
 
 	@Override
 	public void map(HVArray _key, HVArray _value, Context context)
@@ -116,9 +126,10 @@ Mapper<HVArray, HVArray, HVArraySign, HVArray> {
 */
 
 class EnumTwinCSquareReducer extends
-		Reducer<HVArray, HVArray, NullWritable, LongWritable> {
+		StageReducer<HVArray, HVArray, NullWritable, LongWritable> {
 
 	private static ArrayList<HVArray> heap = new ArrayList<HVArray>();
+	private LongWritable outputValue = new LongWritable();
 
 	@Override
 	public void reduce(HVArray _key, Iterable<HVArray> values,
@@ -147,6 +158,7 @@ class EnumTwinCSquareReducer extends
 			}
 		}
 		
-		context.write(NullWritable.get(), new LongWritable(count));
+		outputValue.set(count);
+		context.write(NullWritable.get(), outputValue);
 	}
 }
\ No newline at end of file
@@ -7,8 +7,6 @@ import java.util.Iterator;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.Mapper.Context;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
@@ -21,6 +19,8 @@ import dbg.hadoop.subgraphs.io.HVArraySignComparator;
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.InputInfo;
 import dbg.hadoop.subgraphs.utils.Utility;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 /**
  * Twin Chordal Square with non-optimal execution plan.
@@ -86,7 +86,9 @@ public class EnumTwinCSquareLD {
  *
  */
 class EnumTwinCSquareLDTriangleMapper extends
-Mapper<NullWritable, HVArray, HVArraySign, HVArray> {
+StageMapper<NullWritable, HVArray, HVArraySign, HVArray> {
+	private HVArraySign outputKey = new HVArraySign();
+	private HVArray outputValue = new HVArray();
 
 	@Override
 	public void map(NullWritable _key, HVArray _value, Context context)
@@ -94,17 +96,31 @@ Mapper<NullWritable, HVArray, HVArraySign, HVArray> {
 		long v1 = _value.getFirst();
 		long v2 = _value.getSecond();
 		long v3 = _value.getLast();
-		context.write(new HVArraySign(v1, v2, Config.SMALLSIGN), new HVArray(v3));
-		context.write(new HVArraySign(v2, v1, Config.SMALLSIGN), new HVArray(v3));
-		context.write(new HVArraySign(v1, v3, Config.SMALLSIGN), new HVArray(v2));
-		context.write(new HVArraySign(v3, v1, Config.SMALLSIGN), new HVArray(v2));
-		context.write(new HVArraySign(v2, v3, Config.SMALLSIGN), new HVArray(v1));
-		context.write(new HVArraySign(v3, v2, Config.SMALLSIGN), new HVArray(v1));
+		outputKey.set(v1, v2, Config.SMALLSIGN);
+		outputValue.set(v3);
+		context.write(outputKey, outputValue);
+		outputKey.set(v2, v1, Config.SMALLSIGN);
+		outputValue.set(v3);
+		context.write(outputKey, outputValue);
+		outputKey.set(v1, v3, Config.SMALLSIGN);
+		outputValue.set(v2);
+		context.write(outputKey, outputValue);
+		outputKey.set(v3, v1, Config.SMALLSIGN);
+		outputValue.set(v2);
+		context.write(outputKey, outputValue);
+		outputKey.set(v2, v3, Config.SMALLSIGN);
+		outputValue.set(v1);
+		context.write(outputKey, outputValue);
+		outputKey.set(v3, v2, Config.SMALLSIGN);
+		outputValue.set(v1);
+		context.write(outputKey, outputValue);
 	}
 }
 
 class EnumTwinCSquareLDS2Mapper extends
-Mapper<HVArray, HVArray, HVArraySign, HVArray> {
+StageMapper<HVArray, HVArray, HVArraySign, HVArray> {
+	private HVArraySign outputKey = new HVArraySign();
+	private HVArray outputValue = new HVArray();
 
 	@Override
 	public void map(HVArray _key, HVArray _value, Context context)
@@ -117,19 +133,28 @@ Mapper<HVArray, HVArray, HVArraySign, HVArray> {
 			v2 = array[i];
 			for(int j = i + 1; j < array.length; ++j){
 				v4 = array[j];
-				context.write(new HVArraySign(v3, v4, Config.LARGESIGN),  new HVArray(v1, v2));
-				context.write(new HVArraySign(v3, v2, Config.LARGESIGN),  new HVArray(v1, v4));
-				context.write(new HVArraySign(v1, v4, Config.LARGESIGN),  new HVArray(v3, v2));
-				context.write(new HVArraySign(v1, v2, Config.LARGESIGN),  new HVArray(v3, v4));
+				outputKey.set(v3, v4, Config.LARGESIGN);
+				outputValue.set(v1, v2);
+				context.write(outputKey, outputValue);
+				outputKey.set(v3, v2, Config.LARGESIGN);
+				outputValue.set(v1, v4);
+				context.write(outputKey, outputValue);
+				outputKey.set(v1, v4, Config.LARGESIGN);
+				outputValue.set(v3, v2);
+				context.write(outputKey, outputValue);
+				outputKey.set(v1, v2, Config.LARGESIGN);
+				outputValue.set(v3, v4);
+				context.write(outputKey, outputValue);
 			}
 		}
 	}
 }
 
 class EnumTwinCSquareLDS2Reducer extends
-		Reducer<HVArraySign, HVArray, HVArray, HVArray> {
+		StageReducer<HVArraySign, HVArray, HVArray, HVArray> {
 
 	private static ArrayList<HVArray> heap = new ArrayList<HVArray>();
+	private HVArray outputValue = new HVArray();
 
 	@Override
 	public void reduce(HVArraySign _key, Iterable<HVArray> values,
@@ -152,7 +177,8 @@ class EnumTwinCSquareLDS2Reducer extends
 					v2 = val.getSecond();
 					v5 = temp.getFirst();
 					if (v1 < v5 && v2 != v5) {
-						context.write(_key.vertexArray, new HVArray(v1, v2, v5));
+						outputValue.set(v1, v2, v5);
+						context.write(_key.vertexArray, outputValue);
 					}
 				}
 			}
@@ -163,20 +189,24 @@ class EnumTwinCSquareLDS2Reducer extends
 //Belows are stage three
 
 class EnumTwinCSquareLDS3Mapper extends
-		Mapper<HVArray, HVArray, HVArraySign, HVArray> {
+		StageMapper<HVArray, HVArray, HVArraySign, HVArray> {
+	private HVArraySign outputKey = new HVArraySign();
+	private HVArray outputValue = new HVArray();
 
 	@Override
 	public void map(HVArray _key, HVArray _value, Context context)
 			throws IOException, InterruptedException {
-		context.write(new HVArraySign(_key.getFirst(),  _value.getLast(), Config.LARGESIGN), 
-				new HVArray(_value.getFirst(), _value.getSecond(), _key.getSecond()));
+		outputKey.set(_key.getFirst(), _value.getLast(), Config.LARGESIGN);
+		outputValue.set(_value.getFirst(), _value.getSecond(), _key.getSecond());
+		context.write(outputKey, outputValue);
 	}
 }
 
 class EnumTwinCSquareLDS3Reducer extends
-		Reducer<HVArraySign, HVArray, NullWritable, LongWritable> {
+		StageReducer<HVArraySign, HVArray, NullWritable, LongWritable> {
 
 	private static ArrayList<HVArray> heap = new ArrayList<HVArray>();
+	private LongWritable outputValue = new LongWritable();
 
 	@Override
 	public void reduce(HVArraySign _key, Iterable<HVArray> values,
@@ -206,6 +236,7 @@ class EnumTwinCSquareLDS3Reducer extends
 				}
 			}
 		}
-		context.write(NullWritable.get(), new LongWritable(count));
+		outputValue.set(count);
+		context.write(NullWritable.get(), outputValue);
 	}
 }
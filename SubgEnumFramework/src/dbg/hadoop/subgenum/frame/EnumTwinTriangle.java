@@ -9,15 +9,16 @@ import java.util.Arrays;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
 import org.apache.hadoop.util.ToolRunner;
 
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HyperVertexComparator;
+import dbg.hadoop.subgraphs.io.LoadAwarePartitioner;
 import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 public class EnumTwinTriangle {
 	
@@ -26,6 +27,10 @@ public class EnumTwinTriangle {
 		
 		Configuration conf = new Configuration();
 		conf.setBoolean("result.compression", inputInfo.isResultCompression);
+		if(inputInfo.isLoadAware){
+			LoadAwarePartitioner.configure(conf, workDir, "twintriangle",
+					Integer.parseInt(inputInfo.numReducers), inputInfo.loadCost);
+		}
 		
 		String[] opts = { workDir + "triangle.res", "",
 				workDir + "frame.twintriangle.res",  inputInfo.numReducers, inputInfo.jarFile };
@@ -81,31 +86,39 @@ public class EnumTwinTriangle {
 }
 
 class EnumTwinTriangleMapper extends
-	Mapper<NullWritable, HVArray, LongWritable, HVArray> {
+	StageMapper<NullWritable, HVArray, LongWritable, HVArray> {
+	private LongWritable outputKey = new LongWritable();
+	private HVArray outputValue = new HVArray();
 
 	@Override
 	public void map(NullWritable _key, HVArray _value, Context context)
 			throws IOException, InterruptedException {
-		context.write(new LongWritable(_value.getFirst()),
-				new HVArray(_value.getSecond(), _value.getLast()));
-		context.write(new LongWritable(_value.getSecond()),
-				new HVArray(_value.getFirst(), _value.getLast()));
-		context.write(new LongWritable(_value.getLast()),
-				new HVArray(_value.getFirst(), _value.getSecond()));
+		outputKey.set(_value.getFirst());
+		outputValue.set(_value.getSecond(), _value.getLast());
+		context.write(outputKey, outputValue);
+		outputKey.set(_value.getSecond());
+		outputValue.set(_value.getFirst(), _value.getLast());
+		context.write(outputKey, outputValue);
+		outputKey.set(_value.getLast());
+		outputValue.set(_value.getFirst(), _value.getSecond());
+		context.write(outputKey, outputValue);
 	}
 }
 
 class EnumTwinTriangleReducer extends
-	Reducer<LongWritable, HVArray, LongWritable, HVArray> {
+	StageReducer<LongWritable, HVArray, LongWritable, HVArray> {
 	
 	private static boolean isCompress = true;
+	private static boolean recordLoad = false;
 	//MaxHeap<HVArray> heap = null;
 	ArrayList<HVArray> heap = null;
 	TLongIntHashMap firstItemMap = null;
+	private HVArray outputValue = new HVArray();
 	
 	@Override
 	public void reduce(LongWritable _key, Iterable<HVArray> values, Context context) 
 			throws IOException, InterruptedException{
+		long begin = System.nanoTime();
 		if(heap.size() != 0){
 			heap.clear();
 		}
@@ -141,7 +154,8 @@ class EnumTwinTriangleReducer extends
 					long v4 = array[j].getSecond();
 					if(v2 != v3 && v2 != v4){
 						long[] out = { v1, v2, v3, v4 };
-						context.write(_key, new HVArray(out));
+						outputValue.set(out);
+						context.write(_key, outputValue);
 					}
 				}
 			}
@@ -152,14 +166,18 @@ class EnumTwinTriangleReducer extends
 				outArray[2 * i] = array[i].getFirst();
 				outArray[2 * i + 1] = array[i].getSecond();
 			}
-			context.write(_key, new HVArray(outArray));
+			outputValue.set(outArray);
+			context.write(_key, outputValue);
+		}
+		if(recordLoad){
+			LoadAwarePartitioner.record(context, _key.get(), begin);
 		}
-		
 	}
 	 
 	@Override
 	public void setup(Context context){
 		isCompress = context.getConfiguration().getBoolean("result.compression", true);
+		recordLoad = LoadAwarePartitioner.isRecording(context.getConfiguration());
 		//heap = new MaxHeap<HVArray>(Config.HEAPINITSIZE);
 		heap = new ArrayList<HVArray>();
 		if(!isCompress)
@@ -177,15 +195,18 @@ class EnumTwinTriangleReducer extends
 }
 
 class EnumTwinTriangleCountReducer extends
-		Reducer<LongWritable, HVArray, NullWritable, LongWritable> {
+		StageReducer<LongWritable, HVArray, NullWritable, LongWritable> {
 
 	private static ArrayList<HVArray> heap = null;
 	private static TLongIntHashMap firstItemMap = null;
 	private static boolean isCompress = true; 
+	private static boolean recordLoad = false;
+	private static PatternCounter counter = null;
 
 	@Override
 	public void reduce(LongWritable _key, Iterable<HVArray> values,
 			Context context) throws IOException, InterruptedException {
+		long begin = System.nanoTime();
 		if (heap.size() != 0) {
 			heap.clear();
 		}
@@ -241,19 +262,24 @@ class EnumTwinTriangleCountReducer extends
 				}
 			}
 		}
-		if(count > 0)
-			context.write(NullWritable.get(), new LongWritable(count));
+		counter.add(context, count);
+		if(recordLoad){
+			LoadAwarePartitioner.record(context, _key.get(), begin);
+		}
 	}
 
 	@Override
 	public void setup(Context context) {
+		counter = new PatternCounter(context.getConfiguration());
 		heap = new ArrayList<HVArray>();
 		firstItemMap = new TLongIntHashMap();
 		isCompress = context.getConfiguration().getBoolean("result.compression", true);
+		recordLoad = LoadAwarePartitioner.isRecording(context.getConfiguration());
 	}
 
 	@Override
 	public void cleanup(Context context) {
+		counter.flush(context);
 		heap = null;
 		if (firstItemMap != null) {
 			firstItemMap.clear();
@@ -263,9 +289,10 @@ class EnumTwinTriangleCountReducer extends
 }
 
 class TwinTriangleCountMapper extends
-		Mapper<LongWritable, HVArray, NullWritable, LongWritable> {
+		StageMapper<LongWritable, HVArray, NullWritable, LongWritable> {
 	
 	private static TLongIntHashMap firstItemMap = null;
+	private LongWritable outputValue = new LongWritable();
 	
 	@Override
 	public void map(LongWritable _key, HVArray _value, Context context)
@@ -304,8 +331,10 @@ class TwinTriangleCountMapper extends
 			if(index < array.length)
 				count += (array.length - index) / 2;
 		}
-		if(count > 0)
-			context.write(NullWritable.get(), new LongWritable(count));
+		if(count > 0){
+			outputValue.set(count);
+			context.write(NullWritable.get(), outputValue);
+		}
 	}
 	
 	@Override
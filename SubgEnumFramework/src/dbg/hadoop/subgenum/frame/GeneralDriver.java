@@ -12,6 +12,7 @@ import org.apache.hadoop.io.RawComparator;
 import org.apache.hadoop.io.SequenceFile.CompressionType;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapreduce.Counters;
 import org.apache.hadoop.mapreduce.InputFormat;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.Mapper;
@@ -25,10 +26,15 @@ import org.apache.hadoop.util.Tool;
 
 import com.hadoop.compression.lzo.LzoCodec;
 
+import dbg.hadoop.subgraphs.io.CompactHVArraySerialization;
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HVArrayGroupComparator;
 import dbg.hadoop.subgraphs.io.HVArraySign;
 import dbg.hadoop.subgraphs.io.HVArraySignComparator;
+import dbg.hadoop.subgraphs.io.LoadAwarePartitioner;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.RunReport;
+import dbg.hadoop.subgraphs.utils.offheap.LongStores;
 
 @SuppressWarnings("rawtypes")
 public class GeneralDriver extends Configured implements Tool{
@@ -47,6 +53,36 @@ public class GeneralDriver extends Configured implements Tool{
 	private Class<? extends Writable> outputValueClass = null;
 	private Class<? extends RawComparator> sortComparatorClass = null;
 	private Class<? extends RawComparator> groupingComparatorClass = null;
+	private Counters counters = null;
+	
+	// Write HVArray keys and values of the job in the compact format
+	public static final String COMPACT_HVARRAY = "hvarray.compact";
+	private static boolean compactHVArray = false;
+	
+	/**
+	 * The default of hvarray.compact for the jobs whose conf does not set it
+	 */
+	public static void setCompactHVArray(boolean _compact){
+		compactHVArray = _compact;
+	}
+	
+	private static boolean countByCounter = false;
+	
+	/**
+	 * The default of count.counter for the jobs whose conf does not set it
+	 */
+	public static void setCountByCounter(boolean _byCounter){
+		countByCounter = _byCounter;
+	}
+	
+	private static String sideDataStore = LongStores.HEAP;
+	
+	/**
+	 * The default of sidedata.store for the jobs whose conf does not set it
+	 */
+	public static void setSideDataStore(String _store){
+		sideDataStore = _store;
+	}
 	
 	/**
 	 * @param _name
@@ -224,8 +260,16 @@ public class GeneralDriver extends Configured implements Tool{
 		//int numReducers = Integer.parseInt(args[2]);
 		conf.setBoolean("mapred.compress.map.output", true);
 		conf.set("mapred.map.output.compression.codec", "com.hadoop.compression.lzo.LzoCodec");
+		if(conf.getBoolean(COMPACT_HVARRAY, compactHVArray)){
+			CompactHVArraySerialization.enable(conf);
+		}
+		conf.set(LongStores.STORE, conf.get(LongStores.STORE, sideDataStore));
+		conf.setBoolean(PatternCounter.COUNT_BY_COUNTER,
+				conf.getBoolean(PatternCounter.COUNT_BY_COUNTER, countByCounter));
+		RunReport.configure(conf);
 
 		Job job = new Job(conf, driverName);
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[4]);
 		
 		MultipleInputs.addInputPath(job, 
@@ -265,7 +309,24 @@ public class GeneralDriver extends Configured implements Tool{
 
 		FileOutputFormat.setOutputPath(job, new Path(args[2]));
 
-		job.waitForCompletion(true);
+		counters = null;
+		long begin = System.currentTimeMillis();
+		if(LocalEngine.isEnabled()){
+			counters = LocalEngine.run(job);
+		}
+		else if(job.waitForCompletion(true)){
+			counters = job.getCounters();
+		}
+		RunReport.record(job, counters, System.currentTimeMillis() - begin);
+		LoadAwarePartitioner.saveCalibration(job.getConfiguration(), counters);
+		PatternCounter.collect(counters);
 		return 0;
 	}
+	
+	/**
+	 * @return The counters of the last run, null if the job failed
+	 */
+	public Counters getCounters(){
+		return this.counters;
+	}
 }
\ No newline at end of file
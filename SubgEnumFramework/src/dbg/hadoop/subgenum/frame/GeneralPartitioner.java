@@ -7,8 +7,6 @@ import java.util.Random;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.Reducer.Context;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
@@ -17,6 +15,8 @@ import org.apache.hadoop.util.ToolRunner;
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HVArrayComparator;
 import dbg.hadoop.subgraphs.utils.Utility;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 public class GeneralPartitioner {
 	
@@ -44,10 +44,12 @@ public class GeneralPartitioner {
 }
 
 class GeneralPartMapper extends
-		Mapper<HVArray, HVArray, HVArray, HVArray> {
+		StageMapper<HVArray, HVArray, HVArray, HVArray> {
 
 	private static Random rand = null;
 	private static int thresh = 2000;
+	private HVArray outputKey = new HVArray();
+	private HVArray outputValue = new HVArray();
 
 	@Override
 	public void map(HVArray _key, HVArray _value, Context context)
@@ -55,14 +57,13 @@ class GeneralPartMapper extends
 		ArrayList<long[]> arrayPartitioner = Utility.partArray(
 				_value.toArrays(), thresh);
 		for (int i = 0; i < arrayPartitioner.size(); ++i) {
-			context.write(
-					new HVArray(_key.getFirst(), _key.getSecond(), rand
-							.nextLong()), new HVArray(arrayPartitioner.get(i),
-							null));
+			outputKey.set(_key.getFirst(), _key.getSecond(), rand.nextLong());
+			outputValue.set(arrayPartitioner.get(i), null);
+			context.write(outputKey, outputValue);
 			for (int j = i + 1; j < arrayPartitioner.size(); ++j) {
-				context.write(new HVArray(_key.getFirst(), _key.getSecond(),
-						rand.nextLong()), new HVArray(arrayPartitioner.get(i),
-						arrayPartitioner.get(j)));
+				outputKey.set(_key.getFirst(), _key.getSecond(), rand.nextLong());
+				outputValue.set(arrayPartitioner.get(i), arrayPartitioner.get(j));
+				context.write(outputKey, outputValue);
 			}
 		}
 	}
@@ -75,12 +76,14 @@ class GeneralPartMapper extends
 }
 
 class GeneralPartReducer extends
-		Reducer<HVArray, HVArray, HVArray, HVArray> {
+		StageReducer<HVArray, HVArray, HVArray, HVArray> {
+	private HVArray outputKey = new HVArray();
 	@Override
 	public void reduce(HVArray key, Iterable<HVArray> values, Context context)
 			throws IOException, InterruptedException {
 		for (HVArray val : values) {
-			context.write(new HVArray(key.getFirst(), key.getSecond()), val);
+			outputKey.set(key.getFirst(), key.getSecond());
+			context.write(outputKey, val);
 		}
 	}
 }
\ No newline at end of file
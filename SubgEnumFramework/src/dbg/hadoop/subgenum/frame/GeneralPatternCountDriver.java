@@ -9,6 +9,7 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapreduce.Counters;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
@@ -17,6 +18,9 @@ import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
 import org.apache.hadoop.util.Tool;
 
+import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.RunReport;
+
 @SuppressWarnings("rawtypes")
 public class GeneralPatternCountDriver extends Configured implements Tool{
 	
@@ -33,6 +37,7 @@ public class GeneralPatternCountDriver extends Configured implements Tool{
 		conf.setBoolean("mapred.compress.map.output", true);
 		conf.set("mapred.map.output.compression.codec", "com.hadoop.compression.lzo.LzoCodec");
 		Job job = new Job(conf, "Frame Pattern Count");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[3]);
 		
 		job.setInputFormatClass(SequenceFileInputFormat.class);
@@ -50,7 +55,15 @@ public class GeneralPatternCountDriver extends Configured implements Tool{
 		FileInputFormat.setInputPaths(job, new Path(args[0]));
 		FileOutputFormat.setOutputPath(job, new Path(args[1]));
 
-		job.waitForCompletion(true);
+		if(LocalEngine.isEnabled()){
+			RunReport.configure(job.getConfiguration());
+			long begin = System.currentTimeMillis();
+			Counters counters = LocalEngine.run(job);
+			RunReport.record(job, counters, System.currentTimeMillis() - begin);
+		}
+		else{
+			RunReport.waitForCompletion(job);
+		}
 		return 0;
 	}
 }
\ No newline at end of file
@@ -4,11 +4,12 @@ import java.io.IOException;
 
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.mapreduce.Mapper;
+
+import dbg.hadoop.subgraphs.utils.StageMapper;
 
 
 class GeneralPatternCountIdentityMapper extends
-		Mapper<NullWritable, LongWritable, NullWritable, LongWritable> {
+		StageMapper<NullWritable, LongWritable, NullWritable, LongWritable> {
 	
 	@Override
 	public void map(NullWritable _key, LongWritable _value, Context context)
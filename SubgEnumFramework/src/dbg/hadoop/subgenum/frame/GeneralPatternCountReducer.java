@@ -3,13 +3,15 @@ package dbg.hadoop.subgenum.frame;
 import java.io.IOException;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.log4j.Logger;
 
+import dbg.hadoop.subgraphs.utils.StageReducer;
+
 
 public class GeneralPatternCountReducer extends
-	Reducer<NullWritable, LongWritable, NullWritable, LongWritable> {
+	StageReducer<NullWritable, LongWritable, NullWritable, LongWritable> {
 	private static Logger log = Logger.getLogger(GeneralPatternCountReducer.class);
+	private LongWritable outputValue = new LongWritable();
 	@Override
 	public void reduce(NullWritable _key, Iterable<LongWritable> values,
 			Context context) throws IOException, InterruptedException {
@@ -18,6 +20,7 @@ public class GeneralPatternCountReducer extends
 			sum += val.get();
 		}
 		log.info("# pattern graph: " + sum);
-		context.write(NullWritable.get(), new LongWritable(sum));
+		outputValue.set(sum);
+		context.write(NullWritable.get(), outputValue);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,727 @@
+package dbg.hadoop.subgenum.frame;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.filecache.DistributedCache;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RawLocalFileSystem;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.RawComparator;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.serializer.SerializationFactory;
+import org.apache.hadoop.io.serializer.Serializer;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.RawKeyValueIterator;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.JobID;
+import org.apache.hadoop.mapreduce.JobStatus;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.OutputCommitter;
+import org.apache.hadoop.mapreduce.OutputFormat;
+import org.apache.hadoop.mapreduce.Partitioner;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskCounter;
+import org.apache.hadoop.mapreduce.TaskID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.mapreduce.lib.map.WrappedMapper;
+import org.apache.hadoop.mapreduce.lib.reduce.WrappedReducer;
+import org.apache.hadoop.mapreduce.task.JobContextImpl;
+import org.apache.hadoop.mapreduce.task.MapContextImpl;
+import org.apache.hadoop.mapreduce.task.ReduceContextImpl;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.apache.hadoop.util.IndexedSortable;
+import org.apache.hadoop.util.Progress;
+import org.apache.hadoop.util.QuickSort;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.log4j.Logger;
+
+import dbg.hadoop.subgraphs.utils.SideDataCache;
+
+/**
+ * Single-JVM execution engine for the frame jobs. <br>
+ * Once enabled (enum.local.engine=true), GeneralDriver and GeneralPatternCountDriver
+ * hand their configured Job to {@link #run(Job)} instead of submitting it. <br>
+ * Map tasks (one per input split) and reduce tasks (one per partition) run in a
+ * fork-join pool. The map output is partitioned by the job's partitioner, sorted per
+ * map task with the job's sort comparator, combined if the job has a combiner, and
+ * merged in memory for every reducer. There is no spill, no LZO map output and no
+ * job startup. The output of a map task for a partition is cut into runs of at most
+ * enum.local.engine.run.mb (512 MB by default), as the buffers are indexed by int. <br>
+ * The job classes (dbg.hadoop.subgenum.*) are loaded by a fresh class loader per task,
+ * so the static fields of the mappers and reducers behave as in separate task JVMs.
+ * The loader is closed when its task ends.
+ */
+@SuppressWarnings({ "rawtypes", "unchecked", "deprecation" })
+public class LocalEngine {
+	private static Logger log = Logger.getLogger(LocalEngine.class);
+
+	private static final String TASK_PACKAGE = "dbg.hadoop.subgenum.";
+	public static final String RUN_MB = "enum.local.engine.run.mb";
+
+	private static ForkJoinPool pool = null;
+	private static int numThreads = 0;
+	private static int numJobs = 0;
+
+	/**
+	 * Route all the following frame jobs to the local engine
+	 * @param _numThreads Size of the fork-join pool; &lt;= 0 means one per core
+	 */
+	public static void enable(int _numThreads){
+		numThreads = (_numThreads > 0) ? _numThreads : Runtime.getRuntime().availableProcessors();
+		pool = new ForkJoinPool(numThreads);
+		log.info("[LocalEngine] Enabled with " + numThreads + " threads.");
+	}
+
+	public static boolean isEnabled(){
+		return pool != null;
+	}
+
+	/**
+	 * Run the job in the current JVM. The output directory is laid out exactly as
+	 * Job.waitForCompletion would do it (part-r-xxxxx files, _SUCCESS).
+	 * @param job A fully configured job
+	 * @return The counters of the job
+	 */
+	public static synchronized Counters run(Job job) throws IOException, InterruptedException {
+		long startTime = System.currentTimeMillis();
+		final JobConf jobConf = (JobConf) job.getConfiguration();
+		final JobID jobId = new JobID("subgenum" + startTime, ++numJobs);
+		final Counters counters = new Counters();
+		JobContext jobContext = new JobContextImpl(jobConf, jobId);
+
+		File localDir = new File(System.getProperty("java.io.tmpdir"), "subgenum-" + jobId.toString());
+		localizeCacheFiles(jobConf, localDir);
+
+		OutputCommitter committer = null;
+		try {
+			OutputFormat outputFormat = ReflectionUtils.newInstance(
+					jobContext.getOutputFormatClass(), jobConf);
+			outputFormat.checkOutputSpecs(jobContext);
+			committer = outputFormat.getOutputCommitter(new TaskAttemptContextImpl(jobConf,
+					new TaskAttemptID(new TaskID(jobId, TaskType.JOB_SETUP, 0), 0)));
+			committer.setupJob(jobContext);
+
+			InputFormat inputFormat = ReflectionUtils.newInstance(
+					jobContext.getInputFormatClass(), jobConf);
+			List<InputSplit> splits = inputFormat.getSplits(jobContext);
+			final int numMaps = splits.size();
+			final int numReduces = jobContext.getNumReduceTasks();
+
+			// Map phase
+			final List<SortedRun>[][] mapOutputs = new List[numMaps][];
+			List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+			for(int i = 0; i < numMaps; ++i){
+				final int taskId = i;
+				final byte[] split = writeSplit(splits.get(i));
+				tasks.add(new Callable<Object>(){
+					public Object call() throws Exception {
+						mapOutputs[taskId] = runMapTask(jobConf, jobId, taskId, split, counters);
+						return null;
+					}
+				});
+			}
+			invokeAll(tasks);
+
+			// Reduce phase
+			tasks.clear();
+			for(int i = 0; i < numReduces; ++i){
+				final int partition = i;
+				tasks.add(new Callable<Object>(){
+					public Object call() throws Exception {
+						List<SortedRun> runs = new ArrayList<SortedRun>();
+						for(int m = 0; m < numMaps; ++m){
+							for(SortedRun run : mapOutputs[m][partition]){
+								if(run.size() > 0){
+									runs.add(run);
+								}
+							}
+						}
+						runReduceTask(jobConf, jobId, partition, runs, counters);
+						for(int m = 0; m < numMaps; ++m){
+							mapOutputs[m][partition] = null;
+						}
+						return null;
+					}
+				});
+			}
+			invokeAll(tasks);
+
+			committer.commitJob(jobContext);
+			log.info("[LocalEngine] " + job.getJobName() + ": " + numMaps + " maps, "
+					+ numReduces + " reduces, map output records = "
+					+ counters.findCounter(TaskCounter.MAP_OUTPUT_RECORDS).getValue()
+					+ ", reduce output records = "
+					+ counters.findCounter(TaskCounter.REDUCE_OUTPUT_RECORDS).getValue()
+					+ ". Time elapsed: " + (System.currentTimeMillis() - startTime) / 1000 + "s");
+		} catch (ClassNotFoundException e) {
+			abort(committer, jobContext);
+			throw new IOException(e);
+		} catch (IOException e) {
+			abort(committer, jobContext);
+			throw e;
+		} finally {
+			// The side data was built from the files of localDir
+			SideDataCache.clear();
+			FileUtil.fullyDelete(localDir);
+		}
+		return counters;
+	}
+
+	private static void abort(OutputCommitter committer, JobContext jobContext) throws IOException{
+		if(committer != null){
+			committer.abortJob(jobContext, JobStatus.State.FAILED);
+		}
+	}
+
+	private static void invokeAll(List<Callable<Object>> tasks) throws IOException, InterruptedException {
+		List<Future<Object>> results = pool.invokeAll(tasks);
+		for(Future<Object> res : results){
+			try {
+				res.get();
+			} catch (ExecutionException e) {
+				if(e.getCause() instanceof IOException){
+					throw (IOException) e.getCause();
+				}
+				throw new IOException(e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * Copy the DistributedCache files to the local disk (if needed)
+	 * and make them visible through DistributedCache.getLocalCacheFiles
+	 */
+	private static void localizeCacheFiles(Configuration conf, File localDir) throws IOException{
+		URI[] uris = DistributedCache.getCacheFiles(conf);
+		if(uris == null){
+			return;
+		}
+		String localFiles = "";
+		for(int i = 0; i < uris.length; ++i){
+			Path src = new Path(uris[i]);
+			FileSystem fs = src.getFileSystem(conf);
+			Path dst = null;
+			if(fs instanceof LocalFileSystem || fs instanceof RawLocalFileSystem){
+				dst = new Path(uris[i].getPath());
+			}
+			else {
+				// One sub directory per file, since part-r-xxxxx names clash among directories
+				dst = new Path(new File(localDir, String.valueOf(i)).getAbsolutePath(), src.getName());
+				fs.copyToLocalFile(false, src, dst, true);
+			}
+			localFiles += (i == 0 ? "" : ",") + dst.toString();
+		}
+		DistributedCache.setLocalFiles(conf, localFiles);
+	}
+
+	private static JobConf newTaskConf(JobConf jobConf) throws IOException{
+		JobConf conf = new JobConf(jobConf);
+		conf.setClassLoader(new TaskClassLoader(LocalEngine.class.getClassLoader()));
+		return conf;
+	}
+
+	/**
+	 * Release the jar opened by the class loader of the task
+	 */
+	private static void closeTaskConf(JobConf conf) throws IOException{
+		((TaskClassLoader) conf.getClassLoader()).close();
+	}
+
+	private static List<SortedRun>[] runMapTask(JobConf jobConf, JobID jobId, int taskId,
+			byte[] splitBytes, Counters counters) throws Exception{
+		JobConf conf = newTaskConf(jobConf);
+		try {
+			return runMapAttempt(conf, jobId, taskId, splitBytes, counters);
+		} finally {
+			closeTaskConf(conf);
+		}
+	}
+
+	private static List<SortedRun>[] runMapAttempt(JobConf conf, JobID jobId, int taskId,
+			byte[] splitBytes, Counters counters) throws Exception{
+		TaskAttemptID attemptId = new TaskAttemptID(new TaskID(jobId, TaskType.MAP, taskId), 0);
+		TaskAttemptContext taskContext = new TaskAttemptContextImpl(conf, attemptId);
+		LocalReporter reporter = new LocalReporter();
+
+		InputSplit split = readSplit(conf, splitBytes);
+		InputFormat inputFormat = ReflectionUtils.newInstance(taskContext.getInputFormatClass(), conf);
+		RecordReader reader = inputFormat.createRecordReader(split, taskContext);
+
+		int numReduces = taskContext.getNumReduceTasks();
+		MapOutputCollector collector = null;
+		OutputCommitter committer = null;
+		RecordWriter output = null;
+		if(numReduces > 0){
+			collector = new MapOutputCollector(taskContext, reporter);
+			output = collector;
+		}
+		else {
+			OutputFormat outputFormat = ReflectionUtils.newInstance(taskContext.getOutputFormatClass(), conf);
+			committer = outputFormat.getOutputCommitter(taskContext);
+			committer.setupTask(taskContext);
+			output = new CountingRecordWriter(outputFormat.getRecordWriter(taskContext),
+					reporter.getCounter(TaskCounter.MAP_OUTPUT_RECORDS));
+		}
+
+		MapContextImpl mapContext = new MapContextImpl(conf, attemptId, reader, output,
+				committer, reporter, split);
+		Mapper.Context context = new WrappedMapper().getMapContext(mapContext);
+		Mapper mapper = ReflectionUtils.newInstance(taskContext.getMapperClass(), conf);
+		reader.initialize(split, context);
+		mapper.run(context);
+		reader.close();
+		output.close(context);
+
+		List<SortedRun>[] runs = null;
+		if(collector != null){
+			runs = collector.sortAndCombine(conf, attemptId, taskContext, reporter);
+		}
+		else if(committer.needsTaskCommit(taskContext)){
+			committer.commitTask(taskContext);
+		}
+		synchronized(counters){
+			counters.incrAllCounters(reporter.counters);
+		}
+		return runs;
+	}
+
+	private static void runReduceTask(JobConf jobConf, JobID jobId, int partition,
+			List<SortedRun> runs, Counters counters) throws Exception{
+		JobConf conf = newTaskConf(jobConf);
+		try {
+			runReduceAttempt(conf, jobId, partition, runs, counters);
+		} finally {
+			closeTaskConf(conf);
+		}
+	}
+
+	private static void runReduceAttempt(JobConf conf, JobID jobId, int partition,
+			List<SortedRun> runs, Counters counters) throws Exception{
+		TaskAttemptID attemptId = new TaskAttemptID(new TaskID(jobId, TaskType.REDUCE, partition), 0);
+		TaskAttemptContext taskContext = new TaskAttemptContextImpl(conf, attemptId);
+		LocalReporter reporter = new LocalReporter();
+
+		OutputFormat outputFormat = ReflectionUtils.newInstance(taskContext.getOutputFormatClass(), conf);
+		OutputCommitter committer = outputFormat.getOutputCommitter(taskContext);
+		committer.setupTask(taskContext);
+		RecordWriter writer = new CountingRecordWriter(outputFormat.getRecordWriter(taskContext),
+				reporter.getCounter(TaskCounter.REDUCE_OUTPUT_RECORDS));
+
+		Reducer reducer = ReflectionUtils.newInstance(taskContext.getReducerClass(), conf);
+		runReducer(reducer, conf, attemptId, new MergeIterator(runs, taskContext.getSortComparator()),
+				reporter.getCounter(TaskCounter.REDUCE_INPUT_GROUPS),
+				reporter.getCounter(TaskCounter.REDUCE_INPUT_RECORDS),
+				writer, committer, reporter, taskContext.getGroupingComparator(), taskContext);
+		writer.close(taskContext);
+
+		if(committer.needsTaskCommit(taskContext)){
+			committer.commitTask(taskContext);
+		}
+		synchronized(counters){
+			counters.incrAllCounters(reporter.counters);
+		}
+	}
+
+	private static void runReducer(Reducer reducer, Configuration conf, TaskAttemptID attemptId,
+			RawKeyValueIterator input, Counter keyCounter, Counter valueCounter,
+			RecordWriter writer, OutputCommitter committer, StatusReporter reporter,
+			RawComparator groupingComparator, TaskAttemptContext taskContext)
+					throws IOException, InterruptedException{
+		ReduceContextImpl reduceContext = new ReduceContextImpl(conf, attemptId, input,
+				keyCounter, valueCounter, writer, committer, reporter, groupingComparator,
+				taskContext.getMapOutputKeyClass(), taskContext.getMapOutputValueClass());
+		reducer.run(new WrappedReducer().getReducerContext(reduceContext));
+	}
+
+	private static byte[] writeSplit(InputSplit split) throws IOException{
+		DataOutputBuffer out = new DataOutputBuffer();
+		Text.writeString(out, split.getClass().getName());
+		((Writable) split).write(out);
+		return Arrays.copyOf(out.getData(), out.getLength());
+	}
+
+	/**
+	 * The split is re-read with the task configuration, such that the mapper class
+	 * of a MultipleInputs split is resolved by the task class loader.
+	 */
+	private static InputSplit readSplit(Configuration conf, byte[] bytes)
+			throws IOException, ClassNotFoundException{
+		DataInputBuffer in = new DataInputBuffer();
+		in.reset(bytes, bytes.length);
+		Class<?> cls = conf.getClassByName(Text.readString(in));
+		InputSplit split = (InputSplit) ReflectionUtils.newInstance(cls, conf);
+		((Writable) split).readFields(in);
+		return split;
+	}
+
+	/**
+	 * Child-first class loader for the job classes. <br>
+	 * Everything outside dbg.hadoop.subgenum (hadoop, trove, io and utils) is shared.
+	 */
+	private static class TaskClassLoader extends URLClassLoader {
+
+		TaskClassLoader(ClassLoader parent){
+			super(new URL[] { LocalEngine.class.getProtectionDomain().getCodeSource().getLocation() }, parent);
+		}
+
+		@Override
+		protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if(!name.startsWith(TASK_PACKAGE)){
+				return super.loadClass(name, resolve);
+			}
+			Class<?> cls = findLoadedClass(name);
+			if(cls == null){
+				try {
+					cls = findClass(name);
+				} catch (ClassNotFoundException e) {
+					cls = super.loadClass(name, false);
+				}
+			}
+			if(resolve){
+				resolveClass(cls);
+			}
+			return cls;
+		}
+	}
+
+	private static class LocalReporter extends StatusReporter {
+		private Counters counters = new Counters();
+
+		@Override
+		public Counter getCounter(Enum<?> name) {
+			return counters.findCounter(name);
+		}
+
+		@Override
+		public Counter getCounter(String group, String name) {
+			return counters.findCounter(group, name);
+		}
+
+		@Override
+		public void progress() {
+		}
+
+		@Override
+		public float getProgress() {
+			return 0;
+		}
+
+		@Override
+		public void setStatus(String status) {
+		}
+	}
+
+	private static class CountingRecordWriter extends RecordWriter {
+		private RecordWriter writer;
+		private Counter counter;
+
+		CountingRecordWriter(RecordWriter _writer, Counter _counter){
+			this.writer = _writer;
+			this.counter = _counter;
+		}
+
+		@Override
+		public void write(Object key, Object value) throws IOException, InterruptedException {
+			writer.write(key, value);
+			counter.increment(1);
+		}
+
+		@Override
+		public void close(TaskAttemptContext context) throws IOException, InterruptedException {
+			writer.close(context);
+		}
+	}
+
+	/**
+	 * Serialized (key, value) records of one map task for one partition. <br>
+	 * offsets holds the start of the key and the start of the value for every record.
+	 * The records are serialized with the serializations of the job, as MapTask does.
+	 * See RunWriter for how the records are cut into runs.
+	 */
+	private static class SortedRun {
+		private DataOutputBuffer data = new DataOutputBuffer();
+		private TIntArrayList offsets = new TIntArrayList();
+		private int[] order = null;
+		private Serializer keySerializer;
+		private Serializer valueSerializer;
+
+		@SuppressWarnings("unchecked")
+		SortedRun(TaskAttemptContext taskContext) throws IOException{
+			SerializationFactory factory = new SerializationFactory(taskContext.getConfiguration());
+			keySerializer = factory.getSerializer(taskContext.getMapOutputKeyClass());
+			keySerializer.open(data);
+			valueSerializer = factory.getSerializer(taskContext.getMapOutputValueClass());
+			valueSerializer.open(data);
+		}
+
+		@SuppressWarnings("unchecked")
+		public void add(Object key, Object value) throws IOException{
+			offsets.add(data.getLength());
+			keySerializer.serialize(key);
+			offsets.add(data.getLength());
+			valueSerializer.serialize(value);
+		}
+
+		public int size(){
+			return offsets.size() / 2;
+		}
+
+		/**
+		 * @return The serialized size of the records
+		 */
+		public int length(){
+			return data.getLength();
+		}
+
+		public int keyStart(int i){
+			return offsets.get(2 * order[i]);
+		}
+
+		public int valueStart(int i){
+			return offsets.get(2 * order[i] + 1);
+		}
+
+		public int valueEnd(int i){
+			int next = 2 * order[i] + 2;
+			return (next < offsets.size()) ? offsets.get(next) : data.getLength();
+		}
+
+		public void sort(final RawComparator comparator){
+			order = new int[size()];
+			for(int i = 0; i < order.length; ++i){
+				order[i] = i;
+			}
+			if(comparator == null || order.length < 2){
+				return;
+			}
+			final byte[] bytes = data.getData();
+			new QuickSort().sort(new IndexedSortable(){
+				public int compare(int i, int j) {
+					return comparator.compare(bytes, keyStart(i), valueStart(i) - keyStart(i),
+							bytes, keyStart(j), valueStart(j) - keyStart(j));
+				}
+				public void swap(int i, int j) {
+					int tmp = order[i];
+					order[i] = order[j];
+					order[j] = tmp;
+				}
+			}, 0, order.length);
+		}
+	}
+
+	/**
+	 * Append the records to a list of runs, starting a new run once the last one
+	 * holds maxBytes, such that the int offsets of a run never overflow
+	 */
+	private static class RunWriter extends RecordWriter {
+		private List<SortedRun> runs = new ArrayList<SortedRun>();
+		private TaskAttemptContext taskContext;
+		private long maxBytes;
+
+		RunWriter(TaskAttemptContext _taskContext) throws IOException{
+			taskContext = _taskContext;
+			maxBytes = taskContext.getConfiguration().getLong(RUN_MB, 512) << 20;
+			if(maxBytes <= 0 || maxBytes > Integer.MAX_VALUE / 2){
+				throw new IOException(RUN_MB + " must be between 1 and " + (Integer.MAX_VALUE >> 21));
+			}
+			runs.add(new SortedRun(taskContext));
+		}
+
+		@Override
+		public void write(Object key, Object value) throws IOException {
+			SortedRun last = runs.get(runs.size() - 1);
+			if(last.length() >= maxBytes){
+				last = new SortedRun(taskContext);
+				runs.add(last);
+			}
+			last.add(key, value);
+			// Fail before the buffer outgrows the int offsets, only a huge record gets here
+			if(last.length() > Integer.MAX_VALUE / 2){
+				throw new IOException("A run of the local engine holds " + last.length()
+						+ " bytes after one record, more than it can index");
+			}
+		}
+
+		@Override
+		public void close(TaskAttemptContext context) {
+		}
+
+		public List<SortedRun> getRuns(){
+			return runs;
+		}
+	}
+
+	private static class MapOutputCollector extends RecordWriter {
+		private RunWriter[] runs;
+		private Partitioner partitioner;
+		private Counter counter;
+
+		MapOutputCollector(TaskAttemptContext taskContext, LocalReporter reporter)
+				throws ClassNotFoundException, IOException{
+			runs = new RunWriter[taskContext.getNumReduceTasks()];
+			for(int i = 0; i < runs.length; ++i){
+				runs[i] = new RunWriter(taskContext);
+			}
+			if(runs.length > 1){
+				partitioner = ReflectionUtils.newInstance(taskContext.getPartitionerClass(),
+						taskContext.getConfiguration());
+			}
+			counter = reporter.getCounter(TaskCounter.MAP_OUTPUT_RECORDS);
+		}
+
+		@Override
+		public void write(Object key, Object value) throws IOException, InterruptedException {
+			int partition = (partitioner == null) ? 0 : partitioner.getPartition(key, value, runs.length);
+			runs[partition].write(key, value);
+			counter.increment(1);
+		}
+
+		@Override
+		public void close(TaskAttemptContext context) {
+		}
+
+		public List<SortedRun>[] sortAndCombine(Configuration conf, TaskAttemptID attemptId,
+				TaskAttemptContext taskContext, LocalReporter reporter) throws Exception{
+			RawComparator comparator = taskContext.getSortComparator();
+			Class<? extends Reducer> combinerClass = taskContext.getCombinerClass();
+			List<SortedRun>[] res = new List[runs.length];
+			for(int i = 0; i < runs.length; ++i){
+				res[i] = runs[i].getRuns();
+			}
+			reporter.getCounter(TaskCounter.MAP_OUTPUT_BYTES).increment(length(res));
+			for(int i = 0; i < res.length; ++i){
+				for(SortedRun run : res[i]){
+					run.sort(comparator);
+				}
+				if(combinerClass == null || (res[i].size() == 1 && res[i].get(0).size() == 0)){
+					continue;
+				}
+				RunWriter combined = new RunWriter(taskContext);
+				RecordWriter writer = new CountingRecordWriter(combined,
+						reporter.getCounter(TaskCounter.COMBINE_OUTPUT_RECORDS));
+				// As the combiner runner of MapTask: no key counter, the values are the input records
+				runReducer(ReflectionUtils.newInstance(combinerClass, conf), conf, attemptId,
+						new MergeIterator(res[i], comparator), null,
+						reporter.getCounter(TaskCounter.COMBINE_INPUT_RECORDS),
+						writer, null, reporter, taskContext.getCombinerKeyGroupingComparator(), taskContext);
+				// The combiner keeps the key order, no need to sort again
+				for(SortedRun run : combined.getRuns()){
+					run.sort(null);
+				}
+				res[i] = combined.getRuns();
+			}
+			// What the reducers get, as the map output files of MapTask
+			reporter.getCounter(TaskCounter.MAP_OUTPUT_MATERIALIZED_BYTES).increment(length(res));
+			return res;
+		}
+
+		private static long length(List<SortedRun>[] runs){
+			long bytes = 0;
+			for(List<SortedRun> list : runs){
+				for(SortedRun run : list){
+					bytes += run.length();
+				}
+			}
+			return bytes;
+		}
+	}
+
+	/**
+	 * k-way merge over the sorted runs of all map tasks for one partition
+	 */
+	private static class MergeIterator implements RawKeyValueIterator {
+		private PriorityQueue<int[]> queue;
+		private List<SortedRun> runs;
+		private int[] current = null;
+		private DataInputBuffer key = new DataInputBuffer();
+		private DataInputBuffer value = new DataInputBuffer();
+		private Progress progress = new Progress();
+
+		MergeIterator(List<SortedRun> _runs, final RawComparator comparator){
+			this.runs = _runs;
+			// Each cursor is (run index, record index)
+			this.queue = new PriorityQueue<int[]>(Math.max(1, runs.size()), new Comparator<int[]>(){
+				public int compare(int[] c1, int[] c2) {
+					SortedRun r1 = runs.get(c1[0]);
+					SortedRun r2 = runs.get(c2[0]);
+					int s1 = r1.keyStart(c1[1]);
+					int s2 = r2.keyStart(c2[1]);
+					int cmp = comparator.compare(r1.data.getData(), s1, r1.valueStart(c1[1]) - s1,
+							r2.data.getData(), s2, r2.valueStart(c2[1]) - s2);
+					// Keep the merge stable across map tasks
+					return (cmp != 0) ? cmp : (c1[0] - c2[0]);
+				}
+			});
+			for(int i = 0; i < runs.size(); ++i){
+				if(runs.get(i).size() > 0){
+					queue.add(new int[] { i, 0 });
+				}
+			}
+		}
+
+		public DataInputBuffer getKey() {
+			return key;
+		}
+
+		public DataInputBuffer getValue() {
+			return value;
+		}
+
+		public boolean next() {
+			if(current != null){
+				++current[1];
+				if(current[1] < runs.get(current[0]).size()){
+					queue.add(current);
+				}
+			}
+			current = queue.poll();
+			if(current == null){
+				return false;
+			}
+			SortedRun run = runs.get(current[0]);
+			int keyStart = run.keyStart(current[1]);
+			int valueStart = run.valueStart(current[1]);
+			key.reset(run.data.getData(), keyStart, valueStart - keyStart);
+			value.reset(run.data.getData(), valueStart, run.valueEnd(current[1]) - valueStart);
+			return true;
+		}
+
+		public void close() {
+		}
+
+		public Progress getProgress() {
+			return progress;
+		}
+	}
+}
@@ -1,23 +1,60 @@
 package dbg.hadoop.subgenum.frame;
 
+import java.io.IOException;
+import java.util.List;
 
 import org.apache.hadoop.fs.Path;
 import org.apache.log4j.Logger;
 
 import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.RunReport;
 import dbg.hadoop.subgraphs.utils.Utility;
 
 public class MainEntry{
 	private static InputInfo inputInfo = null;
 	private static Logger log = Logger.getLogger(MainEntry.class);
 	
-	@SuppressWarnings("deprecation")
 	public static void main(String[] args) throws Exception{
 		inputInfo = new InputInfo(args);
+		if(inputInfo.isLocalEngine){
+			LocalEngine.enable(inputInfo.localEngineThreads);
+		}
+		GeneralDriver.setCompactHVArray(inputInfo.isCompactHVArray);
+		GeneralDriver.setSideDataStore(inputInfo.sideDataStore);
+		if(inputInfo.query.indexOf(',') < 0){
+			run(inputInfo.query.toLowerCase());
+			return;
+		}
+		// Batch mode: enum.query=q1,q4,...
+		List<String> queries = QueryBatch.plan(inputInfo.query);
+		if(queries == null){
+			usage();
+		}
+		log.info("Batch plan: " + queries);
+		long batchStart = System.currentTimeMillis();
+		QueryBatch.runSharedPasses(inputInfo, queries);
+		for(String query : queries){
+			// Every query starts from the settings given, since some of them change inputInfo
+			inputInfo = new InputInfo(args);
+			QueryBatch.configure(inputInfo, query, queries);
+			long begin = System.currentTimeMillis();
+			run(query);
+			log.info("[Batch] " + query + ": " + (System.currentTimeMillis() - begin) / 1000 + "s");
+		}
+		QueryBatch.cleanup(inputInfo);
+		log.info("[Batch] " + queries.size() + " queries, time elapsed: "
+				+ (System.currentTimeMillis() - batchStart) / 1000 + "s");
+	}
+	
+	@SuppressWarnings("deprecation")
+	private static void run(String query) throws Exception{
 		String workDir = inputInfo.workDir;
-		String query = inputInfo.query.toLowerCase();
 		long startTime = 0;
 		long endTime = 0;
+		GeneralDriver.setCountByCounter(inputInfo.isCountOnly && inputInfo.isCountByCounter);
+		PatternCounter.reset();
+		RunReport.enable(inputInfo.isStats);
+		RunReport.reset();
 		// Square is query: q1
 		if(query.compareTo("square") == 0 || query.compareTo("q1") == 0){
 			if(Utility.getFS().isDirectory(new Path(workDir + "frame.square.res"))){
@@ -30,10 +67,14 @@ public class MainEntry{
 			startTime = System.currentTimeMillis();
 			
 			EnumSquare.run(inputInfo);
+			if(!inputInfo.isCountOnly){
+				ArtifactCache.record(inputInfo, ArtifactCache.SQUARE);
+			}
 			
 			endTime=System.currentTimeMillis();
 			log.info("[Frame-square] Time elapsed: " + (endTime - startTime) / 1000 + "s");
-			EnumSquare.countOnce(inputInfo);
+			if(!reportCount("frame.square.cnt"))
+				EnumSquare.countOnce(inputInfo);
 		}
 		// Chordal Square is query: q2
 		else if(query.compareTo("chordalsquare") == 0 || query.compareTo("q2") == 0){
@@ -48,11 +89,15 @@ public class MainEntry{
 			startTime = System.currentTimeMillis();
 			inputInfo.enableBF = false;
 			EnumChordalSquare.run(inputInfo);
+			if(!inputInfo.isCountOnly){
+				ArtifactCache.record(inputInfo, ArtifactCache.CHORDAL_SQUARE);
+			}
 			
 			endTime=System.currentTimeMillis();
 			log.info("[Frame-chordalsquare] Time elapsed: " + (endTime - startTime) / 1000 + "s");
 			
-			EnumChordalSquare.countOnce(inputInfo);
+			if(!reportCount("frame.csquare.cnt"))
+				EnumChordalSquare.countOnce(inputInfo);
 		}
 		// k-clique is query: q3
 		else if (query.compareTo("clique") == 0 || query.compareTo("q3") == 0) {
@@ -73,6 +118,9 @@ public class MainEntry{
 			else {
 				EnumClique.run(inputInfo);
 			}
+			if(!inputInfo.isCountOnly){
+				ArtifactCache.record(inputInfo, ArtifactCache.CLIQUE);
+			}
 			
 			endTime=System.currentTimeMillis();
 			log.info("[Frame-" + inputInfo.cliqueNumVertices + "clique] Time elapsed: " + (endTime - startTime) / 1000 + "s");
@@ -83,6 +131,10 @@ public class MainEntry{
 		}
 		// House is query: q4
 		else if (query.compareTo("house") == 0 || query.compareTo("q4") == 0) {
+			if(!inputInfo.isSquareSkip && ArtifactCache.isValid(inputInfo, ArtifactCache.SQUARE)){
+				inputInfo.isSquareSkip = true;
+			}
+			boolean isSquareComputed = !inputInfo.isSquareSkip;
 			if(!inputInfo.isSquareSkip){
 				if(Utility.getFS().isDirectory(new Path(workDir + "frame.square.res"))){
 					Utility.getFS().delete(new Path(workDir + "frame.square.res"));
@@ -101,14 +153,24 @@ public class MainEntry{
 			startTime = System.currentTimeMillis();
 			
 			EnumHouse.run(inputInfo);
+			if(isSquareComputed){
+				ArtifactCache.record(inputInfo, ArtifactCache.SQUARE);
+			}
 			
 			endTime=System.currentTimeMillis();
 			log.info("[Frame-house] Time elapsed: " + (endTime - startTime) / 1000 + "s");
 			
-			EnumHouse.countOnce(inputInfo);
+			if(!reportCount("frame.house.cnt"))
+				EnumHouse.countOnce(inputInfo);
 		}
 		// Solar Square is query: q5
 		else if (query.compareTo("solarsquare") == 0 || query.compareTo("q5") == 0) {
+			// The left-deep plan writes its chordal squares elsewhere
+			if(!inputInfo.isLeftDeep && !inputInfo.isChordalSquareSkip
+					&& ArtifactCache.isValid(inputInfo, ArtifactCache.CHORDAL_SQUARE)){
+				inputInfo.isChordalSquareSkip = true;
+			}
+			boolean isCSquareComputed = !inputInfo.isLeftDeep && !inputInfo.isChordalSquareSkip;
 			// Delete existed output
 			if(!inputInfo.isChordalSquareSkip){
 				if (Utility.getFS().isDirectory(new Path(workDir + "frame.csquare.res"))) {
@@ -143,6 +205,9 @@ public class MainEntry{
 				EnumSolarSquareLD.run(inputInfo);
 			else
 				EnumSolarSquare.run(inputInfo);
+			if(isCSquareComputed){
+				ArtifactCache.record(inputInfo, ArtifactCache.CHORDAL_SQUARE);
+			}
 			
 			endTime=System.currentTimeMillis();
 			log.info("[Frame-solarsquare] Time elapsed: " + (endTime - startTime) / 1000 + "s");
@@ -164,9 +229,15 @@ public class MainEntry{
 			
 			endTime=System.currentTimeMillis();
 			log.info("[Frame-twintriangle] Time elapsed: " + (endTime - startTime) / 1000 + "s");
-			EnumTwinTriangle.countOnce(inputInfo);
+			if(!reportCount("frame.twintriangle.cnt"))
+				EnumTwinTriangle.countOnce(inputInfo);
 		}
 		else if (query.compareTo("near5clique") == 0 || query.compareTo("q7") == 0) {
+			inputInfo.cliqueNumVertices = "4";
+			if(!inputInfo.isFourCliqueSkip && ArtifactCache.isValid(inputInfo, ArtifactCache.CLIQUE)){
+				inputInfo.isFourCliqueSkip = true;
+			}
+			boolean isCliqueComputed = !inputInfo.isFourCliqueSkip;
 			if(!inputInfo.isFourCliqueSkip){
 				if (Utility.getFS().isDirectory(new Path(workDir + "frame.clique.res"))) {
 					Utility.getFS().delete(new Path(workDir + "frame.clique.res"));
@@ -178,10 +249,14 @@ public class MainEntry{
 			startTime = System.currentTimeMillis();
 			
 			EnumNear5Clique.run(inputInfo);
+			if(isCliqueComputed){
+				ArtifactCache.record(inputInfo, ArtifactCache.CLIQUE);
+			}
 			
 			endTime=System.currentTimeMillis();
 			log.info("[Frame-near5clique] Time elapsed: " + (endTime - startTime) / 1000 + "s");
-			EnumNear5Clique.countOnce(inputInfo);
+			if(!reportCount("frame.near5clique.cnt"))
+				EnumNear5Clique.countOnce(inputInfo);
 		}
 		else if (query.compareTo("tcsquare") == 0 || query.compareTo("q8") == 0) {
 			Utility.getFS().delete(new Path(workDir + "frame.tcsquare.res.1"));
@@ -221,12 +296,43 @@ public class MainEntry{
 			log.info("[Frame-quadtriangle] Time elapsed: " + (endTime - startTime) / 1000 + "s");
 			EnumQuadTriangle.countOnce(inputInfo);
 		}
+		else if (query.compareTo("pattern") == 0) {
+			Utility.getFS().delete(new Path(workDir + EnumPattern.RES));
+			Utility.getFS().delete(new Path(workDir + EnumPattern.CNT));
+			log.info("Start enumerating pattern " + inputInfo.pattern + " ...");
+			startTime = System.currentTimeMillis();
+			EnumPattern.run(inputInfo);
+			endTime=System.currentTimeMillis();
+			log.info("[Frame-pattern] Time elapsed: " + (endTime - startTime) / 1000 + "s");
+			EnumPattern.countOnce(inputInfo);
+		}
 		else {
-			System.err.println("Please specify enum.query=[...];");
-			System.err.println("Supported queries are: square, " +
-					"chordalsquare, clique, house, solarsquare, " +
-					"twintriangle, near5clique, tcsquare;");
-			System.exit(0);
+			usage();
+		}
+		RunReport.write(Utility.getFS(), new Path(workDir + "frame." + query + ".report.json"), query);
+	}
+	
+	private static void usage(){
+		System.err.println("Please specify enum.query=[...];");
+		System.err.println("Supported queries are: square, " +
+				"chordalsquare, clique, house, solarsquare, " +
+				"twintriangle, near5clique, tcsquare, quadtriangle, " +
+				"pattern (with enum.pattern=0-1,1-2,...);");
+		System.err.println("or a comma-separated list of them, run as a batch.");
+		System.exit(0);
+	}
+	
+	/**
+	 * Write the count that the count-only reducers reported by the counter, if they did
+	 * @return Whether the count is written, otherwise countOnce() has to count the results
+	 */
+	private static boolean reportCount(String cntDir) throws IOException{
+		if(!PatternCounter.isCounted()){
+			return false;
 		}
+		long count = PatternCounter.get();
+		log.info("# pattern graph: " + count);
+		PatternCounter.write(Utility.getFS(), new Path(inputInfo.workDir + cntDir), count);
+		return true;
 	}
 }
\ No newline at end of file
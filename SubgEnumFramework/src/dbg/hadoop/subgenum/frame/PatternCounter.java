@@ -0,0 +1,109 @@
+package dbg.hadoop.subgenum.frame;
+
+import java.io.IOException;
+import java.io.PrintStream;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.CounterGroup;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+
+/**
+ * In-task aggregation of the counts of the count-only reducers. <br>
+ * With count.counter set, a reducer adds its counts up locally and reports the total
+ * through a Hadoop counter once, in cleanup, instead of writing a record per key. GeneralDriver
+ * collects the counter of every job on the client, so the final count is known when the job
+ * ends, without the GeneralPatternCountDriver job of countOnce().
+ * Otherwise, the counts are written as before.
+ */
+public class PatternCounter {
+	public static final String COUNT_BY_COUNTER = "count.counter";
+	public static final String COUNTER_GROUP = "Frame Pattern Count";
+	public static final String COUNTER = "pattern.count";
+
+	// The client side total of the jobs run since the last reset
+	private static long total = 0L;
+	private static boolean counted = false;
+
+	private boolean byCounter;
+	private long count = 0L;
+	private LongWritable outputValue = new LongWritable();
+
+	public PatternCounter(Configuration conf){
+		this.byCounter = conf.getBoolean(COUNT_BY_COUNTER, false);
+	}
+
+	/**
+	 * Add the count of a key
+	 */
+	public void add(TaskInputOutputContext<?, ?, NullWritable, LongWritable> context, long _count)
+			throws IOException, InterruptedException{
+		if(_count <= 0){
+			return;
+		}
+		if(byCounter){
+			count += _count;
+		}
+		else{
+			outputValue.set(_count);
+			context.write(NullWritable.get(), outputValue);
+		}
+	}
+
+	/**
+	 * Report the local total, to be called in cleanup
+	 */
+	public void flush(TaskInputOutputContext<?, ?, ?, ?> context){
+		if(byCounter){
+			// Reported even if 0, so that the client knows the count is complete
+			context.getCounter(COUNTER_GROUP, COUNTER).increment(count);
+			count = 0L;
+		}
+	}
+
+	public static synchronized void reset(){
+		total = 0L;
+		counted = false;
+	}
+
+	/**
+	 * Add the count reported by the tasks of a job, called by GeneralDriver
+	 */
+	public static synchronized void collect(Counters counters){
+		if(counters == null){
+			return;
+		}
+		CounterGroup group = counters.getGroup(COUNTER_GROUP);
+		for(Counter counter : group){
+			if(COUNTER.equals(counter.getName())){
+				total += counter.getValue();
+				counted = true;
+			}
+		}
+	}
+
+	/**
+	 * @return Whether a job since the last reset has reported its count by the counter
+	 */
+	public static synchronized boolean isCounted(){
+		return counted;
+	}
+
+	public static synchronized long get(){
+		return total;
+	}
+
+	/**
+	 * Write the count to cntDir as countOnce() does
+	 */
+	public static void write(FileSystem fs, Path cntDir, long count) throws IOException{
+		PrintStream out = new PrintStream(fs.create(new Path(cntDir, "part-r-00000"), true));
+		out.println(count);
+		out.close();
+	}
+}
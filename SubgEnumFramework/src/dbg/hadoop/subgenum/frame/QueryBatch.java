@@ -0,0 +1,243 @@
+package dbg.hadoop.subgenum.frame;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.util.ToolRunner;
+import org.apache.log4j.Logger;
+
+import dbg.hadoop.subgraphs.io.CSRAdjListInputFormat;
+import dbg.hadoop.subgraphs.io.CSRGraphWriter;
+import dbg.hadoop.subgraphs.io.HVArray;
+import dbg.hadoop.subgraphs.io.HVArraySign;
+import dbg.hadoop.subgraphs.utils.Config;
+import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.Utility;
+
+/**
+ * The plan of a batch of queries (enum.query=q1,q4,...) over the same graph. <br>
+ * The prepared data (triangle.res, adjList2.*, nonsmallneigh) is shared by all the queries anyway.
+ * The intermediate results are shared through the ArtifactCache, which is on for the batch:
+ * square is the first stage of house, chordalsquare that of solarsquare and the 4-clique that
+ * of near5clique. So a query whose result a later query needs runs first, and enumerates
+ * (counting its result afterwards) even if the batch only counts, and the later query reuses it. <br>
+ * The non-overlapping house and chordal square jobs both join the twintwigs of adjList2.maxSize.
+ * When the batch runs more than one of them, a single map-only pass generates the twintwigs and
+ * writes them once for every such query (a named output of MultipleOutputs each, in the map
+ * output format of its job), which then reads them instead of adjList2.maxSize.
+ */
+public class QueryBatch {
+	private static Logger log = Logger.getLogger(QueryBatch.class);
+
+	// The named outputs of the twintwig pass
+	public static final String HOUSE = "house";
+	public static final String CHORDAL_SQUARE = "csquare";
+	static final String TWINTWIG_TAGS = "batch.twintwig.tags";
+	private static final String TWINTWIG_DIR = "frame.batch.twintwig";
+
+	private static final String[] QUERIES = { "square", "chordalsquare", "clique", "house",
+		"solarsquare", "twintriangle", "near5clique", "tcsquare", "quadtriangle" };
+	// PRODUCERS[i] is the first stage of CONSUMERS[i]
+	private static final String[] PRODUCERS = { "square", "chordalsquare", "clique" };
+	private static final String[] CONSUMERS = { "house", "solarsquare", "near5clique" };
+
+	/**
+	 * @return The queries in the order to run them, each once, null if one is unknown
+	 */
+	public static List<String> plan(String queryList){
+		List<String> queries = new ArrayList<String>();
+		for(String q : queryList.toLowerCase().split(",")){
+			String query = canonical(q.trim());
+			if(query == null){
+				return null;
+			}
+			if(!queries.contains(query)){
+				queries.add(query);
+			}
+		}
+		// The producers first, the order is kept otherwise
+		List<String> res = new ArrayList<String>();
+		for(String query : queries){
+			if(getConsumer(query) != null && queries.contains(getConsumer(query))){
+				res.add(query);
+			}
+		}
+		for(String query : queries){
+			if(!res.contains(query)){
+				res.add(query);
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Run the twintwig pass if more than one query of the batch joins the twintwigs
+	 */
+	public static void runSharedPasses(InputInfo inputInfo, List<String> queries) throws Exception{
+		String workDir = inputInfo.workDir;
+		Utility.getFS().delete(new Path(workDir + TWINTWIG_DIR), true);
+		if(!inputInfo.isNonOverlapping){
+			return;
+		}
+		// The chordal square probes a broadcast index instead when triangle.res is small
+		boolean isChordalSquare = !TriangleBroadcast.isApplicable(inputInfo);
+		int numConsumers = 0;
+		List<String> tags = new ArrayList<String>();
+		for(String query : queries){
+			String tag = query.equals("house") ? HOUSE
+					: ((query.equals("chordalsquare") || query.equals("solarsquare")) && isChordalSquare)
+					? CHORDAL_SQUARE : null;
+			if(tag != null){
+				++numConsumers;
+				if(!tags.contains(tag)){
+					tags.add(tag);
+				}
+			}
+		}
+		if(numConsumers < 2){
+			return;
+		}
+		log.info("[Batch] Shared twintwig pass for " + tags);
+		long begin = System.currentTimeMillis();
+
+		Configuration conf = new Configuration();
+		conf.setStrings(TWINTWIG_TAGS, tags.toArray(new String[0]));
+		String input = workDir + Config.adjListDir + "." + inputInfo.maxSize;
+		if(inputInfo.isCSRInput){
+			input = CSRGraphWriter.ensure(Utility.getFS(), workDir).toString();
+			CSRAdjListInputFormat.configure(conf, new Path(input), inputInfo.maxSize, inputInfo.workBudget);
+		}
+		Job namedOutputs = new Job(conf);
+		for(String tag : tags){
+			MultipleOutputs.addNamedOutput(namedOutputs, tag, SequenceFileOutputFormat.class, HVArraySign.class,
+					tag.equals(HOUSE) ? HVArray.class : LongWritable.class);
+		}
+		String[] opts = { input, "", workDir + TWINTWIG_DIR, "0", inputInfo.jarFile };
+		ToolRunner.run(namedOutputs.getConfiguration(), new GeneralDriver("Batch TwinTwig",
+				BatchTwinTwigMapper.class,
+				null,
+				NullWritable.class,
+				NullWritable.class, // OutputKV
+				inputInfo.isCSRInput ? CSRAdjListInputFormat.class : SequenceFileInputFormat.class,
+				SequenceFileOutputFormat.class,
+				null), opts);
+		log.info("[Batch] twintwig: " + (System.currentTimeMillis() - begin) / 1000 + "s");
+	}
+
+	/**
+	 * Delete what the shared passes wrote
+	 */
+	public static void cleanup(InputInfo inputInfo) throws IOException{
+		Utility.getFS().delete(new Path(inputInfo.workDir + TWINTWIG_DIR), true);
+	}
+
+	/**
+	 * @param tag HOUSE or CHORDAL_SQUARE
+	 * @return The twintwigs written for the query by the shared pass, null if it has to generate them
+	 */
+	public static String getTwinTwigs(InputInfo inputInfo, String tag) throws IOException{
+		if(inputInfo.twinTwigDir == null){
+			return null;
+		}
+		Path dir = new Path(inputInfo.twinTwigDir, tag);
+		return Utility.getFS().isDirectory(dir) ? dir.toString() : null;
+	}
+
+	/**
+	 * Set up the (fresh) settings of a query of the batch
+	 */
+	public static void configure(InputInfo inputInfo, String query, List<String> queries) throws IOException{
+		inputInfo.query = query;
+		inputInfo.isArtifactCache = true;
+		if(Utility.getFS().isDirectory(new Path(inputInfo.workDir + TWINTWIG_DIR))){
+			inputInfo.twinTwigDir = inputInfo.workDir + TWINTWIG_DIR;
+		}
+		String consumer = getConsumer(query);
+		if(consumer == null || !queries.contains(consumer)){
+			return;
+		}
+		// What the consumer would compute itself
+		if(query.equals("clique") && !inputInfo.cliqueNumVertices.equals("4")){
+			return;
+		}
+		if(query.equals("chordalsquare") && inputInfo.isLeftDeep){
+			return;
+		}
+		inputInfo.isCountOnly = false;
+		inputInfo.isCountPatternOnce = true;
+	}
+
+	/**
+	 * @return The name of the query, also given as q1, ..., q9, null if unknown
+	 */
+	private static String canonical(String query){
+		if(query.equals("pattern")){
+			return query;
+		}
+		for(int i = 0; i < QUERIES.length; ++i){
+			if(query.equals(QUERIES[i]) || query.equals("q" + (i + 1))){
+				return QUERIES[i];
+			}
+		}
+		return null;
+	}
+
+	private static String getConsumer(String query){
+		for(int i = 0; i < PRODUCERS.length; ++i){
+			if(PRODUCERS[i].equals(query)){
+				return CONSUMERS[i];
+			}
+		}
+		return null;
+	}
+}
+
+/**
+ * The twintwigs of EnumHouseTTMapper and EnumCSNOPTTMapper, written once for each of the
+ * queries in batch.twintwig.tags
+ */
+class BatchTwinTwigMapper extends CSNOPTTMapper<NullWritable, NullWritable> {
+	private MultipleOutputs<NullWritable, NullWritable> outputs = null;
+	private boolean isHouse = false;
+	private boolean isChordalSquare = false;
+	private HVArraySign houseKey = new HVArraySign();
+	private HVArray houseValue = new HVArray();
+	private HVArraySign chordalSquareKey = new HVArraySign();
+
+	@Override
+	protected void emit(long v1, long v2, LongWritable center, Context context)
+			throws IOException, InterruptedException {
+		if(isHouse){
+			houseKey.set(v1, v2, Config.SMALLSIGN);
+			houseValue.set(center.get());
+			outputs.write(QueryBatch.HOUSE, houseKey, houseValue, QueryBatch.HOUSE + "/part");
+		}
+		if(isChordalSquare){
+			chordalSquareKey.set(v1, v2, Config.LARGESIGN);
+			outputs.write(QueryBatch.CHORDAL_SQUARE, chordalSquareKey, center, QueryBatch.CHORDAL_SQUARE + "/part");
+		}
+	}
+
+	@Override
+	public void setup(Context context) {
+		outputs = new MultipleOutputs<NullWritable, NullWritable>(context);
+		for(String tag : context.getConfiguration().getStrings(QueryBatch.TWINTWIG_TAGS, new String[0])){
+			isHouse |= tag.equals(QueryBatch.HOUSE);
+			isChordalSquare |= tag.equals(QueryBatch.CHORDAL_SQUARE);
+		}
+	}
+
+	@Override
+	public void cleanup(Context context) throws IOException, InterruptedException {
+		outputs.close();
+	}
+}
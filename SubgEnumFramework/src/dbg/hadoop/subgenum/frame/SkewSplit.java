@@ -0,0 +1,346 @@
+package dbg.hadoop.subgenum.frame;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.hash.TIntIntHashMap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.mapreduce.Partitioner;
+import org.apache.log4j.Logger;
+
+import dbg.hadoop.subgenum.planner.DegreeStats;
+import dbg.hadoop.subgraphs.io.HVArray;
+import dbg.hadoop.subgraphs.io.SaltedHVArrayPartitioner;
+import dbg.hadoop.subgraphs.utils.BinarySearch;
+import dbg.hadoop.subgraphs.utils.Config;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.Utility;
+
+/**
+ * Splitting of the heavy (v1, v2) groups of the square job across several reducers. <br>
+ * Under the Chung-Lu model, (v1, v2) has d(v1)d(v2)M2/(2m)^2 common neighbors, where
+ * M2 = sum of d(v)^2, so the group sizes are predicted from the degrees encoded in the
+ * key. A group predicted to exceed the thresh is split into R shards by ranges of the
+ * centers, and the center of shard s is sent to the R keys (min(s, j), max(s, j)),
+ * salted for SaltedHVArrayPartitioner. The reducer of (a, b) then writes the
+ * partitioned square of GeneralPartitioner: (shard a, null) if a == b, else
+ * (shard a, shard b), so no GeneralPartitioner job is needed afterwards. <br>
+ * A common neighbor is w with probability ~ d(w)^2, so the ranges are the quantiles of
+ * the vertices weighted by d^2, taken from a sample of the degreeFile. <br>
+ * If the graph is prepared in the core order, the keys carry the core numbers: the quantiles
+ * are then taken in the core order, and the real degrees of the vertices that can be part
+ * of a split group (those with d(v) * dmax * factor &gt; thresh) are shipped in the conf.
+ */
+public class SkewSplit {
+	private static Logger log = Logger.getLogger(SkewSplit.class);
+
+	public static final String ENABLED = "enum.skew.split";
+	public static final String FACTOR = "enum.skew.factor";
+	public static final String THRESH = "enum.skew.thresh";
+	public static final String MAX_SHARDS = "enum.skew.max.shards";
+	public static final String CUTS = "enum.skew.cuts";
+	// id:degree of the heavy vertices, when the keys do not carry the degrees
+	public static final String DEGREES = "enum.skew.degrees";
+	// The degree assumed for the vertices not in DEGREES
+	public static final String DEGREE_FLOOR = "enum.skew.degree.floor";
+
+	// The number of quantiles kept in the conf, and the expected sample size they come from
+	private static final int NUM_CUTS = 256;
+	private static final int SAMPLE_SIZE = 8192;
+	// The largest number of degrees kept in the conf
+	private static final int MAX_DEGREES = 4096;
+
+	private double factor;
+	private int thresh;
+	private int maxShards;
+	private long[] cuts;
+	// The real degrees by vertex id, null if the keys carry them
+	private TIntIntHashMap degrees = null;
+	private int degreeFloor;
+	// The range boundaries of R shards, built on demand
+	private long[][] bounds;
+
+	public SkewSplit(Configuration conf){
+		factor = conf.getFloat(FACTOR, 0.0f);
+		thresh = conf.getInt(THRESH, 2000);
+		maxShards = conf.getInt(MAX_SHARDS, 8);
+		String[] strs = conf.getStrings(CUTS, new String[0]);
+		cuts = new long[strs.length];
+		for(int i = 0; i < strs.length; ++i){
+			cuts[i] = Long.parseLong(strs[i]);
+		}
+		String[] pairs = conf.getStrings(DEGREES);
+		if(pairs != null){
+			degrees = new TIntIntHashMap(pairs.length * 2);
+			for(String pair : pairs){
+				int pos = pair.indexOf(':');
+				degrees.put(Integer.parseInt(pair.substring(0, pos)), Integer.parseInt(pair.substring(pos + 1)));
+			}
+			degreeFloor = conf.getInt(DEGREE_FLOOR, 0);
+		}
+		bounds = new long[maxShards + 1][];
+	}
+
+	/**
+	 * @return The skew split of the task, null if disabled
+	 */
+	public static SkewSplit get(Configuration conf){
+		return conf.getBoolean(ENABLED, false) ? new SkewSplit(conf) : null;
+	}
+
+	/**
+	 * The pre-pass on the client: the moments and a d^2-weighted sample of the degreeFile
+	 * are read into conf, and the square job is set to use SaltedHVArrayPartitioner
+	 */
+	public static void configure(Configuration conf, InputInfo inputInfo) throws IOException{
+		FileSystem fs = Utility.getFS();
+		Path degreeDir = new Path(inputInfo.workDir + Config.degreeFileDir);
+		DegreeStats stats = DegreeStats.read(fs, degreeDir, 2);
+		double m2 = stats.moment(2);
+		int thresh = inputInfo.squarePartitionThresh;
+		conf.setBoolean(ENABLED, true);
+		conf.setFloat(FACTOR, (float) (m2 / (stats.moment(1) * stats.moment(1))));
+		conf.setInt(THRESH, thresh);
+		conf.setInt(MAX_SHARDS, Math.max(1, Math.min(inputInfo.skewMaxShards, 0x7FFF)));
+
+		// Poisson sampling with probability ~ d^2, every sampled vertex standing for d^2 / p
+		Random rand = new Random(0);
+		TIntArrayList ids = new TIntArrayList();
+		TIntArrayList orders = new TIntArrayList();
+		TLongArrayList weights = new TLongArrayList();
+		// The MAX_DEGREES largest (degree, id), smallest first
+		PriorityQueue<Long> heaviest = new PriorityQueue<Long>();
+		IntWritable key = new IntWritable(), value = new IntWritable();
+		for(FileStatus status : fs.listStatus(degreeDir)){
+			if(!status.getPath().getName().startsWith("part-")){
+				continue;
+			}
+			SequenceFile.Reader reader = new SequenceFile.Reader(fs, status.getPath(), conf);
+			while(reader.next(key, value)){
+				double w = (double) value.get() * value.get();
+				double p = Math.min(1.0, w * SAMPLE_SIZE / m2);
+				if(p > 0 && rand.nextDouble() < p){
+					ids.add(key.get());
+					orders.add(value.get());
+					weights.add(Math.round(w / p));
+				}
+				heaviest.add(((long) value.get() << 32) | key.get());
+				if(heaviest.size() > MAX_DEGREES){
+					heaviest.poll();
+				}
+			}
+			reader.close();
+		}
+		// The keys carry the core numbers instead if the graph is prepared in the core order
+		Path orderDir = Utility.getOrderFileDir(inputInfo.workDir);
+		if(!orderDir.getName().equals(degreeDir.getName())){
+			TIntIntHashMap positions = new TIntIntHashMap();
+			for(int i = 0; i < ids.size(); ++i){
+				positions.put(ids.get(i), i);
+			}
+			for(FileStatus status : fs.listStatus(orderDir)){
+				if(!status.getPath().getName().startsWith("part-")){
+					continue;
+				}
+				SequenceFile.Reader reader = new SequenceFile.Reader(fs, status.getPath(), conf);
+				while(reader.next(key, value)){
+					if(positions.containsKey(key.get())){
+						orders.set(positions.get(key.get()), value.get());
+					}
+				}
+				reader.close();
+			}
+			setDegrees(conf, heaviest);
+		}
+		TLongArrayList vertices = new TLongArrayList();
+		for(int i = 0; i < ids.size(); ++i){
+			vertices.add(HyperVertex.get(ids.get(i), orders.get(i)));
+		}
+		conf.setStrings(CUTS, quantiles(vertices.toArray(), weights.toArray()));
+		conf.setClass("mapreduce.job.partitioner.class", SaltedHVArrayPartitioner.class, Partitioner.class);
+		log.info("[Frame-skew] Predicted group size = d(v1)d(v2) * " + conf.getFloat(FACTOR, 0.0f)
+				+ ", split above " + thresh + " into at most " + conf.getInt(MAX_SHARDS, 8)
+				+ " shards, " + vertices.size() + " vertices sampled");
+	}
+
+	/**
+	 * Ship the degrees of the vertices that can be part of a split group, those with
+	 * d(v) * dmax * factor &gt; thresh. If there are more than MAX_DEGREES of them,
+	 * the others are assumed to have the smallest degree shipped.
+	 */
+	private static void setDegrees(Configuration conf, PriorityQueue<Long> heaviest){
+		if(heaviest.isEmpty()){
+			return;
+		}
+		boolean isFull = heaviest.size() == MAX_DEGREES;
+		long[] sorted = new long[heaviest.size()];
+		for(int i = 0; i < sorted.length; ++i){
+			sorted[i] = heaviest.poll();
+		}
+		double maxDegree = sorted[sorted.length - 1] >>> 32;
+		double minDegree = conf.getInt(THRESH, 2000) / (maxDegree * conf.getFloat(FACTOR, 0.0f));
+		ArrayList<String> pairs = new ArrayList<String>();
+		for(long v : sorted){
+			int degree = (int) (v >>> 32);
+			if(degree > minDegree){
+				pairs.add((int) v + ":" + degree);
+			}
+		}
+		int smallest = (int) (sorted[0] >>> 32);
+		conf.setStrings(DEGREES, pairs.toArray(new String[pairs.size()]));
+		conf.setInt(DEGREE_FLOOR, (isFull && smallest > minDegree) ? smallest : 0);
+	}
+
+	/**
+	 * @return NUM_CUTS weighted quantiles of the vertices (the k-th at k / NUM_CUTS)
+	 */
+	private static String[] quantiles(long[] vertices, long[] weights){
+		Integer[] order = new Integer[vertices.length];
+		for(int i = 0; i < order.length; ++i){
+			order[i] = i;
+		}
+		final long[] vs = vertices;
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer i, Integer j) {
+				return (vs[i] < vs[j]) ? -1 : ((vs[i] == vs[j]) ? 0 : 1);
+			}
+		});
+		double total = 0;
+		for(long w : weights){
+			total += w;
+		}
+		if(vertices.length == 0){
+			return new String[0];
+		}
+		String[] res = new String[NUM_CUTS];
+		double sum = 0;
+		int k = 0;
+		for(int i = 0; i < order.length && k < NUM_CUTS; ++i){
+			sum += weights[order[i]];
+			while(k < NUM_CUTS && sum >= total * k / NUM_CUTS){
+				res[k++] = Long.toString(vertices[order[i]]);
+			}
+		}
+		while(k < NUM_CUTS){
+			res[k++] = Long.toString(vertices[order[order.length - 1]]);
+		}
+		return res;
+	}
+
+	/**
+	 * @return The number of shards of the group (v1, v2), 1 if it is not split
+	 */
+	public int numShards(long v1, long v2){
+		if(cuts.length == 0){
+			return 1;
+		}
+		double size = (double) degree(v1) * degree(v2) * factor;
+		if(size <= thresh){
+			return 1;
+		}
+		return (int) Math.min(maxShards, Math.ceil(size / thresh));
+	}
+
+	/**
+	 * @return The degree of the vertex of a key
+	 */
+	private int degree(long v){
+		if(degrees == null){
+			return HyperVertex.Degree(v);
+		}
+		int res = degrees.get(HyperVertex.VertexID(v));
+		return (res > 0) ? res : degreeFloor;
+	}
+
+	/**
+	 * @return The shard of the center in a group of numShards shards
+	 */
+	public int shardOf(long center, int numShards){
+		long[] b = bounds(numShards);
+		// The number of the boundaries <= center
+		int low = 0, high = b.length - 1;
+		while(low <= high){
+			int mid = (low + high) >>> 1;
+			if(b[mid] <= center){
+				low = mid + 1;
+			}
+			else{
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	private long[] bounds(int numShards){
+		if(bounds[numShards] == null){
+			long[] b = new long[numShards - 1];
+			for(int i = 1; i < numShards; ++i){
+				b[i - 1] = cuts[i * cuts.length / numShards];
+			}
+			bounds[numShards] = b;
+		}
+		return bounds[numShards];
+	}
+
+	/**
+	 * @param centers The sorted centers received by the salted key
+	 * @return The centers of the first and the second shard of the salt
+	 */
+	public long[][] split(long[] centers, long salt){
+		int numShards = SaltedHVArrayPartitioner.numShards(salt);
+		int a = SaltedHVArrayPartitioner.firstShard(salt);
+		int b = SaltedHVArrayPartitioner.secondShard(salt);
+		// The shards are ranges of the sorted centers
+		int from = 0;
+		while(from < centers.length && shardOf(centers[from], numShards) < a){
+			++from;
+		}
+		int mid = from;
+		while(mid < centers.length && shardOf(centers[mid], numShards) == a){
+			++mid;
+		}
+		long[] first = Arrays.copyOfRange(centers, from, mid);
+		if(a == b){
+			return new long[][]{ first, null };
+		}
+		return new long[][]{ first, Arrays.copyOfRange(centers, mid, centers.length) };
+	}
+
+	/**
+	 * @return The partitioned square of the salted key, or null if nothing is to be written
+	 */
+	public HVArray partition(long[] centers, long salt){
+		long[][] shards = split(centers, salt);
+		if(shards[1] == null){
+			return (shards[0].length > 1) ? new HVArray(shards[0], null) : null;
+		}
+		return (shards[0].length > 0 && shards[1].length > 0) ? new HVArray(shards[0], shards[1]) : null;
+	}
+
+	/**
+	 * @return The number of squares of the salted key (v1, v2) of the centers
+	 */
+	public long count(long v1, long[] centers, long salt){
+		long[][] shards = split(centers, salt);
+		int largeThanMinIndex = BinarySearch.findLargeIndex(v1, shards[0]);
+		if(shards[1] == null){
+			return (2L * shards[0].length - 1 - largeThanMinIndex) * largeThanMinIndex / 2;
+		}
+		// Every center of the first shard is smaller than those of the second
+		return (long) largeThanMinIndex * shards[1].length;
+	}
+}
@@ -0,0 +1,96 @@
+package dbg.hadoop.subgenum.frame;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.filecache.DistributedCache;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.log4j.Logger;
+
+import dbg.hadoop.subgraphs.io.TriangleIndex;
+import dbg.hadoop.subgraphs.utils.Config;
+import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.SideDataCache;
+import dbg.hadoop.subgraphs.utils.Utility;
+
+/**
+ * The broadcast (map-side) join against triangle.res of the count-only house, near-5-clique
+ * and non-overlapping chordal square jobs. <br>
+ * When triangle.res is at most enum.triangle.broadcast.mb, it is built once into a TriangleIndex
+ * (Config.triangleIndexFile) that goes to every task through the DistributedCache. The mappers of
+ * the other input probe it for the triangles of an edge and count the matches themselves,
+ * so the job is map-only: neither the triangles nor the other side are shuffled.
+ */
+public class TriangleBroadcast {
+	private static Logger log = Logger.getLogger(TriangleBroadcast.class);
+
+	/**
+	 * @return Whether triangle.res is small enough for the broadcast join
+	 */
+	public static boolean isApplicable(InputInfo inputInfo) throws IOException{
+		return inputInfo.triangleBroadcastMB > 0 && TriangleIndex.getInputSize(Utility.getFS(),
+				new Path(inputInfo.workDir + "triangle.res")) <= (inputInfo.triangleBroadcastMB << 20);
+	}
+
+	/**
+	 * Build the index if the triangles are small enough, and add it to the DistributedCache
+	 * @return Whether the job should use the broadcast join
+	 */
+	@SuppressWarnings("deprecation")
+	public static boolean configure(Configuration conf, InputInfo inputInfo) throws IOException{
+		if(inputInfo.triangleBroadcastMB <= 0){
+			return false;
+		}
+		FileSystem fs = Utility.getFS();
+		Path triangleDir = new Path(inputInfo.workDir + "triangle.res");
+		long size = TriangleIndex.getInputSize(fs, triangleDir);
+		if(size > (inputInfo.triangleBroadcastMB << 20)){
+			log.info("triangle.res is " + (size >> 20) + " MB, above enum.triangle.broadcast.mb = "
+					+ inputInfo.triangleBroadcastMB + ", joining it in the reducers");
+			return false;
+		}
+		Path indexFile = new Path(inputInfo.workDir + Config.triangleIndexFile);
+		if(!isUpToDate(fs, triangleDir, indexFile)){
+			TriangleIndex.write(fs, triangleDir, indexFile);
+		}
+		DistributedCache.addCacheFile(fs.makeQualified(indexFile).toUri(), conf);
+		return true;
+	}
+
+	/**
+	 * @return The index of the DistributedCache, shared by the tasks of this JVM
+	 */
+	public static TriangleIndex get(Configuration conf) throws IOException{
+		Path[] files = SideDataCache.getLocalCacheFiles(conf, Config.triangleIndexFile);
+		if(files.length == 0){
+			throw new IOException(Config.triangleIndexFile + " is not in the DistributedCache");
+		}
+		Path[] indexFile = { files[0] };
+		return SideDataCache.get("triangleIndex", conf, indexFile,
+				new SideDataCache.Loader<TriangleIndex>() {
+					@Override
+					public TriangleIndex load(Configuration conf, Path[] files) throws IOException {
+						return new TriangleIndex(new File(files[0].toUri().getPath()));
+					}
+				});
+	}
+
+	/**
+	 * @return Whether the index was built after the last change of the triangles
+	 */
+	private static boolean isUpToDate(FileSystem fs, Path triangleDir, Path indexFile) throws IOException{
+		if(!fs.exists(indexFile)){
+			return false;
+		}
+		long built = fs.getFileStatus(indexFile).getModificationTime();
+		for(FileStatus status : fs.listStatus(triangleDir)){
+			if(status.getModificationTime() > built){
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -15,6 +15,7 @@ public class HyperGraphGen{
 		String inputFilePath = "";
 		String jarFile = "";
 		int thresh = 0;
+		boolean inMemory = false;
 		//String outputCompress = "false";
 		
 		for (int i = 0; i < args.length; ++i) {
@@ -37,6 +38,12 @@ public class HyperGraphGen{
 					thresh = Integer.valueOf(args[i].substring(valuePos));
 				}
 			}
+			else if(args[i].contains("mapred.hypergraph.inmemory")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					inMemory = Boolean.valueOf(args[i].substring(valuePos));
+				}
+			}
 			else if(args[i].contains("jar.file.name")){
 				valuePos = args[i].lastIndexOf("=") + 1;
 				if (valuePos != 0) {
@@ -68,6 +75,14 @@ public class HyperGraphGen{
 		if(thresh != 0){
 			conf.setInt("mapred.hypergraph.threshold", thresh);
 		}
+		// All six stages in one pass over adjList2.0, when it fits in memory
+		if(inMemory){
+			HyperGraphInMemory.run(Utility.getFS(), conf, new Path(dir + Config.adjListDir + ".0"),
+					new Path(stageThreeOutputDir), new Path(stageSixOutputDir), 
+					(thresh != 0) ? thresh : 20);
+			return;
+		}
+		
 		// Stage 1
 		String[] opts = { dir + Config.adjListDir + ".0", stageOneOutputDir, numReducers, jarFile};
 		// The parameters: <inputDir> <outputDir> <numReducers> <jarFile>
@@ -0,0 +1,267 @@
+package dbg.hadoop.subgenum.hypergraph;
+
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.map.hash.TLongLongHashMap;
+import gnu.trove.set.hash.TLongHashSet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.log4j.Logger;
+
+import com.hadoop.compression.lzo.LzoCodec;
+
+import dbg.hadoop.subgraphs.io.HVArray;
+import dbg.hadoop.subgraphs.io.HyperVertexAdjList;
+import dbg.hadoop.subgraphs.io.HyperVertexSign;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
+
+/**
+ * Single-node version of the six HyperGraphGen stages, for graphs whose adjList2.0 fits in memory. <br>
+ * It reads adjList2.0 once and writes the same hyperVertex and hyperEdge directories
+ * (one part-r-00000 each), without any intermediate output: <br>
+ * Stage 1 - 3: vertices of degree <= threshold with the same closed neighborhood form a clique
+ * hypervertex, and those with the same open neighborhood an independent one;
+ * every other vertex is a hypervertex by itself. <br>
+ * Stage 4 - 6: each hypervertex is linked to the hypervertices of the larger neighbors
+ * of its smallest vertex (a clique hypervertex without one is linked to itself), with duplicates removed.
+ */
+public class HyperGraphInMemory {
+	private static Logger log = Logger.getLogger(HyperGraphInMemory.class);
+
+	private static final int CLIQUE = 1;
+	private static final int INDEPENDENT = 0;
+
+	private long[] vertices;
+	private long[][] small;
+	private long[][] large;
+
+	// Every hypervertex: its smallest vertex, its encoding, its sign and its vertices
+	private TLongArrayList hyperKeys = new TLongArrayList();
+	private List<long[]> hyperMembers = new ArrayList<long[]>();
+	private TLongArrayList hyperSigns = new TLongArrayList();
+	// vertex -> the hypervertex containing it
+	private TLongLongHashMap hyperOf = new TLongLongHashMap();
+	// The hypervertex indices in the order of HyperVertex.compare
+	private int[] order;
+
+	/**
+	 * @param adjListDir adjList2.0
+	 * @param hyperVertexDir Output, the same as HyperGraphStageThree
+	 * @param hyperEdgeDir Output, the same as HyperGraphStageSix
+	 * @param thresh mapred.hypergraph.threshold
+	 */
+	public static void run(FileSystem fs, Configuration conf, Path adjListDir,
+			Path hyperVertexDir, Path hyperEdgeDir, int thresh) throws IOException{
+		HyperGraphInMemory gen = new HyperGraphInMemory();
+		long begin = System.currentTimeMillis();
+		gen.load(fs, conf, adjListDir);
+		gen.genHyperVertices(thresh);
+		gen.writeHyperVertices(fs, conf, hyperVertexDir);
+		long numEdges = gen.writeHyperEdges(fs, conf, hyperEdgeDir);
+		log.info("[HyperGraph-InMemory] " + gen.vertices.length + " vertices, "
+				+ gen.hyperKeys.size() + " hypervertices, " + numEdges + " hyperedges");
+		log.info("[HyperGraph-InMemory] Time elapsed: "
+				+ (System.currentTimeMillis() - begin) / 1000 + "s");
+	}
+
+	private void load(FileSystem fs, Configuration conf, Path adjListDir) throws IOException{
+		TLongArrayList vertexList = new TLongArrayList();
+		List<long[]> smallList = new ArrayList<long[]>();
+		List<long[]> largeList = new ArrayList<long[]>();
+		LongWritable key = new LongWritable();
+		HyperVertexAdjList value = new HyperVertexAdjList();
+		for (FileStatus status : fs.listStatus(adjListDir)) {
+			if (!status.getPath().getName().startsWith("part-")) {
+				continue;
+			}
+			SequenceFile.Reader reader = new SequenceFile.Reader(fs, status.getPath(), conf);
+			while (reader.next(key, value)) {
+				if (value.existBackup() || !value.isFirstAdd()) {
+					reader.close();
+					throw new IOException(adjListDir + " is partitioned, the hypergraph needs adjList2.0");
+				}
+				vertexList.add(key.get());
+				smallList.add(value.getSmallDegreeVerticesGroup1());
+				largeList.add(value.getLargeDegreeVertices());
+			}
+			reader.close();
+		}
+		vertices = vertexList.toArray();
+		small = smallList.toArray(new long[0][]);
+		large = largeList.toArray(new long[0][]);
+	}
+
+	/**
+	 * Stage 1 - 3
+	 */
+	private void genHyperVertices(int thresh){
+		HashMap<HVArray, TLongArrayList> closed = new HashMap<HVArray, TLongArrayList>();
+		HashMap<HVArray, TLongArrayList> open = new HashMap<HVArray, TLongArrayList>();
+		for (int i = 0; i < vertices.length; ++i) {
+			if (small[i].length + large[i].length > thresh) {
+				continue;
+			}
+			addTo(closed, new HVArray(small[i], vertices[i], large[i]), vertices[i]);
+			addTo(open, new HVArray(small[i], large[i]), vertices[i]);
+		}
+		// A vertex can not have both a twin in the closed and in the open neighborhood
+		addHyperVertices(closed, CLIQUE);
+		addHyperVertices(open, INDEPENDENT);
+		closed.clear();
+		open.clear();
+		for (long v : vertices) {
+			if (!hyperOf.containsKey(v)) {
+				long[] single = { v };
+				addHyperVertex(single, INDEPENDENT);
+			}
+		}
+		order = sortedOrder();
+	}
+
+	private static void addTo(HashMap<HVArray, TLongArrayList> groups, HVArray key, long v){
+		TLongArrayList group = groups.get(key);
+		if (group == null) {
+			group = new TLongArrayList(1);
+			groups.put(key, group);
+		}
+		group.add(v);
+	}
+
+	private void addHyperVertices(HashMap<HVArray, TLongArrayList> groups, int sign){
+		for (TLongArrayList group : groups.values()) {
+			if (group.size() > 1) {
+				// Sorted as HyperVertexHeap, all vertices of adjList2.0 are plain vertices
+				long[] members = group.toArray();
+				Arrays.sort(members);
+				addHyperVertex(members, sign);
+			}
+		}
+	}
+
+	private void addHyperVertex(long[] members, int sign){
+		long hyper = HyperVertex.get(members[0], members.length, sign == CLIQUE);
+		hyperKeys.add(hyper);
+		hyperMembers.add(members);
+		hyperSigns.add(sign);
+		for (long v : members) {
+			hyperOf.put(v, hyper);
+		}
+	}
+
+	private void writeHyperVertices(FileSystem fs, Configuration conf, Path dir) throws IOException{
+		// In the order of HyperVertexSignComparator
+		SequenceFile.Writer writer = createWriter(fs, conf, dir, HyperVertexSign.class, HVArray.class);
+		for (int i : order) {
+			writer.append(new HyperVertexSign(hyperKeys.get(i), (int) hyperSigns.get(i)),
+					new HVArray(hyperMembers.get(i)));
+		}
+		writer.close();
+	}
+
+	/**
+	 * Stage 4 - 6
+	 * @return The number of hyperedges
+	 */
+	private long writeHyperEdges(FileSystem fs, Configuration conf, Path dir) throws IOException{
+		// Rank of every hypervertex, a hyperedge is then packed into one long
+		TLongIntHashMap rank = new TLongIntHashMap(order.length);
+		long[] sortedKeys = new long[order.length];
+		for (int r = 0; r < order.length; ++r) {
+			sortedKeys[r] = hyperKeys.get(order[r]);
+			rank.put(sortedKeys[r], r);
+		}
+		TLongIntHashMap position = new TLongIntHashMap(vertices.length);
+		for (int i = 0; i < vertices.length; ++i) {
+			position.put(vertices[i], i);
+		}
+
+		TLongArrayList edges = new TLongArrayList();
+		TLongHashSet memberSet = new TLongHashSet();
+		for (int h = 0; h < hyperKeys.size(); ++h) {
+			long[] members = hyperMembers.get(h);
+			boolean isClique = (hyperSigns.get(h) == CLIQUE);
+			long hyper = hyperKeys.get(h);
+			long rankOfHyper = rank.get(hyper);
+			long[] neighbors = large[position.get(members[0])];
+			memberSet.clear();
+			if (isClique) {
+				memberSet.addAll(members);
+			}
+			boolean added = false;
+			for (long u : neighbors) {
+				if (memberSet.contains(u)) {
+					continue;
+				}
+				if (!hyperOf.containsKey(u)) {
+					throw new IOException("Neighbor " + HyperVertex.toString(u) + " has no adjacency list");
+				}
+				long rankOfU = rank.get(hyperOf.get(u));
+				edges.add((rankOfHyper < rankOfU) ? ((rankOfHyper << 32) | rankOfU)
+						: ((rankOfU << 32) | rankOfHyper));
+				added = true;
+			}
+			if (!added && isClique) {
+				edges.add((rankOfHyper << 32) | rankOfHyper);
+			}
+		}
+		edges.sort();
+
+		SequenceFile.Writer writer = createWriter(fs, conf, dir, LongWritable.class, LongWritable.class);
+		LongWritable first = new LongWritable(), second = new LongWritable();
+		long numEdges = 0L;
+		for (int i = 0; i < edges.size(); ++i) {
+			long e = edges.get(i);
+			if (i > 0 && e == edges.get(i - 1)) {
+				continue;
+			}
+			first.set(sortedKeys[(int) (e >>> 32)]);
+			second.set(sortedKeys[(int) (e & 0xFFFFFFFFL)]);
+			writer.append(first, second);
+			++numEdges;
+		}
+		writer.close();
+		return numEdges;
+	}
+
+	private int[] sortedOrder(){
+		Integer[] order = new Integer[hyperKeys.size()];
+		for (int i = 0; i < order.length; ++i) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return HyperVertex.compare(hyperKeys.get(a), hyperKeys.get(b));
+			}
+		});
+		int[] res = new int[order.length];
+		for (int i = 0; i < order.length; ++i) {
+			res[i] = order[i];
+		}
+		return res;
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static SequenceFile.Writer createWriter(FileSystem fs, Configuration conf, Path dir,
+			Class keyClass, Class valueClass) throws IOException{
+		fs.delete(dir, true);
+		fs.mkdirs(dir);
+		// Compressed as the outputs of the stage drivers
+		return SequenceFile.createWriter(fs, conf, new Path(dir, "part-r-00000"), keyClass, valueClass,
+				CompressionType.BLOCK, ReflectionUtils.newInstance(LzoCodec.class, conf));
+	}
+}
@@ -22,6 +22,8 @@ import com.hadoop.compression.lzo.LzoCodec;
 import dbg.hadoop.subgraphs.io.HyperVertexSign;
 import dbg.hadoop.subgraphs.io.HyperVertexSignComparator;
 import dbg.hadoop.subgraphs.io.HyperVertexSignGroupComparator;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.RunReport;
 
 public class HyperGraphStageFiveDriver extends Configured implements Tool{
 
@@ -36,6 +38,7 @@ public class HyperGraphStageFiveDriver extends Configured implements Tool{
 		conf.set("mapred.map.output.compression.codec", "com.hadoop.compression.lzo.LzoCodec");
 		
 		Job job = new Job(conf, "HyperGraphStageFive");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[4]);
 		//JobConf job = new JobConf(getConf(), this.getClass());
 		
@@ -70,7 +73,7 @@ public class HyperGraphStageFiveDriver extends Configured implements Tool{
 		
 		FileOutputFormat.setOutputPath(job, new Path(args[2]));
 
-		job.waitForCompletion(true);
+		RunReport.waitForCompletion(job);
 		return 0;
 	}
 }
\ No newline at end of file
@@ -3,11 +3,11 @@ package dbg.hadoop.subgenum.hypergraph;
 import java.io.IOException;
 
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Mapper;
 
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HyperVertexSign;
 import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.StageMapper;
 
 /**
  * This mapper deals with the output from stage four.<br>
@@ -19,7 +19,7 @@ import dbg.hadoop.subgraphs.utils.HyperVertex;
  */
 public class HyperGraphStageFiveMapper1
 		extends
-		Mapper<LongWritable, HVArray, HyperVertexSign, LongWritable> {
+		StageMapper<LongWritable, HVArray, HyperVertexSign, LongWritable> {
 	// The hypervertex set
 	@Override
 	public void map(LongWritable key, HVArray value, Context context) 
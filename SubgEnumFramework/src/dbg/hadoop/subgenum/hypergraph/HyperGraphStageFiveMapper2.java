@@ -3,10 +3,10 @@ package dbg.hadoop.subgenum.hypergraph;
 import java.io.IOException;
 
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Mapper;
 
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HyperVertexSign;
+import dbg.hadoop.subgraphs.utils.StageMapper;
 
 /**
  * This mapper deals with the output from stage three.<br>
@@ -16,7 +16,7 @@ import dbg.hadoop.subgraphs.io.HyperVertexSign;
  *
  */
 public class HyperGraphStageFiveMapper2
-		extends Mapper<HyperVertexSign, HVArray, HyperVertexSign, LongWritable> {
+		extends StageMapper<HyperVertexSign, HVArray, HyperVertexSign, LongWritable> {
 	// The hypervertex set
 	@Override
 	public void map(HyperVertexSign key, HVArray value, Context context) 
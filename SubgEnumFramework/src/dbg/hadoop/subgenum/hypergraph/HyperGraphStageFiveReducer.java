@@ -3,10 +3,10 @@ package dbg.hadoop.subgenum.hypergraph;
 import java.io.IOException;
 
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Reducer;
 
 import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.io.HyperVertexSign;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 /**
  * Two different inputs will be received. <br>
@@ -19,7 +19,7 @@ import dbg.hadoop.subgraphs.io.HyperVertexSign;
  *
  */
 public class HyperGraphStageFiveReducer
-	extends Reducer<HyperVertexSign, LongWritable, LongWritable, LongWritable> {
+	extends StageReducer<HyperVertexSign, LongWritable, LongWritable, LongWritable> {
 
 	@Override
 	public void reduce(HyperVertexSign _key, Iterable<LongWritable> values,
@@ -23,6 +23,8 @@ import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HyperVertexSign;
 import dbg.hadoop.subgraphs.io.HyperVertexSignComparator;
 import dbg.hadoop.subgraphs.io.HyperVertexSignGroupComparator;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.RunReport;
 
 public class HyperGraphStageFourDriver extends Configured implements Tool{
 
@@ -37,6 +39,7 @@ public class HyperGraphStageFourDriver extends Configured implements Tool{
 		conf.set("mapred.map.output.compression.codec", "com.hadoop.compression.lzo.LzoCodec");
 		
 		Job job = new Job(conf, "HyperGraphStageFour");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[4]);
 		//JobConf job = new JobConf(getConf(), this.getClass());
 		
@@ -71,7 +74,7 @@ public class HyperGraphStageFourDriver extends Configured implements Tool{
 		
 		FileOutputFormat.setOutputPath(job, new Path(args[2]));
 
-		job.waitForCompletion(true);
+		RunReport.waitForCompletion(job);
 		return 0;
 	}
 }
\ No newline at end of file
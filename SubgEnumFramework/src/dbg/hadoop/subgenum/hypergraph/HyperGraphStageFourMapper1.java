@@ -3,11 +3,11 @@ package dbg.hadoop.subgenum.hypergraph;
 import java.io.IOException;
 
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Mapper;
 
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HyperVertexAdjList;
 import dbg.hadoop.subgraphs.io.HyperVertexSign;
+import dbg.hadoop.subgraphs.utils.StageMapper;
 
 /**
  * @author robeen
@@ -15,7 +15,7 @@ import dbg.hadoop.subgraphs.io.HyperVertexSign;
  */
 public class HyperGraphStageFourMapper1
 		extends
-		Mapper<LongWritable, HyperVertexAdjList, HyperVertexSign, HVArray> {
+		StageMapper<LongWritable, HyperVertexAdjList, HyperVertexSign, HVArray> {
 	@Override
 	public void map(LongWritable key, HyperVertexAdjList adjList, Context context) 
 			throws IOException, InterruptedException{
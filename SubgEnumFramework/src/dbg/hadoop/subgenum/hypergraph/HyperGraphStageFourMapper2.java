@@ -2,17 +2,17 @@ package dbg.hadoop.subgenum.hypergraph;
 
 import java.io.IOException;
 
-import org.apache.hadoop.mapreduce.Mapper;
 
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HyperVertexSign;
+import dbg.hadoop.subgraphs.utils.StageMapper;
 
 /**
  * @author robeen
  *
  */
 public class HyperGraphStageFourMapper2
-		extends Mapper<HyperVertexSign, HVArray, HyperVertexSign, HVArray> {
+		extends StageMapper<HyperVertexSign, HVArray, HyperVertexSign, HVArray> {
 	// The hypervertex set
 	@Override
 	public void map(HyperVertexSign key, HVArray value, Context context) 
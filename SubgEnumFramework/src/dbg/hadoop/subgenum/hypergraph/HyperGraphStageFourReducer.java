@@ -6,10 +6,10 @@ import java.io.IOException;
 import java.util.Arrays;
 
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Reducer;
 
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HyperVertexSign;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 /**
  * Two different inputs will be received. <br>
@@ -22,7 +22,7 @@ import dbg.hadoop.subgraphs.io.HyperVertexSign;
  *
  */
 public class HyperGraphStageFourReducer
-	extends Reducer<HyperVertexSign, HVArray, LongWritable, HVArray> {
+	extends StageReducer<HyperVertexSign, HVArray, LongWritable, HVArray> {
 
 	public void reduce(HyperVertexSign _key, Iterable<HVArray> values,
 			Context context) throws IOException, InterruptedException {
@@ -3,10 +3,10 @@ package dbg.hadoop.subgenum.hypergraph;
 import java.io.IOException;
 
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Mapper;
 
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HyperVertexAdjList;
+import dbg.hadoop.subgraphs.utils.StageMapper;
 
 /**
 
@@ -15,7 +15,7 @@ import dbg.hadoop.subgraphs.io.HyperVertexAdjList;
  */
 // public class InitMapper extends MapReduceBase implements
 public class HyperGraphStageOneMapper
-		extends Mapper<LongWritable, HyperVertexAdjList, HVArray, LongWritable> {
+		extends StageMapper<LongWritable, HyperVertexAdjList, HVArray, LongWritable> {
 	
 	private static int thresh = 20;
 	@Override
@@ -3,9 +3,9 @@ package dbg.hadoop.subgenum.hypergraph;
 import java.io.IOException;
 
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.mapreduce.Reducer;
 
 import dbg.hadoop.subgraphs.io.HVArray;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 /**
  * Merge duplicated results.
@@ -13,7 +13,7 @@ import dbg.hadoop.subgraphs.io.HVArray;
  *
  */
 public class HyperGraphStageSixCombiner
-	extends Reducer<HVArray, NullWritable, HVArray, NullWritable> {
+	extends StageReducer<HVArray, NullWritable, HVArray, NullWritable> {
 
 	@Override
 	public void reduce(HVArray _key, Iterable<NullWritable> values,
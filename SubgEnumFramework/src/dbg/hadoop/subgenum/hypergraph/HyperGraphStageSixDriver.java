@@ -22,6 +22,8 @@ import com.hadoop.compression.lzo.LzoCodec;
 
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HVArrayComparator;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.RunReport;
 
 public class HyperGraphStageSixDriver extends Configured implements Tool{
 
@@ -34,6 +36,7 @@ public class HyperGraphStageSixDriver extends Configured implements Tool{
 		conf.set("mapred.map.output.compression.codec", "com.hadoop.compression.lzo.LzoCodec");
 		
 		Job job = new Job(conf, "HyperGraphStageSix");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[3]);
 		//JobConf job = new JobConf(getConf(), this.getClass());
 		
@@ -59,7 +62,7 @@ public class HyperGraphStageSixDriver extends Configured implements Tool{
 		FileInputFormat.setInputPaths(job, new Path(args[0]));
 		FileOutputFormat.setOutputPath(job, new Path(args[1]));
 
-		job.waitForCompletion(true);
+		RunReport.waitForCompletion(job);
 		return 0;
 	}
 }
\ No newline at end of file
@@ -4,13 +4,13 @@ import java.io.IOException;
 
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.mapreduce.Mapper;
 
 import dbg.hadoop.subgraphs.io.HVArray;
+import dbg.hadoop.subgraphs.utils.StageMapper;
 
 
 public class HyperGraphStageSixMapper
-		extends Mapper<LongWritable, LongWritable, HVArray, NullWritable> {
+		extends StageMapper<LongWritable, LongWritable, HVArray, NullWritable> {
 	// The hypervertex set
 	@Override
 	public void map(LongWritable key, LongWritable value, Context context) 
@@ -4,9 +4,9 @@ import java.io.IOException;
 
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.mapreduce.Reducer;
 
 import dbg.hadoop.subgraphs.io.HVArray;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 /**
  * Merge duplicated results.
@@ -14,7 +14,7 @@ import dbg.hadoop.subgraphs.io.HVArray;
  *
  */
 public class HyperGraphStageSixReducer
-	extends Reducer<HVArray, NullWritable, LongWritable, LongWritable> {
+	extends StageReducer<HVArray, NullWritable, LongWritable, LongWritable> {
 
 	@Override
 	public void reduce(HVArray _key, Iterable<NullWritable> values,
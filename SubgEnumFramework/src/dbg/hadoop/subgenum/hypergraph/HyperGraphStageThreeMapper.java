@@ -2,14 +2,14 @@ package dbg.hadoop.subgenum.hypergraph;
 
 import java.io.IOException;
 
-import org.apache.hadoop.mapreduce.Mapper;
 
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HyperVertexSign;
+import dbg.hadoop.subgraphs.utils.StageMapper;
 
 
 public class HyperGraphStageThreeMapper
-		extends Mapper<HyperVertexSign, HVArray, HyperVertexSign, HVArray> {
+		extends StageMapper<HyperVertexSign, HVArray, HyperVertexSign, HVArray> {
 	
 	@Override
 	public void map(HyperVertexSign key, HVArray value, Context context) 
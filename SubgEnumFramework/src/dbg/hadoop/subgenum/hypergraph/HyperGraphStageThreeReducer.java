@@ -2,11 +2,11 @@ package dbg.hadoop.subgenum.hypergraph;
 
 import java.io.IOException;
 
-import org.apache.hadoop.mapreduce.Reducer;
 
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HyperVertexSign;
 import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 
 /***
@@ -26,7 +26,7 @@ import dbg.hadoop.subgraphs.utils.HyperVertex;
  *
  */
 public class HyperGraphStageThreeReducer
-	extends Reducer<HyperVertexSign, HVArray, HyperVertexSign, HVArray> {
+	extends StageReducer<HyperVertexSign, HVArray, HyperVertexSign, HVArray> {
 
 	public void reduce(HyperVertexSign _key, Iterable<HVArray> values,
 			Context context) throws IOException, InterruptedException {	
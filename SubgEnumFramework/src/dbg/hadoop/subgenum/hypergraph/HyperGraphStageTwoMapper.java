@@ -3,10 +3,10 @@ package dbg.hadoop.subgenum.hypergraph;
 import java.io.IOException;
 
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Mapper;
 
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HyperVertexAdjList;
+import dbg.hadoop.subgraphs.utils.StageMapper;
 
 /**
  * @author robeen
@@ -14,7 +14,7 @@ import dbg.hadoop.subgraphs.io.HyperVertexAdjList;
  */
 public class HyperGraphStageTwoMapper
 		extends
-		Mapper<LongWritable, HyperVertexAdjList, HVArray, LongWritable> {
+		StageMapper<LongWritable, HyperVertexAdjList, HVArray, LongWritable> {
 	
 	private static int thresh = 20;
 	@Override
@@ -4,14 +4,14 @@ package dbg.hadoop.subgenum.hypergraph;
 import java.io.IOException;
 
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Reducer;
 
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HyperVertexSign;
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.HyperVertexHeap;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
-public class HyperGraphStageTwoReducer extends Reducer
+public class HyperGraphStageTwoReducer extends StageReducer
 	<HVArray, LongWritable, HyperVertexSign, HVArray> {
 
 	public void reduce(HVArray _key, Iterable<LongWritable> values,
@@ -1,14 +1,34 @@
 package dbg.hadoop.subgenum.hypergraph.adjlist;
 
+import java.io.IOException;
+import java.io.PrintStream;
+
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.CounterGroup;
+import org.apache.hadoop.mapreduce.Counters;
 import org.apache.hadoop.util.ToolRunner;
+import org.apache.log4j.Logger;
 
+import dbg.hadoop.subgraphs.io.HyperVertexAdjList;
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.Utility;
 import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.StageStats;
 
+/**
+ * Generate adjList2.&lt;maxSize&gt;. <br>
+ * With map.input.work.budget (maxSize != 0), the small-degree neighbors of every vertex
+ * are grouped by HyperVertexAdjList.adaptiveGroupSize instead of maxSize, so that sparse
+ * vertices are not split while the records of hubs stay within the budget. The name of the
+ * output still carries maxSize. <br>
+ * The cost of the records (the pairs of neighbors the TwinTwig mappers make of them)
+ * is summarized in &lt;output&gt;.cost.
+ */
 public class GenAdjList{
+	public static final String COST_FILE = "adjlist.cost.file";
+	private static Logger log = Logger.getLogger(GenAdjList.class);
 	
 	public static void main(String[] args) throws Exception {
 		run(new InputInfo(args));
@@ -37,6 +57,9 @@ public class GenAdjList{
 		
 		Configuration conf = new Configuration();
 		conf.setInt("map.input.max.size", maxSize);
+		if(maxSize != 0 && inputInfo.workBudget > 0){
+			conf.setLong(HyperVertexAdjList.WORK_BUDGET, inputInfo.workBudget);
+		}
 		
 		String outputDir = workDir + Config.hyperGraphAdjList + "." + maxSize;
 		String[] opts = { workDir + Config.hyperEdge, outputDir, numReducers, jarFile };
@@ -46,6 +69,7 @@ public class GenAdjList{
 			opts[0] = workDir + Config.preparedFileDir;
 			opts[1] = outputDir;
 		}
+		conf.set(COST_FILE, outputDir + ".cost");
 		
 		if(Utility.getFS().isDirectory(new Path(outputDir)))
 			Utility.getFS().delete(new Path(outputDir));
@@ -65,4 +89,40 @@ public class GenAdjList{
 			Utility.getFS().delete(new Path(outputDir + ".tmp"));
 		}
 	}
+	
+	/**
+	 * Write the cost summary of the GenAdjListReducer counters
+	 */
+	public static void writeCost(Path file, Configuration conf, Counters counters) throws IOException{
+		if(counters == null){
+			return;
+		}
+		CounterGroup group = counters.getGroup(GenAdjListReducer.COST_GROUP);
+		long vertices = group.findCounter(GenAdjListReducer.VERTICES).getValue();
+		long partitioned = group.findCounter(GenAdjListReducer.PARTITIONED).getValue();
+		long groupSizeSum = group.findCounter(GenAdjListReducer.GROUP_SIZE_SUM).getValue();
+		long records = group.findCounter(GenAdjListReducer.RECORDS).getValue();
+		long work = group.findCounter(GenAdjListReducer.WORK).getValue();
+		long maxWork = 0L;
+		for(Counter counter : group){
+			if(counter.getValue() > 0){
+				maxWork = Math.max(maxWork, StageStats.upperBound(GenAdjListReducer.WORK, counter.getName()));
+			}
+		}
+		
+		PrintStream out = new PrintStream(file.getFileSystem(conf).create(file, true));
+		out.println("map.input.max.size\t" + conf.getInt("map.input.max.size", 0));
+		out.println(HyperVertexAdjList.WORK_BUDGET + "\t" + conf.getLong(HyperVertexAdjList.WORK_BUDGET, 0L));
+		out.println("vertices\t" + vertices);
+		out.println("vertices.partitioned\t" + partitioned);
+		out.println("mean.group.size\t" + ((partitioned == 0) ? 0 : groupSizeSum / partitioned));
+		out.println("records\t" + records);
+		out.println("record.work\t" + work);
+		out.println("mean.record.work\t" + ((records == 0) ? 0 : work / records));
+		// A power of 16, see StageStats.bucket
+		out.println("max.record.work.bound\t" + maxWork);
+		out.close();
+		log.info("[GenAdjList] " + records + " records of " + vertices + " vertices (" + partitioned
+				+ " partitioned), " + work + " pairs in total, at most " + maxWork + " per record");
+	}
 }
\ No newline at end of file
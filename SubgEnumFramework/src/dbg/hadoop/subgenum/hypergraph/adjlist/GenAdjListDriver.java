@@ -21,6 +21,8 @@ import com.hadoop.compression.lzo.LzoCodec;
 
 import dbg.hadoop.subgraphs.io.HyperVertexAdjList;
 import dbg.hadoop.subgraphs.io.HyperVertexComparator;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.RunReport;
 
 public class GenAdjListDriver extends Configured implements Tool{
 
@@ -33,6 +35,7 @@ public class GenAdjListDriver extends Configured implements Tool{
 		conf.set("mapreduce.map.output.compress.codec", "com.hadoop.compression.lzo.LzoCodec");
 
 		Job job = new Job(conf, "HyperGraphGenAdjList");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[3]);
 		
 		job.setMapperClass(GenAdjListMapper.class);
@@ -57,7 +60,9 @@ public class GenAdjListDriver extends Configured implements Tool{
 		FileInputFormat.setInputPaths(job, new Path(args[0]));
 		FileOutputFormat.setOutputPath(job, new Path(args[1]));
 
-		job.waitForCompletion(true);
+		if(RunReport.waitForCompletion(job) && conf.get(GenAdjList.COST_FILE) != null){
+			GenAdjList.writeCost(new Path(conf.get(GenAdjList.COST_FILE)), conf, job.getCounters());
+		}
 		return 0;
 	}
 }
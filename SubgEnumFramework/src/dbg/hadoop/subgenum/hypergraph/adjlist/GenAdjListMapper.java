@@ -3,9 +3,9 @@ package dbg.hadoop.subgenum.hypergraph.adjlist;
 import java.io.IOException;
 
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Mapper;
 
 import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.StageMapper;
 
 /**
  * Get the statics of every node, specifically the degree
@@ -13,7 +13,7 @@ import dbg.hadoop.subgraphs.utils.HyperVertex;
  *
  */
 public class GenAdjListMapper
-		extends Mapper<LongWritable, LongWritable, LongWritable, LongWritable> {
+		extends StageMapper<LongWritable, LongWritable, LongWritable, LongWritable> {
 
 	@Override
 	public void map(LongWritable key, LongWritable value, Context context) throws IOException, InterruptedException{
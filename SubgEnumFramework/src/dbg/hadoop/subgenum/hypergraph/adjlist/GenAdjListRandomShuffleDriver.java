@@ -12,8 +12,6 @@ import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.SequenceFile.CompressionType;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapreduce.Job;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
@@ -26,6 +24,10 @@ import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HVArrayComparator;
 import dbg.hadoop.subgraphs.io.HVArrayPartitioner;
 import dbg.hadoop.subgraphs.io.HyperVertexAdjList;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
+import dbg.hadoop.subgraphs.utils.RunReport;
 
 public class GenAdjListRandomShuffleDriver extends Configured implements Tool{
 
@@ -38,6 +40,7 @@ public class GenAdjListRandomShuffleDriver extends Configured implements Tool{
 		conf.set("mapreduce.map.output.compress.codec", "com.hadoop.compression.lzo.LzoCodec");
 
 		Job job = new Job(conf, "HyperGraphGenAdjList Random Shuffle");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[3]);
 		
 		job.setMapperClass(GenAdjListRandomShuffleMapper.class);
@@ -63,13 +66,13 @@ public class GenAdjListRandomShuffleDriver extends Configured implements Tool{
 		FileInputFormat.setInputPaths(job, new Path(args[0]));
 		FileOutputFormat.setOutputPath(job, new Path(args[1]));
 
-		job.waitForCompletion(true);
+		RunReport.waitForCompletion(job);
 		return 0;
 	}
 }
 
 class GenAdjListRandomShuffleMapper extends
-		Mapper<LongWritable, HyperVertexAdjList, HVArray, HyperVertexAdjList> {
+		StageMapper<LongWritable, HyperVertexAdjList, HVArray, HyperVertexAdjList> {
 	private static SecureRandom rand = null;
 	@Override
 	public void map(LongWritable key, HyperVertexAdjList value, Context context)
@@ -83,7 +86,7 @@ class GenAdjListRandomShuffleMapper extends
 }
 
 class GenAdjListRandomShuffleReducer extends
-		Reducer<HVArray, HyperVertexAdjList, LongWritable, HyperVertexAdjList> {
+		StageReducer<HVArray, HyperVertexAdjList, LongWritable, HyperVertexAdjList> {
 	@Override
 	public void reduce(HVArray key, Iterable<HyperVertexAdjList> values, Context context)
 			throws IOException, InterruptedException {
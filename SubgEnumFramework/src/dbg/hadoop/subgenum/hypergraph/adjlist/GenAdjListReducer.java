@@ -6,12 +6,13 @@ import java.util.List;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Reducer;
 
 import dbg.hadoop.subgraphs.io.HyperVertexAdjList;
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.utils.HyperVertexHeap;
+import dbg.hadoop.subgraphs.utils.StageReducer;
+import dbg.hadoop.subgraphs.utils.StageStats;
 
 
 //public class InitReducer extends MapReduceBase implements
@@ -33,12 +34,25 @@ import dbg.hadoop.subgraphs.utils.HyperVertexHeap;
  *
  */
 public class GenAdjListReducer extends
-		Reducer<LongWritable, LongWritable, LongWritable, HyperVertexAdjList> {
+		StageReducer<LongWritable, LongWritable, LongWritable, HyperVertexAdjList> {
 	//private MaxHeapLimitSize heaps = null;
 	private HyperVertexHeap largeDegreeVertices = null;
 	private HyperVertexHeap smallDegreeVertices = null;
 	private List<long[]> list = new ArrayList<long[]>();
 	private static int maxSize = 0;
+	// The per-record work budget of the adaptive group size, 0 to use maxSize
+	private static long budget = 0L;
+	
+	// The cost of the records written, see GenAdjList
+	public static final String COST_GROUP = "GenAdjList Cost";
+	public static final String VERTICES = "vertices";
+	public static final String PARTITIONED = "vertices.partitioned";
+	public static final String GROUP_SIZE_SUM = "group.size.sum";
+	public static final String RECORDS = "records";
+	public static final String WORK = "record.work";
+	private long numVertices = 0, numPartitioned = 0, groupSizeSum = 0;
+	private long numRecords = 0, totalWork = 0;
+	private long[] workHistogram = new long[33];
 
 	@Override
 	public void reduce(LongWritable _key, Iterable<LongWritable> values,
@@ -71,28 +85,35 @@ public class GenAdjListReducer extends
 		smallDegreeVertices.sort();
 		
 		try {
-			partitionSmallDegreeVertices(maxSize);
+			int groupSize = (budget > 0) ? HyperVertexAdjList.adaptiveGroupSize(
+					smallDegreeVertices.size(), largeDegreeVertices.size(), budget) : maxSize;
+			partitionSmallDegreeVertices(groupSize);
 			int size = list.size();
+			++numVertices;
+			if(size > 1){
+				++numPartitioned;
+				groupSizeSum += groupSize;
+			}
 			
 			if (size == 0) {
-				context.write(_key, new HyperVertexAdjList(largeDegreeVertices));
+				write(context, _key, new HyperVertexAdjList(largeDegreeVertices), groupSize);
 			}
 			else if(size == 1){ // Make it a special case to boost the operation, no partition case
-				context.write(_key, 
-						new HyperVertexAdjList(list.get(0), largeDegreeVertices, true));
+				write(context, _key, 
+						new HyperVertexAdjList(list.get(0), largeDegreeVertices, true), groupSize);
 			}
 			else{
 				for (int i = 0; i < size; ++i) {
 					if(i == 0){
-						context.write(_key,
-							new HyperVertexAdjList(list.get(i), largeDegreeVertices, true));
+						write(context, _key,
+							new HyperVertexAdjList(list.get(i), largeDegreeVertices, true), groupSize);
 					}
 					else{
-						context.write(_key, 
-							new HyperVertexAdjList(list.get(i), largeDegreeVertices, false));
+						write(context, _key, 
+							new HyperVertexAdjList(list.get(i), largeDegreeVertices, false), groupSize);
 					}
 					for (int j = i + 1; j < size; ++j) {
-						context.write(_key, new HyperVertexAdjList(list.get(i), list.get(j)));
+						write(context, _key, new HyperVertexAdjList(list.get(i), list.get(j)), groupSize);
 					}
 				}
 			}
@@ -103,25 +124,27 @@ public class GenAdjListReducer extends
 
 	}
 	
+	/**
+	 * Write the record, with the group size of the vertex in the adaptive mode, and add up its work
+	 */
+	private void write(Context context, LongWritable key, HyperVertexAdjList adjList, int groupSize)
+			throws IOException, InterruptedException{
+		if(budget > 0){
+			adjList.setGroupSize(groupSize);
+		}
+		long work = adjList.getWork();
+		++numRecords;
+		totalWork += work;
+		++workHistogram[StageStats.bucket(work)];
+		context.write(key, adjList);
+	}
+	
 	private void partitionSmallDegreeVertices(int maxSize) throws Exception{
 		list.clear();
-		if(maxSize == 0 || maxSize > smallDegreeVertices.size()){
-			list.add(smallDegreeVertices.getPartialArrays(0, smallDegreeVertices.size()));
-			return;
-		}
-		int numGroups = smallDegreeVertices.size() / maxSize;
-		if(smallDegreeVertices.size() - numGroups * maxSize > maxSize * Config.overSizeRate){
-			if(numGroups != 0){
-				numGroups += 1;
-			}
-		}
-		
-		int from = 0, to = 0;
-		for(int i = 0; i < numGroups; ++i){
-			from = i * maxSize;
-			to = (i == numGroups - 1) ? smallDegreeVertices.size() : (i + 1) * maxSize;
+		int[] bounds = HyperVertexAdjList.groupBoundaries(smallDegreeVertices.size(), maxSize);
+		for(int i = 0; i < bounds.length - 1; ++i){
 			try {
-				list.add(smallDegreeVertices.getPartialArrays(from, to));
+				list.add(smallDegreeVertices.getPartialArrays(bounds[i], bounds[i + 1]));
 			} catch (Exception e) {
 				// TODO Auto-generated catch block
 				e.printStackTrace();
@@ -133,6 +156,7 @@ public class GenAdjListReducer extends
 	public void setup(Context context) throws IOException{
 		Configuration conf = context.getConfiguration();
 		maxSize = conf.getInt("map.input.max.size", 0);
+		budget = conf.getLong(HyperVertexAdjList.WORK_BUDGET, 0L);
 		smallDegreeVertices = new HyperVertexHeap(Config.HEAPINITSIZE);
 		largeDegreeVertices = new HyperVertexHeap(Config.HEAPINITSIZE);
 		//rand = new Random(System.currentTimeMillis());
@@ -140,6 +164,16 @@ public class GenAdjListReducer extends
 	
 	@Override
 	public void cleanup(Context context){
+		context.getCounter(COST_GROUP, VERTICES).increment(numVertices);
+		context.getCounter(COST_GROUP, PARTITIONED).increment(numPartitioned);
+		context.getCounter(COST_GROUP, GROUP_SIZE_SUM).increment(groupSizeSum);
+		context.getCounter(COST_GROUP, RECORDS).increment(numRecords);
+		context.getCounter(COST_GROUP, WORK).increment(totalWork);
+		for(int b = 0; b < workHistogram.length; ++b){
+			if(workHistogram[b] > 0){
+				context.getCounter(COST_GROUP, StageStats.bucketName(WORK, b)).increment(workHistogram[b]);
+			}
+		}
 		list.clear();
 		smallDegreeVertices.clear();
 		largeDegreeVertices.clear();
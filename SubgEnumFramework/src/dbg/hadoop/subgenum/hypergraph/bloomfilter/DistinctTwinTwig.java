@@ -11,8 +11,6 @@ import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.SequenceFile.CompressionType;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapreduce.Job;  
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.MultipleInputs;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;  
@@ -28,8 +26,12 @@ import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HVArrayComparator;
 import dbg.hadoop.subgraphs.io.HyperVertexAdjList;
 import dbg.hadoop.subgraphs.utils.Config;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.utils.InputInfo;
 import dbg.hadoop.subgraphs.utils.Utility;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
+import dbg.hadoop.subgraphs.utils.RunReport;
 
 public class DistinctTwinTwig{
 	
@@ -87,6 +89,7 @@ class DTTDriver extends Configured implements Tool{
 		conf.set("mapreduce.map.output.compress.codec", "com.hadoop.compression.lzo.LzoCodec");
 		
 		Job job = new Job(conf, "DistinctTwinTwig");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[3]);
 		//JobConf job = new JobConf(getConf(), this.getClass());
 		
@@ -116,14 +119,14 @@ class DTTDriver extends Configured implements Tool{
 		
 		FileOutputFormat.setOutputPath(job, new Path(args[1]));
 
-		job.waitForCompletion(true);
+		RunReport.waitForCompletion(job);
 		return 0;
 	}
 }
 
 
 
-class DTTMapper extends Mapper<LongWritable, HyperVertexAdjList, HVArray, IntWritable> {
+class DTTMapper extends StageMapper<LongWritable, HyperVertexAdjList, HVArray, IntWritable> {
 	private final static IntWritable one = new IntWritable(1);
 	// The hypervertex set
 	@Override
@@ -140,7 +143,7 @@ class DTTMapper extends Mapper<LongWritable, HyperVertexAdjList, HVArray, IntWri
 	}
 }
 
-class DTTReducer extends Reducer<HVArray, IntWritable, HVArray, IntWritable> {
+class DTTReducer extends StageReducer<HVArray, IntWritable, HVArray, IntWritable> {
 	@Override
 	public void reduce(HVArray _key, Iterable<IntWritable> values,
 			Context context) throws IOException, InterruptedException {	
@@ -40,6 +40,8 @@ public class GenBloomFilter{
 		BloomFilterOpr bloomFilterOpr = new BloomFilterOpr(
 				input, output,
 				falsePositive, elemSize, bfType, workDir);
+		bloomFilterOpr.setBlocked(inputInfo.isBlockedBF);
+		bloomFilterOpr.setExact(inputInfo.isExactBF);
 		
 		bloomFilterOpr.createBloomFilter();
 		bloomFilterOpr.writeBloomFilter();
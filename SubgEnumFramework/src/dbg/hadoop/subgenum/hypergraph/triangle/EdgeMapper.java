@@ -3,11 +3,11 @@ package dbg.hadoop.subgenum.hypergraph.triangle;
 import java.io.IOException;
 
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Mapper;
 
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HVArraySign;
 import dbg.hadoop.subgraphs.utils.Config;
+import dbg.hadoop.subgraphs.utils.StageMapper;
 
 /**
  * Get the statics of every node, specifically the degree
@@ -16,7 +16,7 @@ import dbg.hadoop.subgraphs.utils.Config;
  */
 // public class InitMapper extends MapReduceBase implements
 public class EdgeMapper
-		extends Mapper<LongWritable, LongWritable, HVArraySign, HVArray> {
+		extends StageMapper<LongWritable, LongWritable, HVArraySign, HVArray> {
 
 	@Override
 	public void map(LongWritable key, LongWritable value, Context context) throws IOException, InterruptedException{
@@ -0,0 +1,71 @@
+package dbg.hadoop.subgenum.hypergraph.triangle;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.util.Tool;
+
+import com.hadoop.compression.lzo.LzoCodec;
+
+import dbg.hadoop.subgenum.frame.LocalEngine;
+import dbg.hadoop.subgraphs.io.CSRAdjListInputFormat;
+import dbg.hadoop.subgraphs.io.HVArray;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.RunReport;
+
+/**
+ * The map-only variant of TriangleDriver, see ForwardTriangleMapper. <br>
+ * Every map task lists the triangles of a vertex range of the CSR file, in the
+ * current JVM if LocalEngine is enabled.
+ */
+public class ForwardTriangleDriver extends Configured implements Tool{
+
+	public int run(String[] args) throws IOException, ClassNotFoundException, InterruptedException, URISyntaxException {
+		Configuration conf = getConf();
+		// The parameters: <csrFile> <outputDir> <jarFile>
+		Path csrFile = new Path(args[0]);
+		CSRAdjListInputFormat.configure(conf, csrFile, 0);
+		conf.set(ForwardTriangleMapper.CSR_FILE, csrFile.toString());
+
+		Job job = new Job(conf, "Triangle (forward)");
+		HyperVertex.storeMode(job.getConfiguration());
+		((JobConf)job.getConfiguration()).setJar(args[2]);
+
+		job.setMapperClass(ForwardTriangleMapper.class);
+		job.setNumReduceTasks(0);
+
+		job.setOutputKeyClass(NullWritable.class);
+		job.setOutputValueClass(HVArray.class);
+
+		job.setInputFormatClass(CSRAdjListInputFormat.class);
+		job.setOutputFormatClass(SequenceFileOutputFormat.class);
+		SequenceFileOutputFormat.setOutputCompressionType
+								(job, CompressionType.BLOCK);
+		SequenceFileOutputFormat.setOutputCompressorClass(job, LzoCodec.class);
+
+		FileInputFormat.setInputPaths(job, csrFile);
+		FileOutputFormat.setOutputPath(job, new Path(args[1]));
+
+		if(LocalEngine.isEnabled()){
+			RunReport.configure(job.getConfiguration());
+			long begin = System.currentTimeMillis();
+			Counters counters = LocalEngine.run(job);
+			RunReport.record(job, counters, System.currentTimeMillis() - begin);
+		}
+		else{
+			RunReport.waitForCompletion(job);
+		}
+		return 0;
+	}
+}
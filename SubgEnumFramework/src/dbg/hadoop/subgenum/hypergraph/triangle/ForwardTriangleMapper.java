@@ -0,0 +1,96 @@
+package dbg.hadoop.subgenum.hypergraph.triangle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.LongBuffer;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+
+import dbg.hadoop.subgraphs.io.CSRAdjListInputFormat;
+import dbg.hadoop.subgraphs.io.CSRGraph;
+import dbg.hadoop.subgraphs.io.HVArray;
+import dbg.hadoop.subgraphs.io.HyperVertexAdjList;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.TwinTwigGenerator;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+
+/**
+ * Forward triangle listing over the memory-mapped CSR graph. <br>
+ * The input is CSRAdjListInputFormat with no partition, one record (cur, large) per vertex.
+ * The larger neighbors are in degree order, so every triangle (v1, v2, v3), v1 &lt; v2 &lt; v3,
+ * is found once at v1: for v2 in large(v1), v3 runs over large(v1) after v2 that is also
+ * in large(v2), read in place from the mapped file. <br>
+ * The output is that of TriangleReducer, without any wedge in the shuffle.
+ */
+public class ForwardTriangleMapper
+		extends StageMapper<LongWritable, HyperVertexAdjList, NullWritable, HVArray> {
+	public static final String CSR_FILE = "triangle.csr.file";
+
+	private CSRGraph graph = null;
+	private File localFile = null;
+	private boolean isTemp = false;
+
+	private HVArray outputValue = new HVArray();
+
+	@Override
+	public void map(LongWritable key, HyperVertexAdjList value, Context context)
+			throws IOException, InterruptedException{
+		long cur = key.get();
+		long[] large = value.getLargeDegreeVertices();
+		boolean two = TwinTwigGenerator.allowTwo(cur);
+		for(int i = 0; i < large.length; ++i){
+			long v2 = large[i];
+			// cur; cur, larger_i as TriangleReducer writes it
+			if(two){
+				outputValue.set(cur, cur, v2);
+				context.write(NullWritable.get(), outputValue);
+			}
+			if(i == large.length - 1){
+				continue;
+			}
+			long index = graph.indexOf(HyperVertex.VertexID(v2));
+			if(index < 0){
+				continue;
+			}
+			LongBuffer next = graph.getLargeNeighbors(index);
+			// Merge large[i + 1, ...) with large(v2), both in the order of HyperVertex.compare
+			int p = i + 1, q = next.position(), end = next.limit();
+			while(p < large.length && q < end){
+				long v3 = next.get(q);
+				int cmp = HyperVertex.compare(large[p], v3);
+				if(cmp < 0){
+					++p;
+				}
+				else if(cmp > 0){
+					++q;
+				}
+				else{
+					outputValue.set(cur, v2, v3);
+					context.write(NullWritable.get(), outputValue);
+					++p;
+					++q;
+				}
+			}
+		}
+	}
+
+	@Override
+	public void setup(Context context) throws IOException{
+		Configuration conf = context.getConfiguration();
+		boolean[] temp = new boolean[1];
+		localFile = CSRAdjListInputFormat.localize(conf, new Path(conf.get(CSR_FILE)), temp);
+		isTemp = temp[0];
+		graph = new CSRGraph(localFile);
+	}
+
+	@Override
+	public void cleanup(Context context){
+		graph = null;
+		if(isTemp){
+			localFile.delete();
+		}
+	}
+}
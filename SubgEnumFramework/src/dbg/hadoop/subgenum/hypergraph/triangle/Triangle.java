@@ -7,6 +7,7 @@ import org.apache.hadoop.filecache.DistributedCache;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.util.ToolRunner;
 
+import dbg.hadoop.subgraphs.io.CSRGraphWriter;
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.Utility;
 import dbg.hadoop.subgraphs.utils.InputInfo;
@@ -47,6 +48,14 @@ public class Triangle{
 			Utility.getFS().delete(new Path(output));
 		}
 		
+		// The CSR file is a copy of adjList2.0, so it only serves the plain graph
+		if(inputInfo.isForwardTriangle && !isHyper){
+			Path csrFile = CSRGraphWriter.ensure(Utility.getFS(), workDir);
+			String opts[] = { csrFile.toString(), output, jarFile };
+			ToolRunner.run(new Configuration(), new ForwardTriangleDriver(), opts);
+			return;
+		}
+		
 		Configuration conf = new Configuration();
 		conf.setBoolean("enable.bloom.filter", enableBF);
 		conf.setFloat("bloom.filter.false.positive.rate", (float)falsePositive);
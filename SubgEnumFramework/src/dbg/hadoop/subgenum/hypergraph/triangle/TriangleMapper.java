@@ -4,7 +4,6 @@ import java.io.IOException;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Mapper;
 
 import dbg.hadoop.subgraphs.io.HyperVertexAdjList;
 import dbg.hadoop.subgraphs.io.HVArraySign;
@@ -12,9 +11,10 @@ import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.utils.BloomFilterOpr;
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.TwinTwigGenerator;
+import dbg.hadoop.subgraphs.utils.StageMapper;
 
 public class TriangleMapper
-		extends Mapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
+		extends StageMapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
 	
 	private static BloomFilterOpr bloomfilterOpr = null;
 	private static boolean enableBF;
@@ -3,11 +3,11 @@ package dbg.hadoop.subgenum.hypergraph.triangle;
 import java.io.IOException;
 
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.mapreduce.Reducer;
 
 import dbg.hadoop.subgraphs.io.HVArraySign;
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.utils.Config;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 
 /**
@@ -19,7 +19,7 @@ import dbg.hadoop.subgraphs.utils.Config;
  *
  */
 public class TriangleReducer
-	extends Reducer<HVArraySign, HVArray, NullWritable, HVArray> {
+	extends StageReducer<HVArraySign, HVArray, NullWritable, HVArray> {
 
 	public void reduce(HVArraySign _key, Iterable<HVArray> values,
 			Context context) throws IOException, InterruptedException {
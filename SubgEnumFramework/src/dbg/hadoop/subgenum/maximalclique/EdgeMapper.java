@@ -3,10 +3,10 @@ package dbg.hadoop.subgenum.maximalclique;
 import java.io.IOException;
 
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Mapper;
 
 import dbg.hadoop.subgraphs.io.HVArraySign;
 import dbg.hadoop.subgraphs.utils.Config;
+import dbg.hadoop.subgraphs.utils.StageMapper;
 
 /**
  * Get the statics of every node, specifically the degree
@@ -15,7 +15,7 @@ import dbg.hadoop.subgraphs.utils.Config;
  */
 // public class InitMapper extends MapReduceBase implements
 public class EdgeMapper
-		extends Mapper<LongWritable, LongWritable, HVArraySign, LongWritable> {
+		extends StageMapper<LongWritable, LongWritable, HVArraySign, LongWritable> {
 
 	@Override
 	public void map(LongWritable key, LongWritable value, Context context) 
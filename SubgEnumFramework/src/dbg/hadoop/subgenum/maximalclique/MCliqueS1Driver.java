@@ -25,6 +25,7 @@ import dbg.hadoop.subgraphs.io.HVArrayGroupComparator;
 import dbg.hadoop.subgraphs.io.HVArraySign;
 import dbg.hadoop.subgraphs.io.HVArraySignComparator;
 import dbg.hadoop.subgraphs.utils.Config;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
 
 class MCliqueS1Driver extends Configured implements Tool{
 
@@ -37,6 +38,7 @@ class MCliqueS1Driver extends Configured implements Tool{
 		conf.set("mapreduce.map.output.compress.codec", "com.hadoop.compression.lzo.LzoCodec");
 		
 		Job job = new Job(conf, "Maximal Clique Stage One");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[4]);
 		//JobConf job = new JobConf(getConf(), this.getClass());
 		job.setReducerClass(MCliqueS1Reducer.class);
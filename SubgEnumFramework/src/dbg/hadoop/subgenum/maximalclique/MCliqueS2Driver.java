@@ -28,6 +28,7 @@ import dbg.hadoop.subgraphs.io.HVArraySignComparator;
 import dbg.hadoop.subgraphs.io.HVArraySign;
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HyperVertexComparator;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
 
 public class MCliqueS2Driver extends Configured implements Tool{
 
@@ -40,6 +41,7 @@ public class MCliqueS2Driver extends Configured implements Tool{
 		conf.set("mapreduce.map.output.compress.codec", "com.hadoop.compression.lzo.LzoCodec");
 		
 		Job job = new Job(conf, "Maximal Clique Stage Two");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[3]);
 		//JobConf job = new JobConf(getConf(), this.getClass());
 		
@@ -7,16 +7,16 @@ import java.util.Collection;
 import java.util.Iterator;
 
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Reducer;
 
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.utils.Graph;
 import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.utils.HyperVertexHeap;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 
 public class MCliqueS2Reducer
-	extends Reducer<LongWritable, HVArray, LongWritable, HVArray> {
+	extends StageReducer<LongWritable, HVArray, LongWritable, HVArray> {
 	
 	private static int cliqueSizeThresh = 20;
 	@Override
@@ -4,12 +4,12 @@ import java.io.IOException;
 
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Mapper;
 
 import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.StageMapper;
 
 public class MCliqueS3DegreeMapper
-		extends Mapper<IntWritable, IntWritable, LongWritable, LongWritable> {
+		extends StageMapper<IntWritable, IntWritable, LongWritable, LongWritable> {
 	//private static final LongWritable zero = new LongWritable(0);
 	@Override
 	public void map(IntWritable key, IntWritable value, Context context) 
@@ -3,12 +3,12 @@ package dbg.hadoop.subgenum.maximalclique;
 import java.io.IOException;
 
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Mapper;
 
 import dbg.hadoop.subgraphs.io.HVArray;
+import dbg.hadoop.subgraphs.utils.StageMapper;
 
 public class MCliqueS3Mapper
-		extends Mapper<LongWritable, HVArray, LongWritable, LongWritable> {
+		extends StageMapper<LongWritable, HVArray, LongWritable, LongWritable> {
 	@Override
 	public void map(LongWritable key, HVArray value, Context context) 
 			throws IOException, InterruptedException{
@@ -2,13 +2,13 @@ package dbg.hadoop.subgenum.maximalclique;
 
 import java.io.IOException;
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Reducer;
 
 import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 
 public class MCliqueS3Reducer
-	extends Reducer<LongWritable, LongWritable, LongWritable, LongWritable> {
+	extends StageReducer<LongWritable, LongWritable, LongWritable, LongWritable> {
 
 	@Override
 	public void reduce(LongWritable _key, Iterable<LongWritable> values,
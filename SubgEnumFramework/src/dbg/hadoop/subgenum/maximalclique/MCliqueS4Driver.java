@@ -24,6 +24,7 @@ import com.hadoop.compression.lzo.LzoCodec;
 
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.HyperVertexComparator;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
 
 public class MCliqueS4Driver extends Configured implements Tool{
 
@@ -36,6 +37,7 @@ public class MCliqueS4Driver extends Configured implements Tool{
 		conf.set("mapreduce.map.output.compress.codec", "com.hadoop.compression.lzo.LzoCodec");
 		
 		Job job = new Job(conf, "Maximal Clique Stage Four");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[3]);
 		//JobConf job = new JobConf(getConf(), this.getClass());
 		
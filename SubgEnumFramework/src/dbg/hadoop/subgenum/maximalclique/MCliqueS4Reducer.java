@@ -3,16 +3,16 @@ package dbg.hadoop.subgenum.maximalclique;
 import java.io.IOException;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
-import org.apache.hadoop.mapreduce.Reducer;
 
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.utils.HyperVertexHeap;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 
 public class MCliqueS4Reducer
-	extends Reducer<LongWritable, LongWritable, LongWritable, HVArray> {
+	extends StageReducer<LongWritable, LongWritable, LongWritable, HVArray> {
 	
 	private static int cliqueSizeThresh = 20;
 	@Override
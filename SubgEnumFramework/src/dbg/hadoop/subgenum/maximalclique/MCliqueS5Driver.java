@@ -20,6 +20,7 @@ import org.apache.hadoop.util.Tool;
 import com.hadoop.compression.lzo.LzoCodec;
 
 import dbg.hadoop.subgraphs.io.HyperVertexComparator;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
 
 public class MCliqueS5Driver extends Configured implements Tool{
 
@@ -32,6 +33,7 @@ public class MCliqueS5Driver extends Configured implements Tool{
 		conf.set("mapreduce.map.output.compress.codec", "com.hadoop.compression.lzo.LzoCodec");
 		
 		Job job = new Job(conf, "Maximal Clique Stage Five");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[3]);
 		//JobConf job = new JobConf(getConf(), this.getClass());
 		
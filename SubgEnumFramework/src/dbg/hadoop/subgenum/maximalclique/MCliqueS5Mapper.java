@@ -5,10 +5,10 @@ import gnu.trove.set.hash.TLongHashSet;
 import java.io.IOException;
 
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Mapper;
 
 import dbg.hadoop.subgraphs.io.HyperVertexAdjList;
 import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.StageMapper;
 import dbg.hadoop.subgraphs.utils.Utility;
 
 /**
@@ -16,7 +16,7 @@ import dbg.hadoop.subgraphs.utils.Utility;
  *
  */
 public class MCliqueS5Mapper
-		extends Mapper<LongWritable, HyperVertexAdjList, LongWritable, LongWritable> {
+		extends StageMapper<LongWritable, HyperVertexAdjList, LongWritable, LongWritable> {
 	
 	private static TLongHashSet outputSet;
 	@Override
@@ -81,7 +81,8 @@ public class MaximalClique{
 		String opt2[] = { s1Output, s2Output, numReducers, jarFile};
 		ToolRunner.run(conf, new MCliqueS2Driver(), opt2);
 		
-		String opt3[] = { workDir + Config.degreeFileDir, s2Output, s3Output, numReducers, jarFile};
+		// The vertices are encoded as in the prepared graph
+		String opt3[] = { Utility.getOrderFileDir(workDir).toString(), s2Output, s3Output, numReducers, jarFile};
 		ToolRunner.run(conf, new MCliqueS3Driver(), opt3);
 		
 		String opt4[] = { s3Output, s4Output, numReducers, jarFile};
@@ -26,6 +26,7 @@ import org.apache.hadoop.util.ToolRunner;
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.StageMapper;
 import dbg.hadoop.subgraphs.utils.Utility;
 import dbg.hadoop.subgraphs.utils.InputInfo;
 
@@ -72,6 +73,7 @@ class MCliqueDebugDriver extends Configured implements Tool{
 		conf.set("mapreduce.map.output.compress.codec", "com.hadoop.compression.lzo.LzoCodec");
 		
 		Job job = new Job(conf, "Maximal Clique Stage Five");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[3]);
 		//JobConf job = new JobConf(getConf(), this.getClass());
 		
@@ -96,7 +98,7 @@ class MCliqueDebugDriver extends Configured implements Tool{
 
 
 class MCliqueDebugMapper
-		extends Mapper<LongWritable, HVArray, Text, IntWritable> {
+		extends StageMapper<LongWritable, HVArray, Text, IntWritable> {
 	@Override
 	public void map(LongWritable key, HVArray value, Context context) 
 			throws IOException, InterruptedException{
@@ -0,0 +1,124 @@
+package dbg.hadoop.subgenum.planner;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.SequenceFile;
+
+/**
+ * The degree moments M_j = sum of d(v)^j of the data graph, read from the degreeFile
+ * output of GenDegreeDriver (vertex : degree). <br>
+ * Under the Chung-Lu random graph with the same degrees, an edge (u, v) exists with
+ * probability d(u)d(v)/2m, so a pattern with edges E is expected to have
+ * (2m)^-|E| * prod_v M_deg(v) embeddings, which keeps the skew of the degrees
+ * (stars on hubs) in the estimates.
+ */
+public class DegreeStats {
+	private double[] moments;
+
+	public DegreeStats(double[] _moments){
+		this.moments = _moments;
+	}
+
+	/**
+	 * @param maxOrder The largest moment needed, the number of pattern vertices - 1
+	 */
+	public static DegreeStats read(FileSystem fs, Path degreeDir, int maxOrder) throws IOException{
+		double[] moments = new double[maxOrder + 1];
+		IntWritable key = new IntWritable(), value = new IntWritable();
+		for(FileStatus status : fs.listStatus(degreeDir)){
+			if(!status.getPath().getName().startsWith("part-")){
+				continue;
+			}
+			SequenceFile.Reader reader = new SequenceFile.Reader(fs, status.getPath(), new Configuration());
+			while(reader.next(key, value)){
+				double p = 1.0;
+				for(int j = 0; j <= maxOrder; ++j){
+					moments[j] += p;
+					p *= value.get();
+				}
+			}
+			reader.close();
+		}
+		if(moments[0] == 0){
+			throw new IOException("No degree found in " + degreeDir);
+		}
+		return new DegreeStats(moments);
+	}
+
+	public double numVertices(){
+		return moments[0];
+	}
+
+	public double numEdges(){
+		return moments[1] / 2;
+	}
+
+	/**
+	 * @return M_j, j <= the maxOrder the moments are read with
+	 */
+	public double moment(int j){
+		return moments[j];
+	}
+
+	/**
+	 * @return The expected number of embeddings of the edges in edgeMask (all of them
+	 * between the vertices of vertexMask) that also satisfy the order constraints
+	 * among those vertices
+	 */
+	public double estimate(PatternGraph pattern, int vertexMask, long edgeMask){
+		int[] deg = new int[pattern.size()];
+		int numEdges = 0;
+		for(int i = 0; i < pattern.numEdges(); ++i){
+			if((edgeMask & (1L << i)) != 0){
+				++deg[pattern.getEdge(i)[0]];
+				++deg[pattern.getEdge(i)[1]];
+				++numEdges;
+			}
+		}
+		double res = Math.pow(moments[1], -numEdges);
+		for(int v = 0; v < pattern.size(); ++v){
+			if((vertexMask & (1 << v)) != 0){
+				res *= moments[deg[v]];
+			}
+		}
+		return res * orderFraction(pattern, vertexMask);
+	}
+
+	/**
+	 * @return The fraction of the orders of the vertices in vertexMask that agree with the constraints
+	 */
+	static double orderFraction(PatternGraph pattern, int vertexMask){
+		// Count the orders consistent with the constraints by placing the vertices one by one:
+		// a vertex can be placed once every vertex that must precede it is placed
+		int k = pattern.size();
+		int[] before = new int[k];
+		for(int[] c : pattern.getOrderConstraints()){
+			if((vertexMask & (1 << c[0])) != 0 && (vertexMask & (1 << c[1])) != 0){
+				before[c[1]] |= 1 << c[0];
+			}
+		}
+		double[] orders = new double[1 << k];
+		orders[0] = 1.0;
+		for(int placed = 0; placed < (1 << k); ++placed){
+			if(orders[placed] == 0 || (placed & ~vertexMask) != 0){
+				continue;
+			}
+			for(int v = 0; v < k; ++v){
+				int bit = 1 << v;
+				if((vertexMask & bit) != 0 && (placed & bit) == 0 && (before[v] & ~placed) == 0){
+					orders[placed | bit] += orders[placed];
+				}
+			}
+		}
+		double total = 1.0;
+		for(int i = 2; i <= Integer.bitCount(vertexMask); ++i){
+			total *= i;
+		}
+		return orders[vertexMask] / total;
+	}
+}
@@ -0,0 +1,65 @@
+package dbg.hadoop.subgenum.planner;
+
+/**
+ * A join unit of the pattern, whose matches are read directly from the prepared data: <br>
+ * STAR: a center with some of its pattern edges, matched on adjList2.0 <br>
+ * TRIANGLE: a triangle of the pattern, matched on triangle.res
+ */
+public class JoinUnit {
+	public static final int STAR = 0;
+	public static final int TRIANGLE = 1;
+
+	private int type;
+	// STAR: the center first, then the leaves. TRIANGLE: the three vertices
+	private int[] vertices;
+	private int vertexMask;
+	private long edgeMask;
+
+	public JoinUnit(int _type, int[] _vertices, PatternGraph pattern){
+		this.type = _type;
+		this.vertices = _vertices;
+		this.vertexMask = 0;
+		for(int v : vertices){
+			vertexMask |= 1 << v;
+		}
+		this.edgeMask = 0;
+		if(type == STAR){
+			for(int i = 1; i < vertices.length; ++i){
+				edgeMask |= 1L << pattern.edgeIndex(vertices[0], vertices[i]);
+			}
+		}
+		else{
+			edgeMask |= 1L << pattern.edgeIndex(vertices[0], vertices[1]);
+			edgeMask |= 1L << pattern.edgeIndex(vertices[0], vertices[2]);
+			edgeMask |= 1L << pattern.edgeIndex(vertices[1], vertices[2]);
+		}
+	}
+
+	public int getType(){
+		return type;
+	}
+
+	public int[] getVertices(){
+		return vertices;
+	}
+
+	public int getVertexMask(){
+		return vertexMask;
+	}
+
+	public long getEdgeMask(){
+		return edgeMask;
+	}
+
+	@Override
+	public String toString(){
+		StringBuilder sb = new StringBuilder(type == STAR ? "Star(" : "Triangle(");
+		for(int i = 0; i < vertices.length; ++i){
+			if(i > 0){
+				sb.append(i == 1 && type == STAR ? ";" : ",");
+			}
+			sb.append(vertices[i]);
+		}
+		return sb.append(')').toString();
+	}
+}
@@ -0,0 +1,197 @@
+package dbg.hadoop.subgenum.planner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A small connected pattern graph, given as an edge list like "0-1,1-2,2-3,3-0". <br>
+ * The vertices are 0 .. k-1 and the edges are numbered in the order of the list.
+ */
+public class PatternGraph {
+	public static final int MAX_VERTICES = 10;
+	// The planner keeps a set of pattern edges in the bits of a long
+	public static final int MAX_EDGES = 63;
+
+	private int numVertices;
+	private int[][] edges;
+	private boolean[][] adj;
+	private int[][] order = null;
+
+	public PatternGraph(String edgeList){
+		List<int[]> list = new ArrayList<int[]>();
+		int maxId = -1;
+		for(String e : edgeList.split(",")){
+			e = e.trim();
+			if(e.isEmpty()){
+				continue;
+			}
+			String[] uv = e.split("-");
+			if(uv.length != 2){
+				throw new IllegalArgumentException("Illegal pattern edge: " + e);
+			}
+			int u = Integer.parseInt(uv[0].trim()), v = Integer.parseInt(uv[1].trim());
+			if(u == v || u < 0 || v < 0){
+				throw new IllegalArgumentException("Illegal pattern edge: " + e);
+			}
+			list.add(new int[]{ Math.min(u, v), Math.max(u, v) });
+			maxId = Math.max(maxId, Math.max(u, v));
+		}
+		this.numVertices = maxId + 1;
+		if(numVertices < 2 || numVertices > MAX_VERTICES){
+			throw new IllegalArgumentException("The pattern must have 2 to " + MAX_VERTICES + " vertices");
+		}
+		this.adj = new boolean[numVertices][numVertices];
+		List<int[]> distinct = new ArrayList<int[]>();
+		for(int[] e : list){
+			if(!adj[e[0]][e[1]]){
+				adj[e[0]][e[1]] = adj[e[1]][e[0]] = true;
+				distinct.add(e);
+			}
+		}
+		this.edges = distinct.toArray(new int[0][]);
+		if(edges.length > MAX_EDGES){
+			throw new IllegalArgumentException("The pattern must have at most " + MAX_EDGES + " edges");
+		}
+		if(!isConnected()){
+			throw new IllegalArgumentException("The pattern must be connected and use every vertex id");
+		}
+		// The vertices of degree one are dropped from adjList2.0
+		for(int v = 0; v < numVertices; ++v){
+			if(Integer.bitCount(neighborMask(v)) < 2){
+				throw new IllegalArgumentException("Pattern vertex " + v + " has degree less than 2");
+			}
+		}
+	}
+
+	private boolean isConnected(){
+		int reached = 1, frontier = 1;
+		while(frontier != 0){
+			int next = 0;
+			for(int v = 0; v < numVertices; ++v){
+				if((frontier & (1 << v)) != 0){
+					next |= neighborMask(v);
+				}
+			}
+			frontier = next & ~reached;
+			reached |= next;
+		}
+		return reached == (1 << numVertices) - 1;
+	}
+
+	public int size(){
+		return numVertices;
+	}
+
+	public int numEdges(){
+		return edges.length;
+	}
+
+	public int[] getEdge(int i){
+		return edges[i];
+	}
+
+	public boolean isEdge(int u, int v){
+		return adj[u][v];
+	}
+
+	public int neighborMask(int v){
+		int mask = 0;
+		for(int u = 0; u < numVertices; ++u){
+			if(adj[v][u]){
+				mask |= 1 << u;
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * @return The index of edge (u, v), -1 if it is not an edge
+	 */
+	public int edgeIndex(int u, int v){
+		for(int i = 0; i < edges.length; ++i){
+			if((edges[i][0] == u && edges[i][1] == v) || (edges[i][0] == v && edges[i][1] == u)){
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return All the automorphisms of the pattern, each as the image of every vertex
+	 */
+	public List<int[]> automorphisms(){
+		List<int[]> res = new ArrayList<int[]>();
+		int[] perm = new int[numVertices];
+		boolean[] used = new boolean[numVertices];
+		extend(0, perm, used, res);
+		return res;
+	}
+
+	private void extend(int v, int[] perm, boolean[] used, List<int[]> res){
+		if(v == numVertices){
+			res.add(perm.clone());
+			return;
+		}
+		for(int u = 0; u < numVertices; ++u){
+			if(used[u] || Integer.bitCount(neighborMask(u)) != Integer.bitCount(neighborMask(v))){
+				continue;
+			}
+			boolean ok = true;
+			for(int w = 0; w < v && ok; ++w){
+				ok = (adj[v][w] == adj[u][perm[w]]);
+			}
+			if(ok){
+				perm[v] = u;
+				used[u] = true;
+				extend(v + 1, perm, used, res);
+				used[u] = false;
+			}
+		}
+	}
+
+	/**
+	 * The symmetry breaking conditions: a match is reported only if the data vertex of
+	 * a is smaller than the data vertex of b for every pair (a, b), so that each subgraph
+	 * is found exactly once. Built by fixing vertices one by one and ordering
+	 * each of them before the rest of its orbit in the remaining automorphisms.
+	 */
+	public int[][] getOrderConstraints(){
+		if(order != null){
+			return order;
+		}
+		List<int[]> constraints = new ArrayList<int[]>();
+		List<int[]> group = automorphisms();
+		for(int v = 0; v < numVertices && group.size() > 1; ++v){
+			boolean[] orbit = new boolean[numVertices];
+			for(int[] perm : group){
+				orbit[perm[v]] = true;
+			}
+			for(int u = 0; u < numVertices; ++u){
+				if(u != v && orbit[u]){
+					constraints.add(new int[]{ v, u });
+				}
+			}
+			List<int[]> stabilizer = new ArrayList<int[]>();
+			for(int[] perm : group){
+				if(perm[v] == v){
+					stabilizer.add(perm);
+				}
+			}
+			group = stabilizer;
+		}
+		order = constraints.toArray(new int[0][]);
+		return order;
+	}
+
+	@Override
+	public String toString(){
+		StringBuilder sb = new StringBuilder();
+		for(int[] e : edges){
+			if(sb.length() > 0){
+				sb.append(',');
+			}
+			sb.append(e[0]).append('-').append(e[1]);
+		}
+		return sb.toString();
+	}
+}
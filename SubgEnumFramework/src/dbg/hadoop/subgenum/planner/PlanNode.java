@@ -0,0 +1,100 @@
+package dbg.hadoop.subgenum.planner;
+
+/**
+ * A node of a join plan: either a join unit or the join of two sub-plans
+ * on their common pattern vertices
+ */
+public class PlanNode {
+	private JoinUnit unit;
+	private PlanNode left;
+	private PlanNode right;
+	private int vertexMask;
+	private long edgeMask;
+	// The estimated number of partial matches produced by this node
+	private double size;
+	// The estimated number of records read, shuffled and written to produce them
+	private double cost;
+
+	PlanNode(JoinUnit _unit, double _size, double _cost){
+		this.unit = _unit;
+		this.vertexMask = _unit.getVertexMask();
+		this.edgeMask = _unit.getEdgeMask();
+		this.size = _size;
+		this.cost = _cost;
+	}
+
+	PlanNode(PlanNode _left, PlanNode _right, double _size){
+		// The smaller side is buffered by the reducers
+		if(_left.size > _right.size){
+			PlanNode tmp = _left;
+			_left = _right;
+			_right = tmp;
+		}
+		this.left = _left;
+		this.right = _right;
+		this.vertexMask = _left.vertexMask | _right.vertexMask;
+		this.edgeMask = _left.edgeMask | _right.edgeMask;
+		this.size = _size;
+		this.cost = _left.cost + _right.cost + _left.size + _right.size + _size;
+	}
+
+	public boolean isUnit(){
+		return unit != null;
+	}
+
+	public JoinUnit getUnit(){
+		return unit;
+	}
+
+	public PlanNode getLeft(){
+		return left;
+	}
+
+	public PlanNode getRight(){
+		return right;
+	}
+
+	public int getVertexMask(){
+		return vertexMask;
+	}
+
+	public long getEdgeMask(){
+		return edgeMask;
+	}
+
+	public double getSize(){
+		return size;
+	}
+
+	public double getCost(){
+		return cost;
+	}
+
+	/**
+	 * @return Whether every join of the plan has a unit as its right side
+	 */
+	public boolean isLeftDeep(){
+		if(isUnit()){
+			return true;
+		}
+		if(!left.isUnit() && !right.isUnit()){
+			return false;
+		}
+		return left.isLeftDeep() && right.isLeftDeep();
+	}
+
+	/**
+	 * @return The number of joins (MapReduce jobs) of the plan
+	 */
+	public int numJoins(){
+		return isUnit() ? 0 : 1 + left.numJoins() + right.numJoins();
+	}
+
+	@Override
+	public String toString(){
+		if(isUnit()){
+			return unit.toString();
+		}
+		return "(" + left + " JOIN " + right + ")";
+	}
+}
@@ -0,0 +1,246 @@
+package dbg.hadoop.subgenum.planner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Cost-based planner for an arbitrary pattern. <br>
+ * The pattern edges are decomposed into join units: optionally edge-disjoint triangles
+ * (when triangle.res is available), and stars centered on a minimal vertex cover of the
+ * remaining edges. For every decomposition, the cheapest join tree over its units is found by
+ * dynamic programming over the subsets of units, either among left-deep trees (every join has
+ * a unit on one side) or among all (bushy) trees. <br>
+ * The cost of a plan is the estimated number of records it reads, shuffles and writes,
+ * with the sizes estimated by {@link DegreeStats}.
+ */
+public class QueryPlanner {
+	private static Logger log = Logger.getLogger(QueryPlanner.class);
+
+	public static final String AUTO = "auto";
+	public static final String LEFT_DEEP = "leftdeep";
+	public static final String BUSHY = "bushy";
+
+	// Stop enumerating the decompositions beyond this number
+	private static final int MAX_DECOMPOSITIONS = 4096;
+
+	private PatternGraph pattern;
+	private DegreeStats stats;
+	private boolean useTriangles;
+
+	/**
+	 * @param _useTriangles Whether triangle.res can be used for the triangle units
+	 */
+	public QueryPlanner(PatternGraph _pattern, DegreeStats _stats, boolean _useTriangles){
+		this.pattern = _pattern;
+		this.stats = _stats;
+		this.useTriangles = _useTriangles;
+	}
+
+	/**
+	 * @param mode AUTO, LEFT_DEEP or BUSHY
+	 * @return The cheapest plan of the given shape, AUTO takes the cheaper of the other two
+	 */
+	public PlanNode plan(String mode){
+		PlanNode bestLeftDeep = null, bestBushy = null;
+		for(List<JoinUnit> units : decompositions()){
+			if(!BUSHY.equals(mode)){
+				bestLeftDeep = cheaper(bestLeftDeep, optimize(units, true));
+			}
+			if(!LEFT_DEEP.equals(mode)){
+				bestBushy = cheaper(bestBushy, optimize(units, false));
+			}
+		}
+		if(bestLeftDeep != null){
+			log.info("[Planner] Best left-deep plan: " + bestLeftDeep + ", cost = " + bestLeftDeep.getCost());
+		}
+		if(bestBushy != null){
+			log.info("[Planner] Best bushy plan: " + bestBushy + ", cost = " + bestBushy.getCost());
+		}
+		return cheaper(bestLeftDeep, bestBushy);
+	}
+
+	private static PlanNode cheaper(PlanNode p1, PlanNode p2){
+		if(p1 == null){
+			return p2;
+		}
+		if(p2 == null){
+			return p1;
+		}
+		return (p2.getCost() < p1.getCost()) ? p2 : p1;
+	}
+
+	/**
+	 * @return The cheapest join tree over all the units
+	 */
+	PlanNode optimize(List<JoinUnit> units, boolean leftDeepOnly){
+		int numUnits = units.size();
+		int full = (1 << numUnits) - 1;
+		PlanNode[] best = new PlanNode[1 << numUnits];
+		int[] vertexMask = new int[1 << numUnits];
+		long[] edgeMask = new long[1 << numUnits];
+		for(int mask = 1; mask <= full; ++mask){
+			int low = Integer.numberOfTrailingZeros(mask);
+			vertexMask[mask] = vertexMask[mask & (mask - 1)] | units.get(low).getVertexMask();
+			edgeMask[mask] = edgeMask[mask & (mask - 1)] | units.get(low).getEdgeMask();
+		}
+		for(int i = 0; i < numUnits; ++i){
+			JoinUnit unit = units.get(i);
+			best[1 << i] = new PlanNode(unit, stats.estimate(pattern, unit.getVertexMask(),
+					unit.getEdgeMask()), scanCost(unit));
+		}
+		for(int mask = 1; mask <= full; ++mask){
+			if(Integer.bitCount(mask) < 2){
+				continue;
+			}
+			double size = -1;
+			// Every split {a, b} once: a holds the lowest unit of mask
+			int lowest = mask & -mask;
+			for(int a = (mask - 1) & mask; a > 0; a = (a - 1) & mask){
+				int b = mask ^ a;
+				if((a & lowest) == 0 || best[a] == null || best[b] == null
+						|| (vertexMask[a] & vertexMask[b]) == 0){
+					continue;
+				}
+				if(leftDeepOnly && Integer.bitCount(a) > 1 && Integer.bitCount(b) > 1){
+					continue;
+				}
+				if(size < 0){
+					size = stats.estimate(pattern, vertexMask[mask], edgeMask[mask]);
+				}
+				PlanNode node = new PlanNode(best[a], best[b], size);
+				if(best[mask] == null || node.getCost() < best[mask].getCost()){
+					best[mask] = node;
+				}
+			}
+		}
+		return best[full];
+	}
+
+	private double scanCost(JoinUnit unit){
+		if(unit.getType() == JoinUnit.STAR){
+			return stats.numVertices() + 2 * stats.numEdges();
+		}
+		// The triangles of the data graph, each stored once
+		return stats.estimate(pattern, unit.getVertexMask(), unit.getEdgeMask())
+				/ DegreeStats.orderFraction(pattern, unit.getVertexMask()) / 6;
+	}
+
+	/**
+	 * @return The decompositions of the pattern edges into join units
+	 */
+	List<List<JoinUnit>> decompositions(){
+		List<List<JoinUnit>> res = new ArrayList<List<JoinUnit>>();
+		List<int[]> triangles = new ArrayList<int[]>();
+		if(useTriangles){
+			int k = pattern.size();
+			for(int u = 0; u < k; ++u){
+				for(int v = u + 1; v < k; ++v){
+					for(int w = v + 1; w < k; ++w){
+						if(pattern.isEdge(u, v) && pattern.isEdge(u, w) && pattern.isEdge(v, w)){
+							triangles.add(new int[]{ u, v, w });
+						}
+					}
+				}
+			}
+		}
+		chooseTriangles(triangles, 0, new ArrayList<JoinUnit>(), (1L << pattern.numEdges()) - 1, res);
+		return res;
+	}
+
+	private void chooseTriangles(List<int[]> triangles, int next, List<JoinUnit> chosen, long restEdges,
+			List<List<JoinUnit>> res){
+		if(res.size() >= MAX_DECOMPOSITIONS){
+			return;
+		}
+		if(next == triangles.size()){
+			addStars(chosen, restEdges, res);
+			return;
+		}
+		chooseTriangles(triangles, next + 1, chosen, restEdges, res);
+		JoinUnit t = new JoinUnit(JoinUnit.TRIANGLE, triangles.get(next), pattern);
+		if((t.getEdgeMask() & ~restEdges) == 0){
+			chosen.add(t);
+			chooseTriangles(triangles, next + 1, chosen, restEdges & ~t.getEdgeMask(), res);
+			chosen.remove(chosen.size() - 1);
+		}
+	}
+
+	/**
+	 * Cover restEdges by stars centered on every minimal vertex cover of them
+	 */
+	private void addStars(List<JoinUnit> triangles, long restEdges, List<List<JoinUnit>> res){
+		int k = pattern.size();
+		if(restEdges == 0){
+			res.add(new ArrayList<JoinUnit>(triangles));
+			return;
+		}
+		for(int cover = 1; cover < (1 << k); ++cover){
+			if(!isCover(cover, restEdges)){
+				continue;
+			}
+			boolean minimal = true;
+			for(int v = 0; v < k && minimal; ++v){
+				if((cover & (1 << v)) != 0 && isCover(cover & ~(1 << v), restEdges)){
+					minimal = false;
+				}
+			}
+			if(minimal){
+				assignEdges(triangles, cover, restEdges, 0, new int[pattern.numEdges()], res);
+			}
+		}
+	}
+
+	private boolean isCover(int cover, long edges){
+		for(int i = 0; i < pattern.numEdges(); ++i){
+			int[] e = pattern.getEdge(i);
+			if((edges & (1L << i)) != 0 && (cover & ((1 << e[0]) | (1 << e[1]))) == 0){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Give every edge to one of its end points in the cover, the end points are the centers
+	 */
+	private void assignEdges(List<JoinUnit> triangles, int cover, long edges, int i, int[] center,
+			List<List<JoinUnit>> res){
+		if(res.size() >= MAX_DECOMPOSITIONS){
+			return;
+		}
+		if(i == pattern.numEdges()){
+			List<JoinUnit> units = new ArrayList<JoinUnit>(triangles);
+			for(int c = 0; c < pattern.size(); ++c){
+				List<Integer> star = new ArrayList<Integer>();
+				star.add(c);
+				for(int j = 0; j < pattern.numEdges(); ++j){
+					int[] e = pattern.getEdge(j);
+					if((edges & (1L << j)) != 0 && center[j] == c){
+						star.add(e[0] == c ? e[1] : e[0]);
+					}
+				}
+				if(star.size() > 1){
+					int[] vertices = new int[star.size()];
+					for(int j = 0; j < vertices.length; ++j){
+						vertices[j] = star.get(j);
+					}
+					units.add(new JoinUnit(JoinUnit.STAR, vertices, pattern));
+				}
+			}
+			res.add(units);
+			return;
+		}
+		if((edges & (1L << i)) == 0){
+			assignEdges(triangles, cover, edges, i + 1, center, res);
+			return;
+		}
+		for(int end : pattern.getEdge(i)){
+			if((cover & (1 << end)) != 0){
+				center[i] = end;
+				assignEdges(triangles, cover, edges, i + 1, center, res);
+			}
+		}
+	}
+}
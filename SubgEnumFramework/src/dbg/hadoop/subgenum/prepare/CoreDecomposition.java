@@ -0,0 +1,114 @@
+package dbg.hadoop.subgenum.prepare;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.util.ToolRunner;
+import org.apache.log4j.Logger;
+
+import dbg.hadoop.subgenum.frame.GeneralDriver;
+import dbg.hadoop.subgraphs.io.CoreVertexWritable;
+import dbg.hadoop.subgraphs.utils.Config;
+import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.Utility;
+
+/**
+ * The k-core decomposition of the undirected graph (enum.core.order=true), written to the
+ * coreFile (vertex id, core number). PrepareData then encodes the core number in place of the
+ * degree of the hypervertices, so HyperVertex.compare orders the vertices by (core number, id)
+ * and the larger neighbors of a vertex are bounded by the core numbers instead of the degrees. <br>
+ * Every vertex starts from its degree and repeatedly lowers its estimate to the h-index of the
+ * estimates of its neighbors, one job per iteration, until no estimate changes. Only the vertices
+ * whose estimate changed send it, and only to the neighbors it concerns. <br>
+ * With enum.core.max.iterations, it stops earlier with upper bounds of the core numbers. <br>
+ * The filters on the degree of the later stages keep working on the core number, which is at
+ * most the degree: GenAdjList keeps the 2-core (every vertex of a cycle), and a vertex of a
+ * clique of k vertices has a core number of at least k - 1.
+ */
+public class CoreDecomposition {
+	private static Logger log = Logger.getLogger(CoreDecomposition.class);
+
+	public static final String COUNTER_GROUP = "CoreDecomposition";
+	public static final String CHANGED = "changed";
+	// Cap the estimates at this value, and write only the vertices that reach it
+	public static final String CAP = "core.cap";
+
+	/**
+	 * @param graphDir The undirected graph, (IntWritable, IntWritable) edges
+	 */
+	public static void run(InputInfo inputInfo, String graphDir) throws Exception{
+		run(inputInfo, CoreInitMapper.class, graphDir, inputInfo.workDir + Config.coreFileDir, 0);
+	}
+
+	/**
+	 * @param initMapper The mapper that sends every edge of graphDir to both end points
+	 * @param outputDir The (vertex id, core number) file
+	 * @param cap If it is positive, only whether a vertex is in the cap-core matters:
+	 * the estimates start from min(degree, cap), which converges faster, and outputDir
+	 * keeps only the vertices of the cap-core
+	 */
+	@SuppressWarnings("rawtypes")
+	public static void run(InputInfo inputInfo, Class<? extends Mapper> initMapper, String graphDir,
+			String outputDir, int cap) throws Exception{
+		String numReducers = inputInfo.numReducers;
+		String jarFile = inputInfo.jarFile;
+		String stateDir = outputDir + ".state.";
+
+		if(Utility.getFS().isDirectory(new Path(outputDir))){
+			Utility.getFS().delete(new Path(outputDir), true);
+		}
+
+		// The parameters: <inputDir1> <inputDir2> <outputDir> <numReducers> <jarFile>
+		String[] opts = { graphDir, "", stateDir + 0, numReducers, jarFile };
+		Configuration conf = new Configuration();
+		conf.setInt(CAP, cap);
+		ToolRunner.run(conf, new GeneralDriver("Core Decomposition Init",
+				initMapper, CoreInitReducer.class, IntWritable.class, CoreVertexWritable.class,
+				IntWritable.class, IntWritable.class, SequenceFileInputFormat.class,
+				SequenceFileOutputFormat.class, null), opts);
+
+		int iteration = 0;
+		while(true){
+			++iteration;
+			opts[0] = stateDir + (iteration - 1);
+			opts[2] = stateDir + iteration;
+			GeneralDriver driver = new GeneralDriver("Core Decomposition " + iteration,
+					CoreUpdateMapper.class, CoreUpdateReducer.class, IntWritable.class, CoreVertexWritable.class,
+					IntWritable.class, CoreVertexWritable.class, SequenceFileInputFormat.class,
+					SequenceFileOutputFormat.class, null);
+			ToolRunner.run(new Configuration(), driver, opts);
+			Counters counters = driver.getCounters();
+			if(counters == null){
+				throw new IOException("Core Decomposition " + iteration + " failed");
+			}
+			Utility.getFS().delete(new Path(opts[0]), true);
+
+			long changed = counters.findCounter(COUNTER_GROUP, CHANGED).getValue();
+			log.info("[Pre-Core] Iteration " + iteration + ": " + changed + " estimates changed");
+			if(changed == 0){
+				break;
+			}
+			if(inputInfo.coreMaxIterations > 0 && iteration >= inputInfo.coreMaxIterations){
+				log.info("[Pre-Core] Stopped after enum.core.max.iterations = " + inputInfo.coreMaxIterations
+						+ ", the core numbers are upper bounds");
+				break;
+			}
+		}
+
+		opts[0] = stateDir + iteration;
+		opts[2] = outputDir;
+		opts[3] = "0";
+		conf = new Configuration();
+		conf.setInt(CAP, cap);
+		ToolRunner.run(conf, new GeneralDriver("Core Decomposition Output",
+				CoreOutputMapper.class, null, IntWritable.class, IntWritable.class,
+				SequenceFileInputFormat.class, SequenceFileOutputFormat.class, null), opts);
+		Utility.getFS().delete(new Path(opts[0]), true);
+	}
+}
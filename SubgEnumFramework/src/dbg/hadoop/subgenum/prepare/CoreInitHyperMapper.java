@@ -0,0 +1,36 @@
+package dbg.hadoop.subgenum.prepare;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+
+import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+
+/**
+ * Send every edge of the prepared graph (hypervertex pairs) to both of its end points,
+ * by vertex id
+ * @author robeen
+ *
+ */
+public class CoreInitHyperMapper extends StageMapper<LongWritable, LongWritable, IntWritable, IntWritable> {
+	private IntWritable v1 = null;
+	private IntWritable v2 = null;
+
+	@Override
+	public void map(LongWritable key, LongWritable value, Context context) throws IOException, InterruptedException{
+		v1.set(HyperVertex.VertexID(key.get()));
+		v2.set(HyperVertex.VertexID(value.get()));
+		if(v1.get() != v2.get()){
+			context.write(v1, v2);
+			context.write(v2, v1);
+		}
+	}
+
+	@Override
+	public void setup(Context context){
+		v1 = new IntWritable();
+		v2 = new IntWritable();
+	}
+}
@@ -0,0 +1,21 @@
+package dbg.hadoop.subgenum.prepare;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.mapreduce.Mapper;
+
+/**
+ * Send every edge of the undirected graph to both of its end points
+ * @author robeen
+ *
+ */
+public class CoreInitMapper extends Mapper<IntWritable, IntWritable, IntWritable, IntWritable> {
+	@Override
+	public void map(IntWritable key, IntWritable value, Context context) throws IOException, InterruptedException{
+		if(key.compareTo(value) != 0){
+			context.write(key, value);
+			context.write(value, key);
+		}
+	}
+}
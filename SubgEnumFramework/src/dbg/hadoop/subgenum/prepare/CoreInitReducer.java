@@ -0,0 +1,50 @@
+package dbg.hadoop.subgenum.prepare;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.mapreduce.Reducer;
+
+import dbg.hadoop.subgraphs.io.CoreVertexWritable;
+
+/**
+ * The initial state of a vertex: the estimate is its degree (at most CoreDecomposition.CAP),
+ * and it is sent to all the neighbors in the first iteration
+ * @author robeen
+ *
+ */
+public class CoreInitReducer extends Reducer<IntWritable, IntWritable, IntWritable, CoreVertexWritable> {
+	private TIntArrayList list = null;
+	private int cap = 0;
+
+	@Override
+	public void reduce(IntWritable _key, Iterable<IntWritable> values,
+			Context context) throws IOException, InterruptedException{
+		list.resetQuick();
+		for(IntWritable v : values){
+			list.add(v.get());
+		}
+		list.sort();
+		int size = 0;
+		for(int i = 0; i < list.size(); ++i){
+			if(i == 0 || list.getQuick(i) != list.getQuick(i - 1)){
+				list.setQuick(size++, list.getQuick(i));
+			}
+		}
+		int[] neighbors = list.toArray(0, size);
+		int[] neighborCores = new int[size];
+		// Nothing is known of the neighbors yet
+		Arrays.fill(neighborCores, Integer.MAX_VALUE);
+		int core = (cap > 0) ? Math.min(size, cap) : size;
+		context.write(_key, new CoreVertexWritable(core, true, neighbors, neighborCores));
+	}
+
+	@Override
+	public void setup(Context context){
+		list = new TIntArrayList();
+		cap = context.getConfiguration().getInt(CoreDecomposition.CAP, 0);
+	}
+}
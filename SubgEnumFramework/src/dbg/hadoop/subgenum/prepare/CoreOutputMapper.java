@@ -0,0 +1,36 @@
+package dbg.hadoop.subgenum.prepare;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.mapreduce.Mapper;
+
+import dbg.hadoop.subgraphs.io.CoreVertexWritable;
+
+/**
+ * Write the coreFile (vertex id, core number) in the format of the degreeFile,
+ * only the vertices of the CoreDecomposition.CAP-core if it is set
+ * @author robeen
+ *
+ */
+public class CoreOutputMapper
+		extends Mapper<IntWritable, CoreVertexWritable, IntWritable, IntWritable> {
+	private IntWritable core = null;
+	private int cap = 0;
+
+	@Override
+	public void map(IntWritable key, CoreVertexWritable value, Context context)
+			throws IOException, InterruptedException{
+		if(value.getCore() < cap){
+			return;
+		}
+		core.set(value.getCore());
+		context.write(key, core);
+	}
+
+	@Override
+	public void setup(Context context){
+		core = new IntWritable();
+		cap = context.getConfiguration().getInt(CoreDecomposition.CAP, 0);
+	}
+}
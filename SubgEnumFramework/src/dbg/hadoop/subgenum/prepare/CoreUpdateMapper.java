@@ -0,0 +1,46 @@
+package dbg.hadoop.subgenum.prepare;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.mapreduce.Mapper;
+
+import dbg.hadoop.subgraphs.io.CoreVertexWritable;
+
+/**
+ * Pass the state of a vertex on, and if its estimate changed, send it to the neighbors
+ * it may concern. A neighbor whose estimate is known to be at most the new estimate
+ * does not need it, since it caps the estimates of its neighbors by its own.
+ * @author robeen
+ *
+ */
+public class CoreUpdateMapper
+		extends Mapper<IntWritable, CoreVertexWritable, IntWritable, CoreVertexWritable> {
+	private IntWritable outputKey = null;
+	private CoreVertexWritable message = null;
+
+	@Override
+	public void map(IntWritable key, CoreVertexWritable value, Context context)
+			throws IOException, InterruptedException{
+		context.write(key, value);
+		if(!value.isChanged()){
+			return;
+		}
+		int core = value.getCore();
+		int[] neighbors = value.getNeighbors();
+		int[] neighborCores = value.getNeighborCores();
+		message.setMessage(key.get(), core);
+		for(int i = 0; i < neighbors.length; ++i){
+			if(core < neighborCores[i]){
+				outputKey.set(neighbors[i]);
+				context.write(outputKey, message);
+			}
+		}
+	}
+
+	@Override
+	public void setup(Context context){
+		outputKey = new IntWritable();
+		message = new CoreVertexWritable();
+	}
+}
@@ -0,0 +1,83 @@
+package dbg.hadoop.subgenum.prepare;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.mapreduce.Reducer;
+
+import dbg.hadoop.subgraphs.io.CoreVertexWritable;
+
+/**
+ * Apply the estimates the neighbors sent, and lower the estimate of the vertex to the
+ * largest k such that at least k neighbors have an estimate of at least k (the h-index
+ * of the neighbors' estimates, capped by its own). Every vertex whose estimate drops
+ * increments CoreDecomposition.CHANGED.
+ * @author robeen
+ *
+ */
+public class CoreUpdateReducer
+		extends Reducer<IntWritable, CoreVertexWritable, IntWritable, CoreVertexWritable> {
+	private TIntArrayList senders = null;
+	private TIntArrayList cores = null;
+	private int[] counts = null;
+
+	@Override
+	public void reduce(IntWritable _key, Iterable<CoreVertexWritable> values,
+			Context context) throws IOException, InterruptedException{
+		senders.resetQuick();
+		cores.resetQuick();
+		int core = -1;
+		int[] neighbors = null;
+		int[] neighborCores = null;
+		// readFields() allocates the arrays of a state, so they can be kept
+		for(CoreVertexWritable v : values){
+			if(v.isMessage()){
+				senders.add(v.getSender());
+				cores.add(v.getCore());
+			}
+			else{
+				core = v.getCore();
+				neighbors = v.getNeighbors();
+				neighborCores = v.getNeighborCores();
+			}
+		}
+		if(neighbors == null){
+			return;
+		}
+		for(int i = 0; i < senders.size(); ++i){
+			int pos = Arrays.binarySearch(neighbors, senders.getQuick(i));
+			if(pos >= 0){
+				neighborCores[pos] = Math.min(neighborCores[pos], cores.getQuick(i));
+			}
+		}
+
+		if(counts == null || counts.length < core + 1){
+			counts = new int[Math.max(core + 1, 2 * ((counts == null) ? 0 : counts.length))];
+		}
+		Arrays.fill(counts, 0, core + 1, 0);
+		for(int c : neighborCores){
+			++counts[Math.min(c, core)];
+		}
+		int h = core, atLeast = 0;
+		for(; h > 0; --h){
+			atLeast += counts[h];
+			if(atLeast >= h){
+				break;
+			}
+		}
+		boolean changed = h < core;
+		if(changed){
+			context.getCounter(CoreDecomposition.COUNTER_GROUP, CoreDecomposition.CHANGED).increment(1);
+		}
+		context.write(_key, new CoreVertexWritable(h, changed, neighbors, neighborCores));
+	}
+
+	@Override
+	public void setup(Context context){
+		senders = new TIntArrayList();
+		cores = new TIntArrayList();
+	}
+}
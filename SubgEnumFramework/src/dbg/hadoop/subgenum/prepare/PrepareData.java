@@ -11,8 +11,10 @@ import dbg.hadoop.subgenum.hypergraph.bloomfilter.DistinctTwinTwig;
 import dbg.hadoop.subgenum.hypergraph.bloomfilter.GenBloomFilter;
 import dbg.hadoop.subgenum.hypergraph.triangle.Triangle;
 import dbg.hadoop.subgenum.maximalclique.MaximalClique;
+import dbg.hadoop.subgraphs.io.CSRGraphWriter;
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.RunReport;
 import dbg.hadoop.subgraphs.utils.Utility;
 
 public class PrepareData{
@@ -22,6 +24,8 @@ public class PrepareData{
 	@SuppressWarnings("deprecation")
 	public static void main(String[] args) throws Exception{
 		inputInfo = new InputInfo(args);
+		RunReport.enable(inputInfo.isStats);
+		RunReport.reset();
 		int maxSize = inputInfo.maxSize;
 		long begin = 0, end = 0;
 		
@@ -42,6 +46,9 @@ public class PrepareData{
 		if(Utility.getFS().isDirectory(new Path(dir + Config.degreeFileDir))){
 			Utility.getFS().delete(new Path(dir + Config.degreeFileDir));
 		}
+		if(Utility.getFS().isDirectory(new Path(dir + Config.coreFileDir))){
+			Utility.getFS().delete(new Path(dir + Config.coreFileDir));
+		}
 		if(Utility.getFS().isDirectory(new Path(dir + Config.preparedFileDir + ".tmp"))){
 			Utility.getFS().delete(new Path(dir + Config.preparedFileDir + ".tmp"));
 		}
@@ -71,12 +78,20 @@ public class PrepareData{
 				numReducers, jarFile};
 		ToolRunner.run(new Configuration(), new GenDegreeDriver(), genDegreeOpts);
 		
+		// Optionally, the core numbers take the place of the degrees
+		if(inputInfo.isCoreOrder){
+			begin = System.currentTimeMillis();
+			CoreDecomposition.run(inputInfo, inputFilePath);
+			end = System.currentTimeMillis();
+			log.info("[Pre-Core] Time elapsed: " + (end - begin) / 1000 + "s");
+		}
+		
 		// Second, replace the end point of each edge with a hypervertex which
-		// encapsulate vertexid + degree
+		// encapsulate vertexid + degree (or core number)
 		// Stage One: Replace the left end point
 		// The parameters: <degreefile> <graphfile> <outputDir> <numReducers> <jarFile>
 		String s1OutputDir = dir + Config.preparedFileDir + ".tmp";
-		String[] prepareDataOpts = { dir + Config.degreeFileDir, inputFilePath,  s1OutputDir, 
+		String[] prepareDataOpts = { Utility.getOrderFileDir(dir).toString(), inputFilePath,  s1OutputDir, 
 				numReducers, jarFile};
 		ToolRunner.run(new Configuration(), new PrepareDataS1Driver(), prepareDataOpts);
 		
@@ -95,6 +110,17 @@ public class PrepareData{
 		inputInfo.maxSize = maxSize;
 		GenAdjList.run(inputInfo);
 		
+		// Keep a memory-mapped CSR copy of adjList2.0 for the frame jobs (enum.csr.input),
+		// otherwise the first query that reads it writes it (see CSRGraphWriter.ensure)
+		Utility.getFS().delete(new Path(dir + Config.csrGraphFile), true);
+		if(inputInfo.isCSRInput){
+			begin = System.currentTimeMillis();
+			CSRGraphWriter.write(Utility.getFS(), new Path(dir + Config.adjListDir + ".0"), 
+					new Path(dir + Config.csrGraphFile));
+			end = System.currentTimeMillis();
+			log.info("[Pre-CSR] Time elapsed: " + (end - begin) / 1000 + "s");
+		}
+		
 		// Generate bloom filter
 		DistinctTwinTwig.run(inputInfo);
 		inputInfo.bfType = Config.EDGE;
@@ -118,5 +144,6 @@ public class PrepareData{
 		end = System.currentTimeMillis();
 		
 		log.info("[Pre-Triangle] Time elapsed: " + (end - begin) / 1000 + "s");
+		RunReport.write(Utility.getFS(), new Path(dir + "prepare.report.json"), "prepare");
 	}
 }
\ No newline at end of file
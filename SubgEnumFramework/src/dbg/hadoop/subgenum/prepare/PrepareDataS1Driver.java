@@ -20,6 +20,7 @@ import dbg.hadoop.subgraphs.io.DoubleIntegerPairComparator;
 import dbg.hadoop.subgraphs.io.DoubleIntegerPairGroupComparator;
 import dbg.hadoop.subgraphs.io.DoubleIntegerPairPartitioner2;
 import dbg.hadoop.subgraphs.io.DoubleIntegerPairWritable;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
 
 public class PrepareDataS1Driver extends Configured implements Tool{
 
@@ -36,6 +37,7 @@ public class PrepareDataS1Driver extends Configured implements Tool{
 		//conf.set("mapred.map.output.compression.codec", "org.apache.hadoop.io.compress.DefaultCodec");
 		
 		Job job = new Job(conf, "PrepareData Stage One");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[4]);
 
 		job.setReducerClass(PrepareDataS1Reducer.class);
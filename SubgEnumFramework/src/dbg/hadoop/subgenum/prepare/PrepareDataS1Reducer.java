@@ -4,12 +4,12 @@ import java.io.IOException;
 
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Reducer;
 
 import dbg.hadoop.subgraphs.io.DoubleIntegerPairWritable;
 import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
-public class PrepareDataS1Reducer extends Reducer<DoubleIntegerPairWritable, 
+public class PrepareDataS1Reducer extends StageReducer<DoubleIntegerPairWritable, 
 	LongWritable, LongWritable, IntWritable> {
 	@Override
 	public void reduce(DoubleIntegerPairWritable _key, Iterable<LongWritable> values,
@@ -19,6 +19,7 @@ import dbg.hadoop.subgraphs.io.DoubleIntegerPairComparator;
 import dbg.hadoop.subgraphs.io.DoubleIntegerPairGroupComparator;
 import dbg.hadoop.subgraphs.io.DoubleIntegerPairPartitioner2;
 import dbg.hadoop.subgraphs.io.DoubleIntegerPairWritable;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
 
 public class PrepareDataS2Driver extends Configured implements Tool{
 
@@ -35,6 +36,7 @@ public class PrepareDataS2Driver extends Configured implements Tool{
 		//conf.set("mapred.map.output.compression.codec", "org.apache.hadoop.io.compress.DefaultCodec");
 		
 		Job job = new Job(conf, "PrepareData Stage Two");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[4]);
 
 		job.setReducerClass(PrepareDataS2Reducer.class);
@@ -3,12 +3,12 @@ package dbg.hadoop.subgenum.prepare;
 import java.io.IOException;
 
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Reducer;
 
 import dbg.hadoop.subgraphs.io.DoubleIntegerPairWritable;
 import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
-public class PrepareDataS2Reducer extends Reducer<DoubleIntegerPairWritable, 
+public class PrepareDataS2Reducer extends StageReducer<DoubleIntegerPairWritable, 
 	LongWritable, LongWritable, LongWritable> {
 	@Override
 	public void reduce(DoubleIntegerPairWritable _key, Iterable<LongWritable> values,
@@ -30,6 +30,7 @@ import org.apache.hadoop.util.ToolRunner;
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.StageMapper;
 import dbg.hadoop.subgraphs.utils.Utility;
 
 public class SampleGraph{
@@ -84,6 +85,7 @@ class SampleGraphByVertexDriver extends Configured implements Tool{
 		// The parameters: <inputfile> <outputDir> <jarFile>
 
 		Job job = new Job(conf, "SampleGraphByVertex");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[2]);
 		//JobConf job = new JobConf(getConf(), this.getClass());
 		
@@ -106,7 +108,7 @@ class SampleGraphByVertexDriver extends Configured implements Tool{
 	}
 }
 
-class SampleGraphByVertexMapper extends Mapper<LongWritable, LongWritable, IntWritable, IntWritable> {
+class SampleGraphByVertexMapper extends StageMapper<LongWritable, LongWritable, IntWritable, IntWritable> {
 	
 	private static TIntArrayList sampleVertices = null;
 	@Override
@@ -153,6 +155,7 @@ class SampleGraphByEdgeDriver extends Configured implements Tool{
 		conf.setInt("graph.sample.value", Integer.valueOf(args[3]));
 		
 		Job job = new Job(conf, "SampleGraphByEdge");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[2]);
 		//JobConf job = new JobConf(getConf(), this.getClass());
 		
@@ -175,7 +178,7 @@ class SampleGraphByEdgeDriver extends Configured implements Tool{
 	}
 }
 
-class SampleGraphByEdgeMapper extends Mapper<LongWritable, LongWritable, IntWritable, IntWritable> {
+class SampleGraphByEdgeMapper extends StageMapper<LongWritable, LongWritable, IntWritable, IntWritable> {
 	private Random rand = null;
 	private static int sampleValue = 20;;
 	@Override
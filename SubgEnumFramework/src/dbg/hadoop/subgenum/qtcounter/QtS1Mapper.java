@@ -4,7 +4,6 @@ import java.io.IOException;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.log4j.Logger;
 
 import dbg.hadoop.subgraphs.io.HyperVertexAdjList;
@@ -12,9 +11,10 @@ import dbg.hadoop.subgraphs.io.HVArraySign;
 import dbg.hadoop.subgraphs.utils.BloomFilterOpr;
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.StageMapper;
 
 public class QtS1Mapper
-		extends Mapper<LongWritable, HyperVertexAdjList, HVArraySign, LongWritable> {
+		extends StageMapper<LongWritable, HyperVertexAdjList, HVArraySign, LongWritable> {
 	
 	private static BloomFilterOpr bloomfilterOpr = null;
 	private static boolean enableBF;
@@ -5,15 +5,15 @@ import gnu.trove.list.array.TLongArrayList;
 import java.io.IOException;
 
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Reducer;
 
 import dbg.hadoop.subgraphs.io.HVArraySign;
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.utils.Config;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 
 public class QtS1Reducer
-	extends Reducer<HVArraySign, LongWritable, HVArray, HVArray> {
+	extends StageReducer<HVArraySign, LongWritable, HVArray, HVArray> {
 	
 	@Override
 	public void reduce(HVArraySign _key, Iterable<LongWritable> values,
@@ -7,15 +7,15 @@ import java.util.Collection;
 import java.util.Iterator;
 
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.mapreduce.Reducer;
 
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.utils.BronKerboschCliqueFinder;
 import dbg.hadoop.subgraphs.utils.Graph;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 
 public class QtS2Reducer
-	extends Reducer<LongWritable, HVArray, LongWritable, LongWritable> {
+	extends StageReducer<LongWritable, HVArray, LongWritable, LongWritable> {
 	
 	private static int cliqueSize = 4;
 	@Override
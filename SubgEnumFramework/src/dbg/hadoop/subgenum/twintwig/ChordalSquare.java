@@ -19,6 +19,9 @@ import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.utils.TwinTwigGenerator;
 import dbg.hadoop.subgraphs.utils.Utility;
 import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
+import dbg.hadoop.subgraphs.utils.RunReport;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.util.ToolRunner;
@@ -30,8 +33,6 @@ import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.SequenceFile.CompressionType;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapreduce.Job;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.Mapper.Context;
 import org.apache.hadoop.mapreduce.lib.input.MultipleInputs;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
@@ -105,6 +106,7 @@ class ChordalSquareStageOneDriver extends Configured implements Tool{
 		//conf.set("mapred.map.output.compression.codec", "org.apache.hadoop.io.compress.DefaultCodec");
 		
 		Job job = new Job(conf, "TwinTwig ChordalSquare Stage One");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[3]);
 		
 	    MultipleInputs.addInputPath(job, new Path(args[0]), 
@@ -127,13 +129,13 @@ class ChordalSquareStageOneDriver extends Configured implements Tool{
 		SequenceFileOutputFormat.setOutputCompressionType(job, CompressionType.BLOCK);
 		SequenceFileOutputFormat.setOutputCompressorClass(job, LzoCodec.class);
 
-		job.waitForCompletion(true);
+		RunReport.waitForCompletion(job);
 		return 0;
 	}
 }
 
 class ChordalSquareStageOneMapper extends
-		Mapper<LongWritable, HyperVertexAdjList, HVArray, LongWritable> {
+		StageMapper<LongWritable, HyperVertexAdjList, HVArray, LongWritable> {
 
 	private static BloomFilterOpr bloomfilterOpr = null;
 	private static boolean enableBF;
@@ -229,7 +231,7 @@ class ChordalSquareStageOneMapper extends
 }
 
 class ChordalSquareStageOneReducer
-	extends Reducer<HVArray, LongWritable, HVArray, HVArray> {
+	extends StageReducer<HVArray, LongWritable, HVArray, HVArray> {
 	
 	private static TLongArrayList ttList = null;
 	
@@ -276,6 +278,7 @@ class ChordalSquareStageTwoDriver extends Configured implements Tool{
 		//conf.set("mapred.map.output.compression.codec", "org.apache.hadoop.io.compress.DefaultCodec");
 		
 		Job job = new Job(conf, "TwinTwig ChordalSquare Stage Two");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[4]);
 		
 	    MultipleInputs.addInputPath(job, new Path(args[0]), 
@@ -310,13 +313,13 @@ class ChordalSquareStageTwoDriver extends Configured implements Tool{
 		SequenceFileOutputFormat.setOutputCompressionType(job, CompressionType.BLOCK);
 		SequenceFileOutputFormat.setOutputCompressorClass(job, LzoCodec.class);
 
-		job.waitForCompletion(true);
+		RunReport.waitForCompletion(job);
 		return 0;
 	}
 }
 
 class ChordalSquareStageTwoMapper extends
-		Mapper<HVArray, HVArray, HVArraySign, HVArray> {
+		StageMapper<HVArray, HVArray, HVArraySign, HVArray> {
 	@Override
 	public void map(HVArray key, HVArray value, Context context)
 			throws IOException, InterruptedException {
@@ -325,7 +328,7 @@ class ChordalSquareStageTwoMapper extends
 }
 
 class ChordalSquareEdgeMapper extends
-		Mapper<LongWritable, LongWritable, HVArraySign, HVArray> {
+		StageMapper<LongWritable, LongWritable, HVArraySign, HVArray> {
 	@Override
 	public void map(LongWritable key, LongWritable value, Context context)
 			throws IOException, InterruptedException {
@@ -334,7 +337,7 @@ class ChordalSquareEdgeMapper extends
 }
 
 class ChordalSquareStageTwoReducer extends
-		Reducer<HVArraySign, HVArray, NullWritable, HVArray> {
+		StageReducer<HVArraySign, HVArray, NullWritable, HVArray> {
 	public void reduce(HVArraySign _key, Iterable<HVArray> values,
 			Context context) throws IOException, InterruptedException {
 		if(_key.sign != Config.SMALLSIGN){
@@ -352,7 +355,7 @@ class ChordalSquareStageTwoReducer extends
 }
 
 class ChordalSquareStageTwoCountReducer extends
-		Reducer<HVArraySign, HVArray, NullWritable, LongWritable> {
+		StageReducer<HVArraySign, HVArray, NullWritable, LongWritable> {
 	public void reduce(HVArraySign _key, Iterable<HVArray> values,
 			Context context) throws IOException, InterruptedException {
 		if (_key.sign != Config.SMALLSIGN) {
@@ -16,8 +16,6 @@ import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.SequenceFile.CompressionType;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapreduce.Job;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.Mapper.Context;
 import org.apache.hadoop.mapreduce.lib.input.MultipleInputs;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
@@ -39,6 +37,9 @@ import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.utils.TwinTwigGenerator;
 import dbg.hadoop.subgraphs.utils.Utility;
 import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
+import dbg.hadoop.subgraphs.utils.RunReport;
 
 public class FiveClique{
 	
@@ -123,6 +124,7 @@ class FiveCliqueStageThreeDriver extends Configured implements Tool{
 		conf.set("mapreduce.map.output.compress.codec", "com.hadoop.compression.lzo.LzoCodec");
 		
 		Job job = new Job(conf, "TwinTwig FiveClique Stage three");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[4]);
 		//JobConf job = new JobConf(getConf(), this.getClass());
 		
@@ -153,13 +155,13 @@ class FiveCliqueStageThreeDriver extends Configured implements Tool{
 		SequenceFileOutputFormat.setOutputCompressionType(job, CompressionType.BLOCK);
 		SequenceFileOutputFormat.setOutputCompressorClass(job, LzoCodec.class);
 
-		job.waitForCompletion(true);
+		RunReport.waitForCompletion(job);
 		return 0;
 	}
 }
 
 class FiveCliqueTwinTwigMapper extends
-		Mapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
+		StageMapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
 
 	private static BloomFilterOpr bloomfilterOpr = null;
 	private static boolean enableBF;
@@ -200,7 +202,7 @@ class FiveCliqueTwinTwigMapper extends
 }
 
 class FiveCliqueStageThreeMapper extends
-		Mapper<NullWritable, HVArray, HVArraySign, HVArray> {
+		StageMapper<NullWritable, HVArray, HVArraySign, HVArray> {
 	
 	@Override
 	public void map(NullWritable key, HVArray value, Context context)
@@ -211,7 +213,7 @@ class FiveCliqueStageThreeMapper extends
 }
 
 class FiveCliqueStageThreeReducer extends
-		Reducer<HVArraySign, HVArray, NullWritable, HVArray> {
+		StageReducer<HVArraySign, HVArray, NullWritable, HVArray> {
 	private static TLongArrayList ttOneList = null;
 	private static BloomFilterOpr bloomfilterOpr = null;
 	private static boolean enableBF;
@@ -285,6 +287,7 @@ class FiveCliqueStageFourDriver extends Configured implements Tool{
 		conf.set("mapreduce.map.output.compress.codec", "com.hadoop.compression.lzo.LzoCodec");
 		
 		Job job = new Job(conf, "TwinTwig FiveClique Stage Four");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[4]);
 		//JobConf job = new JobConf(getConf(), this.getClass());
 		boolean isCountOnly = conf.getBoolean("count.only", false);
@@ -322,13 +325,13 @@ class FiveCliqueStageFourDriver extends Configured implements Tool{
 		SequenceFileOutputFormat.setOutputCompressionType(job, CompressionType.BLOCK);
 		SequenceFileOutputFormat.setOutputCompressorClass(job, LzoCodec.class);
 
-		job.waitForCompletion(true);
+		RunReport.waitForCompletion(job);
 		return 0;
 	}
 }
 
 class FiveCliqueStageFourMapper extends
-		Mapper<NullWritable, HVArray, HVArraySign, HVArray> {
+		StageMapper<NullWritable, HVArray, HVArraySign, HVArray> {
 	@Override
 	public void map(NullWritable key, HVArray value, Context context)
 			throws IOException, InterruptedException {
@@ -338,7 +341,7 @@ class FiveCliqueStageFourMapper extends
 }
 
 class FiveCliqueStageFourReducer extends
-		Reducer<HVArraySign, HVArray, NullWritable, HVArray> {
+		StageReducer<HVArraySign, HVArray, NullWritable, HVArray> {
 	
 	@Override
 	public void reduce(HVArraySign _key, Iterable<HVArray> values,
@@ -363,7 +366,7 @@ class FiveCliqueStageFourReducer extends
 }
 
 class FiveCliqueStageFourCountReducer extends
-		Reducer<HVArraySign, HVArray, NullWritable, LongWritable> {
+		StageReducer<HVArraySign, HVArray, NullWritable, LongWritable> {
 
 	@Override
 	public void reduce(HVArraySign _key, Iterable<HVArray> values,
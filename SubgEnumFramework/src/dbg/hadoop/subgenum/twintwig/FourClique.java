@@ -16,8 +16,6 @@ import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.SequenceFile.CompressionType;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapreduce.Job;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.MultipleInputs;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
@@ -38,6 +36,9 @@ import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.utils.TwinTwigGenerator;
 import dbg.hadoop.subgraphs.utils.Utility;
 import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
+import dbg.hadoop.subgraphs.utils.RunReport;
 
 public class FourClique{
 	
@@ -109,6 +110,7 @@ class FourCliqueStageOneDriver extends Configured implements Tool{
 		conf.set("mapreduce.map.output.compress.codec", "com.hadoop.compression.lzo.LzoCodec");
 		
 		Job job = new Job(conf, "TwinTwig FourClique Stage One");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[3]);
 		//JobConf job = new JobConf(getConf(), this.getClass());
 		
@@ -134,13 +136,13 @@ class FourCliqueStageOneDriver extends Configured implements Tool{
 		SequenceFileOutputFormat.setOutputCompressionType(job, CompressionType.BLOCK);
 		SequenceFileOutputFormat.setOutputCompressorClass(job, LzoCodec.class);
 
-		job.waitForCompletion(true);
+		RunReport.waitForCompletion(job);
 		return 0;
 	}
 }
 
 class FourCliqueStageOneMapper extends
-		Mapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
+		StageMapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
 
 	private static BloomFilterOpr bloomfilterOpr = null;
 	private static boolean enableBF;
@@ -206,7 +208,7 @@ class FourCliqueStageOneMapper extends
  *
  */
 class FourCliqueStageOneReducer
-	extends Reducer<HVArraySign, HVArray, NullWritable, HVArray> {
+	extends StageReducer<HVArraySign, HVArray, NullWritable, HVArray> {
 	
 	private TLongArrayList list = null;
 	private static boolean enableBF;
@@ -298,6 +300,7 @@ class FourCliqueStageTwoDriver extends Configured implements Tool{
 		conf.set("mapreduce.map.output.compress.codec", "com.hadoop.compression.lzo.LzoCodec");
 		
 		Job job = new Job(conf, "TwinTwig FourClique Stage Two");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[4]);
 		//JobConf job = new JobConf(getConf(), this.getClass());
 		
@@ -338,13 +341,13 @@ class FourCliqueStageTwoDriver extends Configured implements Tool{
 								(job, CompressionType.BLOCK);
 		SequenceFileOutputFormat.setOutputCompressorClass(job, LzoCodec.class);
 
-		job.waitForCompletion(true);
+		RunReport.waitForCompletion(job);
 		return 0;
 	}
 }
 
 class FourCliqueStageTwoMapper1 extends
-		Mapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
+		StageMapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
 
 	private static BloomFilterOpr bloomfilterOpr = null;
 	private static boolean enableBF;
@@ -394,7 +397,7 @@ class FourCliqueStageTwoMapper1 extends
 }
 
 class FourCliqueStageTwoMapper2 extends
-		Mapper<NullWritable, HVArray, HVArraySign, HVArray> {
+		StageMapper<NullWritable, HVArray, HVArraySign, HVArray> {
 
 	// The hypervertex set
 	@Override
@@ -418,7 +421,7 @@ class FourCliqueStageTwoMapper2 extends
  *
  */
 class FourCliqueStageTwoReducer
-	extends Reducer<HVArraySign, HVArray, NullWritable, HVArray> {
+	extends StageReducer<HVArraySign, HVArray, NullWritable, HVArray> {
 	
 	public void reduce(HVArraySign _key, Iterable<HVArray> values,
 			Context context) throws IOException, InterruptedException {	
@@ -443,7 +446,7 @@ class FourCliqueStageTwoReducer
 
 
 class FourCliqueStageTwoCountReducer extends
-		Reducer<HVArraySign, HVArray, NullWritable, LongWritable> {
+		StageReducer<HVArraySign, HVArray, NullWritable, LongWritable> {
 
 	public void reduce(HVArraySign _key, Iterable<HVArray> values,
 			Context context) throws IOException, InterruptedException {
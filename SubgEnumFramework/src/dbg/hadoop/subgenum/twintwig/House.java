@@ -19,6 +19,9 @@ import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.utils.TwinTwigGenerator;
 import dbg.hadoop.subgraphs.utils.Utility;
 import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
+import dbg.hadoop.subgraphs.utils.RunReport;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.util.ToolRunner;
@@ -30,8 +33,6 @@ import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.SequenceFile.CompressionType;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapreduce.Job;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.Mapper.Context;
 import org.apache.hadoop.mapreduce.lib.input.MultipleInputs;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
@@ -111,6 +112,7 @@ class HouseStageTwoDriver extends Configured implements Tool{
 		conf.set("mapreduce.map.output.compress.codec", "com.hadoop.compression.lzo.LzoCodec");
 		
 		Job job = new Job(conf, "TwinTwig House Stage Two");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[4]);
 		//JobConf job = new JobConf(getConf(), this.getClass());
 		boolean isCountOnly = conf.getBoolean("count.only", false);
@@ -149,13 +151,13 @@ class HouseStageTwoDriver extends Configured implements Tool{
 		SequenceFileOutputFormat.setOutputCompressionType(job, CompressionType.BLOCK);
 		SequenceFileOutputFormat.setOutputCompressorClass(job, LzoCodec.class);
 
-		job.waitForCompletion(true);
+		RunReport.waitForCompletion(job);
 		return 0;
 	}
 }
 
 class HouseTwinTwigMapper extends
-		Mapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
+		StageMapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
 
 	private static BloomFilterOpr bloomfilterOpr = null;
 	private static boolean enableBF;
@@ -195,7 +197,7 @@ class HouseTwinTwigMapper extends
 }
 
 class HouseStageTwoMapper extends
-		Mapper<NullWritable, HVArray, HVArraySign, HVArray> {
+		StageMapper<NullWritable, HVArray, HVArraySign, HVArray> {
 	@Override
 	public void map(NullWritable key, HVArray value, Context context)
 			throws IOException, InterruptedException {
@@ -220,7 +222,7 @@ class HouseStageTwoMapper extends
 }
 
 class HouseStageTwoReducer extends
-		Reducer<HVArraySign, HVArray, NullWritable, HVArray> {
+		StageReducer<HVArraySign, HVArray, NullWritable, HVArray> {
 	private static TLongArrayList ttList = null;
 	
 	@Override
@@ -261,7 +263,7 @@ class HouseStageTwoReducer extends
 }
 
 class HouseStageTwoCountReducer extends
-		Reducer<HVArraySign, HVArray, NullWritable, LongWritable> {
+		StageReducer<HVArraySign, HVArray, NullWritable, LongWritable> {
 	private static TLongArrayList ttList = null;
 
 	@Override
@@ -1,11 +1,14 @@
 package dbg.hadoop.subgenum.twintwig;
 
+import org.apache.hadoop.fs.Path;
 import org.apache.log4j.Logger;
 
 import dbg.hadoop.subgenum.hypergraph.triangle.Triangle;
 import dbg.hadoop.subgenum.star.Clique;
 import dbg.hadoop.subgenum.star.CliqueB;
 import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.RunReport;
+import dbg.hadoop.subgraphs.utils.Utility;
 
 public class MainEntry{
 	private static InputInfo inputInfo = null;
@@ -16,6 +19,8 @@ public class MainEntry{
 		String query = inputInfo.query.toLowerCase();
 		long startTime = 0;
 		long endTime = 0;
+		RunReport.enable(inputInfo.isStats);
+		RunReport.reset();
 		
 		if(query.compareTo("triangle") == 0 || query.compareTo("q1") == 0){
 			log.info("TwinTwig: Start enumerating square...");
@@ -110,5 +115,6 @@ public class MainEntry{
 					"twintriangle, near5clique;");
 			System.exit(0);
 		}
+		RunReport.write(Utility.getFS(), new Path(inputInfo.workDir + "twintwig." + query + ".report.json"), query);
 	}
 }
\ No newline at end of file
@@ -12,8 +12,6 @@ import org.apache.hadoop.filecache.DistributedCache;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.Mapper.Context;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
@@ -31,6 +29,8 @@ import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.utils.InputInfo;
 import dbg.hadoop.subgraphs.utils.TwinTwigGenerator;
 import dbg.hadoop.subgraphs.utils.Utility;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 @SuppressWarnings("deprecation")
 public class Near5Clique{
@@ -121,7 +121,7 @@ public class Near5Clique{
 }
 
 class Near5CliqueMapper1 extends 
-	Mapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
+	StageMapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
 	
 	private static BloomFilterOpr bloomfilterOpr = null;
 	private static boolean enableBF;
@@ -162,7 +162,7 @@ class Near5CliqueMapper1 extends
 }
 
 class Near5CliqueMapper2 extends 
-	Mapper<NullWritable, HVArray, HVArraySign, HVArray> {
+	StageMapper<NullWritable, HVArray, HVArraySign, HVArray> {
 	
 	@Override
 	public void map(NullWritable _key, HVArray _value, Context context) 
@@ -184,7 +184,7 @@ class Near5CliqueMapper2 extends
 }
 
 class Near5CliqueReducer extends
-	Reducer<HVArraySign, HVArray, NullWritable, HVArray> {
+	StageReducer<HVArraySign, HVArray, NullWritable, HVArray> {
 	
 	private static TLongArrayList ttList = null;
 	
@@ -228,7 +228,7 @@ class Near5CliqueReducer extends
 }
 
 class Near5CliqueCountReducer extends
-	Reducer<HVArraySign, HVArray, NullWritable, LongWritable> {
+	StageReducer<HVArraySign, HVArray, NullWritable, LongWritable> {
 	
 	private static TLongArrayList ttList = null;
 	
@@ -16,8 +16,6 @@ import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.SequenceFile.CompressionType;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapreduce.Job;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.Mapper.Context;
 import org.apache.hadoop.mapreduce.lib.input.MultipleInputs;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
@@ -39,6 +37,9 @@ import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.utils.TwinTwigGenerator;
 import dbg.hadoop.subgraphs.utils.Utility;
 import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
+import dbg.hadoop.subgraphs.utils.RunReport;
 
 public class SixClique{
 	
@@ -150,6 +151,7 @@ class SixCliqueStageFiveDriver extends Configured implements Tool{
 		conf.set("mapreduce.map.output.compress.codec", "com.hadoop.compression.lzo.LzoCodec");
 		
 		Job job = new Job(conf, "TwinTwig SixClique Stage Five");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[4]);
 		//JobConf job = new JobConf(getConf(), this.getClass());
 		
@@ -180,13 +182,13 @@ class SixCliqueStageFiveDriver extends Configured implements Tool{
 		SequenceFileOutputFormat.setOutputCompressionType(job, CompressionType.BLOCK);
 		SequenceFileOutputFormat.setOutputCompressorClass(job, LzoCodec.class);
 
-		job.waitForCompletion(true);
+		RunReport.waitForCompletion(job);
 		return 0;
 	}
 }
 
 class SixCliqueTwinTwigMapper extends
-		Mapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
+		StageMapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
 
 	private static BloomFilterOpr bloomfilterOpr = null;
 	private static boolean enableBF;
@@ -227,7 +229,7 @@ class SixCliqueTwinTwigMapper extends
 }
 
 class SixCliqueStageFiveMapper extends
-		Mapper<NullWritable, HVArray, HVArraySign, HVArray> {
+		StageMapper<NullWritable, HVArray, HVArraySign, HVArray> {
 	
 	@Override
 	public void map(NullWritable key, HVArray value, Context context)
@@ -238,7 +240,7 @@ class SixCliqueStageFiveMapper extends
 }
 
 class SixCliqueStageFiveReducer extends
-		Reducer<HVArraySign, HVArray, NullWritable, HVArray> {
+		StageReducer<HVArraySign, HVArray, NullWritable, HVArray> {
 	private static TLongArrayList ttOneList = null;
 	private static BloomFilterOpr bloomfilterOpr = null;
 	private static boolean enableBF;
@@ -315,6 +317,7 @@ class SixCliqueStageSixDriver extends Configured implements Tool{
 		conf.set("mapreduce.map.output.compress.codec", "com.hadoop.compression.lzo.LzoCodec");
 		
 		Job job = new Job(conf, "TwinTwig SixClique Stage Six");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[4]);
 		//JobConf job = new JobConf(getConf(), this.getClass());
 
@@ -346,13 +349,13 @@ class SixCliqueStageSixDriver extends Configured implements Tool{
 		SequenceFileOutputFormat.setOutputCompressionType(job, CompressionType.BLOCK);
 		SequenceFileOutputFormat.setOutputCompressorClass(job, LzoCodec.class);
 
-		job.waitForCompletion(true);
+		RunReport.waitForCompletion(job);
 		return 0;
 	}
 }
 
 class SixCliqueStageSixMapper extends
-		Mapper<NullWritable, HVArray, HVArraySign, HVArray> {
+		StageMapper<NullWritable, HVArray, HVArraySign, HVArray> {
 	@Override
 	public void map(NullWritable key, HVArray value, Context context)
 			throws IOException, InterruptedException {
@@ -362,7 +365,7 @@ class SixCliqueStageSixMapper extends
 }
 
 class SixCliqueStageSixReducer extends
-		Reducer<HVArraySign, HVArray, NullWritable, HVArray> {
+		StageReducer<HVArraySign, HVArray, NullWritable, HVArray> {
 	
 	@Override
 	public void reduce(HVArraySign _key, Iterable<HVArray> values,
@@ -398,6 +401,7 @@ class SixCliqueStageSevenDriver extends Configured implements Tool{
 		conf.set("mapreduce.map.output.compress.codec", "com.hadoop.compression.lzo.LzoCodec");
 		
 		Job job = new Job(conf, "TwinTwig SixClique Stage seven");
+		HyperVertex.storeMode(job.getConfiguration());
 		((JobConf)job.getConfiguration()).setJar(args[4]);
 		//JobConf job = new JobConf(getConf(), this.getClass());
 		boolean isCountOnly = conf.getBoolean("count.only", false);
@@ -435,13 +439,13 @@ class SixCliqueStageSevenDriver extends Configured implements Tool{
 		SequenceFileOutputFormat.setOutputCompressionType(job, CompressionType.BLOCK);
 		SequenceFileOutputFormat.setOutputCompressorClass(job, LzoCodec.class);
 
-		job.waitForCompletion(true);
+		RunReport.waitForCompletion(job);
 		return 0;
 	}
 }
 
 class SixCliqueEdgeMapper extends
-		Mapper<LongWritable, LongWritable, HVArraySign, HVArray> {
+		StageMapper<LongWritable, LongWritable, HVArraySign, HVArray> {
 	@Override
 	public void map(LongWritable key, LongWritable value, Context context)
 			throws IOException, InterruptedException {
@@ -453,7 +457,7 @@ class SixCliqueEdgeMapper extends
 
 
 class SixCliqueStageSevenMapper extends
-		Mapper<NullWritable, HVArray, HVArraySign, HVArray> {
+		StageMapper<NullWritable, HVArray, HVArraySign, HVArray> {
 	@Override
 	public void map(NullWritable key, HVArray value, Context context)
 			throws IOException, InterruptedException {
@@ -464,7 +468,7 @@ class SixCliqueStageSevenMapper extends
 }
 
 class SixCliqueStageSevenReducer extends
-		Reducer<HVArraySign, HVArray, NullWritable, HVArray> {
+		StageReducer<HVArraySign, HVArray, NullWritable, HVArray> {
 
 	@Override
 	public void reduce(HVArraySign _key, Iterable<HVArray> values,
@@ -489,7 +493,7 @@ class SixCliqueStageSevenReducer extends
 }
 
 class SixCliqueCountReducer extends
-		Reducer<HVArraySign, HVArray, NullWritable, LongWritable> {
+		StageReducer<HVArraySign, HVArray, NullWritable, LongWritable> {
 
 	@Override
 	public void reduce(HVArraySign _key, Iterable<HVArray> values,
@@ -18,6 +18,8 @@ import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.utils.TwinTwigGenerator;
 import dbg.hadoop.subgraphs.utils.Utility;
 import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.util.ToolRunner;
@@ -25,8 +27,6 @@ import org.apache.hadoop.filecache.DistributedCache;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
 
@@ -140,7 +140,7 @@ public class SolarSquare{
 }
 
 class SolarSquareStageTwoMapper1 extends
-	Mapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
+	StageMapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
 	
 	private TwinTwigGenerator ttwigGen = null;
 	private static boolean enableBF = true;
@@ -189,7 +189,7 @@ class SolarSquareStageTwoMapper1 extends
 }
 
 class SolarSquareStageTwoMapper2 extends
-		Mapper<NullWritable, HVArray, HVArraySign, HVArray> {
+		StageMapper<NullWritable, HVArray, HVArraySign, HVArray> {
 	
 	@Override
 	public void map(NullWritable _key, HVArray _value, Context context) 
@@ -200,7 +200,7 @@ class SolarSquareStageTwoMapper2 extends
 }
 
 class SolarSquareStageTwoReducer extends
-	Reducer<HVArraySign, HVArray, NullWritable, HVArray> {
+	StageReducer<HVArraySign, HVArray, NullWritable, HVArray> {
 	
 	private static TLongArrayList list = null;
 	private static boolean enableBF = true;
@@ -293,7 +293,7 @@ class SolarSquareStageTwoReducer extends
 }
 
 class SolarSquareStageThreeMapper1 extends
-		Mapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
+		StageMapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
 
 	private static boolean enableBF = true;
 	private static BloomFilterOpr bloomfilterOpr = null;
@@ -402,7 +402,7 @@ class SolarSquareStageThreeMapper1 extends
 }
 
 class SolarSquareStageThreeMapper2 extends
-		Mapper<NullWritable, HVArray, HVArraySign, HVArray> {
+		StageMapper<NullWritable, HVArray, HVArraySign, HVArray> {
 
 	@Override
 	public void map(NullWritable _key, HVArray _value, Context context)
@@ -413,7 +413,7 @@ class SolarSquareStageThreeMapper2 extends
 }
 
 class SolarSquareStageThreeReducer extends
-		Reducer<HVArraySign, HVArray, NullWritable, HVArray> {
+		StageReducer<HVArraySign, HVArray, NullWritable, HVArray> {
 	@Override
 	public void reduce(HVArraySign _key, Iterable<HVArray> values, Context context) 
 			throws IOException, InterruptedException{
@@ -439,7 +439,7 @@ class SolarSquareStageThreeReducer extends
 }
 
 class SolarSquareStageThreeCountReducer extends
-		Reducer<HVArraySign, HVArray, NullWritable, LongWritable> {
+		StageReducer<HVArraySign, HVArray, NullWritable, LongWritable> {
 	@Override
 	public void reduce(HVArraySign _key, Iterable<HVArray> values,
 			Context context) throws IOException, InterruptedException {
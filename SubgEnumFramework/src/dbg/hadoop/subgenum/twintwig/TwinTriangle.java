@@ -17,6 +17,8 @@ import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.utils.Utility;
 import dbg.hadoop.subgraphs.utils.InputInfo;
+import dbg.hadoop.subgraphs.utils.StageMapper;
+import dbg.hadoop.subgraphs.utils.StageReducer;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.util.ToolRunner;
@@ -24,8 +26,6 @@ import org.apache.hadoop.filecache.DistributedCache;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
 
@@ -111,7 +111,7 @@ public class TwinTriangle {
 }
 
 class TwinTriangleStageOneMapper extends
-		Mapper<LongWritable, HyperVertexAdjList, HVArraySign, LongWritable> {
+		StageMapper<LongWritable, HyperVertexAdjList, HVArraySign, LongWritable> {
 
 	private static boolean enableBF = true;
 	private static BloomFilterOpr bloomfilterOpr = null;
@@ -219,7 +219,7 @@ class TwinTriangleStageOneMapper extends
 }
 
 class TwinTriangleStageOneReducer extends
-		Reducer<HVArraySign, LongWritable, NullWritable, HVArray> {
+		StageReducer<HVArraySign, LongWritable, NullWritable, HVArray> {
 
 	private static TLongArrayList list = null;
 
@@ -264,7 +264,7 @@ class TwinTriangleStageOneReducer extends
 }
 
 class TwinTriangleStageTwoMapper1 extends
-	Mapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
+	StageMapper<LongWritable, HyperVertexAdjList, HVArraySign, HVArray> {
 
 	private static boolean enableBF = true;
 	private static BloomFilterOpr bloomfilterOpr = null;
@@ -337,7 +337,7 @@ class TwinTriangleStageTwoMapper1 extends
 }
 
 class TwinTriangleStageTwoMapper2 extends
-		Mapper<NullWritable, HVArray, HVArraySign, HVArray> {
+		StageMapper<NullWritable, HVArray, HVArraySign, HVArray> {
 
 	@Override
 	public void map(NullWritable _key, HVArray _value, Context context)
@@ -351,7 +351,7 @@ class TwinTriangleStageTwoMapper2 extends
 
 
 class TwinTriangleStageTwoReducer extends
-		Reducer<HVArraySign, HVArray, NullWritable, HVArray> {
+		StageReducer<HVArraySign, HVArray, NullWritable, HVArray> {
 	
 	private static TLongArrayList list = null;
 	
@@ -397,7 +397,7 @@ class TwinTriangleStageTwoReducer extends
 }
 
 class TwinTriangleStageTwoCountReducer extends
-		Reducer<HVArraySign, HVArray, NullWritable, LongWritable> {
+		StageReducer<HVArraySign, HVArray, NullWritable, LongWritable> {
 
 	private static TLongArrayList list = null;
 
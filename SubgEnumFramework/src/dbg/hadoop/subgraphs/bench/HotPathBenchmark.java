@@ -0,0 +1,538 @@
+package dbg.hadoop.subgraphs.bench;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.map.WrappedMapper;
+import org.apache.hadoop.mapreduce.task.MapContextImpl;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import dbg.hadoop.subgraphs.io.HVArray;
+import dbg.hadoop.subgraphs.io.HVArrayComparator;
+import dbg.hadoop.subgraphs.io.HVArraySign;
+import dbg.hadoop.subgraphs.utils.CliqueEncoder;
+import dbg.hadoop.subgraphs.utils.CliqueIterator;
+import dbg.hadoop.subgraphs.utils.Config;
+import dbg.hadoop.subgraphs.utils.Graph;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.Intersection;
+import dbg.hadoop.subgraphs.utils.TwinTwigGenerator;
+import dbg.hadoop.subgraphs.utils.Utility;
+import dbg.hadoop.subgraphs.utils.bloomfilter.utils.BloomFilter;
+import dbg.hadoop.subgraphs.utils.bloomfilter.utils.FilterFactory;
+
+/**
+ * Micro benchmarks of the reducer inner loops, on a seeded power-law graph (PowerLawGraph). <br>
+ * Every benchmark runs a number of warmup iterations and then the measured iterations,
+ * each for a fixed time; the score is the average time per operation and its standard deviation,
+ * along with the bytes allocated per operation (where the JVM can tell). <br>
+ * Usage: java dbg.hadoop.subgraphs.bench.HotPathBenchmark [n=] [degree=] [gamma=] [seed=]
+ * [warmup=] [iterations=] [time=(ms)] [bench=(substring of the names to run)]
+ */
+public class HotPathBenchmark {
+	// Results are accumulated here so the JIT can not drop the work
+	public static volatile long sink = 0L;
+
+	private static int numVertices = 100000;
+	private static double avgDegree = 20.0;
+	private static double gamma = 2.5;
+	private static long seed = 1L;
+	private static int warmup = 3;
+	private static int iterations = 5;
+	private static long iterationTime = 1000L;
+	private static String filter = "";
+
+	/**
+	 * One benchmark: op() is one operation, called repeatedly
+	 */
+	static abstract class Benchmark {
+		final String name;
+
+		Benchmark(String _name){
+			this.name = _name;
+		}
+
+		abstract long op() throws Exception;
+	}
+
+	public static void main(String[] args) throws Exception{
+		for(int i = 0; i < args.length; ++i){
+			if(args[i].startsWith("n=")){
+				numVertices = Integer.parseInt(args[i].split("=")[1]);
+			}
+			else if(args[i].startsWith("degree=")){
+				avgDegree = Double.parseDouble(args[i].split("=")[1]);
+			}
+			else if(args[i].startsWith("gamma=")){
+				gamma = Double.parseDouble(args[i].split("=")[1]);
+			}
+			else if(args[i].startsWith("seed=")){
+				seed = Long.parseLong(args[i].split("=")[1]);
+			}
+			else if(args[i].startsWith("warmup=")){
+				warmup = Integer.parseInt(args[i].split("=")[1]);
+			}
+			else if(args[i].startsWith("iterations=")){
+				iterations = Integer.parseInt(args[i].split("=")[1]);
+			}
+			else if(args[i].startsWith("time=")){
+				iterationTime = Long.parseLong(args[i].split("=")[1]);
+			}
+			else if(args[i].startsWith("bench=")){
+				filter = args[i].split("=")[1];
+			}
+		}
+		long begin = System.currentTimeMillis();
+		PowerLawGraph graph = new PowerLawGraph(numVertices, avgDegree, gamma, seed);
+		System.out.println("Power-law graph: n = " + numVertices + ", degree = " + avgDegree
+				+ ", gamma = " + gamma + ", seed = " + seed + ", max degree = "
+				+ graph.getNeighbors(graph.byDegree()[0]).length + " ("
+				+ (System.currentTimeMillis() - begin) + " ms)");
+
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		addGraphBenchmarks(benchmarks, graph);
+		addIntersectionBenchmarks(benchmarks, graph);
+		addHVArrayBenchmarks(benchmarks, graph);
+		addBloomFilterBenchmarks(benchmarks, graph, false, false);
+		addBloomFilterBenchmarks(benchmarks, graph, true, false);
+		addBloomFilterBenchmarks(benchmarks, graph, false, true);
+		addBloomFilterBenchmarks(benchmarks, graph, true, true);
+		addTwinTwigBenchmarks(benchmarks, graph);
+		addWritableBenchmarks(benchmarks, graph);
+
+		System.out.println(String.format("%-40s %15s %12s %12s", "Benchmark", "ns/op", "error", "B/op"));
+		for(Benchmark b : benchmarks){
+			if(b.name.contains(filter)){
+				run(b);
+			}
+		}
+	}
+
+	private static void run(Benchmark b) throws Exception{
+		for(int i = 0; i < warmup; ++i){
+			iteration(b);
+		}
+		double[] scores = new double[iterations];
+		double mean = 0.0, bytes = 0.0;
+		for(int i = 0; i < iterations; ++i){
+			double[] res = iteration(b);
+			scores[i] = res[0];
+			mean += scores[i];
+			bytes += res[1];
+		}
+		mean /= iterations;
+		bytes /= iterations;
+		double var = 0.0;
+		for(double s : scores){
+			var += (s - mean) * (s - mean);
+		}
+		double error = (iterations > 1) ? Math.sqrt(var / (iterations - 1)) : 0.0;
+		System.out.println(String.format("%-40s %15.1f %12.1f %12s", b.name, mean, error,
+				(bytes < 0) ? "n/a" : String.format("%.1f", bytes)));
+	}
+
+	/**
+	 * @return ns/op and allocated bytes/op (negative if unknown) of one iteration
+	 */
+	private static double[] iteration(Benchmark b) throws Exception{
+		long ops = 0L, res = 0L;
+		long allocated = allocatedBytes();
+		long begin = System.nanoTime();
+		long deadline = begin + iterationTime * 1000000L;
+		long now = begin;
+		while(now < deadline){
+			// Check the clock every 16 ops only
+			for(int i = 0; i < 16; ++i){
+				res += b.op();
+			}
+			ops += 16;
+			now = System.nanoTime();
+		}
+		sink += res;
+		double bytes = (allocated < 0) ? -1.0 : (double) (allocatedBytes() - allocated) / ops;
+		return new double[]{ (double) (now - begin) / ops, bytes };
+	}
+
+	/**
+	 * @return The bytes allocated by the current thread so far, -1 if the JVM does not tell
+	 */
+	private static long allocatedBytes(){
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(bean instanceof com.sun.management.ThreadMXBean){
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(
+					Thread.currentThread().getId());
+		}
+		return -1L;
+	}
+
+	/**
+	 * Cliques in the neighborhoods of the top-degree vertices, as the clique reducers do
+	 */
+	private static void addGraphBenchmarks(List<Benchmark> benchmarks, PowerLawGraph graph){
+		int[] top = graph.byDegree();
+		final int num = Math.min(16, top.length);
+		final Graph[] graphs = new Graph[num];
+		final long[] keys = new long[num];
+		for(int i = 0; i < num; ++i){
+			graphs[i] = graph.getLargerNeighborhood(top[i]);
+			keys[i] = graph.getVertex(top[i]);
+		}
+		benchmarks.add(new Benchmark("Graph.enumClique(4)"){
+			int i = 0;
+			long op(){
+				i = (i + 1) % num;
+				long[] res = graphs[i].enumClique(3, keys[i], false);
+				return (res == null) ? 0 : res.length;
+			}
+		});
+		final long[][] encoded = new long[num][];
+		for(int i = 0; i < num; ++i){
+			encoded[i] = graphs[i].enumClique(3, keys[i], false);
+		}
+		benchmarks.add(new Benchmark("CliqueIterator(4)"){
+			int i = 0;
+			CliqueIterator it = new CliqueIterator();
+			long op(){
+				i = (i + 1) % num;
+				long res = 0L;
+				it.reset(encoded[i]);
+				while(it.next()){
+					res += it.current()[3];
+				}
+				return res;
+			}
+		});
+		benchmarks.add(new Benchmark("Graph.countCliquesOfSize(4)"){
+			int i = 0;
+			@SuppressWarnings("deprecation")
+			long op(){
+				i = (i + 1) % num;
+				return graphs[i].countCliquesOfSize(3);
+			}
+		});
+
+		final CliqueEncoder[] encoders = new CliqueEncoder[num];
+		for(int i = 0; i < num; ++i){
+			encoders[i] = new CliqueEncoder(keys[i], 3);
+			long[] nbrs = graphs[i].getNodeList().toArray();
+			for(int j = 0; j + 2 < nbrs.length; j += 3){
+				long[] clique = { nbrs[j], nbrs[j + 1], nbrs[j + 2] };
+				encoders[i].addNormalVertices(clique);
+			}
+		}
+		benchmarks.add(new Benchmark("CliqueEncoder.getEncodedCliques"){
+			int i = 0;
+			long op(){
+				i = (i + 1) % num;
+				long[] res = encoders[i].getEncodedCliques();
+				return (res == null) ? 0 : res.length;
+			}
+		});
+	}
+
+	/**
+	 * Intersect the neighbor lists of the end points of random edges
+	 */
+	private static void addIntersectionBenchmarks(List<Benchmark> benchmarks, PowerLawGraph graph){
+		final int num = 4096;
+		final long[][] first = new long[num][];
+		final long[][] second = new long[num][];
+		Random rand = new Random(seed);
+		int maxLen = 1;
+		for(int i = 0; i < num; ++i){
+			int u = rand.nextInt(graph.size());
+			while(graph.getNeighbors(u).length == 0){
+				u = rand.nextInt(graph.size());
+			}
+			long[] nbrs = graph.getNeighbors(u);
+			int v = HyperVertex.VertexID(nbrs[rand.nextInt(nbrs.length)]);
+			first[i] = nbrs;
+			second[i] = graph.getNeighbors(v);
+			maxLen = Math.max(maxLen, nbrs.length);
+		}
+		final long[] buf = new long[maxLen];
+		benchmarks.add(new Benchmark("Utility.intersection"){
+			int i = 0;
+			long op(){
+				i = (i + 1) % num;
+				return Utility.intersection(first[i], second[i]).length;
+			}
+		});
+		benchmarks.add(new Benchmark("Intersection.intersect"){
+			int i = 0;
+			long op(){
+				i = (i + 1) % num;
+				return Intersection.intersect(first[i], second[i], buf);
+			}
+		});
+		benchmarks.add(new Benchmark("Intersection.count"){
+			int i = 0;
+			long op(){
+				i = (i + 1) % num;
+				return Intersection.count(first[i], second[i]);
+			}
+		});
+	}
+
+	/**
+	 * HVArray (de)serialization and the raw comparator, on neighbor lists
+	 */
+	private static void addHVArrayBenchmarks(List<Benchmark> benchmarks, PowerLawGraph graph)
+			throws IOException{
+		final int num = 4096;
+		final HVArray[] arrays = new HVArray[num];
+		final byte[][] legacy = new byte[num][];
+		final byte[][] compact = new byte[num][];
+		Random rand = new Random(seed);
+		DataOutputBuffer out = new DataOutputBuffer();
+		for(int i = 0; i < num; ++i){
+			// Mostly short arrays with a common prefix, like the sorted map outputs
+			long[] nbrs = graph.getNeighbors(rand.nextInt(graph.size()));
+			int len = Math.min(nbrs.length, 1 + rand.nextInt(4));
+			long[] array = new long[len];
+			System.arraycopy(nbrs, 0, array, 0, len);
+			arrays[i] = new HVArray(array);
+			out.reset();
+			arrays[i].write(out);
+			legacy[i] = Arrays.copyOf(out.getData(), out.getLength());
+			out.reset();
+			arrays[i].writeCompact(out);
+			compact[i] = Arrays.copyOf(out.getData(), out.getLength());
+		}
+		final DataOutputBuffer buffer = new DataOutputBuffer();
+		final DataInputBuffer in = new DataInputBuffer();
+		final HVArray value = new HVArray();
+		benchmarks.add(new Benchmark("HVArray.write"){
+			int i = 0;
+			long op() throws IOException{
+				i = (i + 1) % num;
+				buffer.reset();
+				arrays[i].write(buffer);
+				return buffer.getLength();
+			}
+		});
+		benchmarks.add(new Benchmark("HVArray.writeCompact"){
+			int i = 0;
+			long op() throws IOException{
+				i = (i + 1) % num;
+				buffer.reset();
+				arrays[i].writeCompact(buffer);
+				return buffer.getLength();
+			}
+		});
+		benchmarks.add(new Benchmark("HVArray.readFields"){
+			int i = 0;
+			long op() throws IOException{
+				i = (i + 1) % num;
+				in.reset(legacy[i], legacy[i].length);
+				value.readFields(in);
+				return value.size();
+			}
+		});
+		benchmarks.add(new Benchmark("HVArray.readFields(compact)"){
+			int i = 0;
+			long op() throws IOException{
+				i = (i + 1) % num;
+				in.reset(compact[i], compact[i].length);
+				value.readFields(in);
+				return value.size();
+			}
+		});
+
+		final HVArrayComparator comparator = ReflectionUtils.newInstance(
+				HVArrayComparator.class, new Configuration());
+		benchmarks.add(new Benchmark("HVArrayComparator.compare"){
+			int i = 0;
+			long op(){
+				i = (i + 1) % num;
+				byte[] b1 = legacy[i], b2 = legacy[(i * 7 + 1) % num];
+				return comparator.compare(b1, 0, b1.length, b2, 0, b2.length);
+			}
+		});
+		benchmarks.add(new Benchmark("HVArrayComparator.compare(compact)"){
+			int i = 0;
+			long op(){
+				i = (i + 1) % num;
+				byte[] b1 = compact[i], b2 = compact[(i * 7 + 1) % num];
+				return comparator.compare(b1, 0, b1.length, b2, 0, b2.length);
+			}
+		});
+	}
+
+	/**
+	 * Test the wedges of the graph against a filter of its edges, half of them are edges
+	 */
+	private static void addBloomFilterBenchmarks(List<Benchmark> benchmarks, PowerLawGraph graph,
+			final boolean offheap, boolean blocked){
+		long numEdges = 0L;
+		for(int i = 0; i < graph.size(); ++i){
+			numEdges += graph.getNeighbors(i).length - graph.largeIndex(i);
+		}
+		final BloomFilter bf = (BloomFilter) (blocked ?
+				FilterFactory.getBlockedFilter(Math.max(1L, numEdges), 0.001, offheap) :
+				FilterFactory.getFilter(Math.max(1L, numEdges), 0.001, offheap));
+		for(int i = 0; i < graph.size(); ++i){
+			long[] nbrs = graph.getNeighbors(i);
+			for(int j = graph.largeIndex(i); j < nbrs.length; ++j){
+				bf.add(i, HyperVertex.VertexID(nbrs[j]));
+			}
+		}
+		final int num = 4096;
+		final int[] src = new int[num];
+		final int[] dst = new int[num];
+		Random rand = new Random(seed);
+		for(int i = 0; i < num; ++i){
+			src[i] = rand.nextInt(graph.size());
+			long[] nbrs = graph.getNeighbors(src[i]);
+			dst[i] = (i % 2 == 0 && nbrs.length > 0) ?
+					HyperVertex.VertexID(nbrs[rand.nextInt(nbrs.length)]) : rand.nextInt(graph.size());
+			if(src[i] > dst[i]){
+				int tmp = src[i];
+				src[i] = dst[i];
+				dst[i] = tmp;
+			}
+		}
+		benchmarks.add(new Benchmark((blocked ? "BlockedBloomFilter" : "BloomFilter")
+				+ ".test(" + (offheap ? "OffHeapBitSet" : "OpenBitSet") + ")"){
+			int i = 0;
+			long op(){
+				i = (i + 1) % num;
+				return bf.test(src[i], dst[i]) ? 1 : 0;
+			}
+		});
+	}
+
+	/**
+	 * Emit the three kinds of twintwigs into a counting writer. <br>
+	 * The vertices are taken from the middle of the degree ranking,
+	 * since a few top-degree vertices would dominate the score.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static void addTwinTwigBenchmarks(List<Benchmark> benchmarks, PowerLawGraph graph)
+			throws IOException, InterruptedException{
+		final long[] count = new long[1];
+		RecordWriter writer = new RecordWriter(){
+			@Override
+			public void write(Object key, Object value){
+				++count[0];
+			}
+
+			@Override
+			public void close(TaskAttemptContext context){
+			}
+		};
+		Configuration conf = new Configuration();
+		MapContextImpl mapContext = new MapContextImpl(conf, new TaskAttemptID(), null, writer,
+				null, new TaskAttemptContextImpl.DummyReporter(), null);
+		final Mapper.Context context = new WrappedMapper().getMapContext(mapContext);
+
+		int[] top = graph.byDegree();
+		final int num = Math.min(256, top.length);
+		final TwinTwigGenerator[] generators = new TwinTwigGenerator[num];
+		for(int i = 0; i < num; ++i){
+			int v = top[top.length / 4 + i * (top.length / 4) / num];
+			generators[i] = new TwinTwigGenerator(graph.getVertex(v), graph.getAdjList(v));
+		}
+		benchmarks.add(new Benchmark("TwinTwigGenerator.genTwinTwig"){
+			int i = 0;
+			long op() throws Exception{
+				i = (i + 1) % num;
+				count[0] = 0L;
+				generators[i].genTwinTwigOne(context, Config.SMALLSIGN, (byte) 6, (byte) 0);
+				generators[i].genTwinTwigTwo(context, Config.SMALLSIGN, (byte) 6);
+				generators[i].genTwinTwigThree(context, Config.SMALLSIGN, (byte) 6);
+				return count[0];
+			}
+		});
+	}
+
+	/**
+	 * Emit the wedges around vertices as EnumSquareMapper does, into a writer that serializes
+	 * the records, once with new objects per record and once with a reused key / value
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static void addWritableBenchmarks(List<Benchmark> benchmarks, PowerLawGraph graph)
+			throws IOException, InterruptedException{
+		final DataOutputBuffer buffer = new DataOutputBuffer();
+		RecordWriter writer = new RecordWriter(){
+			@Override
+			public void write(Object key, Object value) throws IOException{
+				if(buffer.getLength() > (1 << 16)){
+					buffer.reset();
+				}
+				((Writable) key).write(buffer);
+				((Writable) value).write(buffer);
+			}
+
+			@Override
+			public void close(TaskAttemptContext context){
+			}
+		};
+		Configuration conf = new Configuration();
+		MapContextImpl mapContext = new MapContextImpl(conf, new TaskAttemptID(), null, writer,
+				null, new TaskAttemptContextImpl.DummyReporter(), null);
+		final Mapper.Context context = new WrappedMapper().getMapContext(mapContext);
+
+		int[] top = graph.byDegree();
+		final int num = Math.min(256, top.length);
+		final long[] centers = new long[num];
+		final long[][] nbrs = new long[num][];
+		for(int i = 0; i < num; ++i){
+			int v = top[top.length / 4 + i * (top.length / 4) / num];
+			centers[i] = graph.getVertex(v);
+			nbrs[i] = graph.getNeighbors(v);
+		}
+		benchmarks.add(new Benchmark("Writable.new"){
+			int i = 0;
+			long op() throws Exception{
+				i = (i + 1) % num;
+				long[] array = nbrs[i];
+				for(int j = 0; j < array.length; ++j){
+					for(int k = j + 1; k < array.length; ++k){
+						context.write(new HVArray(array[j], array[k]), new LongWritable(centers[i]));
+						context.write(new HVArraySign(array[j], array[k], Config.SMALLSIGN),
+								new HVArray(centers[i]));
+					}
+				}
+				return array.length;
+			}
+		});
+		final HVArray key = new HVArray();
+		final LongWritable value = new LongWritable();
+		final HVArraySign signKey = new HVArraySign();
+		final HVArray arrayValue = new HVArray();
+		benchmarks.add(new Benchmark("Writable.set"){
+			int i = 0;
+			long op() throws Exception{
+				i = (i + 1) % num;
+				long[] array = nbrs[i];
+				for(int j = 0; j < array.length; ++j){
+					for(int k = j + 1; k < array.length; ++k){
+						key.set(array[j], array[k]);
+						value.set(centers[i]);
+						context.write(key, value);
+						signKey.set(array[j], array[k], Config.SMALLSIGN);
+						arrayValue.set(centers[i]);
+						context.write(signKey, arrayValue);
+					}
+				}
+				return array.length;
+			}
+		});
+	}
+}
@@ -0,0 +1,149 @@
+package dbg.hadoop.subgraphs.bench;
+
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.set.hash.TLongHashSet;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import dbg.hadoop.subgraphs.io.HyperVertexAdjList;
+import dbg.hadoop.subgraphs.utils.Graph;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
+
+/**
+ * Seeded synthetic power-law graph (Chung-Lu model) for the benchmarks. <br>
+ * Vertex i gets the weight (i + 1)^(-1 / (gamma - 1)), and every edge picks both
+ * end points proportional to the weights. Duplicated edges and self loops are dropped,
+ * so the average degree is a bit smaller than the one asked for. <br>
+ * The vertices are encoded as HyperVertex(id, degree) and every neighbor list is
+ * sorted, exactly like in adjList2.0.
+ */
+public class PowerLawGraph {
+	private int numVertices;
+	private long[] vertices;
+	private long[][] neighbors;
+
+	/**
+	 * @param n Number of vertices
+	 * @param avgDegree The target average degree
+	 * @param gamma The power-law exponent, larger than 2
+	 * @param seed The random seed
+	 */
+	public PowerLawGraph(int n, double avgDegree, double gamma, long seed){
+		this.numVertices = n;
+		Random rand = new Random(seed);
+		double[] cumWeights = new double[n];
+		double total = 0.0;
+		for(int i = 0; i < n; ++i){
+			total += Math.pow(i + 1, -1.0 / (gamma - 1));
+			cumWeights[i] = total;
+		}
+
+		long numEdges = (long) (n * avgDegree / 2);
+		TLongHashSet edges = new TLongHashSet();
+		int[] degrees = new int[n];
+		for(long e = 0; e < numEdges; ++e){
+			int u = pick(cumWeights, rand.nextDouble() * total);
+			int v = pick(cumWeights, rand.nextDouble() * total);
+			if(u == v){
+				continue;
+			}
+			long edge = (u < v) ? (((long) u << 32) | v) : (((long) v << 32) | u);
+			if(edges.add(edge)){
+				++degrees[u];
+				++degrees[v];
+			}
+		}
+
+		this.vertices = new long[n];
+		for(int i = 0; i < n; ++i){
+			vertices[i] = HyperVertex.get(i, degrees[i]);
+		}
+		TLongArrayList[] lists = new TLongArrayList[n];
+		for(long edge : edges.toArray()){
+			int u = (int) (edge >>> 32), v = (int) edge;
+			if(lists[u] == null) lists[u] = new TLongArrayList(degrees[u]);
+			if(lists[v] == null) lists[v] = new TLongArrayList(degrees[v]);
+			lists[u].add(vertices[v]);
+			lists[v].add(vertices[u]);
+		}
+		this.neighbors = new long[n][];
+		for(int i = 0; i < n; ++i){
+			neighbors[i] = (lists[i] == null) ? new long[0] : lists[i].toArray();
+			Arrays.sort(neighbors[i]);
+		}
+	}
+
+	private static int pick(double[] cumWeights, double target){
+		int index = Arrays.binarySearch(cumWeights, target);
+		return (index >= 0) ? index : Math.min(-index - 1, cumWeights.length - 1);
+	}
+
+	public int size(){
+		return this.numVertices;
+	}
+
+	public long getVertex(int i){
+		return this.vertices[i];
+	}
+
+	/**
+	 * @return All the neighbors of vertex i, sorted
+	 */
+	public long[] getNeighbors(int i){
+		return this.neighbors[i];
+	}
+
+	/**
+	 * @return The position of the first neighbor of vertex i larger than itself
+	 */
+	public int largeIndex(int i){
+		int index = Arrays.binarySearch(neighbors[i], vertices[i]);
+		return (index >= 0) ? index + 1 : -index - 1;
+	}
+
+	/**
+	 * @return The vertex indices sorted by decreasing degree
+	 */
+	public int[] byDegree(){
+		long[] keys = new long[numVertices];
+		for(int i = 0; i < numVertices; ++i){
+			keys[i] = (((long) neighbors[i].length) << 32) | i;
+		}
+		Arrays.sort(keys);
+		int[] res = new int[numVertices];
+		for(int i = 0; i < numVertices; ++i){
+			res[i] = (int) keys[numVertices - 1 - i];
+		}
+		return res;
+	}
+
+	/**
+	 * The adjList2.0 record of vertex i
+	 */
+	public HyperVertexAdjList getAdjList(int i){
+		int index = largeIndex(i);
+		HyperVertexAdjList adjList = new HyperVertexAdjList();
+		adjList.set(Arrays.copyOfRange(neighbors[i], 0, index),
+				Arrays.copyOfRange(neighbors[i], index, neighbors[i].length), true);
+		return adjList;
+	}
+
+	/**
+	 * The graph the clique reducer builds for vertex i: the edges among its larger neighbors
+	 */
+	public Graph getLargerNeighborhood(int i){
+		Graph g = new Graph();
+		long[] nbrs = neighbors[i];
+		TLongHashSet set = new TLongHashSet(nbrs);
+		for(int j = largeIndex(i); j < nbrs.length; ++j){
+			int u = HyperVertex.VertexID(nbrs[j]);
+			for(long w : neighbors[u]){
+				if(HyperVertex.compare(w, nbrs[j]) > 0 && set.contains(w)){
+					g.addEdge(nbrs[j], w);
+				}
+			}
+		}
+		return g;
+	}
+}
@@ -0,0 +1,285 @@
+package dbg.hadoop.subgraphs.io;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.filecache.DistributedCache;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RawLocalFileSystem;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+
+/**
+ * Read the CSR graph file as if it were adjList2.&lt;maxSize&gt;. <br>
+ * The records are exactly those of GenAdjListReducer for csr.input.max.size
+ * (and map.input.work.budget): (group_i, large, i == 0) and (group_i, group_j) for i &lt; j. <br>
+ * The file is memory-mapped from the DistributedCache (see {@link #configure}),
+ * and the splits are vertex ranges of roughly csr.input.split.size neighbors.
+ */
+public class CSRAdjListInputFormat extends InputFormat<LongWritable, HyperVertexAdjList> {
+	public static final String MAX_SIZE = "csr.input.max.size";
+	public static final String SPLIT_SIZE = "csr.input.split.size";
+
+	/**
+	 * Ship the CSR file to the tasks and set the group size of the records
+	 */
+	@SuppressWarnings("deprecation")
+	public static void configure(Configuration conf, Path csrFile, int maxSize){
+		DistributedCache.addCacheFile(csrFile.toUri(), conf);
+		conf.setInt(MAX_SIZE, maxSize);
+	}
+
+	/**
+	 * The same, with the group sizes picked per vertex as GenAdjListReducer does
+	 * for map.input.work.budget (if maxSize != 0 and budget &gt; 0)
+	 */
+	public static void configure(Configuration conf, Path csrFile, int maxSize, long budget){
+		configure(conf, csrFile, maxSize);
+		if(maxSize != 0 && budget > 0){
+			conf.setLong(HyperVertexAdjList.WORK_BUDGET, budget);
+		}
+	}
+
+	@Override
+	public List<InputSplit> getSplits(JobContext context) throws IOException {
+		Configuration conf = context.getConfiguration();
+		long splitSize = conf.getLong(SPLIT_SIZE, 1L << 22);
+		List<InputSplit> splits = new ArrayList<InputSplit>();
+		for (Path path : FileInputFormat.getInputPaths(context)) {
+			FileSystem fs = path.getFileSystem(conf);
+			FSDataInputStream header = fs.open(path);
+			if (header.readInt() != CSRGraph.MAGIC) {
+				header.close();
+				throw new IOException(path + " is not a CSR graph file.");
+			}
+			header.readInt();
+			long n = header.readLong();
+			header.close();
+
+			// Walk through both offset arrays to cut the vertex ranges
+			DataInputStream smallOffsets = openAt(fs, path, CSRGraph.HEADER_SIZE + n * 8L);
+			DataInputStream largeOffsets = openAt(fs, path, CSRGraph.HEADER_SIZE + (2 * n + 1) * 8L);
+			long prev = smallOffsets.readLong() + largeOffsets.readLong();
+			long start = 0;
+			for (long i = 1; i <= n; ++i) {
+				long cur = smallOffsets.readLong() + largeOffsets.readLong();
+				if (cur - prev >= splitSize || i == n) {
+					splits.add(new CSRSplit(path, start, i));
+					start = i;
+					prev = cur;
+				}
+			}
+			smallOffsets.close();
+			largeOffsets.close();
+		}
+		return splits;
+	}
+
+	private static DataInputStream openAt(FileSystem fs, Path path, long pos) throws IOException{
+		FSDataInputStream in = fs.open(path);
+		in.seek(pos);
+		return new DataInputStream(new BufferedInputStream(in, 1 << 16));
+	}
+
+	@Override
+	public RecordReader<LongWritable, HyperVertexAdjList> createRecordReader(
+			InputSplit split, TaskAttemptContext context) {
+		return new CSRAdjListRecordReader();
+	}
+
+	/**
+	 * @return The local copy of the CSR file: from the DistributedCache if it is
+	 * there, otherwise the file itself (local file system) or a temporary copy
+	 */
+	@SuppressWarnings("deprecation")
+	public static File localize(Configuration conf, Path file, boolean[] isTemp) throws IOException{
+		isTemp[0] = false;
+		Path[] cached = DistributedCache.getLocalCacheFiles(conf);
+		if (cached != null) {
+			for (Path p : cached) {
+				if (p.getName().equals(file.getName())) {
+					return new File(p.toUri().getPath());
+				}
+			}
+		}
+		FileSystem fs = file.getFileSystem(conf);
+		if (fs instanceof LocalFileSystem || fs instanceof RawLocalFileSystem) {
+			return new File(file.toUri().getPath());
+		}
+		File tmp = File.createTempFile(file.getName(), "");
+		fs.copyToLocalFile(false, file, new Path(tmp.getAbsolutePath()), true);
+		isTemp[0] = true;
+		return tmp;
+	}
+}
+
+class CSRSplit extends InputSplit implements Writable {
+	private Path file;
+	private long start;
+	private long end;
+
+	public CSRSplit(){
+	}
+
+	public CSRSplit(Path _file, long _start, long _end){
+		this.file = _file;
+		this.start = _start;
+		this.end = _end;
+	}
+
+	public Path getPath(){
+		return this.file;
+	}
+
+	public long getStart(){
+		return this.start;
+	}
+
+	public long getEnd(){
+		return this.end;
+	}
+
+	@Override
+	public long getLength() {
+		return this.end - this.start;
+	}
+
+	@Override
+	public String[] getLocations() {
+		// Every node reads its own copy of the file
+		return new String[0];
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		Text.writeString(out, this.file.toString());
+		out.writeLong(this.start);
+		out.writeLong(this.end);
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		this.file = new Path(Text.readString(in));
+		this.start = in.readLong();
+		this.end = in.readLong();
+	}
+}
+
+class CSRAdjListRecordReader extends RecordReader<LongWritable, HyperVertexAdjList> {
+	private CSRGraph graph = null;
+	private File localFile = null;
+	private boolean isTemp = false;
+	private int maxSize = 0;
+	private long budget = 0;
+	private int groupSize = 0;
+
+	private long start = 0;
+	private long end = 0;
+	private long index = 0;
+
+	private LongWritable key = new LongWritable();
+	private HyperVertexAdjList value = new HyperVertexAdjList();
+
+	// Records left for the current vertex: the pair (gi, gj), gi == gj stands for (group_gi, large)
+	private long[] large = null;
+	private long[][] groups = new long[0][];
+	private int gi = 0;
+	private int gj = 0;
+
+	@Override
+	public void initialize(InputSplit _split, TaskAttemptContext context) throws IOException {
+		CSRSplit split = (CSRSplit) _split;
+		Configuration conf = context.getConfiguration();
+		boolean[] temp = new boolean[1];
+		this.localFile = CSRAdjListInputFormat.localize(conf, split.getPath(), temp);
+		this.isTemp = temp[0];
+		this.graph = new CSRGraph(this.localFile);
+		this.maxSize = conf.getInt(CSRAdjListInputFormat.MAX_SIZE, 0);
+		this.budget = conf.getLong(HyperVertexAdjList.WORK_BUDGET, 0L);
+		this.start = split.getStart();
+		this.end = split.getEnd();
+		this.index = this.start - 1;
+	}
+
+	@Override
+	public boolean nextKeyValue() {
+		while (gi >= groups.length) {
+			if (++index >= end) {
+				return false;
+			}
+			key.set(graph.getVertex(index));
+			long[] small = toArray(graph.getSmallNeighbors(index));
+			large = toArray(graph.getLargeNeighbors(index));
+			groupSize = (budget > 0) ? HyperVertexAdjList.adaptiveGroupSize(small.length, large.length, budget)
+					: maxSize;
+			int[] bounds = HyperVertexAdjList.groupBoundaries(small.length, groupSize);
+			groups = new long[bounds.length - 1][];
+			for (int i = 0; i < groups.length; ++i) {
+				groups[i] = (groups.length == 1) ? small : Arrays.copyOfRange(small, bounds[i], bounds[i + 1]);
+			}
+			gi = gj = 0;
+		}
+		if (gi == gj) {
+			value.set(groups[gi], large, gi == 0);
+		}
+		else {
+			value.set(groups[gi], groups[gj]);
+		}
+		if (budget > 0) {
+			value.setGroupSize(groupSize);
+		}
+		if (++gj == groups.length) {
+			++gi;
+			gj = gi;
+		}
+		return true;
+	}
+
+	private static long[] toArray(LongBuffer buf){
+		long[] array = new long[buf.remaining()];
+		buf.get(array);
+		return array;
+	}
+
+	@Override
+	public LongWritable getCurrentKey() {
+		return key;
+	}
+
+	@Override
+	public HyperVertexAdjList getCurrentValue() {
+		return value;
+	}
+
+	@Override
+	public float getProgress() {
+		return (end == start) ? 1.0f : (float) (index - start) / (end - start);
+	}
+
+	@Override
+	public void close() {
+		graph = null;
+		if (isTemp) {
+			localFile.delete();
+		}
+	}
+}
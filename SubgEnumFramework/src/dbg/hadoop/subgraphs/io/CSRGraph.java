@@ -0,0 +1,187 @@
+package dbg.hadoop.subgraphs.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import dbg.hadoop.subgraphs.utils.HyperVertex;
+
+/**
+ * Read-only, memory-mapped CSR view of the graph (see CSRGraphWriter). <br>
+ * The file is laid out as (all numbers big-endian): <br>
+ * header: magic, version, #vertices n, #small neighbors, #large neighbors, max list length <br>
+ * vertices[n]: the hypervertices in adjList2.0 order <br>
+ * smallOffsets[n + 1], largeOffsets[n + 1]: CSR offsets <br>
+ * small[]: for each vertex, its neighbors that are smaller than itself (sorted) <br>
+ * large[]: for each vertex, its neighbors that are larger than itself (sorted) <br>
+ * byId[n]: the vertex positions sorted by vertex id, for lookups <br>
+ *
+ * The neighbor lists returned are zero-copy LongBuffer slices of the mapping,
+ * so all tasks on a node share the same page cache and nothing is deserialized.
+ */
+public class CSRGraph {
+	public static final int MAGIC = 0x43535247; // "CSRG"
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 64;
+
+	private long numVertices;
+	private long numSmall;
+	private long numLarge;
+	private int maxListLength;
+
+	private MappedLongArray vertices;
+	private MappedLongArray smallOffsets;
+	private MappedLongArray largeOffsets;
+	private MappedLongArray small;
+	private MappedLongArray large;
+	private MappedLongArray byId;
+
+	private static final LongBuffer EMPTY = LongBuffer.allocate(0);
+
+	public CSRGraph(File file) throws IOException{
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			if(raf.readInt() != MAGIC){
+				throw new IOException(file + " is not a CSR graph file.");
+			}
+			int version = raf.readInt();
+			if(version != VERSION){
+				throw new IOException("Unsupported CSR graph version: " + version);
+			}
+			numVertices = raf.readLong();
+			numSmall = raf.readLong();
+			numLarge = raf.readLong();
+			maxListLength = raf.readInt();
+
+			FileChannel channel = raf.getChannel();
+			long pos = HEADER_SIZE;
+			vertices = new MappedLongArray(channel, pos, numVertices, 0);
+			pos += numVertices * 8L;
+			smallOffsets = new MappedLongArray(channel, pos, numVertices + 1, 0);
+			pos += (numVertices + 1) * 8L;
+			largeOffsets = new MappedLongArray(channel, pos, numVertices + 1, 0);
+			pos += (numVertices + 1) * 8L;
+			small = new MappedLongArray(channel, pos, numSmall, maxListLength);
+			pos += numSmall * 8L;
+			large = new MappedLongArray(channel, pos, numLarge, maxListLength);
+			pos += numLarge * 8L;
+			byId = new MappedLongArray(channel, pos, numVertices, 0);
+		} finally {
+			// The mappings stay valid after the file is closed
+			raf.close();
+		}
+	}
+
+	public long size(){
+		return this.numVertices;
+	}
+
+	public long getNumSmall(){
+		return this.numSmall;
+	}
+
+	public long getNumLarge(){
+		return this.numLarge;
+	}
+
+	public int getMaxListLength(){
+		return this.maxListLength;
+	}
+
+	/**
+	 * @param index The position of the vertex in [0, size())
+	 * @return The hypervertex
+	 */
+	public long getVertex(long index){
+		return vertices.get(index);
+	}
+
+	public int getSmallNum(long index){
+		return (int) (smallOffsets.get(index + 1) - smallOffsets.get(index));
+	}
+
+	public int getLargeNum(long index){
+		return (int) (largeOffsets.get(index + 1) - largeOffsets.get(index));
+	}
+
+	/**
+	 * Neighbors smaller than the vertex, sorted (zero-copy)
+	 */
+	public LongBuffer getSmallNeighbors(long index){
+		long from = smallOffsets.get(index);
+		return small.slice(from, (int) (smallOffsets.get(index + 1) - from));
+	}
+
+	/**
+	 * Neighbors larger than the vertex, sorted (zero-copy)
+	 */
+	public LongBuffer getLargeNeighbors(long index){
+		long from = largeOffsets.get(index);
+		return large.slice(from, (int) (largeOffsets.get(index + 1) - from));
+	}
+
+	/**
+	 * @param vertexId The vertex id (HyperVertex.VertexID)
+	 * @return The position of the vertex, -1 if it does not exist
+	 */
+	public long indexOf(int vertexId){
+		long low = 0, high = numVertices - 1;
+		while(low <= high){
+			long mid = (low + high) >>> 1;
+			long pos = byId.get(mid);
+			int id = HyperVertex.VertexID(vertices.get(pos));
+			if(id < vertexId){
+				low = mid + 1;
+			}
+			else if(id > vertexId){
+				high = mid - 1;
+			}
+			else{
+				return pos;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * A long array mapped in chunks, since one MappedByteBuffer is limited to 2GB. <br>
+	 * Consecutive chunks overlap by maxSlice longs, so any slice of at most
+	 * maxSlice longs lies entirely in one chunk.
+	 */
+	static class MappedLongArray {
+		static final int CHUNK_BITS = 27; // 1GB per chunk
+		static final long CHUNK_LONGS = 1L << CHUNK_BITS;
+
+		private LongBuffer[] chunks;
+
+		MappedLongArray(FileChannel channel, long offset, long length, int maxSlice) throws IOException{
+			int numChunks = (int) ((length + CHUNK_LONGS - 1) / CHUNK_LONGS);
+			chunks = new LongBuffer[numChunks];
+			for(int i = 0; i < numChunks; ++i){
+				long from = i * CHUNK_LONGS;
+				long to = Math.min(length, from + CHUNK_LONGS + maxSlice);
+				MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY,
+						offset + from * 8L, (to - from) * 8L);
+				chunks[i] = buf.asLongBuffer();
+			}
+		}
+
+		long get(long index){
+			return chunks[(int) (index >>> CHUNK_BITS)].get((int) (index & (CHUNK_LONGS - 1)));
+		}
+
+		LongBuffer slice(long from, int length){
+			if(length == 0){
+				return EMPTY;
+			}
+			LongBuffer buf = chunks[(int) (from >>> CHUNK_BITS)].duplicate();
+			int pos = (int) (from & (CHUNK_LONGS - 1));
+			buf.limit(pos + length);
+			buf.position(pos);
+			return buf.slice();
+		}
+	}
+}
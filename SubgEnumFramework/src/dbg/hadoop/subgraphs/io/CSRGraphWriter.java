@@ -0,0 +1,158 @@
+package dbg.hadoop.subgraphs.io;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.log4j.Logger;
+
+import dbg.hadoop.subgraphs.utils.Config;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
+
+/**
+ * Convert the un-partitioned adjacency list (adjList2.0) into the CSR file read by CSRGraph. <br>
+ * The neighbors are streamed into two local spill files in a single pass; only the
+ * vertices and the list lengths are kept in memory.
+ */
+public class CSRGraphWriter {
+	private static Logger log = Logger.getLogger(CSRGraphWriter.class);
+
+	/**
+	 * Write the CSR file of workDir from its adjList2.0 on first use
+	 * @return The CSR file
+	 */
+	public static Path ensure(FileSystem fs, String workDir) throws IOException{
+		Path csrFile = new Path(workDir + Config.csrGraphFile);
+		if(!fs.exists(csrFile)){
+			long begin = System.currentTimeMillis();
+			write(fs, new Path(workDir + Config.adjListDir + ".0"), csrFile);
+			log.info("[CSR] Time elapsed: " + (System.currentTimeMillis() - begin) / 1000 + "s");
+		}
+		return csrFile;
+	}
+
+	/**
+	 * @param fs The file system of both adjListDir and csrFile
+	 * @param adjListDir The adjList2.0 directory
+	 * @param csrFile The output file
+	 */
+	public static void write(FileSystem fs, Path adjListDir, Path csrFile) throws IOException{
+		File localDir = File.createTempFile("csr", "");
+		localDir.delete();
+		localDir.mkdirs();
+		File smallFile = new File(localDir, "small");
+		File largeFile = new File(localDir, "large");
+		File outFile = new File(localDir, csrFile.getName());
+
+		TLongArrayList vertices = new TLongArrayList();
+		TIntArrayList smallNum = new TIntArrayList();
+		TIntArrayList largeNum = new TIntArrayList();
+		long numSmall = 0L, numLarge = 0L;
+		int maxListLength = 0;
+
+		DataOutputStream smallOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(smallFile)));
+		DataOutputStream largeOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(largeFile)));
+		Configuration conf = fs.getConf();
+		LongWritable key = new LongWritable();
+		HyperVertexAdjList value = new HyperVertexAdjList();
+		for (FileStatus status : fs.listStatus(adjListDir)) {
+			String p = status.getPath().getName();
+			if (!p.startsWith("part-")) {
+				continue;
+			}
+			SequenceFile.Reader reader = new SequenceFile.Reader(fs, status.getPath(), conf);
+			while (reader.next(key, value)) {
+				if (value.existBackup() || !value.isFirstAdd()) {
+					reader.close();
+					throw new IOException(adjListDir + " is partitioned, the CSR file needs adjList2.0");
+				}
+				long[] small = value.getSmallDegreeVerticesGroup1();
+				long[] large = value.getLargeDegreeVertices();
+				for (long v : small) {
+					smallOut.writeLong(v);
+				}
+				for (long v : large) {
+					largeOut.writeLong(v);
+				}
+				vertices.add(key.get());
+				smallNum.add(small.length);
+				largeNum.add(large.length);
+				numSmall += small.length;
+				numLarge += large.length;
+				maxListLength = Math.max(maxListLength, Math.max(small.length, large.length));
+			}
+			reader.close();
+		}
+		smallOut.close();
+		largeOut.close();
+
+		int n = vertices.size();
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outFile)));
+		out.writeInt(CSRGraph.MAGIC);
+		out.writeInt(CSRGraph.VERSION);
+		out.writeLong(n);
+		out.writeLong(numSmall);
+		out.writeLong(numLarge);
+		out.writeInt(maxListLength);
+		for (int i = 36; i < CSRGraph.HEADER_SIZE; ++i) {
+			out.writeByte(0);
+		}
+		for (int i = 0; i < n; ++i) {
+			out.writeLong(vertices.get(i));
+		}
+		writeOffsets(out, smallNum);
+		writeOffsets(out, largeNum);
+		copy(smallFile, out);
+		copy(largeFile, out);
+
+		// Positions sorted by vertex id: (id, position) packed in one long
+		long[] byId = new long[n];
+		for (int i = 0; i < n; ++i) {
+			byId[i] = (((long) HyperVertex.VertexID(vertices.get(i))) << 32) | i;
+		}
+		Arrays.sort(byId);
+		for (int i = 0; i < n; ++i) {
+			out.writeLong(byId[i] & 0xFFFFFFFFL);
+		}
+		out.close();
+
+		fs.delete(csrFile, true);
+		fs.copyFromLocalFile(true, true, new Path(outFile.getAbsolutePath()), csrFile);
+		smallFile.delete();
+		largeFile.delete();
+		localDir.delete();
+		log.info("CSR graph " + csrFile + ": " + n + " vertices, " + numSmall + " small and "
+				+ numLarge + " large neighbors, max list length = " + maxListLength);
+	}
+
+	private static void writeOffsets(DataOutputStream out, TIntArrayList lengths) throws IOException{
+		long offset = 0L;
+		out.writeLong(offset);
+		for (int i = 0; i < lengths.size(); ++i) {
+			offset += lengths.get(i);
+			out.writeLong(offset);
+		}
+	}
+
+	private static void copy(File file, DataOutputStream out) throws IOException{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		IOUtils.copyBytes(in, out, 1 << 16, false);
+		in.close();
+	}
+}
@@ -0,0 +1,101 @@
+package dbg.hadoop.subgraphs.io;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.serializer.Deserializer;
+import org.apache.hadoop.io.serializer.Serialization;
+import org.apache.hadoop.io.serializer.Serializer;
+
+/**
+ * Serialize HVArray in the delta + vlong format of HVArray.writeCompact(). <br>
+ * Registered per job through io.serializations, so that both the shuffle and the
+ * SequenceFile output of the job use the compact format. HVArray.readFields()
+ * recognizes the format, so the output stays readable by any other job.
+ * HVArraySign and the other classes embedding an HVArray are not affected.
+ */
+public class CompactHVArraySerialization implements Serialization<HVArray> {
+	
+	/**
+	 * Put this serialization in front of the ones of conf
+	 */
+	public static void enable(Configuration conf){
+		String name = CompactHVArraySerialization.class.getName();
+		String[] serializations = conf.getStrings("io.serializations");
+		if(serializations == null){
+			conf.setStrings("io.serializations", name, 
+					"org.apache.hadoop.io.serializer.WritableSerialization");
+			return;
+		}
+		for(String s : serializations){
+			if(s.equals(name)){
+				return;
+			}
+		}
+		String[] res = new String[serializations.length + 1];
+		res[0] = name;
+		System.arraycopy(serializations, 0, res, 1, serializations.length);
+		conf.setStrings("io.serializations", res);
+	}
+
+	@Override
+	public boolean accept(Class<?> c) {
+		return HVArray.class.equals(c);
+	}
+
+	@Override
+	public Serializer<HVArray> getSerializer(Class<HVArray> c) {
+		return new CompactHVArraySerializer();
+	}
+
+	@Override
+	public Deserializer<HVArray> getDeserializer(Class<HVArray> c) {
+		return new CompactHVArrayDeserializer();
+	}
+	
+	static class CompactHVArraySerializer implements Serializer<HVArray> {
+		private DataOutputStream out;
+
+		@Override
+		public void open(OutputStream _out) {
+			this.out = (_out instanceof DataOutputStream) ? 
+					(DataOutputStream) _out : new DataOutputStream(_out);
+		}
+
+		@Override
+		public void serialize(HVArray t) throws IOException {
+			t.writeCompact(out);
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+	}
+	
+	static class CompactHVArrayDeserializer implements Deserializer<HVArray> {
+		private DataInputStream in;
+
+		@Override
+		public void open(InputStream _in) {
+			this.in = (_in instanceof DataInputStream) ? 
+					(DataInputStream) _in : new DataInputStream(_in);
+		}
+
+		@Override
+		public HVArray deserialize(HVArray t) throws IOException {
+			HVArray res = (t == null) ? new HVArray() : t;
+			res.readFields(in);
+			return res;
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+}
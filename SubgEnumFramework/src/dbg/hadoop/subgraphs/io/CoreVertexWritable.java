@@ -0,0 +1,131 @@
+package dbg.hadoop.subgraphs.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * A value of the k-core decomposition jobs, either: <br>
+ * the state of a vertex: its core estimate, whether the estimate changed in the last
+ * iteration, its neighbors (sorted) and the last estimates it got from them; <br>
+ * or a message: the new estimate of a neighbor (sender).
+ */
+public class CoreVertexWritable implements Writable {
+	private boolean isMessage = false;
+	private int core = 0;
+	private int sender = 0;
+	private boolean changed = false;
+	private int[] neighbors = null;
+	private int[] neighborCores = null;
+
+	public CoreVertexWritable(){
+	}
+
+	/**
+	 * A message
+	 */
+	public CoreVertexWritable(int _sender, int _core){
+		this.setMessage(_sender, _core);
+	}
+
+	/**
+	 * A state
+	 */
+	public CoreVertexWritable(int _core, boolean _changed, int[] _neighbors, int[] _neighborCores){
+		this.set(_core, _changed, _neighbors, _neighborCores);
+	}
+
+	public void setMessage(int _sender, int _core){
+		this.isMessage = true;
+		this.sender = _sender;
+		this.core = _core;
+		this.changed = false;
+		this.neighbors = null;
+		this.neighborCores = null;
+	}
+
+	public void set(int _core, boolean _changed, int[] _neighbors, int[] _neighborCores){
+		this.isMessage = false;
+		this.core = _core;
+		this.changed = _changed;
+		this.neighbors = _neighbors;
+		this.neighborCores = _neighborCores;
+	}
+
+	public boolean isMessage(){
+		return this.isMessage;
+	}
+
+	public int getCore(){
+		return this.core;
+	}
+
+	public int getSender(){
+		return this.sender;
+	}
+
+	public boolean isChanged(){
+		return this.changed;
+	}
+
+	public int[] getNeighbors(){
+		return this.neighbors;
+	}
+
+	public int[] getNeighborCores(){
+		return this.neighborCores;
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		this.isMessage = in.readBoolean();
+		this.core = WritableUtils.readVInt(in);
+		if(this.isMessage){
+			this.sender = in.readInt();
+			this.changed = false;
+			this.neighbors = null;
+			this.neighborCores = null;
+			return;
+		}
+		this.changed = in.readBoolean();
+		int size = WritableUtils.readVInt(in);
+		this.neighbors = new int[size];
+		this.neighborCores = new int[size];
+		for(int i = 0; i < size; ++i){
+			this.neighbors[i] = in.readInt();
+		}
+		for(int i = 0; i < size; ++i){
+			this.neighborCores[i] = WritableUtils.readVInt(in);
+		}
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		out.writeBoolean(this.isMessage);
+		WritableUtils.writeVInt(out, this.core);
+		if(this.isMessage){
+			out.writeInt(this.sender);
+			return;
+		}
+		out.writeBoolean(this.changed);
+		WritableUtils.writeVInt(out, this.neighbors.length);
+		for(int v : this.neighbors){
+			out.writeInt(v);
+		}
+		for(int c : this.neighborCores){
+			WritableUtils.writeVInt(out, c);
+		}
+	}
+
+	@Override
+	public String toString(){
+		if(this.isMessage){
+			return "[" + this.sender + "," + this.core + "]";
+		}
+		return this.core + (this.changed ? "*" : "") + " " + Arrays.toString(this.neighbors);
+	}
+}
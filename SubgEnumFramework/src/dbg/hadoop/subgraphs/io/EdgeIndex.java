@@ -0,0 +1,190 @@
+package dbg.hadoop.subgraphs.io;
+
+import gnu.trove.list.array.TLongArrayList;
+
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+import dbg.hadoop.subgraphs.utils.bloomfilter.utils.IPairFilter;
+
+/**
+ * Read-only, memory-mapped exact index of a set of vertex id pairs (a, b), the
+ * alternative of the Bloom filter: a test has no false positives. <br>
+ * The file is laid out as (all numbers big-endian): <br>
+ * header: magic, version, #ids n (the largest a + 1), #pairs, max list length <br>
+ * offsets[n + 1]: CSR offsets, indexed by a <br>
+ * targets[]: for each a, its b's (sorted, 4 bytes each) <br>
+ *
+ * A test is one offset lookup and a binary search in the list of a, on the
+ * mapping that all tasks on a node share through the page cache.
+ */
+public class EdgeIndex implements IPairFilter {
+	public static final int MAGIC = 0x45494458; // "EIDX"
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 32;
+
+	private long numIds;
+	private long numPairs;
+	private int maxListLength;
+
+	private CSRGraph.MappedLongArray offsets;
+	private MappedIntArray targets;
+
+	public EdgeIndex(File file) throws IOException{
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			if(raf.readInt() != MAGIC){
+				throw new IOException(file + " is not an edge index file.");
+			}
+			int version = raf.readInt();
+			if(version != VERSION){
+				throw new IOException("Unsupported edge index version: " + version);
+			}
+			numIds = raf.readLong();
+			numPairs = raf.readLong();
+			maxListLength = raf.readInt();
+
+			FileChannel channel = raf.getChannel();
+			long pos = HEADER_SIZE;
+			offsets = new CSRGraph.MappedLongArray(channel, pos, numIds + 1, 0);
+			pos += (numIds + 1) * 8L;
+			targets = new MappedIntArray(channel, pos, numPairs);
+		} finally {
+			// The mappings stay valid after the file is closed
+			raf.close();
+		}
+	}
+
+	/**
+	 * @return Whether the file starts with the magic of an edge index
+	 */
+	public static boolean isEdgeIndex(File file) throws IOException{
+		if(file.length() < HEADER_SIZE){
+			return false;
+		}
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try {
+			return in.readInt() == MAGIC;
+		} finally {
+			in.close();
+		}
+	}
+
+	public long getNumPairs(){
+		return this.numPairs;
+	}
+
+	public int getMaxListLength(){
+		return this.maxListLength;
+	}
+
+	@Override
+	public boolean test(int a, int b){
+		if(a < 0 || a >= numIds){
+			return false;
+		}
+		long low = offsets.get(a), high = offsets.get(a + 1) - 1;
+		while(low <= high){
+			long mid = (low + high) >>> 1;
+			int t = targets.get(mid);
+			if(t < b){
+				low = mid + 1;
+			}
+			else if(t > b){
+				high = mid - 1;
+			}
+			else{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return The pair packed as it is passed to write: sorting the packed pairs sorts
+	 * them by a then by b, for non-negative ids
+	 */
+	public static long pack(int a, int b){
+		return ((long) a << 32) | (b & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Write the index of the pairs
+	 * @param pairs The packed pairs, sorted here in place, the duplicates are written once
+	 */
+	public static void write(DataOutput out, TLongArrayList pairs) throws IOException{
+		pairs.sort();
+		int size = pairs.size();
+		long numIds = (size == 0) ? 0L : (pairs.get(size - 1) >>> 32) + 1;
+		long numPairs = 0L;
+		int maxListLength = 0, listLength = 0;
+		for(int i = 0; i < size; ++i){
+			if(i > 0 && pairs.get(i) == pairs.get(i - 1)){
+				continue;
+			}
+			++numPairs;
+			if(i > 0 && (pairs.get(i) >>> 32) == (pairs.get(i - 1) >>> 32)){
+				++listLength;
+			}
+			else{
+				listLength = 1;
+			}
+			maxListLength = Math.max(maxListLength, listLength);
+		}
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeLong(numIds);
+		out.writeLong(numPairs);
+		out.writeInt(maxListLength);
+		out.writeInt(0); // Pad the header to HEADER_SIZE
+
+		// offsets[a] is the number of distinct pairs before the list of a
+		long offset = 0L;
+		int j = 0;
+		for(long a = 0; a <= numIds; ++a){
+			while(j < size && (pairs.get(j) >>> 32) < a){
+				if(j == 0 || pairs.get(j) != pairs.get(j - 1)){
+					++offset;
+				}
+				++j;
+			}
+			out.writeLong(offset);
+		}
+		for(int i = 0; i < size; ++i){
+			if(i == 0 || pairs.get(i) != pairs.get(i - 1)){
+				out.writeInt((int) pairs.get(i));
+			}
+		}
+	}
+
+	/**
+	 * An int array mapped in chunks, since one MappedByteBuffer is limited to 2GB
+	 */
+	static class MappedIntArray {
+		static final int CHUNK_BITS = 28; // 1GB per chunk
+		static final long CHUNK_INTS = 1L << CHUNK_BITS;
+
+		private IntBuffer[] chunks;
+
+		MappedIntArray(FileChannel channel, long offset, long length) throws IOException{
+			int numChunks = (int) ((length + CHUNK_INTS - 1) / CHUNK_INTS);
+			chunks = new IntBuffer[numChunks];
+			for(int i = 0; i < numChunks; ++i){
+				long from = i * CHUNK_INTS;
+				long to = Math.min(length, from + CHUNK_INTS);
+				chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+						offset + from * 4L, (to - from) * 4L).asIntBuffer();
+			}
+		}
+
+		int get(long index){
+			return chunks[(int) (index >>> CHUNK_BITS)].get((int) (index & (CHUNK_INTS - 1)));
+		}
+	}
+}
@@ -6,11 +6,14 @@ import java.io.IOException;
 
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableUtils;
 
 import dbg.hadoop.subgraphs.utils.HyperVertex;
 
 
 public class HVArray implements WritableComparable, Writable {
+	public static final int COMPACT_FLAG = 0x80;
+	
 	protected long[] hyperVertexArray;
 	protected int length = 0;
 	protected int pos = 0;
@@ -74,21 +77,7 @@ public class HVArray implements WritableComparable, Writable {
 		System.arraycopy(largerThanCur, 0, this.hyperVertexArray, len1, len2);
 	}*/
 	public HVArray(long[] array1, long[] array2){
-		int len1 = array1.length;
-		if(array2 == null){
-			this.length = len1 + 1;
-			this.hyperVertexArray = new long[len1 + 1];
-			this.hyperVertexArray[0] = -1L;
-			System.arraycopy(array1, 0, this.hyperVertexArray, 1, len1);
-		}
-		else{
-			int len2 = array2.length;
-			this.length = len1 + len2 + 1;
-			this.hyperVertexArray = new long[len1 + len2 + 1];
-			this.hyperVertexArray[0] = len1;
-			System.arraycopy(array1, 0, this.hyperVertexArray, 1, len1);
-			System.arraycopy(array2, 0, this.hyperVertexArray, len1 + 1, len2);
-		}
+		this.set(array1, array2);
 	}
 	
 	/**
@@ -104,7 +93,14 @@ public class HVArray implements WritableComparable, Writable {
 		this.set(v1, v2, v3, keyMap);
 	}
 	
-	private void set(long _v1, long _v2, long _v3, byte _keyMap){
+	/**
+	 * The set methods below write into hyperVertexArray in place and only allocate
+	 * when the size changes, so a mapper or reducer can keep one output key / value
+	 * and set it for every record instead of allocating a new one. <br>
+	 * Note that readFields() still allocates, since the values of a reducer
+	 * are often kept by toArrays().
+	 */
+	public void set(long _v1, long _v2, long _v3, byte _keyMap){
 		switch (_keyMap){
 		case 0: //000
 			this.set(_v1, _v2, _v3);
@@ -128,42 +124,65 @@ public class HVArray implements WritableComparable, Writable {
 			this.set(_v3);
 			break;
 		case 7: // 111
-			this.length = 0;
-			this.hyperVertexArray = new long[0];
+			this.resize(0);
 			break;
 		default:
 			break;	
 		}
 	}
 	
-	private void set(long _v){
-		this.length = 1;
-		this.hyperVertexArray = new long[1];
+	public void set(long _v){
+		this.resize(1);
 		this.hyperVertexArray[0] = _v;
 	}
 	
-	private void set(long _v1, long _v2){
-		this.length = 2;
-		this.hyperVertexArray = new long[2];
+	public void set(long _v1, long _v2){
+		this.resize(2);
 		this.hyperVertexArray[0] = _v1;
 		this.hyperVertexArray[1] = _v2;
 	}
 	
-	private void set(long _v1, long _v2, long _v3){
-		this.length = 3;
-		this.hyperVertexArray = new long[3];
+	public void set(long _v1, long _v2, long _v3){
+		this.resize(3);
 		this.hyperVertexArray[0] = _v1;
 		this.hyperVertexArray[1] = _v2;
 		this.hyperVertexArray[2] = _v3;
 	}
 	
-	
 	public void set(long[] vertices){
-		this.length = vertices.length;
-		this.hyperVertexArray = new long[this.length];
+		this.resize(vertices.length);
 		System.arraycopy(vertices, 0, this.hyperVertexArray, 0, this.length);
 	}
 	
+	/**
+	 * Set to the partitioned format of HVArray(array1, array2)
+	 */
+	public void set(long[] array1, long[] array2){
+		int len1 = array1.length;
+		if(array2 == null){
+			this.resize(len1 + 1);
+			this.hyperVertexArray[0] = -1L;
+			System.arraycopy(array1, 0, this.hyperVertexArray, 1, len1);
+		}
+		else{
+			int len2 = array2.length;
+			this.resize(len1 + len2 + 1);
+			this.hyperVertexArray[0] = len1;
+			System.arraycopy(array1, 0, this.hyperVertexArray, 1, len1);
+			System.arraycopy(array2, 0, this.hyperVertexArray, len1 + 1, len2);
+		}
+	}
+	
+	/**
+	 * toArrays() returns hyperVertexArray itself, so its length is always kept equal to the size
+	 */
+	private void resize(int _size){
+		if(this.hyperVertexArray == null || this.hyperVertexArray.length != _size){
+			this.hyperVertexArray = new long[_size];
+		}
+		this.length = _size;
+	}
+	
 	public void set(int index, long val){
 		this.hyperVertexArray[index] = val;
 	}
@@ -258,8 +277,14 @@ public class HVArray implements WritableComparable, Writable {
 	@Override
 	public void readFields(DataInput in) throws IOException {
 		// TODO Auto-generated method stub
-		this.length = in.readInt();
+		int first = in.readUnsignedByte();
 		this.pos = 0;
+		if((first & COMPACT_FLAG) != 0){
+			this.readCompact(in);
+			return;
+		}
+		// The first byte of the legacy 4-byte length never has the compact flag
+		this.length = (first << 24) | (in.readUnsignedByte() << 16) | in.readUnsignedShort();
 		this.hyperVertexArray = new long[this.length];
 		for(int i = 0; i < this.length; ++i){
 			hyperVertexArray[i]= in.readLong();
@@ -274,6 +299,51 @@ public class HVArray implements WritableComparable, Writable {
 			out.writeLong(this.hyperVertexArray[i]);
 	}
 	
+	/**
+	 * The compact format: COMPACT_FLAG, the length as a vlong and then for every vertex,
+	 * relative to the previous one, two vlongs: the difference of the bits above the
+	 * vertex id, and the difference of the ids if the former is 0 or else the id itself. <br>
+	 * Sorted vertex lists mostly take 2 ~ 5 bytes per vertex instead of 8.
+	 * readFields() accepts both formats. See CompactHVArraySerialization.
+	 */
+	public void writeCompact(DataOutput out) throws IOException {
+		out.writeByte(COMPACT_FLAG);
+		WritableUtils.writeVLong(out, this.length);
+		long prev = 0L;
+		for(int i = 0; i < this.length; ++i){
+			long v = this.hyperVertexArray[i];
+			int idBits = HyperVertex.numIdBits();
+			long idMask = (1L << idBits) - 1;
+			long high = (v >>> idBits) - (prev >>> idBits);
+			WritableUtils.writeVLong(out, high);
+			WritableUtils.writeVLong(out, (high == 0) ? (v & idMask) - (prev & idMask) : (v & idMask));
+			prev = v;
+		}
+	}
+	
+	/**
+	 * Decode one vertex of the compact format
+	 * @param prev The previous vertex, 0 for the first one
+	 * @param high The first vlong
+	 * @param low The second vlong
+	 */
+	public static long decodeCompact(long prev, long high, long low){
+		int idBits = HyperVertex.numIdBits();
+		long idMask = (1L << idBits) - 1;
+		return (((prev >>> idBits) + high) << idBits) | ((high == 0) ? (prev & idMask) + low : low);
+	}
+	
+	private void readCompact(DataInput in) throws IOException {
+		this.length = (int) WritableUtils.readVLong(in);
+		this.hyperVertexArray = new long[this.length];
+		long prev = 0L;
+		for(int i = 0; i < this.length; ++i){
+			long high = WritableUtils.readVLong(in);
+			prev = decodeCompact(prev, high, WritableUtils.readVLong(in));
+			hyperVertexArray[i] = prev;
+		}
+	}
+	
 	@Override
 	public int hashCode(){
 		int sum = 0;
@@ -1,6 +1,10 @@
 package dbg.hadoop.subgraphs.io;
 
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
 
 import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.HyperVertex;
@@ -12,8 +16,22 @@ public class HVArrayComparator extends WritableComparator {
 		// TODO Auto-generated constructor stub
 	}
 	
+	/**
+	 * Load the hypervertex encoding of the job, the sort runs before any mapper or reducer
+	 */
+	@Override
+	public void setConf(Configuration conf){
+		super.setConf(conf);
+		HyperVertex.loadMode(conf);
+	}
+	
 	@Override
 	public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2){
+		boolean compact1 = (b1[s1] & HVArray.COMPACT_FLAG) != 0;
+		boolean compact2 = (b2[s2] & HVArray.COMPACT_FLAG) != 0;
+		if(compact1 || compact2){
+			return compareCompact(b1, s1, compact1, b2, s2, compact2);
+		}
 		int cmp = 0;
 		int len1 = readInt(b1, s1);
 		int len2 = readInt(b2, s2);
@@ -23,8 +41,8 @@ public class HVArrayComparator extends WritableComparator {
 		}
 		long cpr1 = 0L, cpr2 = 0L;
 		for(int i = 0; i < len1; ++i){
-			cpr1 = readLong(b1, s1 + Config.NUMINTBITS + i * Config.NUMLONGBITS) & HyperVertex.COMP_MASK;
-			cpr2 = readLong(b2, s2 + Config.NUMINTBITS + i * Config.NUMLONGBITS) & HyperVertex.COMP_MASK;
+			cpr1 = HyperVertex.compKey(readLong(b1, s1 + Config.NUMINTBITS + i * Config.NUMLONGBITS));
+			cpr2 = HyperVertex.compKey(readLong(b2, s2 + Config.NUMINTBITS + i * Config.NUMLONGBITS));
 			cmp = (cpr1 < cpr2) ? -1 : ((cpr1 == cpr2) ? 0: 1);
 			if(0 != cmp){
 				return cmp;
@@ -33,4 +51,58 @@ public class HVArrayComparator extends WritableComparator {
 		return cmp; 
 	}
 	
-}
\ No newline at end of file
+	/**
+	 * The same order when either side is in the compact format (see HVArray.writeCompact),
+	 * decoding the vertices of each side one by one in place, in its own format
+	 */
+	private static int compareCompact(byte[] b1, int s1, boolean compact1,
+			byte[] b2, int s2, boolean compact2){
+		try {
+			int p1 = compact1 ? s1 + 1 : s1 + Config.NUMINTBITS;
+			int p2 = compact2 ? s2 + 1 : s2 + Config.NUMINTBITS;
+			long len1 = compact1 ? readVLong(b1, s1 + 1) : readInt(b1, s1);
+			long len2 = compact2 ? readVLong(b2, s2 + 1) : readInt(b2, s2);
+			if(len1 != len2){
+				return (len1 < len2) ? -1 : 1;
+			}
+			if(compact1){
+				p1 += WritableUtils.decodeVIntSize(b1[p1]);
+			}
+			if(compact2){
+				p2 += WritableUtils.decodeVIntSize(b2[p2]);
+			}
+			long v1 = 0L, v2 = 0L;
+			for(long i = 0; i < len1; ++i){
+				if(compact1){
+					long high1 = readVLong(b1, p1);
+					p1 += WritableUtils.decodeVIntSize(b1[p1]);
+					v1 = HVArray.decodeCompact(v1, high1, readVLong(b1, p1));
+					p1 += WritableUtils.decodeVIntSize(b1[p1]);
+				}
+				else{
+					v1 = readLong(b1, p1);
+					p1 += Config.NUMLONGBITS;
+				}
+				if(compact2){
+					long high2 = readVLong(b2, p2);
+					p2 += WritableUtils.decodeVIntSize(b2[p2]);
+					v2 = HVArray.decodeCompact(v2, high2, readVLong(b2, p2));
+					p2 += WritableUtils.decodeVIntSize(b2[p2]);
+				}
+				else{
+					v2 = readLong(b2, p2);
+					p2 += Config.NUMLONGBITS;
+				}
+				long cpr1 = HyperVertex.compKey(v1);
+				long cpr2 = HyperVertex.compKey(v2);
+				if(cpr1 != cpr2){
+					return (cpr1 < cpr2) ? -1 : 1;
+				}
+			}
+			return 0;
+		} catch (IOException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+	
+}
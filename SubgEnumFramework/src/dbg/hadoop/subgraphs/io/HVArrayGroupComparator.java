@@ -1,5 +1,6 @@
 package dbg.hadoop.subgraphs.io;
 
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.WritableComparator;
 
 import dbg.hadoop.subgraphs.utils.HyperVertex;
@@ -17,6 +18,12 @@ public class HVArrayGroupComparator extends WritableComparator {
 		// TODO Auto-generated constructor stub
 	}
 	
+	@Override
+	public void setConf(Configuration conf){
+		super.setConf(conf);
+		HyperVertex.loadMode(conf);
+	}
+	
 	@Override
 	public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2){
 		int cmp = 0;
@@ -28,8 +35,8 @@ public class HVArrayGroupComparator extends WritableComparator {
 		}
 		long cpr1 = 0L, cpr2 = 0L;
 		for(int i = 0; i < len1; ++i){
-			cpr1 = readLong(b1, s1 + Config.NUMINTBITS + i * Config.NUMLONGBITS) & HyperVertex.COMP_MASK;
-			cpr2 = readLong(b2, s2 + Config.NUMINTBITS + i * Config.NUMLONGBITS) & HyperVertex.COMP_MASK;
+			cpr1 = HyperVertex.compKey(readLong(b1, s1 + Config.NUMINTBITS + i * Config.NUMLONGBITS));
+			cpr2 = HyperVertex.compKey(readLong(b2, s2 + Config.NUMINTBITS + i * Config.NUMLONGBITS));
 			cmp = (cpr1 < cpr2) ? -1 : ((cpr1 == cpr2) ? 0: 1);
 			if(0 != cmp){
 				return cmp;
@@ -51,42 +51,67 @@ public class HVArraySign implements WritableComparable, Writable{
 	 */
 	public HVArraySign(long _v1, long _v2,
 			long _v3, int _sign, byte keyMap) {
+		this.vertexArray = new HVArray();
 		this.set(_v1, _v2, _v3, _sign, keyMap);
 	}
 	
 
-	private void set(long _v1, long _v2, long _v3, int _sign, byte _keyMap){
+	/**
+	 * Set the vertices in place, see HVArray.set(). Note that vertexArray is written to,
+	 * so it should not be shared, as it is after set(HVArray, int)
+	 */
+	public void set(long _v1, long _v2, long _v3, int _sign, byte _keyMap){
 		this.sign = _sign;
 		switch (_keyMap){
 		case 0: //000
-			this.vertexArray = new HVArray();
+			this.vertexArray.set(_v1, _v2, _v3, (byte) 7);
 			this.sign = Integer.MIN_VALUE;
 			break;		
 		case 1: // 001
-			this.vertexArray = new HVArray(_v3);
+			this.vertexArray.set(_v3);
 			break;		
 		case 2: // 010
-			this.vertexArray = new HVArray(_v2);
+			this.vertexArray.set(_v2);
 			break;
 		case 3: // 011
-			this.vertexArray = new HVArray(_v2, _v3);
+			this.vertexArray.set(_v2, _v3);
 			break;
 		case 4: // 100
-			this.vertexArray = new HVArray(_v1);
+			this.vertexArray.set(_v1);
 			break;
 		case 5: // 101
-			this.vertexArray = new HVArray(_v1, _v3);
+			this.vertexArray.set(_v1, _v3);
 			break;
 		case 6: // 110
-			this.vertexArray = new HVArray(_v1, _v2);
+			this.vertexArray.set(_v1, _v2);
 			break;
 		case 7: // 111
-			this.vertexArray = new HVArray(_v1, _v2, _v3);
+			this.vertexArray.set(_v1, _v2, _v3);
 			break;
 		default:
 			break;	
 		}
 	}
+	
+	public void set(long _v, int _sign){
+		this.vertexArray.set(_v);
+		this.sign = _sign;
+	}
+	
+	public void set(long _v1, long _v2, int _sign){
+		this.vertexArray.set(_v1, _v2);
+		this.sign = _sign;
+	}
+	
+	public void set(long _v1, long _v2, long _v3, int _sign){
+		this.vertexArray.set(_v1, _v2, _v3);
+		this.sign = _sign;
+	}
+	
+	public void set(long[] _vertices, int _sign){
+		this.vertexArray.set(_vertices);
+		this.sign = _sign;
+	}
 
 	@Override
 	public void readFields(DataInput in) throws IOException {
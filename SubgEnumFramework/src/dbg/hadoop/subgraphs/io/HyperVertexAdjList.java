@@ -8,6 +8,7 @@ import java.util.Arrays;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
 
+import dbg.hadoop.subgraphs.utils.Config;
 import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.utils.HyperVertexHeap;
 
@@ -22,6 +23,19 @@ public class HyperVertexAdjList implements WritableComparable, Writable{
 	private long[] largeDegreeVertices;
 	private int sizeL;
 	private int sizeS;
+	// The size of the small-degree groups of the vertex, 0 if not partitioned, -1 if not recorded
+	private int groupSize = -1;
+	
+	private static final long[] EMPTY = new long[0];
+	
+	/**
+	 * The conf key of the per-record work budget of the adaptive group size, 0 for none
+	 */
+	public static final String WORK_BUDGET = "map.input.work.budget";
+	
+	// The bits of the first byte of a record, the legacy boolean firstAdd is bit 0
+	private static final int FIRST_ADD = 1;
+	private static final int HAS_GROUP_SIZE = 2;
 	
 	public HyperVertexAdjList(){
 		this.firstAdd = true;
@@ -50,6 +64,10 @@ public class HyperVertexAdjList implements WritableComparable, Writable{
 
 	}
 	
+	public HyperVertexAdjList(long[] smallGroup1, long[] large, boolean _firstAdd){
+		this.set(smallGroup1, large, _firstAdd);
+	}
+	
 	public HyperVertexAdjList(long[] smallGroup0, long[] smallGroup1) throws Exception{
 		this.smallDegreeVerticesGroup0 = smallGroup0;
 		this.smallDegreeVerticesGroup1 = smallGroup1;
@@ -59,6 +77,103 @@ public class HyperVertexAdjList implements WritableComparable, Writable{
 		this.sizeS = this.smallDegreeVerticesGroup1.length;
 	}
 	
+	/**
+	 * Reset current adjList as key {empty} {smallGroup1} {large}. The arrays are not copied.
+	 */
+	public void set(long[] smallGroup1, long[] large, boolean _firstAdd){
+		this.smallDegreeVerticesGroup0 = EMPTY;
+		this.smallDegreeVerticesGroup1 = smallGroup1;
+		this.largeDegreeVertices = large;
+		this.firstAdd = _firstAdd;
+		this.sizeL = large.length;
+		this.sizeS = smallGroup1.length;
+		this.groupSize = -1;
+	}
+	
+	/**
+	 * Reset current adjList as key {smallGroup0} {smallGroup1} {empty}. The arrays are not copied.
+	 */
+	public void set(long[] smallGroup0, long[] smallGroup1){
+		this.smallDegreeVerticesGroup0 = smallGroup0;
+		this.smallDegreeVerticesGroup1 = smallGroup1;
+		this.largeDegreeVertices = EMPTY;
+		this.firstAdd = false;
+		this.sizeL = 0;
+		this.sizeS = smallGroup1.length;
+		this.groupSize = -1;
+	}
+	
+	/**
+	 * How the small-degree neighbors are partitioned into groups given map.input.max.size. <br>
+	 * Group i is [bounds[i], bounds[i + 1]). A remainder no larger than
+	 * maxSize * Config.overSizeRate is merged into the last group.
+	 * @param numSmall The number of small-degree neighbors
+	 * @param maxSize map.input.max.size, 0 means no partition
+	 * @return The group boundaries, of length #groups + 1
+	 */
+	public static int[] groupBoundaries(int numSmall, int maxSize){
+		if(maxSize == 0 || maxSize > numSmall){
+			return new int[] { 0, numSmall };
+		}
+		int numGroups = numSmall / maxSize;
+		if(numSmall - numGroups * maxSize > maxSize * Config.overSizeRate){
+			numGroups += 1;
+		}
+		int[] bounds = new int[numGroups + 1];
+		for(int i = 0; i < numGroups; ++i){
+			bounds[i] = i * maxSize;
+		}
+		bounds[numGroups] = numSmall;
+		return bounds;
+	}
+	
+	/**
+	 * The group size of a vertex for a work budget. <br>
+	 * A record (group, large) makes about C(g, 2) + g * L pairs of neighbors (plus C(L, 2)
+	 * for the first one) and a record (group_i, group_j) g^2, so g is the largest size with
+	 * g^2 / 2 + g * L &lt;= budget. A vertex whose C(S + L, 2) pairs fit is not partitioned.
+	 * @param numSmall S, the number of small-degree neighbors
+	 * @param numLarge L, the number of large-degree neighbors
+	 * @param budget The number of pairs a record should make at most
+	 * @return The group size to pass to groupBoundaries, 0 for no partition
+	 */
+	public static int adaptiveGroupSize(int numSmall, int numLarge, long budget){
+		long all = (long) numSmall + numLarge;
+		if(budget <= 0 || all * (all - 1) / 2 <= budget){
+			return 0;
+		}
+		double g = Math.sqrt((double) numLarge * numLarge + 2.0 * budget) - numLarge;
+		int size = (int) Math.max(1, Math.floor(g));
+		return (size >= numSmall) ? 0 : size;
+	}
+	
+	/**
+	 * @return The number of pairs of neighbors the record makes, the work of a TwinTwig mapper
+	 */
+	public long getWork(){
+		long s0 = this.smallDegreeVerticesGroup0.length, s1 = this.sizeS, l = this.sizeL;
+		if(s0 != 0){
+			return s0 * s1;
+		}
+		long work = s1 * (s1 - 1) / 2 + s1 * l;
+		if(this.firstAdd){
+			work += l * (l - 1) / 2;
+		}
+		return work;
+	}
+	
+	/**
+	 * @return The size of the small-degree groups of the vertex, 0 if it is not partitioned,
+	 * -1 if the writer did not record it (fixed map.input.max.size)
+	 */
+	public int getGroupSize(){
+		return this.groupSize;
+	}
+	
+	public void setGroupSize(int _groupSize){
+		this.groupSize = _groupSize;
+	}
+	
 	public boolean isFirstAdd(){
 		return this.firstAdd;
 	}
@@ -149,7 +264,9 @@ public class HyperVertexAdjList implements WritableComparable, Writable{
 	@Override
 	public void readFields(DataInput in) throws IOException {
 		// TODO Auto-generated method stub
-		this.firstAdd = in.readBoolean();
+		int flags = in.readByte();
+		this.firstAdd = (flags & FIRST_ADD) != 0;
+		this.groupSize = ((flags & HAS_GROUP_SIZE) != 0) ? in.readInt() : -1;
 		
 		int len1 = in.readInt();
 		this.sizeS = in.readInt();
@@ -173,7 +290,13 @@ public class HyperVertexAdjList implements WritableComparable, Writable{
 	@Override
 	public void write(DataOutput out) throws IOException {
 		// TODO Auto-generated method stub
-		out.writeBoolean(this.firstAdd);
+		if(this.groupSize < 0){
+			out.writeBoolean(this.firstAdd);
+		}
+		else{
+			out.writeByte((this.firstAdd ? FIRST_ADD : 0) | HAS_GROUP_SIZE);
+			out.writeInt(this.groupSize);
+		}
 		
 		int len1 = this.smallDegreeVerticesGroup0.length;
 		//int len2 = this.smallDegreeVerticesGroup1.length;
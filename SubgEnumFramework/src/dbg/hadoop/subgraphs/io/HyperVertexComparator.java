@@ -1,5 +1,6 @@
 package dbg.hadoop.subgraphs.io;
 
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.WritableComparator;
 
@@ -12,11 +13,17 @@ public class HyperVertexComparator extends WritableComparator {
 		// TODO Auto-generated constructor stub
 	}
 	
+	@Override
+	public void setConf(Configuration conf){
+		super.setConf(conf);
+		HyperVertex.loadMode(conf);
+	}
+	
 	@Override
 	public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2){
 
-		long cpr1 = readLong(b1, s1) & HyperVertex.COMP_MASK;
-		long cpr2 = readLong(b2, s2) & HyperVertex.COMP_MASK;
+		long cpr1 = HyperVertex.compKey(readLong(b1, s1));
+		long cpr2 = HyperVertex.compKey(readLong(b2, s2));
 		
 		return (cpr1 == cpr2) ? 0 : ((cpr1 < cpr2) ? -1 : 1);
 	}
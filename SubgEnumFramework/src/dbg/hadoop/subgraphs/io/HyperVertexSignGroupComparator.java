@@ -1,5 +1,6 @@
 package dbg.hadoop.subgraphs.io;
 
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.WritableComparator;
 
 import dbg.hadoop.subgraphs.utils.Config;
@@ -12,6 +13,12 @@ public class HyperVertexSignGroupComparator extends WritableComparator {
 		// TODO Auto-generated constructor stub
 	}
 	
+	@Override
+	public void setConf(Configuration conf){
+		super.setConf(conf);
+		HyperVertex.loadMode(conf);
+	}
+	
 	@Override
 	public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2){
 		long v1 = readLong(b1, s1);
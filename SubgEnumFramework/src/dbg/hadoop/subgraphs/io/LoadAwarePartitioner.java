@@ -0,0 +1,400 @@
+package dbg.hadoop.subgraphs.io;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntIntHashMap;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.filecache.DistributedCache;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.CounterGroup;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Partitioner;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+import org.apache.log4j.Logger;
+
+import dbg.hadoop.subgraphs.utils.Config;
+import dbg.hadoop.subgraphs.utils.HyperVertex;
+import dbg.hadoop.subgraphs.utils.SideDataCache;
+import dbg.hadoop.subgraphs.utils.StageStats;
+import dbg.hadoop.subgraphs.utils.Utility;
+
+/**
+ * Partitioner of hypervertex keys that bin-packs the keys by their estimated reducer work
+ * instead of hashing them. <br>
+ * The work of a key is a polynomial of its degree, c0 + c1 * d + c2 * d^2 + ...
+ * On the client, build() reads the degreeFile, takes the vertices heavier than 1 / 16 of the
+ * average reducer load and assigns them, heaviest first, to the least loaded reducer
+ * (the other vertices are spread by id as HyperVertexPartitioner does). The table of the
+ * heavy vertices is shipped through the DistributedCache. <br>
+ * The coefficients can be calibrated from a previous run: the reducers record the time they
+ * spend per degree bucket in counters, GeneralDriver saves them, and calibrate() fits the
+ * polynomial to them. <br>
+ * The "degree" is the one encoded in the keys: the core number if the graph is prepared in the
+ * core order, in which case the table is built from the coreFile and the calibration is kept
+ * apart from that of the degree order.
+ */
+@SuppressWarnings("deprecation")
+public class LoadAwarePartitioner
+	extends Partitioner<LongWritable, Writable>
+	implements Configurable {
+	private static Logger log = Logger.getLogger(LoadAwarePartitioner.class);
+
+	// The name of the table file in the DistributedCache
+	public static final String TABLE = "partition.load.table";
+	public static final String NUM_REDUCERS = "partition.load.reducers";
+	// Where GeneralDriver saves the counters of the run, if set
+	public static final String CALIBRATION = "partition.load.calibration";
+	public static final String COUNTER_GROUP = "LoadAwarePartitioner";
+
+	// Vertices heavier than 1 / HEAVY_FRACTION of the average load are packed
+	private static final int HEAVY_FRACTION = 16;
+
+	private Configuration conf;
+	private TIntIntHashMap table = null;
+	private int numReducers = 0;
+
+	@Override
+	public int getPartition(LongWritable key, Writable value, int numPartitions) {
+		int id = HyperVertex.VertexID(key.get());
+		if(table != null && numPartitions == numReducers){
+			int res = table.get(id);
+			if(res >= 0){
+				return res;
+			}
+		}
+		return id % numPartitions;
+	}
+
+	@Override
+	public Configuration getConf() {
+		return conf;
+	}
+
+	@Override
+	public void setConf(Configuration _conf) {
+		this.conf = _conf;
+		this.numReducers = conf.getInt(NUM_REDUCERS, 0);
+		String name = conf.get(TABLE);
+		if(name == null){
+			return;
+		}
+		try {
+			// Shared with the other tasks of this JVM, never modified
+			table = SideDataCache.get("loadPartitionTable", conf,
+					SideDataCache.getLocalCacheFiles(conf, name),
+					new SideDataCache.Loader<TIntIntHashMap>() {
+						@Override
+						public TIntIntHashMap load(Configuration conf, Path[] files) throws IOException {
+							TIntIntHashMap res = new TIntIntHashMap(1024, 0.5f, -1, -1);
+							LocalFileSystem fs = new LocalFileSystem();
+							IntWritable vertex = new IntWritable(), reducer = new IntWritable();
+							for (Path p : files) {
+								SequenceFile.Reader reader = new SequenceFile.Reader(fs, p, conf);
+								while (reader.next(vertex, reducer)) {
+									res.put(vertex.get(), reducer.get());
+								}
+								reader.close();
+							}
+							return res;
+						}
+					});
+		} catch (IOException e) {
+			log.warn("[LoadAware] Cannot read the partition table, hashing the keys", e);
+			table = null;
+		}
+	}
+
+	/**
+	 * @param coefficients c0, c1, ... separated by commas
+	 */
+	public static double[] parseCoefficients(String coefficients){
+		String[] strs = coefficients.split(",");
+		double[] res = new double[strs.length];
+		for(int i = 0; i < strs.length; ++i){
+			res[i] = Double.parseDouble(strs[i].trim());
+		}
+		return res;
+	}
+
+	public static double cost(double[] coefficients, double degree){
+		double res = 0;
+		for(int j = coefficients.length - 1; j >= 0; --j){
+			res = res * degree + coefficients[j];
+		}
+		return res;
+	}
+
+	/**
+	 * Set the job of conf to partition by the table of the query, and its reducers to record
+	 * their load for the calibration of the next run of the query
+	 * @param coefficients The cost polynomial to use until the query has been calibrated
+	 */
+	public static void configure(Configuration conf, String workDir, String query, int numReducers,
+			String coefficients) throws IOException{
+		Path dir = new Path(workDir + Config.loadPartitionDir);
+		// The same units as the keys record their load in
+		Path orderDir = Utility.getOrderFileDir(workDir);
+		if(orderDir.getName().equals(Config.coreFileDir)){
+			query += ".core";
+		}
+		Path calibration = new Path(dir, query + ".calibration");
+		double[] defaults = parseCoefficients(coefficients);
+		double[] calibrated = calibrate(conf, calibration, defaults.length - 1);
+		if(calibrated != null){
+			log.info("[LoadAware] Cost of " + query + " calibrated to " + Arrays.toString(calibrated));
+		}
+		build(conf, orderDir, new Path(dir, query + ".table"),
+				numReducers, (calibrated != null) ? calibrated : defaults);
+		conf.set(CALIBRATION, calibration.toString());
+	}
+
+	/**
+	 * Compute the partition table from the degreeFile (or the coreFile), write it to tableFile and set the job
+	 * of conf to use it
+	 */
+	public static void build(Configuration conf, Path degreeDir, Path tableFile, int numReducers,
+			double[] coefficients) throws IOException{
+		FileSystem fs = tableFile.getFileSystem(conf);
+		IntWritable key = new IntWritable(), value = new IntWritable();
+		// The first pass: the total load
+		double total = 0;
+		for(FileStatus status : fs.listStatus(degreeDir)){
+			if(!status.getPath().getName().startsWith("part-")){
+				continue;
+			}
+			SequenceFile.Reader reader = new SequenceFile.Reader(fs, status.getPath(), conf);
+			while(reader.next(key, value)){
+				total += cost(coefficients, value.get());
+			}
+			reader.close();
+		}
+		// The second pass: the heavy vertices, at most HEAVY_FRACTION * numReducers of them
+		double heavyThresh = total / numReducers / HEAVY_FRACTION;
+		TIntArrayList heavyIds = new TIntArrayList();
+		final ArrayList<Double> heavyCosts = new ArrayList<Double>();
+		double light = total;
+		for(FileStatus status : fs.listStatus(degreeDir)){
+			if(!status.getPath().getName().startsWith("part-")){
+				continue;
+			}
+			SequenceFile.Reader reader = new SequenceFile.Reader(fs, status.getPath(), conf);
+			while(reader.next(key, value)){
+				double c = cost(coefficients, value.get());
+				if(c > heavyThresh){
+					heavyIds.add(key.get());
+					heavyCosts.add(c);
+					light -= c;
+				}
+			}
+			reader.close();
+		}
+
+		// Longest processing time first, on top of the evenly spread light vertices
+		Integer[] order = new Integer[heavyIds.size()];
+		for(int i = 0; i < order.length; ++i){
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer i, Integer j) {
+				return heavyCosts.get(j).compareTo(heavyCosts.get(i));
+			}
+		});
+		double[] load = new double[numReducers];
+		double[] hashLoad = new double[numReducers];
+		Arrays.fill(load, light / numReducers);
+		Arrays.fill(hashLoad, light / numReducers);
+		SequenceFile.Writer writer = SequenceFile.createWriter(fs, conf, tableFile,
+				IntWritable.class, IntWritable.class);
+		for(int i : order){
+			int best = 0;
+			for(int r = 1; r < numReducers; ++r){
+				if(load[r] < load[best]){
+					best = r;
+				}
+			}
+			load[best] += heavyCosts.get(i);
+			hashLoad[heavyIds.get(i) % numReducers] += heavyCosts.get(i);
+			writer.append(new IntWritable(heavyIds.get(i)), new IntWritable(best));
+		}
+		writer.close();
+
+		DistributedCache.addCacheFile(tableFile.toUri(), conf);
+		conf.set(TABLE, tableFile.getName());
+		conf.setInt(NUM_REDUCERS, numReducers);
+		conf.setClass("mapreduce.job.partitioner.class", LoadAwarePartitioner.class, Partitioner.class);
+		log.info("[LoadAware] " + order.length + " heavy vertices packed, max / average load: "
+				+ String.format("%.3f", max(load) * numReducers / total) + " (hashed: "
+				+ String.format("%.3f", max(hashLoad) * numReducers / total) + ")");
+	}
+
+	private static double max(double[] array){
+		double res = 0;
+		for(double d : array){
+			res = Math.max(res, d);
+		}
+		return res;
+	}
+
+	/**
+	 * @return Whether the reducers of the job are to record their load
+	 */
+	public static boolean isRecording(Configuration conf){
+		return conf.get(CALIBRATION) != null;
+	}
+
+	/**
+	 * Record the work spent on a key, by the bucket of its degree (see StageStats.bucket), so that
+	 * the job keeps at most 3 * (StageStats.MAX_BUCKET + 1) load counters
+	 * @param begin The System.nanoTime() when the key was started
+	 */
+	public static void record(TaskInputOutputContext<?, ?, ?, ?> context, long key, long begin){
+		long nanos = System.nanoTime() - begin;
+		int degree = HyperVertex.Degree(key);
+		int bucket = StageStats.bucket(degree);
+		context.getCounter(COUNTER_GROUP, "keys." + bucket).increment(1);
+		context.getCounter(COUNTER_GROUP, "degree." + bucket).increment(degree);
+		context.getCounter(COUNTER_GROUP, "nanos." + bucket).increment(nanos);
+	}
+
+	/**
+	 * Save the load recorded by the reducers of the job to the file set in CALIBRATION
+	 */
+	public static void saveCalibration(Configuration conf, Counters counters) throws IOException{
+		if(!isRecording(conf) || counters == null){
+			return;
+		}
+		CounterGroup group = counters.getGroup(COUNTER_GROUP);
+		long[][] buckets = new long[33][3];
+		boolean found = false;
+		for(Counter counter : group){
+			String[] name = counter.getName().split("\\.");
+			int bucket = Integer.parseInt(name[1]);
+			int field = name[0].equals("keys") ? 0 : (name[0].equals("degree") ? 1 : 2);
+			buckets[bucket][field] = counter.getValue();
+			found = true;
+		}
+		if(!found){
+			return;
+		}
+		Path file = new Path(conf.get(CALIBRATION));
+		PrintStream out = new PrintStream(file.getFileSystem(conf).create(file, true));
+		for(int b = 0; b < buckets.length; ++b){
+			if(buckets[b][0] > 0){
+				out.println(b + "\t" + buckets[b][0] + "\t" + buckets[b][1] + "\t" + buckets[b][2]);
+			}
+		}
+		out.close();
+	}
+
+	/**
+	 * Fit the coefficients c0 .. c(order) to the load saved by a previous run, by weighted
+	 * least squares over the degree buckets
+	 * @return The coefficients, null if there is no usable calibration
+	 */
+	public static double[] calibrate(Configuration conf, Path file, int order) throws IOException{
+		FileSystem fs = file.getFileSystem(conf);
+		if(!fs.exists(file)){
+			return null;
+		}
+		// At most one line per degree bucket
+		double[] xs = new double[33], ys = new double[33], ws = new double[33];
+		int numBuckets = 0;
+		BufferedReader reader = new BufferedReader(new InputStreamReader(fs.open(file)));
+		String line;
+		double maxX = 0;
+		while((line = reader.readLine()) != null && numBuckets < xs.length){
+			String[] fields = line.split("\t");
+			double keys = Double.parseDouble(fields[1]);
+			xs[numBuckets] = Double.parseDouble(fields[2]) / keys;
+			ys[numBuckets] = Double.parseDouble(fields[3]) / keys;
+			ws[numBuckets] = keys;
+			maxX = Math.max(maxX, xs[numBuckets]);
+			++numBuckets;
+		}
+		reader.close();
+		int n = order + 1;
+		if(numBuckets < n || maxX == 0){
+			return null;
+		}
+		// Normal equations of the degrees scaled to [0, 1], for the conditioning
+		double[][] a = new double[n][n + 1];
+		for(int i = 0; i < numBuckets; ++i){
+			double[] p = new double[n];
+			p[0] = 1;
+			for(int j = 1; j < n; ++j){
+				p[j] = p[j - 1] * xs[i] / maxX;
+			}
+			for(int j = 0; j < n; ++j){
+				for(int k = 0; k < n; ++k){
+					a[j][k] += ws[i] * p[j] * p[k];
+				}
+				a[j][n] += ws[i] * p[j] * ys[i];
+			}
+		}
+		double[] res = solve(a);
+		if(res == null){
+			return null;
+		}
+		boolean positive = false;
+		double scale = 1;
+		for(int j = 0; j < n; ++j){
+			// A negative term would make some keys free, drop it
+			res[j] = Math.max(0, res[j]) / scale;
+			scale *= maxX;
+			positive |= res[j] > 0;
+		}
+		return positive ? res : null;
+	}
+
+	/**
+	 * Gaussian elimination with partial pivoting of the augmented matrix
+	 */
+	private static double[] solve(double[][] a){
+		int n = a.length;
+		for(int col = 0; col < n; ++col){
+			int pivot = col;
+			for(int row = col + 1; row < n; ++row){
+				if(Math.abs(a[row][col]) > Math.abs(a[pivot][col])){
+					pivot = row;
+				}
+			}
+			if(Math.abs(a[pivot][col]) < 1e-12){
+				return null;
+			}
+			double[] tmp = a[col];
+			a[col] = a[pivot];
+			a[pivot] = tmp;
+			for(int row = 0; row < n; ++row){
+				if(row != col){
+					double f = a[row][col] / a[col][col];
+					for(int k = col; k <= n; ++k){
+						a[row][k] -= f * a[col][k];
+					}
+				}
+			}
+		}
+		double[] res = new double[n];
+		for(int i = 0; i < n; ++i){
+			res[i] = a[i][n] / a[i][i];
+		}
+		return res;
+	}
+}
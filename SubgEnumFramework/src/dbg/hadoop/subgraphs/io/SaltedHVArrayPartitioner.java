@@ -0,0 +1,47 @@
+package dbg.hadoop.subgraphs.io;
+
+import org.apache.hadoop.io.Writable;
+
+/**
+ * HVArrayPartitioner for keys of which some are split into shards. <br>
+ * A split key is the original (v1, v2) followed by a salt that holds the number of
+ * shards R and a pair of shards a <= b < R. The R * (R + 1) / 2 salted keys of (v1, v2)
+ * go to consecutive reducers starting from the partition of (v1, v2) itself, other keys
+ * are partitioned by HVArrayPartitioner.
+ */
+public class SaltedHVArrayPartitioner extends HVArrayPartitioner {
+	private HVArray base = new HVArray(2);
+
+	@Override
+	public int getPartition(HVArray key, Writable value, int numPartitions) {
+		if(key.size() != 3){
+			return super.getPartition(key, value, numPartitions);
+		}
+		base.set(0, key.getFirst());
+		base.set(1, key.getSecond());
+		long salt = key.getLast();
+		int shards = numShards(salt), a = firstShard(salt), b = secondShard(salt);
+		// The index of (a, b) among the pairs a <= b < shards
+		int index = a * shards - a * (a - 1) / 2 + (b - a);
+		return (int) (((base.hashCode() & Integer.MAX_VALUE) + (long) index) % numPartitions);
+	}
+
+	/**
+	 * @return The salt of the pair of shards (a, b), a <= b < numShards < 2^15
+	 */
+	public static long salt(int numShards, int a, int b){
+		return ((long) numShards << 32) | ((long) a << 16) | b;
+	}
+
+	public static int numShards(long salt){
+		return (int) (salt >>> 32);
+	}
+
+	public static int firstShard(long salt){
+		return (int) ((salt >>> 16) & 0xFFFF);
+	}
+
+	public static int secondShard(long salt){
+		return (int) (salt & 0xFFFF);
+	}
+}
@@ -0,0 +1,288 @@
+package dbg.hadoop.subgraphs.io;
+
+import gnu.trove.list.array.TLongArrayList;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.log4j.Logger;
+
+/**
+ * Read-only, memory-mapped index of triangle.res from an edge to the third vertices
+ * of its triangles, for the broadcast (map-side) joins against the triangles. <br>
+ * Every triangle (v1, v2, v3) is indexed under the three edges EnumHouseTriangleMapper keys it by:
+ * (v2, v3) : v1, (v1, v3) : v2 and (v1, v2) : v3. <br>
+ * The file is laid out as (all numbers big-endian): <br>
+ * header: magic, version, #edges n, #third vertices, max list length <br>
+ * edges[2n]: the edges (a, b), sorted by a then by b <br>
+ * offsets[n + 1]: CSR offsets, indexed by the position of the edge <br>
+ * thirds[]: for each edge, the third vertices of its triangles (sorted) <br>
+ *
+ * A probe is a binary search over the edges, and the list returned is a zero-copy
+ * slice of the mapping that all tasks on a node share through the page cache.
+ */
+public class TriangleIndex {
+	private static Logger log = Logger.getLogger(TriangleIndex.class);
+
+	public static final int MAGIC = 0x54494458; // "TIDX"
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 32;
+
+	private long numEdges;
+	private long numThirds;
+	private int maxListLength;
+
+	private CSRGraph.MappedLongArray edges;
+	private CSRGraph.MappedLongArray offsets;
+	private CSRGraph.MappedLongArray thirds;
+
+	private static final LongBuffer EMPTY = LongBuffer.allocate(0);
+
+	public TriangleIndex(File file) throws IOException{
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			if(raf.readInt() != MAGIC){
+				throw new IOException(file + " is not a triangle index file.");
+			}
+			int version = raf.readInt();
+			if(version != VERSION){
+				throw new IOException("Unsupported triangle index version: " + version);
+			}
+			numEdges = raf.readLong();
+			numThirds = raf.readLong();
+			maxListLength = raf.readInt();
+
+			FileChannel channel = raf.getChannel();
+			long pos = HEADER_SIZE;
+			edges = new CSRGraph.MappedLongArray(channel, pos, 2 * numEdges, 0);
+			pos += 2 * numEdges * 8L;
+			offsets = new CSRGraph.MappedLongArray(channel, pos, numEdges + 1, 0);
+			pos += (numEdges + 1) * 8L;
+			thirds = new CSRGraph.MappedLongArray(channel, pos, numThirds, maxListLength);
+		} finally {
+			// The mappings stay valid after the file is closed
+			raf.close();
+		}
+	}
+
+	public long getNumEdges(){
+		return this.numEdges;
+	}
+
+	public long getNumThirds(){
+		return this.numThirds;
+	}
+
+	public int getMaxListLength(){
+		return this.maxListLength;
+	}
+
+	/**
+	 * @return The third vertices of the triangles on the edge (a, b), sorted, with
+	 * the duplicates of triangle.res kept (zero-copy, empty if there is none)
+	 */
+	public LongBuffer getThirds(long a, long b){
+		long low = 0, high = numEdges - 1;
+		while(low <= high){
+			long mid = (low + high) >>> 1;
+			int cmp = compare(edges.get(2 * mid), edges.get(2 * mid + 1), a, b);
+			if(cmp < 0){
+				low = mid + 1;
+			}
+			else if(cmp > 0){
+				high = mid - 1;
+			}
+			else{
+				long from = offsets.get(mid);
+				return thirds.slice(from, (int) (offsets.get(mid + 1) - from));
+			}
+		}
+		return EMPTY;
+	}
+
+	/**
+	 * @return The number of distinct vertices of a sorted list
+	 */
+	public static int countDistinct(LongBuffer list){
+		int res = 0;
+		for(int i = 0; i < list.limit(); ++i){
+			if(i == 0 || list.get(i) != list.get(i - 1)){
+				++res;
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * @return The number of vertices of a sorted list smaller than v, duplicates included
+	 */
+	public static int countLess(LongBuffer list, long v){
+		int low = 0, high = list.limit();
+		while(low < high){
+			int mid = (low + high) >>> 1;
+			if(list.get(mid) < v){
+				low = mid + 1;
+			}
+			else{
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @return Whether a sorted list contains v
+	 */
+	public static boolean contains(LongBuffer list, long v){
+		int pos = countLess(list, v);
+		return pos < list.limit() && list.get(pos) == v;
+	}
+
+	private static int compare(long a1, long b1, long a2, long b2){
+		if(a1 != a2){
+			return (a1 < a2) ? -1 : 1;
+		}
+		return (b1 < b2) ? -1 : ((b1 == b2) ? 0 : 1);
+	}
+
+	/**
+	 * @return The size in bytes of the triangle.res files (part-*)
+	 */
+	public static long getInputSize(FileSystem fs, Path triangleDir) throws IOException{
+		long size = 0L;
+		for (FileStatus status : fs.listStatus(triangleDir)) {
+			if (status.getPath().getName().startsWith("part-")) {
+				size += status.getLen();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Build the index of triangle.res. The (edge, third vertex) entries are
+	 * sorted in memory, which the callers only do for a small triangle set.
+	 * @param fs The file system of both triangleDir and indexFile
+	 * @param triangleDir The triangle.res directory
+	 * @param indexFile The output file
+	 */
+	public static void write(FileSystem fs, Path triangleDir, Path indexFile) throws IOException{
+		// (a, b, third) triples
+		TLongArrayList entries = new TLongArrayList();
+		Configuration conf = fs.getConf();
+		NullWritable key = NullWritable.get();
+		HVArray value = new HVArray();
+		for (FileStatus status : fs.listStatus(triangleDir)) {
+			if (!status.getPath().getName().startsWith("part-")) {
+				continue;
+			}
+			SequenceFile.Reader reader = new SequenceFile.Reader(fs, status.getPath(), conf);
+			while (reader.next(key, value)) {
+				long v1 = value.getFirst(), v2 = value.getSecond(), v3 = value.getLast();
+				entries.add(v2); entries.add(v3); entries.add(v1);
+				entries.add(v1); entries.add(v3); entries.add(v2);
+				entries.add(v1); entries.add(v2); entries.add(v3);
+			}
+			reader.close();
+		}
+		long[] array = entries.toArray();
+		entries = null;
+		sortTriples(array);
+
+		int numThirds = array.length / 3;
+		int numEdges = 0, maxListLength = 0, listLength = 0;
+		for (int i = 0; i < numThirds; ++i) {
+			if (i == 0 || compare(array[3 * i], array[3 * i + 1], array[3 * i - 3], array[3 * i - 2]) != 0) {
+				++numEdges;
+				listLength = 0;
+			}
+			maxListLength = Math.max(maxListLength, ++listLength);
+		}
+
+		File outFile = File.createTempFile(indexFile.getName(), "");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outFile)));
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeLong(numEdges);
+		out.writeLong(numThirds);
+		out.writeInt(maxListLength);
+		out.writeInt(0); // Pad the header to HEADER_SIZE
+		for (int i = 0; i < numThirds; ++i) {
+			if (i == 0 || compare(array[3 * i], array[3 * i + 1], array[3 * i - 3], array[3 * i - 2]) != 0) {
+				out.writeLong(array[3 * i]);
+				out.writeLong(array[3 * i + 1]);
+			}
+		}
+		for (int i = 0; i < numThirds; ++i) {
+			if (i == 0 || compare(array[3 * i], array[3 * i + 1], array[3 * i - 3], array[3 * i - 2]) != 0) {
+				out.writeLong(i);
+			}
+		}
+		out.writeLong(numThirds);
+		for (int i = 0; i < numThirds; ++i) {
+			out.writeLong(array[3 * i + 2]);
+		}
+		out.close();
+
+		fs.delete(indexFile, true);
+		fs.copyFromLocalFile(true, true, new Path(outFile.getAbsolutePath()), indexFile);
+		log.info("Triangle index " + indexFile + ": " + numEdges + " edges, " + numThirds
+				+ " third vertices, max list length = " + maxListLength);
+	}
+
+	/**
+	 * Heap sort of the (a, b, third) triples, in place
+	 */
+	private static void sortTriples(long[] array){
+		int n = array.length / 3;
+		for (int i = n / 2 - 1; i >= 0; --i) {
+			siftDown(array, i, n);
+		}
+		for (int end = n - 1; end > 0; --end) {
+			swap(array, 0, end);
+			siftDown(array, 0, end);
+		}
+	}
+
+	private static void siftDown(long[] array, int i, int n){
+		while (2 * i + 1 < n) {
+			int child = 2 * i + 1;
+			if (child + 1 < n && compareTriples(array, child + 1, child) > 0) {
+				++child;
+			}
+			if (compareTriples(array, i, child) >= 0) {
+				return;
+			}
+			swap(array, i, child);
+			i = child;
+		}
+	}
+
+	private static int compareTriples(long[] array, int i, int j){
+		int cmp = compare(array[3 * i], array[3 * i + 1], array[3 * j], array[3 * j + 1]);
+		if (cmp != 0) {
+			return cmp;
+		}
+		long x = array[3 * i + 2], y = array[3 * j + 2];
+		return (x < y) ? -1 : ((x == y) ? 0 : 1);
+	}
+
+	private static void swap(long[] array, int i, int j){
+		for (int k = 0; k < 3; ++k) {
+			long tmp = array[3 * i + k];
+			array[3 * i + k] = array[3 * j + k];
+			array[3 * j + k] = tmp;
+		}
+	}
+}
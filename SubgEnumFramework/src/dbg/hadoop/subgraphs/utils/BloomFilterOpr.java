@@ -1,5 +1,7 @@
 package dbg.hadoop.subgraphs.utils;
 
+import gnu.trove.list.array.TLongArrayList;
+
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
@@ -9,7 +11,6 @@ import java.io.FileInputStream;
 import java.io.IOException;
 
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.filecache.DistributedCache;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
@@ -20,9 +21,11 @@ import org.apache.hadoop.io.SequenceFile;
 import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.log4j.Logger;
 
+import dbg.hadoop.subgraphs.io.EdgeIndex;
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.utils.bloomfilter.utils.BloomFilter;
 import dbg.hadoop.subgraphs.utils.bloomfilter.utils.FilterFactory;
+import dbg.hadoop.subgraphs.utils.bloomfilter.utils.IPairFilter;
 
 
 public class BloomFilterOpr{
@@ -31,8 +34,17 @@ public class BloomFilterOpr{
 	private float falsePositive;
 	private long elementSize;
 	private int bfType;
+	// Build a cache-line blocked filter instead of the plain Murmur3 one
+	private boolean blocked = false;
 	//private static double bloomFilterFPRate = 0.001;
 	private BloomFilter bloomFilter;
+	// Build an exact EdgeIndex of the pairs instead of a Bloom filter
+	private boolean exact = false;
+	private TLongArrayList exactPairs;
+	// What the tasks test against: the Bloom filter or the EdgeIndex
+	private IPairFilter filter;
+	// The filter counting its probes for StageStats
+	private IPairFilter counted = null;
 	
 	public static Logger log = Logger.getLogger(BloomFilterOpr.class);
 	
@@ -87,6 +99,14 @@ public class BloomFilterOpr{
 		
 	}
 	
+	public void setBlocked(boolean _blocked){
+		blocked = _blocked;
+	}
+	
+	public void setExact(boolean _exact){
+		exact = _exact;
+	}
+	
 	/**
 	 * This is for the api consistence
 	 * @param dir Input file dir
@@ -117,8 +137,19 @@ public class BloomFilterOpr{
 			System.err.println("No graph file defined");
 			return;
 		}
-		bloomFilter = (BloomFilter) FilterFactory.getFilter(this.elementSize, 
-				this.falsePositive, true);
+		// The readers load any kind, obtainBloomFilter tells them apart
+		if(this.exact){
+			bloomFilter = null;
+			exactPairs = new TLongArrayList();
+		}
+		else if(this.blocked){
+			bloomFilter = (BloomFilter) FilterFactory.getBlockedFilter(this.elementSize, 
+					this.falsePositive, true);
+		}
+		else{
+			bloomFilter = (BloomFilter) FilterFactory.getFilter(this.elementSize, 
+					this.falsePositive, true);
+		}
 		
 		FileStatus[] status = fs.listStatus(new Path(filePath));
 		for (int i = 0; i < status.length; ++i) {
@@ -133,7 +164,7 @@ public class BloomFilterOpr{
 					LongWritable value = (LongWritable) reader.getValueClass()
 							.newInstance();
 					while (reader.next(key, value)) {
-						bloomFilter.add(HyperVertex.VertexID(key.get()),
+						addPair(HyperVertex.VertexID(key.get()),
 								HyperVertex.VertexID(value.get()));
 					}
 				}
@@ -142,7 +173,7 @@ public class BloomFilterOpr{
 					IntWritable value = (IntWritable) reader
 							.getValueClass().newInstance();
 					while (reader.next(key, value)) {
-						bloomFilter.add(HyperVertex.VertexID(key.getFirst()),
+						addPair(HyperVertex.VertexID(key.getFirst()),
 								HyperVertex.VertexID(key.getSecond()));
 					}
 				}
@@ -156,6 +187,19 @@ public class BloomFilterOpr{
 	}
 	
 	
+	private void addPair(int a, int b){
+		if(exactPairs != null){
+			exactPairs.add(EdgeIndex.pack(a, b));
+		}
+		else{
+			bloomFilter.add(a, b);
+		}
+	}
+	
+	/**
+	 * The exact index is written under the name of the Bloom filter, so the jobs
+	 * that add the filter to the DistributedCache pick it up unchanged
+	 */
 	@SuppressWarnings("deprecation")
 	public void writeBloomFilter()
 			throws IOException {
@@ -167,7 +211,13 @@ public class BloomFilterOpr{
 
 		DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(
 				new FSDataOutputStream(fs.create(new Path(outputFile)))));
-		FilterFactory.serialize(bloomFilter, outputStream);
+		if(exactPairs != null){
+			EdgeIndex.write(outputStream, exactPairs);
+			log.info("Exact edge index: " + exactPairs.size() + " pairs");
+		}
+		else{
+			FilterFactory.serialize(bloomFilter, outputStream);
+		}
 		outputStream.close();
 	}
 	
@@ -180,30 +230,42 @@ public class BloomFilterOpr{
 	 * @throws IOException
 	 * @throws ClassNotFoundException
 	 */
-	@SuppressWarnings("unchecked")
 	public void obtainBloomFilter(Configuration conf) throws IOException, ClassNotFoundException{
 		//String bloomFilterFile = bloomFilterDir + "/" + "bloomFilter.out." + bloomFilterFPRate;
-		Path[] paths = DistributedCache.getLocalCacheFiles(conf);
-		//BloomFilter bf = null;
-		this.bloomFilter = null;
-		for (int i = 0; i < paths.length; ++i) {
-			if (paths[i].toString().contains("bloomFilter." + this.bfType + "." + this.falsePositive)) {
-				//if(!paths[i].toString().endsWith(Config.EDGE + "." + this.falsePositive)){
-				//	continue;
-				//}
-				DataInputStream inputStream = new DataInputStream
-						(new BufferedInputStream(
-								new FileInputStream(new File(paths[i].toString()))));
-				this.bloomFilter = (BloomFilter) FilterFactory.deserialize(inputStream, true);
-				inputStream.close();
-				break;
-			}
-
+		Path[] paths = SideDataCache.getLocalCacheFiles(conf,
+				"bloomFilter." + this.bfType + "." + this.falsePositive);
+		this.filter = null;
+		this.counted = null;
+		if (paths.length == 0) {
+			return;
 		}
+		// The filter is only read by the tasks, so all of them in this JVM share one copy
+		Path[] bfPath = { paths[0] };
+		this.filter = SideDataCache.get("bloomFilter", conf, bfPath,
+				new SideDataCache.Loader<IPairFilter>() {
+					@Override
+					public IPairFilter load(Configuration conf, Path[] files) throws IOException {
+						File file = new File(files[0].toString());
+						if (EdgeIndex.isEdgeIndex(file)) {
+							return new EdgeIndex(file);
+						}
+						DataInputStream inputStream = new DataInputStream
+								(new BufferedInputStream(new FileInputStream(file)));
+						BloomFilter bf = (BloomFilter) FilterFactory.deserialize(inputStream, true);
+						inputStream.close();
+						return bf;
+					}
+				});
 	}
 	
-	public BloomFilter get(){
-		return this.bloomFilter;
+	/**
+	 * @return The filter loaded by obtainBloomFilter, an exact EdgeIndex if one was built
+	 */
+	public IPairFilter get(){
+		if(StageStats.isEnabled() && this.counted == null && this.filter != null){
+			this.counted = StageStats.count(this.filter);
+		}
+		return (this.counted != null) ? this.counted : this.filter;
 	}
 	
 	
@@ -13,7 +13,8 @@ import gnu.trove.set.hash.TLongHashSet;
  * vertices in K with v form a clique. There, we just use the large clique to record all these cliques.
  * As the result, the Clique Encoding has the form:
  * (v, cliqueSize - 1, sizeOfVerticesIn{K}, verticesIn{K}, cliqueArray), 
- * where K is the large clique that contains v
+ * where K is the large clique that contains v. <br>
+ * Use CliqueIterator to go through the cliques of an encoding without expanding it.
  */
 public class CliqueEncoder{
   private int k = 4;
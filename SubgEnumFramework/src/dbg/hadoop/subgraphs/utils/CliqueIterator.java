@@ -0,0 +1,279 @@
+package dbg.hadoop.subgraphs.utils;
+
+/**
+ * Streams the cliques of a CliqueEncoder encoding one by one, without expanding it. <br>
+ * The encoding is made of segments: the large clique K (any k of its vertices form a clique
+ * with v), the compressed groups (the normal vertices together with any k - m of the common
+ * clique neighbors) and, when sizeOfVerticesIn{K} is -1, the plain cliques of k vertices.
+ * Only the positions of the chosen vertices in the current segment are kept, so a reset
+ * iterator allocates nothing. <br>
+ * Usage:
+ * <pre>
+ * it.reset(encoded);
+ * while(it.next()){
+ *   long[] clique = it.current(); // v followed by the k sorted vertices
+ * }
+ * </pre>
+ * skip(n) jumps over the next n cliques (before the filter) without building them,
+ * limit(n) stops after n cliques have been returned (after the filter).
+ */
+public class CliqueIterator {
+	/**
+	 * Cliques rejected by the filter are not returned by next()
+	 */
+	public interface Filter {
+		/**
+		 * @param clique The clique, only its first size entries are valid
+		 */
+		boolean accept(long[] clique, int size);
+	}
+
+	private long[] array = null;
+	private int k = 0;
+	// v followed by the k vertices, shared by all the cliques returned
+	private long[] clique = new long[1];
+	// The positions of the chosen vertices among the n candidates of the segment
+	private int[] comb = new int[0];
+
+	// The next segment in array
+	private int index = 0;
+	private boolean largeClique = false;
+	private boolean plain = false;
+	// The current segment: m fixed vertices at fixedPos and r = k - m chosen among n at from
+	private int fixedPos = 0, m = 0, from = 0, n = 0, r = 0;
+	private long segCount = 0L, remaining = 0L;
+
+	private long toSkip = 0L;
+	private long limit = -1L;
+	private long returned = 0L;
+	private Filter filter = null;
+
+	public CliqueIterator(){
+	}
+
+	public CliqueIterator(long[] encoded){
+		reset(encoded);
+	}
+
+	/**
+	 * Start over on another encoding, the filter is kept while skip and limit are cleared
+	 * @param encoded The output of CliqueEncoder.getEncodedCliques(), may be null
+	 */
+	public CliqueIterator reset(long[] encoded){
+		array = encoded;
+		toSkip = 0L;
+		limit = -1L;
+		returned = 0L;
+		segCount = remaining = 0L;
+		if(array == null || array.length < 3){
+			array = null;
+			return this;
+		}
+		k = (int) array[1];
+		if(clique.length != k + 1){
+			clique = new long[k + 1];
+			comb = new int[k];
+		}
+		clique[0] = array[0];
+		index = 3;
+		plain = (array[2] == -1);
+		largeClique = !plain;
+		return this;
+	}
+
+	/**
+	 * Skip the next num cliques, including those the filter would reject
+	 */
+	public CliqueIterator skip(long num){
+		if(num <= 0){
+			return this;
+		}
+		if(num < remaining){
+			unrank(segCount - remaining + num);
+			remaining -= num;
+		}
+		else{
+			toSkip += num - remaining;
+			remaining = 0L;
+		}
+		return this;
+	}
+
+	/**
+	 * Return at most num more cliques, a negative num for no limit
+	 */
+	public CliqueIterator limit(long num){
+		limit = (num < 0) ? -1L : returned + num;
+		return this;
+	}
+
+	public CliqueIterator filter(Filter _filter){
+		this.filter = _filter;
+		return this;
+	}
+
+	/**
+	 * Move to the next clique
+	 * @return false if there is none
+	 */
+	public boolean next(){
+		while(limit < 0 || returned < limit){
+			if(!advance()){
+				return false;
+			}
+			if(filter == null || filter.accept(clique, k + 1)){
+				++returned;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return The current clique, v followed by the k sorted vertices. The array is
+	 * overwritten by next(), copy it to keep the clique
+	 */
+	public long[] current(){
+		return clique;
+	}
+
+	/**
+	 * @return The number of vertices of a clique, k + 1
+	 */
+	public int size(){
+		return k + 1;
+	}
+
+	private boolean advance(){
+		while(remaining == 0){
+			if(!nextSegment()){
+				return false;
+			}
+		}
+		fill();
+		--remaining;
+		if(remaining > 0){
+			step();
+		}
+		return true;
+	}
+
+	/**
+	 * Enter the next segment, skipping it whole if toSkip covers it
+	 */
+	private boolean nextSegment(){
+		if(array == null){
+			return false;
+		}
+		if(largeClique){
+			largeClique = false;
+			int size = (int) array[2];
+			fixedPos = index;
+			m = 0;
+			from = index;
+			n = size;
+			index += size;
+		}
+		else if(plain){
+			if(index + k > array.length){
+				return false;
+			}
+			fixedPos = index;
+			m = k;
+			from = index + k;
+			n = 0;
+			index += k;
+		}
+		else{
+			if(index >= array.length){
+				return false;
+			}
+			int len = (int) array[index];
+			fixedPos = index + 2;
+			m = (int) array[index + 1];
+			from = fixedPos + m;
+			n = len - 1 - m;
+			index += len + 1;
+		}
+		r = k - m;
+		segCount = (r < 0) ? 0L : choose(n, r);
+		if(toSkip >= segCount){
+			toSkip -= segCount;
+			remaining = 0L;
+		}
+		else{
+			unrank(toSkip);
+			remaining = segCount - toSkip;
+			toSkip = 0L;
+		}
+		return true;
+	}
+
+	/**
+	 * Copy the current combination into clique, sorted
+	 */
+	private void fill(){
+		int pos = 1;
+		for(int i = 0; i < m; ++i){
+			clique[pos++] = array[fixedPos + i];
+		}
+		for(int i = 0; i < r; ++i){
+			clique[pos++] = array[from + comb[i]];
+		}
+		// Insertion sort, k is small
+		for(int i = 2; i <= k; ++i){
+			long x = clique[i];
+			int j = i - 1;
+			while(j >= 1 && clique[j] > x){
+				clique[j + 1] = clique[j];
+				--j;
+			}
+			clique[j + 1] = x;
+		}
+	}
+
+	/**
+	 * The next combination of r among n in lexicographic order
+	 */
+	private void step(){
+		int i = r - 1;
+		while(comb[i] == n - r + i){
+			--i;
+		}
+		++comb[i];
+		for(int j = i + 1; j < r; ++j){
+			comb[j] = comb[j - 1] + 1;
+		}
+	}
+
+	/**
+	 * Set comb to the rank-th combination of r among n in lexicographic order
+	 */
+	private void unrank(long rank){
+		int x = 0;
+		for(int i = 0; i < r; ++i){
+			long c = choose(n - x - 1, r - i - 1);
+			while(rank >= c){
+				rank -= c;
+				++x;
+				c = choose(n - x - 1, r - i - 1);
+			}
+			comb[i] = x++;
+		}
+	}
+
+	/**
+	 * C(n, d), unlike CliqueEncoder.binorm C(0, 0) is 1
+	 */
+	private static long choose(int n, int d){
+		if(d < 0 || n < d){
+			return 0L;
+		}
+		long res = 1L;
+		d = Math.min(d, n - d);
+		for(int i = 1; i <= d; ++i){
+			res = res * (n - d + i) / i;
+		}
+		return res;
+	}
+}
@@ -13,13 +13,22 @@ public class Config{
 	public static final String homeDir = ".";
 	// The degree file directory
 	public static final String degreeFileDir = "degreeFile";
+	// The core number of every vertex, which replaces the degree in the hypervertices
+	// when the graph is prepared with enum.core.order=true
+	public static final String coreFileDir = "coreFile";
 	// The bloom filter file directory
 	public static final String bloomFilterFileDir = "bloomFilter2";
 	public static final String undirectGraphDir = "undirected";
 
 	public static final String preparedFileDir = "prepared2";
 	public static final String adjListDir = "adjList2";
+	// The memory-mapped CSR copy of adjList2.0
+	public static final String csrGraphFile = "adjList2.csr";
+	// The memory-mapped edge -> third vertex index of triangle.res, for the broadcast joins
+	public static final String triangleIndexFile = "triangle.idx";
 	public static final String distinctTwinTwigDir = "distinct.twinTwig";
+	// The partition tables and calibrations of LoadAwarePartitioner
+	public static final String loadPartitionDir = "partition.load";
 	
 	public static final String coloredVertexDir = "vertex.color";
 	public static final String coloredEdgeDir = "edge.color";
@@ -32,6 +32,8 @@ public class Graph{
 	private TLongHashSet cliqueSet = null;
 	private long countRunning = 0L;
 	private CliqueEncoder encoder = null;
+	// Reused by the intersections in enumClique
+	private long[] intersectBuf = null;
 
 	//HashMap<String, HashSet<String>> graph = new HashMap<String, HashSet<String>>();  
 	//HashMap<String, Integer> degrees =new HashMap<String, Integer>();
@@ -145,23 +147,23 @@ public class Graph{
 	
 	public long countTriangles () {
 		TLongArrayList l = this.getNodeList();
-		TLongArrayList neighbors; 
+		// The sorted larger neighbors of every node, computed once
+		HashMap<Long, long[]> largerNeighbors = new HashMap<Long, long[]>();
+		TLongIterator it = l.iterator();
+		while (it.hasNext()) {
+			long a = it.next();
+			largerNeighbors.put(a, this.getLargerNeighbors(a).toArray());
+		}
 
 		long countRunning=0;
-		TLongIterator it = l.iterator();		
-
-		long a,b,c;
-
+		it = l.iterator();
 		while (it.hasNext()) {
-			a = it.next();
-			neighbors = this.getLargerNeighbors(a);
-			for (int i = 0; i < neighbors.size(); i++) {
-				b = neighbors.get(i);
-				for (int j = i + 1; j < neighbors.size(); j++) {
-					c = neighbors.get(j);
-					if (this.hasNeighbor(b, c))
-						countRunning++;
-				}
+			long[] neighbors = largerNeighbors.get(it.next());
+			// c > b > a, so c is among the neighbors of a after b
+			for (int i = 0; i < neighbors.length - 1; i++) {
+				long[] neighborsOfB = largerNeighbors.get(neighbors[i]);
+				countRunning += Intersection.count(neighbors, i + 1, neighbors.length, 
+						neighborsOfB, 0, neighborsOfB.length);
 			}
 		}
 		return countRunning;
@@ -345,6 +347,8 @@ public class Graph{
 				//System.out.println(HyperVertex.HVArrayToString(single) + ", " +
 				//		HyperVertex.HVArrayToString(commonNeighbors.toArray()));
 			}
+			long[] commonNeighborArray = commonNeighbors.toArray();
+			intersectBuf = Intersection.ensureCapacity(intersectBuf, commonNeighborArray.length);
 			long[] curClique = new long[2];
 			curClique[0] = a;
 			it2 = neighbors.iterator();
@@ -353,12 +357,10 @@ public class Graph{
 				long neigh = it2.next();
 				curClique[1] = neigh;
 				if(cliqueSize != 2) {
+					int k = Intersection.intersect(commonNeighborArray, 0, commonNeighborArray.length, 
+							graph.get(curClique[1]), intersectBuf);
 					curCommonNeighbors.clear();
-					for (long cliqueVertex : commonNeighbors.toArray()) {
-						if (this.hasNeighbor(cliqueVertex, curClique[1])) {
-							curCommonNeighbors.add(cliqueVertex);
-						}
-					}
+					curCommonNeighbors.add(intersectBuf, 0, k);
 					if(curCommonNeighbors.size() >= cliqueSize - 2) {
 						if(!countOnly) {
 							encoder.addNormalVerticesWithCompress(curClique, 2, 
@@ -1,5 +1,7 @@
 package dbg.hadoop.subgraphs.utils;
 
+import org.apache.hadoop.conf.Configuration;
+
 /**
  * HyperVertex class. <br>
  * vertexId: Encode information of HyperVertexID <br>
@@ -12,13 +14,31 @@ package dbg.hadoop.subgraphs.utils;
  * 0 ~ 25: totally 26 bits, encode hypervertex id <br>
  * 26 ~ 46: totally 21 bits, encode degree of current hypervertex <br>
  * 47: 1 bit, encode isClique <br>
- * 48 ~ 63: 16 bits, encode size of current hypervertex 
+ * 48 ~ 63: 16 bits, encode size of current hypervertex <br>
+ * 
+ * For graphs that do not fit (enum.hypervertex.wide=true), the wide encoding is used: <br>
+ * 
+ * 0 ~ 30: totally 31 bits, encode hypervertex id <br>
+ * 31 ~ 53: totally 23 bits, encode degree of current hypervertex <br>
+ * 54: 1 bit, encode isClique <br>
+ * 55 ~ 63: 9 bits, encode size of current hypervertex <br>
+ * 
+ * The encoding is a mode of the JVM, as a graph uses one encoding throughout. The client sets
+ * it from InputInfo and stores it in the conf of every job (hypervertex.wide); the tasks load
+ * it in StageMapper / StageReducer and in the raw comparators, before any key is decoded. <br>
+ * A size that does not fit is saturated at the largest value of the field: the size is only
+ * compared to small thresholds, and the members of a hypervertex are kept with it. <br>
+ * 
+ * A graph prepared with enum.core.order=true stores the core number in the degree bits
+ * instead (see CoreDecomposition), so the vertices are ordered by (core number, id). <br>
  * 
  * @author robeen
  *
  */
 public class HyperVertex{
 
+	public static final String WIDE = "hypervertex.wide";
+
 	private final static int NUM_ID_BITS = 26;
 	private final static int ID_MASK = 0x3FFFFFF;
 	
@@ -33,34 +53,106 @@ public class HyperVertex{
 	
 	public final static long COMP_MASK = 0x7FFFFFFFFFFFL;
 	
+	private final static int WIDE_NUM_ID_BITS = 31;
+	private final static int WIDE_ID_MASK = 0x7FFFFFFF;
+	
+	private final static int WIDE_NUM_DEGREE_BITS = 23;
+	private final static int WIDE_DEGREE_MASK = 0x7FFFFF;
+	
+	private final static int WIDE_NUM_SIZE_BITS = 9;
+	private final static int WIDE_SIZE_MASK = 0x1FF;
+	
+	public final static long WIDE_COMP_MASK = 0x3FFFFFFFFFFFFFL;
+	
+	private static volatile boolean wide = false;
+	
+	/**
+	 * Set the encoding of this JVM
+	 */
+	public static void setWide(boolean _wide){
+		wide = _wide;
+	}
+	
+	/**
+	 * @return Whether this JVM uses the wide encoding
+	 */
+	public static boolean isWide(){
+		return wide;
+	}
+	
+	/**
+	 * Set the encoding of this JVM from the conf of the job (task side)
+	 */
+	public static void loadMode(Configuration conf){
+		wide = conf.getBoolean(WIDE, false);
+	}
+	
+	/**
+	 * Store the encoding of this JVM in the conf of a job (client side)
+	 */
+	public static void storeMode(Configuration conf){
+		conf.setBoolean(WIDE, wide);
+	}
+	
 	/**
 	 * Return a long integer to represent a hypervertex object. <br>
 	 * @param vertexId HyperVertex ID
-	 * @param size How many vertices are included in current HyperVertex
+	 * @param size How many vertices are included in current HyperVertex, saturated at the
+	 * largest value of the field
 	 * @param isClique Is current HyperVertex a clique
 	 * @param degree The degree of current HyperVertex
 	 */	
 	public static long get(int _vertexId, boolean _isClique,
 			int _size, int _degree){
-		long vertexDetail = 0;
-		if (_vertexId >= (1 << NUM_ID_BITS)) {
-			System.err.println("vertexId = " + _vertexId + " is too large.");
-		}
-		if(_size >= (1 << NUM_SIZE_BITS)){
-			System.err.println("size = " + _size + " is too large.");
-		}
-		if(_size >= (1 << NUM_DEGREE_BITS)){
-			System.err.println("degree = " + _degree + " is too large.");
+		if(wide){
+			return getWide(_vertexId, _isClique, _size, _degree);
 		}
+		check(_vertexId, NUM_ID_BITS, "vertexId");
+		check(_degree, NUM_DEGREE_BITS, "degree");
+		long vertexDetail = 0;
 		vertexDetail = (long)_vertexId;
 		vertexDetail |= (((long)_degree) << NUM_ID_BITS);
 		if(_isClique){
 			vertexDetail |= (1L << NUM_DEGREE_BITS + NUM_ID_BITS);
 		}
-		vertexDetail |= (((long)_size) << NUM_DEGREE_BITS + NUM_ID_BITS + NUM_BOOLEAN_BITS);
+		vertexDetail |= (((long)saturate(_size, SIZE_MASK)) << NUM_DEGREE_BITS + NUM_ID_BITS + NUM_BOOLEAN_BITS);
 		return vertexDetail;
 	}
 	
+	private static long getWide(int _vertexId, boolean _isClique,
+			int _size, int _degree){
+		check(_vertexId, WIDE_NUM_ID_BITS, "vertexId");
+		check(_degree, WIDE_NUM_DEGREE_BITS, "degree");
+		long vertexDetail = (long)_vertexId;
+		vertexDetail |= (((long)_degree) << WIDE_NUM_ID_BITS);
+		if(_isClique){
+			vertexDetail |= (1L << WIDE_NUM_DEGREE_BITS + WIDE_NUM_ID_BITS);
+		}
+		vertexDetail |= (((long)saturate(_size, WIDE_SIZE_MASK)) << WIDE_NUM_DEGREE_BITS + WIDE_NUM_ID_BITS + NUM_BOOLEAN_BITS);
+		return vertexDetail;
+	}
+	
+	private static void check(int value, int numBits, String name){
+		if(value < 0 || value >= (1L << numBits)){
+			throw new IllegalArgumentException(name + " = " + value + " does not fit in " + numBits + " bits."
+					+ (wide ? "" : " Try the wide hypervertex encoding (enum.hypervertex.wide=true)."));
+		}
+	}
+	
+	private static int saturate(int size, int mask){
+		if(size < 0){
+			throw new IllegalArgumentException("size = " + size + " is negative.");
+		}
+		return Math.min(size, mask);
+	}
+	
+	/**
+	 * @return The number of bits of the vertex id
+	 */
+	public static int numIdBits(){
+		return wide ? WIDE_NUM_ID_BITS : NUM_ID_BITS;
+	}
+	
 	public static long get(long vertex, int _size, boolean _isClique){
 		return HyperVertex.get(HyperVertex.VertexID(vertex), _isClique, _size, HyperVertex.Degree(vertex));
 	}
@@ -72,10 +164,7 @@ public class HyperVertex{
 	 * @return
 	 */
 	public static long get(int _vertexId, int _degree){
-		long vertexDetail = (long)_vertexId;
-		vertexDetail |= (((long)_degree) << NUM_ID_BITS);
-		vertexDetail |= (((long)1) << NUM_DEGREE_BITS + NUM_ID_BITS + NUM_BOOLEAN_BITS);
-		return vertexDetail;
+		return HyperVertex.get(_vertexId, false, 1, _degree);
 	}
 	
 	/**
@@ -86,37 +175,47 @@ public class HyperVertex{
 	 * @return
 	 */
 	public static long get(int _vertexId, int _degree, int _color){
-		long vertexDetail = (long)_vertexId;
-		vertexDetail |= (((long)_degree) << NUM_ID_BITS);
-		vertexDetail |= (((long)_color) << NUM_DEGREE_BITS + NUM_ID_BITS + NUM_BOOLEAN_BITS);
-		return vertexDetail;
+		return HyperVertex.get(_vertexId, false, _color, _degree);
 	}
 
 	
 	public static int Degree(long vertexDetail){
+		if(wide){
+			return (int) ((vertexDetail >> WIDE_NUM_ID_BITS) & WIDE_DEGREE_MASK);
+		}
 		return (int) ((vertexDetail >> NUM_ID_BITS) & DEGREE_MASK);
 	}
 
 	public static int VertexID(long vertexDetail) {
+		if(wide){
+			return (int) (vertexDetail & WIDE_ID_MASK);
+		}
 		return (int) (vertexDetail & ID_MASK);
 	}
 
 	public static boolean isClique(long vertexDetail) {
-		return ((int) ((vertexDetail >> (NUM_ID_BITS + NUM_DEGREE_BITS)) & BOOLEAN_MASK) == 1);
+		return ((int) ((vertexDetail >> cliqueBit()) & BOOLEAN_MASK) == 1);
 	}
 	
 	public static long setClique(long hyper, boolean isClique){
 		long res = hyper;
 		if(isClique){
-			res |= (1L << NUM_DEGREE_BITS + NUM_ID_BITS);
+			res |= (1L << cliqueBit());
 		}
 		else{
-			res &= (0L << NUM_DEGREE_BITS + NUM_ID_BITS);
+			res &= ~(1L << cliqueBit());
 		}
 		return res;
 	}
+	
+	private static int cliqueBit(){
+		return wide ? WIDE_NUM_DEGREE_BITS + WIDE_NUM_ID_BITS : NUM_DEGREE_BITS + NUM_ID_BITS;
+	}
 
 	public static int Size(long vertexDetail) {
+		if(wide){
+			return (int) ((vertexDetail >> (WIDE_NUM_ID_BITS + WIDE_NUM_DEGREE_BITS + 1)) & WIDE_SIZE_MASK);
+		}
 		return (int) ((vertexDetail >> (NUM_ID_BITS + NUM_DEGREE_BITS + 1)) & SIZE_MASK);
 	}
 	
@@ -126,11 +225,18 @@ public class HyperVertex{
 
 	public static int compare(long first, long second) {
 		int cmp = 0;
-		long cpr1 = first & COMP_MASK;
-		long cpr2 = second & COMP_MASK;
+		long cpr1 = compKey(first);
+		long cpr2 = compKey(second);
 		cmp = (cpr1 == cpr2) ? 0 : (cpr1 < cpr2 ? -1 : 1);
 		return cmp;
 	}
+	
+	/**
+	 * @return The (degree, id) part of the hypervertex that decides its order
+	 */
+	public static long compKey(long vertexDetail) {
+		return wide ? (vertexDetail & WIDE_COMP_MASK) : (vertexDetail & COMP_MASK);
+	}
 
 	
 	public static String toString(long vertexDetail){
@@ -17,18 +17,28 @@ public class InputInfo {
 	public long elemSize = 1L;
 	public int bfType = Config.EDGE;
 	public int maxSize = 0;
+	// Pick the group size of every vertex such that a record makes at most this many pairs, 0 uses maxSize
+	public long workBudget = 0L;
 	public int cliqueSizeThresh = 0;
 	public float falsePositive = 0.001F;
 	public float sampleRate = 0.2F;
 	public boolean isUndirected = false;
 	public boolean enableBF = true;
+	public boolean isBlockedBF = false;
+	// Build an exact edge index in place of the Bloom filter
+	public boolean isExactBF = false;
 	public boolean isHyper = false;
 	public boolean isCountOnly = true;
 	public boolean isCountPatternOnce = false;
+	// Let the count-only reducers report the count by a counter instead of a count job
+	public boolean isCountByCounter = true;
 	public boolean isResultCompression = true;
 	public boolean isSquareSkip = false;
 	public boolean isChordalSquareSkip = false;
 	public boolean isFourCliqueSkip = false;
+	// Reuse the intermediate results (square, chordal square, 4-clique) across queries, see ArtifactCache
+	public boolean isArtifactCache = false;
+	public long artifactQuotaMB = 0L;
 	public boolean isSquarePartition = false;
 	public boolean isChordalSquarePartition = false;
 	// Use new version clique enumeration functions
@@ -38,8 +48,38 @@ public class InputInfo {
 	public boolean useStar = false;
 	public boolean isBottomUp = false;
 	public int squarePartitionThresh = 2000;
+	// Split the square groups predicted to exceed squarePartitionThresh across several reducers
+	public boolean isSkewSplit = false;
+	public int skewMaxShards = 8;
+	// Bin-pack the reducer keys by a degree polynomial c0,c1,... instead of hashing them
+	public boolean isLoadAware = false;
+	public String loadCost = "0,1,1";
 	public int chordalSquarePartitionThresh = 2000;
+	// Run the frame jobs inside the current JVM instead of on the cluster
+	public boolean isLocalEngine = false;
+	public int localEngineThreads = 0;
+	public boolean isCSRInput = false;
+	// List triangle.res from the CSR file by adjacency intersection instead of the wedge join
+	public boolean isForwardTriangle = false;
+	// Join triangle.res in the mappers through a broadcast index when it is at most this size (MB), 0 = never
+	public long triangleBroadcastMB = 0L;
+	// Record the stage counters of every job and write a JSON run report next to the results
+	public boolean isStats = false;
+	public boolean isWideHyperVertex = false;
+	// Order the vertices by their core number (k-core decomposition) instead of their degree
+	public boolean isCoreOrder = false;
+	public int coreMaxIterations = 0;
+	// Enumerate the cliques and near-5-cliques from the triangles of the (k-1)-core only
+	public boolean isCorePruning = false;
+	public boolean isCompactHVArray = false;
+	// Where the tasks keep the side data: heap, offheap or mapped
+	public String sideDataStore = "heap";
+	// The pattern of query "pattern" as an edge list, and the plan shape: auto, leftdeep or bushy
+	public String pattern = "";
+	public String planMode = "auto";
 	public String outputDir = null;
+	// The twintwigs of adjList2.maxSize written by the shared pass of a batch (see QueryBatch)
+	public String twinTwigDir = null;
 	
 	public InputInfo(String[] args) throws IOException{
 		int valuePos = 0;
@@ -107,6 +147,20 @@ public class InputInfo {
 				}
 				assert(elemSize > 1);
 			}
+			else if (args[i].contains("bloom.filter.blocked")) {
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					isBlockedBF = Boolean.parseBoolean(args[i].substring(valuePos));
+					System.out.println("bloom.filter.blocked: " + isBlockedBF);
+				}
+			}
+			else if (args[i].contains("bloom.filter.exact")) {
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					isExactBF = Boolean.parseBoolean(args[i].substring(valuePos));
+					System.out.println("bloom.filter.exact: " + isExactBF);
+				}
+			}
 			else if (args[i].contains("bloom.filter.type")) {
 				valuePos = args[i].lastIndexOf("=") + 1;
 				if (valuePos != 0) {
@@ -177,6 +231,13 @@ public class InputInfo {
 				}
 				assert(maxSize > 0);
 			}
+			else if(args[i].contains("map.input.work.budget=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					workBudget = Long.parseLong(args[i].substring(valuePos));
+					System.out.println("map.input.work.budget: " + workBudget);
+				}
+			}
 			else if (args[i].contains("result.compression")){
 				valuePos = args[i].lastIndexOf("=") + 1;
 				if (valuePos != 0) {
@@ -206,6 +267,41 @@ public class InputInfo {
 					System.out.println("skip.square: " + isSquareSkip);
 				}
 			}
+			else if (args[i].contains("enum.count.counter=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					isCountByCounter = Boolean.parseBoolean(args[i].substring(valuePos));
+					System.out.println("enum.count.counter: " + isCountByCounter);
+				}
+			}
+			else if (args[i].contains("enum.skew.split=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					isSkewSplit = Boolean.parseBoolean(args[i].substring(valuePos));
+					System.out.println("enum.skew.split: " + isSkewSplit);
+				}
+			}
+			else if (args[i].contains("enum.skew.max.shards=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					skewMaxShards = Integer.parseInt(args[i].substring(valuePos));
+					System.out.println("enum.skew.max.shards: " + skewMaxShards);
+				}
+			}
+			else if (args[i].contains("enum.partition.load=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					isLoadAware = Boolean.parseBoolean(args[i].substring(valuePos));
+					System.out.println("enum.partition.load: " + isLoadAware);
+				}
+			}
+			else if (args[i].contains("enum.partition.load.cost=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					loadCost = args[i].substring(valuePos);
+					System.out.println("enum.partition.load.cost: " + loadCost);
+				}
+			}
 			// Solar Square Enumeration specific settings
 			else if (args[i].contains("enum.solarsquare.chordalsquare.partition=")){
 				valuePos = args[i].lastIndexOf("=") + 1;
@@ -257,6 +353,120 @@ public class InputInfo {
 					System.out.println("enum.clique.v2: " + isEnumCliqueV2);
 				}
 			}
+			else if (args[i].contains("enum.local.engine=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					isLocalEngine = Boolean.parseBoolean(args[i].substring(valuePos));
+					System.out.println("enum.local.engine: " + isLocalEngine);
+				}
+			}
+			else if (args[i].contains("enum.local.engine.threads=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					localEngineThreads = Integer.parseInt(args[i].substring(valuePos));
+					System.out.println("enum.local.engine.threads: " + localEngineThreads);
+				}
+			}
+			else if (args[i].contains("enum.csr.input=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					isCSRInput = Boolean.parseBoolean(args[i].substring(valuePos));
+					System.out.println("enum.csr.input: " + isCSRInput);
+				}
+			}
+			else if (args[i].contains("enum.triangle.forward=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					isForwardTriangle = Boolean.parseBoolean(args[i].substring(valuePos));
+					System.out.println("enum.triangle.forward: " + isForwardTriangle);
+				}
+			}
+			else if (args[i].contains("enum.artifact.cache=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					isArtifactCache = Boolean.parseBoolean(args[i].substring(valuePos));
+					System.out.println("enum.artifact.cache: " + isArtifactCache);
+				}
+			}
+			else if (args[i].contains("enum.artifact.quota.mb=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					artifactQuotaMB = Long.parseLong(args[i].substring(valuePos));
+					System.out.println("enum.artifact.quota.mb: " + artifactQuotaMB);
+				}
+			}
+			else if (args[i].contains("enum.triangle.broadcast.mb=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					triangleBroadcastMB = Long.parseLong(args[i].substring(valuePos));
+					System.out.println("enum.triangle.broadcast.mb: " + triangleBroadcastMB);
+				}
+			}
+			else if (args[i].contains("enum.stats=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					isStats = Boolean.parseBoolean(args[i].substring(valuePos));
+					System.out.println("enum.stats: " + isStats);
+				}
+			}
+			else if (args[i].contains("enum.hypervertex.wide=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					isWideHyperVertex = Boolean.parseBoolean(args[i].substring(valuePos));
+					// The encoding of the client, stored in the conf of every job
+					HyperVertex.setWide(isWideHyperVertex);
+					System.out.println("enum.hypervertex.wide: " + isWideHyperVertex);
+				}
+			}
+			else if (args[i].contains("enum.core.order=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					isCoreOrder = Boolean.parseBoolean(args[i].substring(valuePos));
+					System.out.println("enum.core.order: " + isCoreOrder);
+				}
+			}
+			else if (args[i].contains("enum.core.max.iterations=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					coreMaxIterations = Integer.parseInt(args[i].substring(valuePos));
+					System.out.println("enum.core.max.iterations: " + coreMaxIterations);
+				}
+			}
+			else if (args[i].contains("enum.core.pruning=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					isCorePruning = Boolean.parseBoolean(args[i].substring(valuePos));
+					System.out.println("enum.core.pruning: " + isCorePruning);
+				}
+			}
+			else if (args[i].contains("enum.hvarray.compact=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					isCompactHVArray = Boolean.parseBoolean(args[i].substring(valuePos));
+					System.out.println("enum.hvarray.compact: " + isCompactHVArray);
+				}
+			}
+			else if (args[i].contains("enum.sidedata.store=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					sideDataStore = args[i].substring(valuePos).toLowerCase();
+					System.out.println("enum.sidedata.store: " + sideDataStore);
+				}
+			}
+			else if (args[i].contains("enum.pattern=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					pattern = args[i].substring(valuePos);
+					System.out.println("enum.pattern: " + pattern);
+				}
+			}
+			else if (args[i].contains("enum.plan=")){
+				valuePos = args[i].lastIndexOf("=") + 1;
+				if (valuePos != 0) {
+					planMode = args[i].substring(valuePos).toLowerCase();
+					System.out.println("enum.plan: " + planMode);
+				}
+			}
 			else if (args[i].contains("graph.sample.rate")) {
 				valuePos = args[i].lastIndexOf("=") + 1;
 				if (valuePos != 0) {
@@ -0,0 +1,188 @@
+package dbg.hadoop.subgraphs.utils;
+
+import gnu.trove.set.hash.TLongHashSet;
+
+/**
+ * Sorted-set intersection kernels. <br>
+ * The inputs are ranges [from, to) of arrays sorted in ascending (raw long) order,
+ * the same order as Arrays.sort, TLongArrayList.sort and BinarySearch. <br>
+ *
+ * The strategy is picked by the size ratio of the two ranges:
+ * a linear merge for similar sizes, and galloping (exponential + binary search)
+ * of the smaller range into the larger one when they are skewed.
+ * When the larger side is only available as a hash set, it is probed directly. <br>
+ *
+ * The intersect methods write into a caller-supplied buffer (see {@link #ensureCapacity}),
+ * so a reducer can keep one buffer for all of its calls; the count methods do not write anything.
+ */
+public class Intersection {
+
+	/**
+	 * Gallop when the larger range is at least this many times the smaller one
+	 */
+	public final static int GALLOP_RATIO = 32;
+
+	/**
+	 * @return buf if it holds at least size elements, otherwise a new (larger) buffer
+	 */
+	public static long[] ensureCapacity(long[] buf, int size){
+		if(buf != null && buf.length >= size){
+			return buf;
+		}
+		int newSize = (buf == null) ? 16 : buf.length;
+		while(newSize < size){
+			newSize <<= 1;
+		}
+		return new long[newSize];
+	}
+
+	/**
+	 * Intersect array1[from1, to1) and array2[from2, to2)
+	 * @param out The output buffer, it must hold min(to1 - from1, to2 - from2) elements
+	 * @return The number of common elements, written to out[0, return)
+	 */
+	public static int intersect(long[] array1, int from1, int to1,
+			long[] array2, int from2, int to2, long[] out){
+		StageStats.add(StageStats.INTERSECTIONS, 1);
+		return dispatch(array1, from1, to1, array2, from2, to2, out);
+	}
+
+	private static int dispatch(long[] array1, int from1, int to1,
+			long[] array2, int from2, int to2, long[] out){
+		int len1 = to1 - from1, len2 = to2 - from2;
+		if(len1 <= 0 || len2 <= 0 || array1[from1] > array2[to2 - 1]
+				|| array2[from2] > array1[to1 - 1]){
+			return 0;
+		}
+		if(len1 > len2){
+			return dispatch(array2, from2, to2, array1, from1, to1, out);
+		}
+		if(len2 / len1 >= GALLOP_RATIO){
+			return gallop(array1, from1, to1, array2, from2, to2, out);
+		}
+		return merge(array1, from1, to1, array2, from2, to2, out);
+	}
+
+	public static int intersect(long[] array1, long[] array2, long[] out){
+		return intersect(array1, 0, array1.length, array2, 0, array2.length, out);
+	}
+
+	/**
+	 * The same as {@link #intersect(long[], int, int, long[], int, int, long[])}
+	 * but only count the common elements
+	 */
+	public static int count(long[] array1, int from1, int to1,
+			long[] array2, int from2, int to2){
+		return intersect(array1, from1, to1, array2, from2, to2, null);
+	}
+
+	public static int count(long[] array1, long[] array2){
+		return intersect(array1, 0, array1.length, array2, 0, array2.length, null);
+	}
+
+	/**
+	 * Intersect array[from, to) with a hash set. <br>
+	 * The range need not be sorted, the output keeps its order.
+	 * @param out The output buffer, it must hold (to - from) elements. null to only count.
+	 * @return The number of common elements
+	 */
+	public static int intersect(long[] array, int from, int to, TLongHashSet set, long[] out){
+		StageStats.add(StageStats.INTERSECTIONS, 1);
+		int k = 0;
+		if(set == null || set.isEmpty()){
+			return 0;
+		}
+		if(out == null){
+			for(int i = from; i < to; ++i){
+				if(set.contains(array[i])){
+					++k;
+				}
+			}
+		}
+		else{
+			for(int i = from; i < to; ++i){
+				long v = array[i];
+				if(set.contains(v)){
+					out[k++] = v;
+				}
+			}
+		}
+		return k;
+	}
+
+	public static int count(long[] array, int from, int to, TLongHashSet set){
+		return intersect(array, from, to, set, null);
+	}
+
+	private static int merge(long[] array1, int pos1, int to1,
+			long[] array2, int pos2, int to2, long[] out){
+		int k = 0;
+		while(pos1 < to1 && pos2 < to2){
+			long v1 = array1[pos1], v2 = array2[pos2];
+			if(v1 == v2){
+				if(out != null){
+					out[k] = v1;
+				}
+				++k;
+				++pos1;
+				++pos2;
+			}
+			else if(v1 < v2){
+				++pos1;
+			}
+			else{
+				++pos2;
+			}
+		}
+		return k;
+	}
+
+	/**
+	 * Look up each element of the small range in the large range,
+	 * starting from the position of the previous one
+	 */
+	private static int gallop(long[] small, int from1, int to1,
+			long[] large, int from2, int to2, long[] out){
+		int k = 0;
+		int pos = from2;
+		for(int i = from1; i < to1 && pos < to2; ++i){
+			long v = small[i];
+			pos = lowerBound(v, large, pos, to2);
+			if(pos < to2 && large[pos] == v){
+				if(out != null){
+					out[k] = v;
+				}
+				++k;
+				++pos;
+			}
+		}
+		return k;
+	}
+
+	/**
+	 * @return The first index in [from, to) whose value is not smaller than target, to if none
+	 */
+	static int lowerBound(long target, long[] list, int from, int to){
+		// Exponential search for the range, then binary search inside it
+		int step = 1;
+		int low = from, high = from;
+		while(high < to && list[high] < target){
+			low = high + 1;
+			high += step;
+			step <<= 1;
+		}
+		if(high > to){
+			high = to;
+		}
+		while(low < high){
+			int mid = (low + high) >>> 1;
+			if(list[mid] < target){
+				low = mid + 1;
+			}
+			else{
+				high = mid;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,193 @@
+package dbg.hadoop.subgraphs.utils;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.TaskCounter;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.log4j.Logger;
+
+/**
+ * The JSON report of a run (enum.stats=true). <br>
+ * Every job run through {@link #waitForCompletion} (or GeneralDriver) is recorded on the
+ * client with its time, records, shuffle bytes, skew and the StageStats counters of its tasks,
+ * and {@link #write} puts them in one file next to the results, e.g. frame.square.report.json. <br>
+ * The skew is that of the reduce tasks: the largest reduce input is only known up to its
+ * reduce.task.input bucket (a power of 16), and so is the largest reduce group.
+ */
+public class RunReport {
+	private static Logger log = Logger.getLogger(RunReport.class);
+
+	private static boolean enabled = false;
+	private static long startTime = System.currentTimeMillis();
+	private static List<String> jobs = new ArrayList<String>();
+
+	/**
+	 * Instrument the following jobs and record them, until the next reset
+	 */
+	public static synchronized void enable(boolean _enabled){
+		enabled = _enabled;
+	}
+
+	public static synchronized boolean isEnabled(){
+		return enabled;
+	}
+
+	public static synchronized void reset(){
+		jobs.clear();
+		startTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Turn the stage counters of the job on, unless its conf says otherwise
+	 */
+	public static synchronized void configure(Configuration conf){
+		conf.setBoolean(StageStats.ENABLED, conf.getBoolean(StageStats.ENABLED, enabled));
+	}
+
+	/**
+	 * Job.waitForCompletion(true), with the job recorded in the report
+	 */
+	public static boolean waitForCompletion(Job job)
+			throws IOException, InterruptedException, ClassNotFoundException{
+		configure(job.getConfiguration());
+		long begin = System.currentTimeMillis();
+		boolean succeeded = job.waitForCompletion(true);
+		record(job, succeeded ? job.getCounters() : null, System.currentTimeMillis() - begin);
+		return succeeded;
+	}
+
+	/**
+	 * @param counters The counters of the job, null if it failed
+	 */
+	public static synchronized void record(Job job, Counters counters, long millis){
+		if(!enabled){
+			return;
+		}
+		Path output = FileOutputFormat.getOutputPath(job);
+		StringBuilder sb = new StringBuilder();
+		sb.append("    {\n");
+		field(sb, "name", quote(job.getJobName()));
+		field(sb, "output", quote(output == null ? "" : output.toString()));
+		field(sb, "succeeded", Boolean.toString(counters != null));
+		field(sb, "elapsedMs", Long.toString(millis));
+		if(counters != null){
+			int numReduces = job.getNumReduceTasks();
+			long mapOutputBytes = value(counters, TaskCounter.MAP_OUTPUT_BYTES);
+			long shuffleBytes = value(counters, TaskCounter.REDUCE_SHUFFLE_BYTES);
+			if(shuffleBytes == 0){
+				shuffleBytes = value(counters, TaskCounter.MAP_OUTPUT_MATERIALIZED_BYTES);
+			}
+			long reduceInput = value(counters, TaskCounter.REDUCE_INPUT_RECORDS);
+			field(sb, "reduceTasks", Integer.toString(numReduces));
+			field(sb, "mapInputRecords", Long.toString(value(counters, TaskCounter.MAP_INPUT_RECORDS)));
+			field(sb, "mapOutputRecords", Long.toString(value(counters, TaskCounter.MAP_OUTPUT_RECORDS)));
+			field(sb, "mapOutputBytes", Long.toString(mapOutputBytes));
+			field(sb, "shuffleBytes", Long.toString(shuffleBytes));
+			field(sb, "spilledRecords", Long.toString(value(counters, TaskCounter.SPILLED_RECORDS)));
+			field(sb, "reduceInputGroups", Long.toString(value(counters, TaskCounter.REDUCE_INPUT_GROUPS)));
+			field(sb, "reduceInputRecords", Long.toString(reduceInput));
+			field(sb, "reduceOutputRecords", Long.toString(value(counters, TaskCounter.REDUCE_OUTPUT_RECORDS)));
+
+			// The skew, from the histograms of StageReducer
+			long maxTaskInput = maxBucket(counters, "reduce.task.input");
+			double meanTaskInput = (numReduces == 0) ? 0.0 : (double) reduceInput / numReduces;
+			sb.append("      \"skew\": {\n");
+			sb.append("        \"meanTaskInput\": ").append(format(meanTaskInput)).append(",\n");
+			sb.append("        \"maxTaskInputBound\": ").append(maxTaskInput).append(",\n");
+			sb.append("        \"taskInputRatioBound\": ")
+				.append(format(meanTaskInput == 0 ? 0.0 : maxTaskInput / meanTaskInput)).append(",\n");
+			sb.append("        \"maxGroupSizeBound\": ").append(maxBucket(counters, "reduce.group.size")).append("\n");
+			sb.append("      },\n");
+
+			sb.append("      \"stage\": {");
+			boolean first = true;
+			for(Counter counter : counters.getGroup(StageStats.GROUP)){
+				sb.append(first ? "\n" : ",\n");
+				sb.append("        ").append(quote(counter.getName())).append(": ").append(counter.getValue());
+				first = false;
+			}
+			sb.append(first ? "}\n" : "\n      }\n");
+		}
+		else{
+			// Drop the trailing comma of the last field
+			sb.setLength(sb.length() - 2);
+			sb.append("\n");
+		}
+		sb.append("    }");
+		jobs.add(sb.toString());
+	}
+
+	/**
+	 * Write the jobs recorded since the last reset
+	 */
+	public static synchronized void write(FileSystem fs, Path file, String name) throws IOException{
+		if(!enabled){
+			return;
+		}
+		PrintStream out = new PrintStream(fs.create(file, true));
+		out.println("{");
+		out.println("  \"run\": " + quote(name) + ",");
+		out.println("  \"elapsedMs\": " + (System.currentTimeMillis() - startTime) + ",");
+		out.println("  \"jobs\": [");
+		for(int i = 0; i < jobs.size(); ++i){
+			out.println(jobs.get(i) + ((i + 1 < jobs.size()) ? "," : ""));
+		}
+		out.println("  ]");
+		out.println("}");
+		out.close();
+		log.info("Run report of " + jobs.size() + " jobs written to " + file);
+	}
+
+	private static long value(Counters counters, TaskCounter counter){
+		Counter c = counters.findCounter(counter);
+		return (c == null) ? 0L : c.getValue();
+	}
+
+	/**
+	 * @return The upper bound of the largest non-empty bucket of the histogram, see StageStats.upperBound
+	 */
+	private static long maxBucket(Counters counters, String histogram){
+		long max = 0L;
+		for(Counter counter : counters.getGroup(StageStats.GROUP)){
+			if(counter.getValue() > 0){
+				max = Math.max(max, StageStats.upperBound(histogram, counter.getName()));
+			}
+		}
+		return max;
+	}
+
+	private static void field(StringBuilder sb, String name, String value){
+		sb.append("      \"").append(name).append("\": ").append(value).append(",\n");
+	}
+
+	private static String format(double value){
+		return String.format(Locale.ROOT, "%.2f", value);
+	}
+
+	private static String quote(String s){
+		StringBuilder sb = new StringBuilder("\"");
+		for(int i = 0; i < s.length(); ++i){
+			char c = s.charAt(i);
+			if(c == '"' || c == '\\'){
+				sb.append('\\').append(c);
+			}
+			else if(c < 0x20){
+				sb.append(String.format("\\u%04x", (int) c));
+			}
+			else{
+				sb.append(c);
+			}
+		}
+		return sb.append('"').toString();
+	}
+}
@@ -0,0 +1,132 @@
+package dbg.hadoop.subgraphs.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.filecache.DistributedCache;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.MD5Hash;
+import org.apache.log4j.Logger;
+
+/**
+ * Process-wide cache of the side data that tasks build from DistributedCache files
+ * (invalid node sets, clique maps, bloom filters, ...). <br>
+ * An entry is keyed by a name and the local path, length and modification time of every file
+ * it was built from, so it survives across the tasks of a reused JVM (and across the tasks
+ * of the LocalEngine, which share this class), while a changed file is loaded again. <br>
+ * Concurrent tasks asking for the same entry wait for one load. The cached structures are
+ * shared, so the tasks must only read them.
+ */
+public class SideDataCache {
+	private static Logger log = Logger.getLogger(SideDataCache.class);
+
+	private static ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<String, Entry>();
+
+	/**
+	 * Build the structure from the local files
+	 */
+	public static abstract class Loader<T> {
+		public abstract T load(Configuration conf, Path[] files) throws IOException;
+	}
+
+	private static class Entry {
+		private Object value = null;
+		private boolean loaded = false;
+	}
+
+	/**
+	 * @param name The kind of structure, so that different structures of the same files do not collide
+	 * @param files The local files the structure is built from
+	 * @return The cached structure, loaded by the loader on the first call
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T get(String name, Configuration conf, Path[] files, Loader<T> loader)
+			throws IOException{
+		String key = getKey(name, files);
+		Entry entry = cache.get(key);
+		if(entry == null){
+			Entry newEntry = new Entry();
+			entry = cache.putIfAbsent(key, newEntry);
+			if(entry == null){
+				entry = newEntry;
+			}
+		}
+		synchronized(entry){
+			if(!entry.loaded){
+				long begin = System.currentTimeMillis();
+				entry.value = loader.load(conf, files);
+				entry.loaded = true;
+				log.info("[SideDataCache] Loaded " + name + " from " + files.length + " file(s) in "
+						+ (System.currentTimeMillis() - begin) + " ms");
+			}
+			return (T) entry.value;
+		}
+	}
+
+	/**
+	 * @return The local DistributedCache files whose path contains pattern (.crc files excluded)
+	 */
+	@SuppressWarnings("deprecation")
+	public static Path[] getLocalCacheFiles(Configuration conf, String pattern) throws IOException{
+		List<Path> res = new ArrayList<Path>();
+		Path[] paths = DistributedCache.getLocalCacheFiles(conf);
+		if(paths != null){
+			for(Path p : paths){
+				if(p.toString().contains(pattern) && !p.toString().endsWith(".crc")){
+					res.add(p);
+				}
+			}
+		}
+		return res.toArray(new Path[0]);
+	}
+
+	/**
+	 * @return A file for an index built from files: next to them when their directory is writable
+	 * (so that the other tasks on the node find it), in java.io.tmpdir otherwise
+	 */
+	public static File getIndexFile(String name, Path[] files){
+		File dir = null;
+		if(files.length > 0){
+			dir = new File(files[0].toUri().getPath()).getAbsoluteFile().getParentFile();
+		}
+		if(dir == null || !dir.canWrite()){
+			dir = new File(System.getProperty("java.io.tmpdir"));
+		}
+		return new File(dir, name + "." + MD5Hash.digest(getKey(name, files)).toString() + ".idx");
+	}
+
+	/**
+	 * Drop all the entries, e.g. when a job is finished. The closeable ones (off-heap maps,
+	 * bloom filters) are closed, so they must not be in use any more.
+	 */
+	public static void clear(){
+		for(Entry entry : cache.values()){
+			synchronized(entry){
+				if(entry.value instanceof Closeable){
+					try{
+						((Closeable) entry.value).close();
+					} catch(IOException e){
+						e.printStackTrace();
+					}
+				}
+				entry.value = null;
+			}
+		}
+		cache.clear();
+	}
+
+	private static String getKey(String name, Path[] files){
+		StringBuilder key = new StringBuilder(name);
+		for(Path p : files){
+			File f = new File(p.toUri().getPath());
+			key.append('|').append(f.getAbsolutePath())
+				.append(':').append(f.length()).append(':').append(f.lastModified());
+		}
+		return key.toString();
+	}
+}
@@ -0,0 +1,71 @@
+package dbg.hadoop.subgraphs.utils;
+
+import java.io.IOException;
+
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.TaskCounter;
+
+/**
+ * A Mapper that reports its stage counters when enum.stats is set in the conf of its job,
+ * see StageStats: <br>
+ * &lt;Mapper&gt;.input.records, &lt;Mapper&gt;.output.records, &lt;Mapper&gt;.setup.ms,
+ * &lt;Mapper&gt;.map.ms and &lt;Mapper&gt;.cleanup.ms, and the histogram of the output
+ * records per map task (map.task.output). <br>
+ * Otherwise it runs exactly as Mapper.
+ */
+public class StageMapper<KEYIN, VALUEIN, KEYOUT, VALUEOUT>
+		extends Mapper<KEYIN, VALUEIN, KEYOUT, VALUEOUT> {
+
+	@Override
+	public void run(Context context) throws IOException, InterruptedException {
+		HyperVertex.loadMode(context.getConfiguration());
+		// A combiner may run inside the task of the same job, in its thread
+		boolean nested = StageStats.isEnabled();
+		if(!StageStats.begin(context.getConfiguration())){
+			super.run(context);
+			return;
+		}
+		try {
+			runInstrumented(context);
+		} finally {
+			if(!nested){
+				StageStats.end();
+			}
+		}
+	}
+
+	private void runInstrumented(Context context) throws IOException, InterruptedException {
+		String name = getClass().getSimpleName();
+		long[] probes = StageStats.snapshot();
+		// With MultipleInputs, the counter is shared by the mappers of the task
+		Counter output = context.getCounter(TaskCounter.MAP_OUTPUT_RECORDS);
+		long outputBefore = output.getValue();
+		long records = 0;
+
+		long begin = System.nanoTime();
+		setup(context);
+		long mapBegin = System.nanoTime();
+		long mapEnd = mapBegin;
+		try {
+			while(context.nextKeyValue()){
+				map(context.getCurrentKey(), context.getCurrentValue(), context);
+				++records;
+			}
+			mapEnd = System.nanoTime();
+		} finally {
+			cleanup(context);
+		}
+		long end = System.nanoTime();
+
+		long outputRecords = output.getValue() - outputBefore;
+		context.getCounter(StageStats.GROUP, name + ".input.records").increment(records);
+		context.getCounter(StageStats.GROUP, name + ".output.records").increment(outputRecords);
+		context.getCounter(StageStats.GROUP, name + ".setup.ms").increment((mapBegin - begin) / 1000000L);
+		context.getCounter(StageStats.GROUP, name + ".map.ms").increment((mapEnd - mapBegin) / 1000000L);
+		context.getCounter(StageStats.GROUP, name + ".cleanup.ms").increment((end - mapEnd) / 1000000L);
+		context.getCounter(StageStats.GROUP,
+				StageStats.bucketName("map.task.output", StageStats.bucket(outputRecords))).increment(1);
+		StageStats.report(context, probes);
+	}
+}
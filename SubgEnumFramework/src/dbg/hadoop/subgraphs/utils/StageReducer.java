@@ -0,0 +1,126 @@
+package dbg.hadoop.subgraphs.utils;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.mapreduce.ReduceContext;
+import org.apache.hadoop.mapreduce.Reducer;
+
+/**
+ * A Reducer that reports its stage counters when enum.stats is set in the conf of its job,
+ * see StageStats: <br>
+ * &lt;Reducer&gt;.groups, &lt;Reducer&gt;.input.records, &lt;Reducer&gt;.setup.ms,
+ * &lt;Reducer&gt;.reduce.ms and &lt;Reducer&gt;.cleanup.ms, the histogram of the group
+ * sizes (reduce.group.size) and that of the input records per task (reduce.task.input). <br>
+ * The values a reducer leaves unread are still counted, Hadoop reads them anyway to
+ * get to the next key. Otherwise it runs exactly as Reducer.
+ */
+public class StageReducer<KEYIN, VALUEIN, KEYOUT, VALUEOUT>
+		extends Reducer<KEYIN, VALUEIN, KEYOUT, VALUEOUT> {
+
+	@Override
+	public void run(Context context) throws IOException, InterruptedException {
+		HyperVertex.loadMode(context.getConfiguration());
+		// A combiner may run inside the task of the same job, in its thread
+		boolean nested = StageStats.isEnabled();
+		if(!StageStats.begin(context.getConfiguration())){
+			super.run(context);
+			return;
+		}
+		try {
+			runInstrumented(context);
+		} finally {
+			if(!nested){
+				StageStats.end();
+			}
+		}
+	}
+
+	private void runInstrumented(Context context) throws IOException, InterruptedException {
+		String name = getClass().getSimpleName();
+		long[] probes = StageStats.snapshot();
+		long[] groupSizes = new long[33];
+		CountingIterable<VALUEIN> values = new CountingIterable<VALUEIN>();
+		long groups = 0, records = 0;
+
+		long begin = System.nanoTime();
+		setup(context);
+		long reduceBegin = System.nanoTime();
+		long reduceEnd = reduceBegin;
+		try {
+			while(context.nextKey()){
+				values.reset(context.getValues());
+				reduce(context.getCurrentKey(), values, context);
+				long size = values.drain();
+				++groups;
+				records += size;
+				++groupSizes[StageStats.bucket(size)];
+				Iterator<VALUEIN> iter = context.getValues().iterator();
+				if(iter instanceof ReduceContext.ValueIterator){
+					((ReduceContext.ValueIterator<VALUEIN>) iter).resetBackupStore();
+				}
+			}
+			reduceEnd = System.nanoTime();
+		} finally {
+			cleanup(context);
+		}
+		long end = System.nanoTime();
+
+		context.getCounter(StageStats.GROUP, name + ".groups").increment(groups);
+		context.getCounter(StageStats.GROUP, name + ".input.records").increment(records);
+		context.getCounter(StageStats.GROUP, name + ".setup.ms").increment((reduceBegin - begin) / 1000000L);
+		context.getCounter(StageStats.GROUP, name + ".reduce.ms").increment((reduceEnd - reduceBegin) / 1000000L);
+		context.getCounter(StageStats.GROUP, name + ".cleanup.ms").increment((end - reduceEnd) / 1000000L);
+		StageStats.report(context, "reduce.group.size", groupSizes);
+		context.getCounter(StageStats.GROUP,
+				StageStats.bucketName("reduce.task.input", StageStats.bucket(records))).increment(1);
+		StageStats.report(context, probes);
+	}
+
+	/**
+	 * The values of a group, counting those handed out
+	 */
+	private static class CountingIterable<T> implements Iterable<T>, Iterator<T> {
+		private Iterator<T> iter;
+		private long count;
+
+		void reset(Iterable<T> values){
+			iter = values.iterator();
+			count = 0;
+		}
+
+		/**
+		 * Read the values left
+		 * @return The size of the group
+		 */
+		long drain(){
+			while(iter.hasNext()){
+				iter.next();
+				++count;
+			}
+			return count;
+		}
+
+		@Override
+		public Iterator<T> iterator(){
+			// As in Hadoop, the values can only be iterated once
+			return this;
+		}
+
+		@Override
+		public boolean hasNext(){
+			return iter.hasNext();
+		}
+
+		@Override
+		public T next(){
+			++count;
+			return iter.next();
+		}
+
+		@Override
+		public void remove(){
+			iter.remove();
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package dbg.hadoop.subgraphs.utils;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+
+import dbg.hadoop.subgraphs.utils.bloomfilter.utils.IPairFilter;
+
+/**
+ * The instrumentation counters of the stages (enum.stats=true). <br>
+ * StageMapper and StageReducer time setup, map/reduce and cleanup, and count the records
+ * and the reduce groups of every task. The probes that happen deep inside the utilities
+ * (Bloom filter tests, intersections) are counted per thread, since a task runs in one thread,
+ * and reported by the task when it ends. The stats are enabled per task, from its conf, as the
+ * tasks of several jobs may share a JVM (LocalEngine) or a thread. <br>
+ * All the counters are in the group {@link #GROUP}, RunReport puts them in the run report.
+ * Hadoop fails a job beyond 120 counters in total (mapreduce.job.counters.max, about half of them
+ * built in), so a job adds 5 counters per instrumented class, 3 probes and at most
+ * {@link #MAX_BUCKET} + 1 per histogram.
+ */
+public class StageStats {
+	public static final String ENABLED = "enum.stats";
+	public static final String GROUP = "Subgenum Stage";
+
+	public static final int BF_PROBES = 0;
+	public static final int BF_REJECTS = 1;
+	public static final int INTERSECTIONS = 2;
+	private static final String[] NAMES = { "bloomfilter.probes", "bloomfilter.rejects", "intersections" };
+
+	// The last bucket of a histogram, that of the sizes above 16^(MAX_BUCKET - 1)
+	public static final int MAX_BUCKET = 9;
+
+	/**
+	 * The probes of a thread, counted only while the task it runs is instrumented
+	 */
+	private static class Probes {
+		boolean enabled = false;
+		final long[] counts = new long[NAMES.length];
+	}
+
+	private static final ThreadLocal<Probes> local = new ThreadLocal<Probes>(){
+		@Override
+		protected Probes initialValue(){
+			return new Probes();
+		}
+	};
+
+	/**
+	 * @return Whether the task of the current thread is instrumented
+	 */
+	public static boolean isEnabled(){
+		return local.get().enabled;
+	}
+
+	/**
+	 * Enable or disable the stats of the current thread by the conf of its task, before its setup
+	 * @return Whether the task is instrumented
+	 */
+	public static boolean begin(Configuration conf){
+		Probes probes = local.get();
+		probes.enabled = conf.getBoolean(ENABLED, false);
+		return probes.enabled;
+	}
+
+	/**
+	 * Disable the stats of the current thread when its task ends
+	 */
+	public static void end(){
+		local.get().enabled = false;
+	}
+
+	public static void add(int probe, long num){
+		Probes probes = local.get();
+		if(probes.enabled){
+			probes.counts[probe] += num;
+		}
+	}
+
+	/**
+	 * @return The probes of the current thread so far
+	 */
+	public static long[] snapshot(){
+		return local.get().counts.clone();
+	}
+
+	/**
+	 * Report the probes of the current thread since the snapshot
+	 */
+	public static void report(TaskInputOutputContext<?, ?, ?, ?> context, long[] since){
+		long[] now = local.get().counts;
+		for(int i = 0; i < NAMES.length; ++i){
+			if(now[i] > since[i]){
+				context.getCounter(GROUP, NAMES[i]).increment(now[i] - since[i]);
+			}
+		}
+	}
+
+	/**
+	 * The histogram bucket of a size, by powers of 16 so that a job keeps few counters
+	 * @return b such that 16^(b-1) &lt; size &lt;= 16^b, at most MAX_BUCKET
+	 */
+	public static int bucket(long size){
+		if(size <= 1){
+			return 0;
+		}
+		return Math.min((67 - Long.numberOfLeadingZeros(size - 1)) / 4, MAX_BUCKET);
+	}
+
+	/**
+	 * @return The counter name of the bucket b of the histogram
+	 */
+	public static String bucketName(String histogram, int b){
+		if(b >= MAX_BUCKET){
+			return histogram + ".gt." + (1L << (4 * (MAX_BUCKET - 1)));
+		}
+		return histogram + ".le." + (1L << (4 * b));
+	}
+
+	/**
+	 * @return The upper bound of the sizes in the bucket of the counter, Long.MAX_VALUE for the
+	 * last bucket, -1 if the counter is not in the histogram
+	 */
+	public static long upperBound(String histogram, String counterName){
+		if(counterName.startsWith(histogram + ".le.")){
+			return Long.parseLong(counterName.substring(histogram.length() + 4));
+		}
+		return counterName.startsWith(histogram + ".gt.") ? Long.MAX_VALUE : -1L;
+	}
+
+	/**
+	 * Add a histogram to the counters, one counter per non-empty bucket
+	 */
+	public static void report(TaskInputOutputContext<?, ?, ?, ?> context, String histogram, long[] buckets){
+		for(int b = 0; b < buckets.length; ++b){
+			if(buckets[b] > 0){
+				context.getCounter(GROUP, bucketName(histogram, b)).increment(buckets[b]);
+			}
+		}
+	}
+
+	/**
+	 * @return The filter counting its probes, or the filter itself if the stats are disabled
+	 */
+	public static IPairFilter count(final IPairFilter filter){
+		if(!isEnabled() || filter == null){
+			return filter;
+		}
+		return new IPairFilter(){
+			@Override
+			public boolean test(int a, int b){
+				long[] probes = local.get().counts;
+				++probes[BF_PROBES];
+				if(filter.test(a, b)){
+					return true;
+				}
+				++probes[BF_REJECTS];
+				return false;
+			}
+		};
+	}
+}
@@ -4,13 +4,13 @@ import gnu.trove.list.array.TLongArrayList;
 
 import java.io.IOException;
 
-import org.apache.hadoop.mapreduce.Mapper.Context;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
 
 import dbg.hadoop.subgraphs.utils.HyperVertex;
 import dbg.hadoop.subgraphs.io.HyperVertexAdjList;
 import dbg.hadoop.subgraphs.io.HVArraySign;
 import dbg.hadoop.subgraphs.io.HVArray;
-import dbg.hadoop.subgraphs.utils.bloomfilter.utils.BloomFilter;
+import dbg.hadoop.subgraphs.utils.bloomfilter.utils.IPairFilter;
 
 public class TwinTwigGenerator{
 	
@@ -20,7 +20,10 @@ public class TwinTwigGenerator{
 	private long[] largerThanCur;
 	private long[] smallerThanCur1;
 	private long[] smallerThanCur2;
-	private BloomFilter bf;
+	private IPairFilter bf;
+	// The output key and value, set for every twintwig
+	private HVArraySign outputKey = new HVArraySign();
+	private HVArray outputValue = new HVArray();
 	
 	public TwinTwigGenerator(long _cur, HyperVertexAdjList adjlist){
 		this.firstAdd = adjlist.isFirstAdd();
@@ -42,7 +45,7 @@ public class TwinTwigGenerator{
 		this.enableBF = false;
 	}
 	
-	public TwinTwigGenerator(long _cur, HyperVertexAdjList adjlist, BloomFilter _bf){
+	public TwinTwigGenerator(long _cur, HyperVertexAdjList adjlist, IPairFilter _bf){
 		this.firstAdd = adjlist.isFirstAdd();
 		this.cur = _cur;
 		this.largerThanCur = adjlist.getLargeDegreeVertices();
@@ -55,7 +58,7 @@ public class TwinTwigGenerator{
 		}
 	}
 	
-	public TwinTwigGenerator(long _cur, HyperVertexAdjList adjlist, BloomFilter _bf, int degree, boolean isMaxDegree){
+	public TwinTwigGenerator(long _cur, HyperVertexAdjList adjlist, IPairFilter _bf, int degree, boolean isMaxDegree){
 		this.firstAdd = adjlist.isFirstAdd();
 		this.cur = _cur;
 		this.largerThanCur = adjlist.getLargeDegreeVertices(degree, isMaxDegree);
@@ -67,7 +70,7 @@ public class TwinTwigGenerator{
 		}
 	}
 	
-	public void setBloomFilter(BloomFilter _bf){
+	public void setBloomFilter(IPairFilter _bf){
 		this.bf = _bf;
 		if(this.bf != null){
 			this.enableBF = true;
@@ -98,46 +101,29 @@ public class TwinTwigGenerator{
 	 * @throws InterruptedException 
 	 * @throws IOException 
 	 */
-	@SuppressWarnings("unchecked")
-	public void genTwinTwigOne(Context context, int sign, byte keyMap, byte keyMap2) 
+	public void genTwinTwigOne(TaskInputOutputContext<?, ?, HVArraySign, HVArray> context, int sign, byte keyMap, byte keyMap2) 
 			throws IOException, InterruptedException{
 		if(this.firstAdd){			
 			if(allowThree(this.cur)){ // (cur; cur, cur)
-				context.write(new HVArraySign(this.cur,
-						this.cur, this.cur, sign, keyMap),
-						new HVArray(this.cur, this.cur, this.cur, keyMap));
+				this.write(context, this.cur, this.cur, this.cur, sign, keyMap);
 				
 				if(keyMap2 != 0){
-					context.write(new HVArraySign(
-							this.cur, this.cur, this.cur, sign + 1, keyMap2),
-							new HVArray(this.cur, this.cur, this.cur, keyMap2));
+					this.write(context, this.cur, this.cur, this.cur, sign + 1, keyMap2);
 				}
 			}
 			int size = this.largerThanCur.length;
 			for(int i = 0; i < size; ++i){ // (cur; cur, larger)
 				if(allowTwo(this.cur)){
-					context.write(new HVArraySign(this.cur, this.cur, 
-							this.largerThanCur[i], sign, keyMap), 
-							new HVArray(this.cur, 
-									this.cur, this.largerThanCur[i], keyMap));
+					this.write(context, this.cur, this.cur, this.largerThanCur[i], sign, keyMap);
 					if(keyMap2 != 0){
-						context.write(new HVArraySign(this.cur, this.cur, 
-								this.largerThanCur[i], sign + 1, keyMap2), 
-								new HVArray(this.cur, 
-										this.cur, this.largerThanCur[i], keyMap2));
+						this.write(context, this.cur, this.cur, this.largerThanCur[i], sign + 1, keyMap2);
 					}
 				}
 				// TODO: This should be revised
 				if(allowTwo(this.largerThanCur[i], true)){ // cur; larger_i, larger_i
-					context.write(new HVArraySign(this.cur, this.largerThanCur[i], 
-							this.largerThanCur[i], sign, keyMap), 
-							new HVArray(this.cur, 
-									this.largerThanCur[i], this.largerThanCur[i], keyMap));
+					this.write(context, this.cur, this.largerThanCur[i], this.largerThanCur[i], sign, keyMap);
 					if(keyMap2 != 0){
-						context.write(new HVArraySign(this.cur, this.largerThanCur[i], 
-								this.largerThanCur[i], sign + 1, keyMap2), 
-								new HVArray(this.cur, 
-										this.largerThanCur[i], this.largerThanCur[i], keyMap2));
+						this.write(context, this.cur, this.largerThanCur[i], this.largerThanCur[i], sign + 1, keyMap2);
 					}
 				}
 				for(int j = i + 1; j < size; ++j){
@@ -147,13 +133,9 @@ public class TwinTwigGenerator{
 								HyperVertex.VertexID(this.largerThanCur[j]));
 					}
 					if(isOutput){
-						context.write(new HVArraySign(this.cur, this.largerThanCur[i], 
-								this.largerThanCur[j], sign, keyMap), new HVArray(this.cur, 
-										this.largerThanCur[i], this.largerThanCur[j], keyMap));
+						this.write(context, this.cur, this.largerThanCur[i], this.largerThanCur[j], sign, keyMap);
 						if(keyMap2 != 0){
-							context.write(new HVArraySign(this.cur, this.largerThanCur[i], 
-									this.largerThanCur[j], sign + 1, keyMap2), new HVArray(this.cur, 
-											this.largerThanCur[i], this.largerThanCur[j], keyMap2));
+							this.write(context, this.cur, this.largerThanCur[i], this.largerThanCur[j], sign + 1, keyMap2);
 						}
 					}
 				}
@@ -161,39 +143,27 @@ public class TwinTwigGenerator{
 		}
 	}
 	
-	@SuppressWarnings("unchecked")
-	public void genTwinTwigTwo(Context context, int sign, byte keyMap) throws IOException, InterruptedException{
+	public void genTwinTwigTwo(TaskInputOutputContext<?, ?, HVArraySign, HVArray> context, int sign, byte keyMap) throws IOException, InterruptedException{
 		if(this.largerThanCur.length == 0){
 			return;
 		}
 		if(allowThree(this.cur)){ // Output {cur, cur, cur}
-			context.write(new HVArraySign(this.cur, 
-					this.cur, this.cur, sign, keyMap), 
-					new HVArray(this.cur, this.cur, this.cur, keyMap));
+			this.write(context, this.cur, this.cur, this.cur, sign, keyMap);
 		}
 		if(this.smallerThanCur2.length == 0){ // Output {cur, cur, larger}
 			if(allowTwo(this.cur)){
 				for(int j = 0; j < this.largerThanCur.length; ++j){ //v3
-					context.write(new HVArraySign(this.cur, this.cur, 
-							this.largerThanCur[j], sign, keyMap), 
-							new HVArray(this.cur, this.cur, 
-									this.largerThanCur[j], keyMap));
+					this.write(context, this.cur, this.cur, this.largerThanCur[j], sign, keyMap);
 				}
 			}
 		}
 		for(int i = 0; i < this.smallerThanCur2.length; ++i){ //v2
 			if(allowTwo(this.cur)){// Output {cur, smaller, cur}
-				context.write(new HVArraySign(this.cur, 
-						this.smallerThanCur2[i], this.cur, sign, keyMap), 
-						new HVArray(this.cur, this.smallerThanCur2[i], 
-								this.cur, keyMap));
+				this.write(context, this.cur, this.smallerThanCur2[i], this.cur, sign, keyMap);
 			}
 			for(int j = 0; j < this.largerThanCur.length; ++j){ //v3
 				if(i == 0 && allowTwo(this.cur)){// Output {cur, cur, larger}
-					context.write(new HVArraySign(this.cur, this.cur, 
-							this.largerThanCur[j], sign, keyMap), 
-							new HVArray(this.cur, this.cur, 
-									this.largerThanCur[j], keyMap));
+					this.write(context, this.cur, this.cur, this.largerThanCur[j], sign, keyMap);
 				}
 				boolean isOutput = true;
 				if(this.enableBF){
@@ -201,16 +171,13 @@ public class TwinTwigGenerator{
 							HyperVertex.VertexID(this.largerThanCur[j]));
 				}
 				if(isOutput){
-					context.write(new HVArraySign(this.cur, this.smallerThanCur2[i], 
-							this.largerThanCur[j], sign, keyMap), new HVArray(this.cur, 
-									this.smallerThanCur2[i], this.largerThanCur[j], keyMap));
+					this.write(context, this.cur, this.smallerThanCur2[i], this.largerThanCur[j], sign, keyMap);
 				}
 			}
 		}
 	}
 	
-	@SuppressWarnings("unchecked")
-	public void genTwinTwigThree(Context context, int sign, byte keyMap) throws IOException, InterruptedException{
+	public void genTwinTwigThree(TaskInputOutputContext<?, ?, HVArraySign, HVArray> context, int sign, byte keyMap) throws IOException, InterruptedException{
 		boolean isOutput = true;
 		if(this.smallerThanCur1.length == 0) {
 			for (int i = 0; i < this.smallerThanCur2.length - 1; ++i) {
@@ -221,9 +188,7 @@ public class TwinTwigGenerator{
 								HyperVertex.VertexID(this.smallerThanCur2[j]));
 					}
 					if(isOutput){
-						context.write(new HVArraySign(this.cur, this.smallerThanCur2[i], 
-								this.smallerThanCur2[j], sign, keyMap), new HVArray(this.cur, 
-										this.smallerThanCur2[i], this.smallerThanCur2[j], keyMap));
+						this.write(context, this.cur, this.smallerThanCur2[i], this.smallerThanCur2[j], sign, keyMap);
 					}
 				}
 			}
@@ -237,9 +202,7 @@ public class TwinTwigGenerator{
 								HyperVertex.VertexID(this.smallerThanCur2[j]));
 					}
 					if(isOutput){
-						context.write(new HVArraySign(this.cur, this.smallerThanCur1[i], 
-								this.smallerThanCur2[j], sign, keyMap), new HVArray(this.cur, 
-										this.smallerThanCur1[i], this.smallerThanCur2[j], keyMap));
+						this.write(context, this.cur, this.smallerThanCur1[i], this.smallerThanCur2[j], sign, keyMap);
 					}
 	    		}
 	    	}
@@ -258,7 +221,7 @@ public class TwinTwigGenerator{
 	 * @throws InterruptedException 
 	 * @throws IOException 
 	 */
-	public void genStars(Context context, int starSize, int sign, int keyMap) throws IOException, InterruptedException{
+	public void genStars(TaskInputOutputContext<?, ?, HVArraySign, HVArray> context, int starSize, int sign, int keyMap) throws IOException, InterruptedException{
 		TLongArrayList result = new TLongArrayList(starSize);
 		result.add(this.cur);
 		genStarsRecur(context, starSize, sign, keyMap, 1, 0, result);
@@ -279,11 +242,13 @@ public class TwinTwigGenerator{
 	 * @throws InterruptedException 
 	 * @throws IOException 
 	 */
-	public void genStarsRecur(Context context, int starSize, int sign, int keyMap, 
+	public void genStarsRecur(TaskInputOutputContext<?, ?, HVArraySign, HVArray> context, int starSize, int sign, int keyMap, 
 			int curLevel, int curIndex, TLongArrayList result) throws IOException, InterruptedException{	
 		if(curLevel == starSize){
 			long[][] kv = Utility.getKeyValuePair(result.toArray(), keyMap);
-			context.write(new HVArraySign(new HVArray(kv[0]), sign), new HVArray(kv[1])); 
+			outputKey.set(kv[0], sign);
+			outputValue.set(kv[1]);
+			context.write(outputKey, outputValue);
 		}
 		else{
 			long tmp = 0L;
@@ -299,6 +264,16 @@ public class TwinTwigGenerator{
 		
 	}
 	
+	/**
+	 * Write the twintwig (v1; v2, v3) with the vertices of keyMap in the key
+	 */
+	private void write(TaskInputOutputContext<?, ?, HVArraySign, HVArray> context, long v1, long v2, long v3, int sign, byte keyMap)
+			throws IOException, InterruptedException{
+		outputKey.set(v1, v2, v3, sign, keyMap);
+		outputValue.set(v1, v2, v3, keyMap);
+		context.write(outputKey, outputValue);
+	}
+	
 	private boolean isFeasible(long tmp, TLongArrayList existed, int curLevel){
 		boolean avail = true;
 		if(!this.enableBF){
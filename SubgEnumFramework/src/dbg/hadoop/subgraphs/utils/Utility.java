@@ -12,6 +12,8 @@ import org.apache.hadoop.io.SequenceFile;
 
 import dbg.hadoop.subgraphs.io.HVArray;
 import dbg.hadoop.subgraphs.io.IntegerPairWritable;
+import dbg.hadoop.subgraphs.utils.offheap.LongLongMap;
+import dbg.hadoop.subgraphs.utils.offheap.LongStores;
 
 import gnu.trove.list.array.TLongArrayList;
 import gnu.trove.map.hash.TIntIntHashMap;
@@ -222,6 +224,39 @@ public class Utility{
 		}
 	}
 	
+	/**
+	 * The inverted list (vertex : cliqueID) of the cliques in the DistributedCache (the part-r- files),
+	 * kept in the store of sidedata.store, shared by all the tasks of this JVM and therefore read-only
+	 */
+	public static LongLongMap getCliqueMap(Configuration conf) throws IOException{
+		final String store = conf.get(LongStores.STORE, LongStores.HEAP);
+		return SideDataCache.get("cliqueMap." + store, conf, SideDataCache.getLocalCacheFiles(conf, "part-r-"),
+				new SideDataCache.Loader<LongLongMap>() {
+					@Override
+					public LongLongMap load(Configuration conf, Path[] files) throws IOException {
+						File indexFile = SideDataCache.getIndexFile("cliqueMap", files);
+						LongLongMap res = LongStores.openIndex(store, indexFile);
+						if (res != null) {
+							return res;
+						}
+						res = LongStores.newMap(store);
+						LongWritable key = new LongWritable();
+						HVArray val = new HVArray();
+						for (Path p : files) {
+							SequenceFile.Reader reader = new SequenceFile.Reader(
+									FileSystem.getLocal(conf), p, conf);
+							while (reader.next(key, val)) {
+								for (long v : val.toArrays()) {
+									res.put(v, key.get());
+								}
+							}
+							reader.close();
+						}
+						return LongStores.seal(store, res, indexFile);
+					}
+				});
+	}
+	
 	public static void readHyperVertexLocally(String dir) throws IOException,
 			InstantiationException, IllegalAccessException {
 		FileStatus[] status = fs.listStatus(new Path(dir));
@@ -445,6 +480,20 @@ public class Utility{
 		return dir;
 	}
 	
+	/**
+	 * Get the (vertex id, value) file the hypervertices of the prepared graph are encoded from:
+	 * the coreFile if the graph is prepared in the core order, otherwise the degreeFile.
+	 * @param workDir
+	 * @return
+	 */
+	public static Path getOrderFileDir(String workDir) throws IOException{
+		Path coreDir = new Path(workDir + Config.coreFileDir);
+		if(fs.exists(coreDir)){
+			return coreDir;
+		}
+		return new Path(workDir + Config.degreeFileDir);
+	}
+
 	public static String getFileName(String inputFile){
 		int lastSlash = inputFile.lastIndexOf("/");
 		String filaname = "";
@@ -0,0 +1,125 @@
+package dbg.hadoop.subgraphs.utils.bloomfilter.utils;
+
+import java.nio.ByteBuffer;
+
+import dbg.hadoop.subgraphs.utils.bloomfilter.db.TypeSizes;
+import dbg.hadoop.subgraphs.utils.bloomfilter.obs.IBitSet;
+
+/**
+ * A Bloom filter that puts all the bits of a key into one 512-bit block of the bitset,
+ * so a probe touches a single 64-byte cache line instead of hashCount random ones.
+ * The block and the bits inside it come from a 64-bit hash: the pairs of
+ * add(int, int) / test(int, int) are mixed directly, without a ByteBuffer and Murmur3.
+ * <br>
+ * For the same false positive rate it needs about one more bit per element than
+ * {@link Murmur3BloomFilter}, see {@link FilterFactory#getBlockedFilter(long, double, boolean)}.
+ */
+public class BlockedBloomFilter extends BloomFilter
+{
+    public static final BlockedBloomFilterSerializer serializer = new BlockedBloomFilterSerializer();
+
+    public static final int BLOCK_BITS = 512;
+    private static final int BLOCK_MASK = BLOCK_BITS - 1;
+    private static final int BLOCK_SHIFT = 9;
+    // The bit positions taken from one 64-bit hash
+    private static final int BITS_PER_HASH = 64 / BLOCK_SHIFT;
+
+    private static final ThreadLocal<long[]> reusableHash = new ThreadLocal<long[]>()
+    {
+        protected long[] initialValue()
+        {
+            return new long[2];
+        }
+    };
+
+    private final long numBlocks;
+
+    public BlockedBloomFilter(int hashes, IBitSet bs)
+    {
+        super(hashes, bs);
+        this.numBlocks = Math.max(1L, bs.capacity() / BLOCK_BITS);
+    }
+
+    public long serializedSize()
+    {
+        return FilterFactory.HEADER_SIZE + serializer.serializedSize(this, TypeSizes.NATIVE);
+    }
+
+    protected void hash(ByteBuffer b, int position, int remaining, long seed, long[] result)
+    {
+        MurmurHash.hash3_x64_128(b, b.position(), b.remaining(), seed, result);
+    }
+
+    public void add(ByteBuffer key)
+    {
+        long[] h = reusableHash.get();
+        hash(key, key.position(), key.remaining(), 0L, h);
+        set(h[0]);
+    }
+
+    public boolean isPresent(ByteBuffer key)
+    {
+        long[] h = reusableHash.get();
+        hash(key, key.position(), key.remaining(), 0L, h);
+        return get(h[0]);
+    }
+
+    public void add(int a, int b)
+    {
+        set(mix(((long) a << 32) | (b & 0xFFFFFFFFL)));
+    }
+
+    public boolean test(int a, int b)
+    {
+        return get(mix(((long) a << 32) | (b & 0xFFFFFFFFL)));
+    }
+
+    // Every bit of the key takes the next 9 bits of the remixed hash as its position in the
+    // block, the hash is remixed again when it runs out of them
+    private void set(long h)
+    {
+        long base = (abs(h % numBlocks)) * BLOCK_BITS;
+        long g = h;
+        for (int i = 0; i < hashCount; i++)
+        {
+            if (i % BITS_PER_HASH == 0)
+                g = mix(g + i);
+            bitset.set(base + (g & BLOCK_MASK));
+            g >>>= BLOCK_SHIFT;
+        }
+    }
+
+    private boolean get(long h)
+    {
+        long base = (abs(h % numBlocks)) * BLOCK_BITS;
+        long g = h;
+        for (int i = 0; i < hashCount; i++)
+        {
+            if (i % BITS_PER_HASH == 0)
+                g = mix(g + i);
+            if (!bitset.get(base + (g & BLOCK_MASK)))
+                return false;
+            g >>>= BLOCK_SHIFT;
+        }
+        return true;
+    }
+
+    // The finalizer of Murmur3 (fmix64)
+    private static long mix(long k)
+    {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    public static class BlockedBloomFilterSerializer extends BloomFilterSerializer
+    {
+        protected BloomFilter createFilter(int hashes, IBitSet bs)
+        {
+            return new BlockedBloomFilter(hashes, bs);
+        }
+    }
+}
@@ -27,7 +27,7 @@ import java.nio.ByteBuffer;
 
 import dbg.hadoop.subgraphs.utils.bloomfilter.obs.IBitSet;
 
-public abstract class BloomFilter implements IFilter
+public abstract class BloomFilter implements IFilter, IPairFilter
 {
 	private final static int NUMBYTES = 2 * Integer.SIZE / Byte.SIZE;
 	
@@ -39,6 +39,15 @@ public abstract class BloomFilter implements IFilter
         }
     };
 
+    // The key of the pair probes, reused so that add(int, int) and test(int, int) do not allocate
+    private static final ThreadLocal<ByteBuffer> reusablePair = new ThreadLocal<ByteBuffer>()
+    {
+        protected ByteBuffer initialValue()
+        {
+            return ByteBuffer.allocate(NUMBYTES);
+        }
+    };
+
     public final IBitSet bitset;
     public final int hashCount;
 
@@ -104,13 +113,13 @@ public abstract class BloomFilter implements IFilter
     }
     
     public void add(int a, int b){
-    	ByteBuffer buffer = ByteBuffer.allocate(NUMBYTES);
+    	ByteBuffer buffer = reusablePair.get();
     	buffer.putInt(0, a);
     	buffer.putInt(4, b);
     	this.add(buffer);
     }
 
-    public final boolean isPresent(ByteBuffer key)
+    public boolean isPresent(ByteBuffer key)
     {
         long[] indexes = indexes(key);
         for (int i = 0; i < hashCount; i++)
@@ -127,8 +136,8 @@ public abstract class BloomFilter implements IFilter
     	return isPresent(ByteBuffer.wrap(key.getBytes()));
     }
     
-    public final boolean test(int a, int b){
-    	ByteBuffer buffer = ByteBuffer.allocate(NUMBYTES);
+    public boolean test(int a, int b){
+    	ByteBuffer buffer = reusablePair.get();
     	buffer.putInt(0, a);
     	buffer.putInt(4, b);
     	return this.isPresent(buffer);
@@ -43,7 +43,14 @@ abstract class BloomFilterSerializer implements ISerializer<BloomFilter>
 
     public BloomFilter deserialize(DataInput in, boolean offheap) throws IOException
     {
-        int hashes = in.readInt();
+        return deserialize(in.readInt(), in, offheap);
+    }
+
+    /**
+     * Deserialize the rest of a filter whose hash count has already been read
+     */
+    public BloomFilter deserialize(int hashes, DataInput in, boolean offheap) throws IOException
+    {
         IBitSet bs = offheap ? OffHeapBitSet.deserialize(in) : OpenBitSet.deserialize(in);
         //IBitSet bs = OpenBitSet.deserialize(in);
         return createFilter(hashes, bs);
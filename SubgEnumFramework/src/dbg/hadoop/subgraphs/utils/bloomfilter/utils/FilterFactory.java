@@ -38,14 +38,50 @@ public class FilterFactory
    // private static final Logger logger = LoggerFactory.getLogger(FilterFactory.class);
     private static final long BITSET_EXCESS = 20;
 
+    // The unversioned format starts with the hash count. The versioned one starts with
+    // FORMAT_MAGIC, which is negative and so never a hash count, then the version and the type.
+    static final int FORMAT_MAGIC = 0xB10F0000;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 4 + 4 + 1;
+    static final byte TYPE_MURMUR3 = 0;
+    static final byte TYPE_BLOCKED = 1;
+
+    /**
+     * Murmur3 filters keep the unversioned format, so older readers can still load them
+     */
     public static void serialize(IFilter bf, DataOutput output) throws IOException
     {
-        Murmur3BloomFilter.serializer.serialize((Murmur3BloomFilter) bf, output);
+        if (bf instanceof BlockedBloomFilter)
+        {
+            output.writeInt(FORMAT_MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeByte(TYPE_BLOCKED);
+            BlockedBloomFilter.serializer.serialize((BlockedBloomFilter) bf, output);
+        }
+        else
+        {
+            Murmur3BloomFilter.serializer.serialize((Murmur3BloomFilter) bf, output);
+        }
     }
 
     public static IFilter deserialize(DataInput input, boolean offheap) throws IOException
     {
-        return Murmur3BloomFilter.serializer.deserialize(input, offheap);
+        int head = input.readInt();
+        if (head != FORMAT_MAGIC)
+            return Murmur3BloomFilter.serializer.deserialize(head, input, offheap);
+        int version = input.readInt();
+        if (version > FORMAT_VERSION)
+            throw new IOException("Unsupported bloom filter format version " + version);
+        byte type = input.readByte();
+        switch (type)
+        {
+            case TYPE_MURMUR3:
+                return Murmur3BloomFilter.serializer.deserialize(input, offheap);
+            case TYPE_BLOCKED:
+                return BlockedBloomFilter.serializer.deserialize(input, offheap);
+            default:
+                throw new IOException("Unknown bloom filter type " + type);
+        }
     }
 
     /**
@@ -81,6 +117,25 @@ public class FilterFactory
         return createFilter(spec.K, numElements, spec.bucketsPerElement, offheap);
     }
 
+    /**
+     * @return A {@link BlockedBloomFilter} for the given false positive probability.
+     *         It gets one bit per element more than the plain filter, which makes up for
+     *         the uneven load of the blocks, and a whole number of blocks.
+     */
+    @SuppressWarnings("resource")
+    public static IFilter getBlockedFilter(long numElements, double maxFalsePosProbability, boolean offheap)
+    {
+        assert maxFalsePosProbability <= 1.0 : "Invalid probability";
+        if (maxFalsePosProbability == 1.0)
+            return new AlwaysPresentFilter();
+        int bucketsPerElement = BloomCalculations.maxBucketsPerElement(numElements);
+        BloomCalculations.BloomSpecification spec = BloomCalculations.computeBloomSpec(bucketsPerElement, maxFalsePosProbability);
+        long numBits = numElements * (spec.bucketsPerElement + 1) + BITSET_EXCESS;
+        numBits = (numBits + BlockedBloomFilter.BLOCK_BITS - 1) / BlockedBloomFilter.BLOCK_BITS * BlockedBloomFilter.BLOCK_BITS;
+        IBitSet bitset = offheap ? new OffHeapBitSet(numBits) : new OpenBitSet(numBits);
+        return new BlockedBloomFilter(spec.K, bitset);
+    }
+
     @SuppressWarnings("resource")
 	private static IFilter createFilter(int hash, long numElements, int bucketsPer, boolean offheap)
     {
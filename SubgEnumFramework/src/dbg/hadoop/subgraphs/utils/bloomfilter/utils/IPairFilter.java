@@ -0,0 +1,10 @@
+package dbg.hadoop.subgraphs.utils.bloomfilter.utils;
+
+/**
+ * A membership test on pairs of vertex ids, answered either approximately
+ * (BloomFilter) or exactly (EdgeIndex)
+ */
+public interface IPairFilter
+{
+    boolean test(int a, int b);
+}
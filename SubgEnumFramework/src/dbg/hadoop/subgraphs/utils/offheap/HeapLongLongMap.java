@@ -0,0 +1,35 @@
+package dbg.hadoop.subgraphs.utils.offheap;
+
+import gnu.trove.map.hash.TLongLongHashMap;
+
+/**
+ * LongLongMap on the task heap (a TLongLongHashMap)
+ */
+public class HeapLongLongMap implements LongLongMap {
+	private TLongLongHashMap map = new TLongLongHashMap();
+
+	@Override
+	public boolean containsKey(long key){
+		return map.containsKey(key);
+	}
+
+	@Override
+	public long get(long key){
+		return map.get(key);
+	}
+
+	@Override
+	public void put(long key, long value){
+		map.put(key, value);
+	}
+
+	@Override
+	public long size(){
+		return map.size();
+	}
+
+	@Override
+	public void close(){
+		map.clear();
+	}
+}
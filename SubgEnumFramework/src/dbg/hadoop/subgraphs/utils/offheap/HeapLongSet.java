@@ -0,0 +1,30 @@
+package dbg.hadoop.subgraphs.utils.offheap;
+
+import gnu.trove.set.hash.TLongHashSet;
+
+/**
+ * LongSet on the task heap (a TLongHashSet)
+ */
+public class HeapLongSet implements LongSet {
+	private TLongHashSet set = new TLongHashSet();
+
+	@Override
+	public boolean contains(long key){
+		return set.contains(key);
+	}
+
+	@Override
+	public void add(long key){
+		set.add(key);
+	}
+
+	@Override
+	public long size(){
+		return set.size();
+	}
+
+	@Override
+	public void close(){
+		set.clear();
+	}
+}
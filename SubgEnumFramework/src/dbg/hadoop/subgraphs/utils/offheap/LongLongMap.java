@@ -0,0 +1,21 @@
+package dbg.hadoop.subgraphs.utils.offheap;
+
+import java.io.Closeable;
+
+/**
+ * A long to long map. As TLongLongHashMap, get returns 0 for a missing key.
+ */
+public interface LongLongMap extends Closeable {
+	public boolean containsKey(long key);
+
+	public long get(long key);
+
+	public void put(long key, long value);
+
+	public long size();
+
+	/**
+	 * Release the memory of the map, it can not be used afterwards
+	 */
+	public void close();
+}
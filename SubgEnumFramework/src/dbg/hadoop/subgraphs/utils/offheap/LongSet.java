@@ -0,0 +1,19 @@
+package dbg.hadoop.subgraphs.utils.offheap;
+
+import java.io.Closeable;
+
+/**
+ * A set of longs
+ */
+public interface LongSet extends Closeable {
+	public boolean contains(long key);
+
+	public void add(long key);
+
+	public long size();
+
+	/**
+	 * Release the memory of the set, it can not be used afterwards
+	 */
+	public void close();
+}
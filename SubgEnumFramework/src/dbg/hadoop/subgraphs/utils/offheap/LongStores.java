@@ -0,0 +1,86 @@
+package dbg.hadoop.subgraphs.utils.offheap;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Picks the implementation of the side-data maps and sets by the value of sidedata.store: <br>
+ * heap: trove hash structures on the task heap (the default) <br>
+ * offheap: OffHeapLongLongMap / OffHeapLongSet in native memory <br>
+ * mapped: loaded off heap, then written to a MappedLongIndex file next to the cached files
+ * and mapped, so that the other task JVMs on the node map the same file instead of loading again. <br>
+ * A loader fills the structure returned by newMap / newSet, then calls seal.
+ */
+public class LongStores {
+	private static Logger log = Logger.getLogger(LongStores.class);
+
+	public static final String STORE = "sidedata.store";
+	public static final String HEAP = "heap";
+	public static final String OFFHEAP = "offheap";
+	public static final String MAPPED = "mapped";
+
+	public static LongLongMap newMap(String store){
+		return HEAP.equals(store) ? new HeapLongLongMap() : new OffHeapLongLongMap();
+	}
+
+	public static LongSet newSet(String store){
+		return HEAP.equals(store) ? new HeapLongSet() : new OffHeapLongSet();
+	}
+
+	/**
+	 * @return The index already written to file for the mapped store, null if there is none
+	 */
+	public static MappedLongIndex openIndex(String store, File file){
+		if(!MAPPED.equals(store) || !file.exists()){
+			return null;
+		}
+		try{
+			return MappedLongIndex.open(file);
+		} catch(IOException e){
+			log.warn("[LongStores] Rebuild " + file + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * For the mapped store, write the loaded map to file and return the mapped file
+	 */
+	public static LongLongMap seal(String store, LongLongMap map, File file) throws IOException{
+		if(!MAPPED.equals(store)){
+			return map;
+		}
+		File tmp = tmpFile(file);
+		MappedLongIndex.write(tmp, (OffHeapLongLongMap) map);
+		map.close();
+		return open(tmp, file);
+	}
+
+	/**
+	 * For the mapped store, write the loaded set to file and return the mapped file
+	 */
+	public static LongSet seal(String store, LongSet set, File file) throws IOException{
+		if(!MAPPED.equals(store)){
+			return set;
+		}
+		File tmp = tmpFile(file);
+		MappedLongIndex.write(tmp, (OffHeapLongSet) set);
+		set.close();
+		return open(tmp, file);
+	}
+
+	private static File tmpFile(File file){
+		return new File(file.getPath() + "." + System.nanoTime() + ".tmp");
+	}
+
+	private static MappedLongIndex open(File tmp, File file) throws IOException{
+		// Another JVM may have published the same index meanwhile, either copy is fine
+		if(!tmp.renameTo(file)){
+			MappedLongIndex index = MappedLongIndex.open(tmp);
+			tmp.delete();
+			return index;
+		}
+		return MappedLongIndex.open(file);
+	}
+}
@@ -0,0 +1,244 @@
+package dbg.hadoop.subgraphs.utils.offheap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Read-only long set / long to long map in a memory-mapped file. <br>
+ * The pages are shared by every process mapping the same file, and are loaded lazily by the OS. <br>
+ *
+ * The file is a bucketed hash layout: the keys are grouped by the top bucketBits bits of their
+ * hash (about two keys per bucket), so a lookup reads one directory entry and scans one bucket. <br>
+ * Layout (big endian): <br>
+ * int magic, int version, int flags (1: with values), int bucketBits, long size, <br>
+ * long[2^bucketBits + 1] directory (the position of the first key of every bucket), <br>
+ * long[size] keys, long[size] values (only with values).
+ */
+public class MappedLongIndex implements LongLongMap, LongSet {
+	private static final int MAGIC = 0x53474958; // "SGIX"
+	private static final int VERSION = 1;
+	private static final int FLAG_VALUES = 1;
+	private static final int HEADER_BYTES = 24;
+	// Every segment is mapped separately, a long never crosses two segments
+	private static final int SEGMENT_SHIFT = 30;
+	private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+	private MappedByteBuffer[] segments;
+	private boolean withValues;
+	private int bucketShift;
+	private long size;
+	private long dirOffset;
+	private long keysOffset;
+	private long valuesOffset;
+
+	private MappedLongIndex(){
+	}
+
+	/**
+	 * Map an index file written by {@link #write}
+	 */
+	public static MappedLongIndex open(File file) throws IOException{
+		MappedLongIndex index = new MappedLongIndex();
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		long length = raf.length();
+		try{
+			index.segments = map(raf.getChannel(), MapMode.READ_ONLY, length);
+		} finally {
+			raf.close();
+		}
+		if(length < HEADER_BYTES || index.getInt(0) != MAGIC){
+			throw new IOException(file + " is not a long index file");
+		}
+		if(index.getInt(4) != VERSION){
+			throw new IOException(file + " has the unsupported version " + index.getInt(4));
+		}
+		index.withValues = (index.getInt(8) & FLAG_VALUES) != 0;
+		int bucketBits = index.getInt(12);
+		index.size = index.getLong(16);
+		index.bucketShift = 64 - bucketBits;
+		index.dirOffset = HEADER_BYTES;
+		index.keysOffset = index.dirOffset + (((1L << bucketBits) + 1) << 3);
+		index.valuesOffset = index.keysOffset + (index.size << 3);
+		long expected = index.withValues ? index.valuesOffset + (index.size << 3) : index.valuesOffset;
+		if(length != expected){
+			throw new IOException(file + " is truncated");
+		}
+		return index;
+	}
+
+	/**
+	 * Write the entries of map into file
+	 */
+	public static void write(File file, OffHeapLongLongMap map) throws IOException{
+		write(file, (OffHeapTable) map);
+	}
+
+	/**
+	 * Write the keys of set into file
+	 */
+	public static void write(File file, OffHeapLongSet set) throws IOException{
+		write(file, (OffHeapTable) set);
+	}
+
+	private static void write(File file, OffHeapTable table) throws IOException{
+		long size = table.size();
+		int bucketBits = 1;
+		while(bucketBits < 62 && (1L << bucketBits) < size / 2){
+			++bucketBits;
+		}
+		long numBuckets = 1L << bucketBits;
+		int bucketShift = 64 - bucketBits;
+		long dirOffset = HEADER_BYTES;
+		long keysOffset = dirOffset + ((numBuckets + 1) << 3);
+		long valuesOffset = keysOffset + (size << 3);
+		long length = table.hasValues() ? valuesOffset + (size << 3) : valuesOffset;
+
+		MappedLongIndex index = new MappedLongIndex();
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try{
+			raf.setLength(0);
+			raf.setLength(length);
+			index.segments = map(raf.getChannel(), MapMode.READ_WRITE, length);
+		} finally {
+			raf.close();
+		}
+		index.putInt(0, MAGIC);
+		index.putInt(4, VERSION);
+		index.putInt(8, table.hasValues() ? FLAG_VALUES : 0);
+		index.putInt(12, bucketBits);
+		index.putLong(16, size);
+
+		// Count the keys of every bucket into directory[bucket + 1]
+		if(table.hasZeroKey){
+			index.increment(dirOffset + (((OffHeapTable.hash(0L) >>> bucketShift) + 1) << 3));
+		}
+		for(long slot = 0; slot < table.capacity(); ++slot){
+			long key = table.keyAt(slot);
+			if(key != 0L){
+				index.increment(dirOffset + (((OffHeapTable.hash(key) >>> bucketShift) + 1) << 3));
+			}
+		}
+		for(long b = 1; b <= numBuckets; ++b){
+			long pos = dirOffset + (b << 3);
+			index.putLong(pos, index.getLong(pos) + index.getLong(pos - 8));
+		}
+		// Place the keys, directory[bucket] then ends as the start of the next bucket
+		if(table.hasZeroKey){
+			index.place(dirOffset, keysOffset, valuesOffset, bucketShift, 0L, table.zeroValue,
+					table.hasValues());
+		}
+		for(long slot = 0; slot < table.capacity(); ++slot){
+			long key = table.keyAt(slot);
+			if(key != 0L){
+				index.place(dirOffset, keysOffset, valuesOffset, bucketShift, key, table.valueAt(slot),
+						table.hasValues());
+			}
+		}
+		for(long b = numBuckets; b > 0; --b){
+			index.putLong(dirOffset + (b << 3), index.getLong(dirOffset + ((b - 1) << 3)));
+		}
+		index.putLong(dirOffset, 0L);
+		for(MappedByteBuffer segment : index.segments){
+			segment.force();
+		}
+	}
+
+	private void place(long dirOffset, long keysOffset, long valuesOffset, int bucketShift,
+			long key, long value, boolean hasValues){
+		long pos = dirOffset + ((OffHeapTable.hash(key) >>> bucketShift) << 3);
+		long i = getLong(pos);
+		putLong(pos, i + 1);
+		putLong(keysOffset + (i << 3), key);
+		if(hasValues){
+			putLong(valuesOffset + (i << 3), value);
+		}
+	}
+
+	private void increment(long pos){
+		putLong(pos, getLong(pos) + 1);
+	}
+
+	private static MappedByteBuffer[] map(FileChannel channel, MapMode mode, long length)
+			throws IOException{
+		int numSegments = (int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+		MappedByteBuffer[] res = new MappedByteBuffer[Math.max(numSegments, 1)];
+		for(int s = 0; s < res.length; ++s){
+			long start = (long) s << SEGMENT_SHIFT;
+			res[s] = channel.map(mode, start, Math.min(length - start, 1L << SEGMENT_SHIFT));
+		}
+		return res;
+	}
+
+	/**
+	 * @return The position of key, -1 if it is absent
+	 */
+	private long find(long key){
+		long pos = dirOffset + ((OffHeapTable.hash(key) >>> bucketShift) << 3);
+		long end = getLong(pos + 8);
+		for(long i = getLong(pos); i < end; ++i){
+			if(getLong(keysOffset + (i << 3)) == key){
+				return i;
+			}
+		}
+		return -1L;
+	}
+
+	private long getLong(long pos){
+		return segments[(int) (pos >>> SEGMENT_SHIFT)].getLong((int) (pos & SEGMENT_MASK));
+	}
+
+	private void putLong(long pos, long value){
+		segments[(int) (pos >>> SEGMENT_SHIFT)].putLong((int) (pos & SEGMENT_MASK), value);
+	}
+
+	private int getInt(long pos){
+		return segments[(int) (pos >>> SEGMENT_SHIFT)].getInt((int) (pos & SEGMENT_MASK));
+	}
+
+	private void putInt(long pos, int value){
+		segments[(int) (pos >>> SEGMENT_SHIFT)].putInt((int) (pos & SEGMENT_MASK), value);
+	}
+
+	@Override
+	public boolean contains(long key){
+		return find(key) >= 0;
+	}
+
+	@Override
+	public boolean containsKey(long key){
+		return find(key) >= 0;
+	}
+
+	@Override
+	public long get(long key){
+		long i = find(key);
+		return (i < 0 || !withValues) ? 0L : getLong(valuesOffset + (i << 3));
+	}
+
+	@Override
+	public long size(){
+		return size;
+	}
+
+	@Override
+	public void put(long key, long value){
+		throw new UnsupportedOperationException("MappedLongIndex is read-only");
+	}
+
+	@Override
+	public void add(long key){
+		throw new UnsupportedOperationException("MappedLongIndex is read-only");
+	}
+
+	/**
+	 * The mapping itself is released when the buffers are garbage collected
+	 */
+	@Override
+	public void close(){
+		segments = null;
+	}
+}
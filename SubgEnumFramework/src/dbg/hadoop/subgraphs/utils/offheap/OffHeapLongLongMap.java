@@ -0,0 +1,50 @@
+package dbg.hadoop.subgraphs.utils.offheap;
+
+/**
+ * Long to long map in native memory (16 bytes per slot, at most half of the slots used),
+ * so that a large map neither needs a large task heap nor is scanned by the GC. <br>
+ * Lookups may run concurrently once the map is loaded; puts must not.
+ */
+public class OffHeapLongLongMap extends OffHeapTable implements LongLongMap {
+
+	public OffHeapLongLongMap(){
+		this(0L);
+	}
+
+	/**
+	 * @param expectedSize The number of keys to size the table for, it grows if needed
+	 */
+	public OffHeapLongLongMap(long expectedSize){
+		super(expectedSize, true);
+	}
+
+	@Override
+	public boolean containsKey(long key){
+		if(key == 0L){
+			return hasZeroKey;
+		}
+		return !isFree(find(key));
+	}
+
+	@Override
+	public long get(long key){
+		if(key == 0L){
+			return zeroValue;
+		}
+		long offset = find(key);
+		return isFree(offset) ? 0L : getValue(offset);
+	}
+
+	@Override
+	public void put(long key, long value){
+		if(key == 0L){
+			if(!hasZeroKey){
+				hasZeroKey = true;
+				++size;
+			}
+			zeroValue = value;
+			return;
+		}
+		setValue(insert(key), value);
+	}
+}
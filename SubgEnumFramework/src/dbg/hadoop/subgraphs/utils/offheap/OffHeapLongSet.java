@@ -0,0 +1,39 @@
+package dbg.hadoop.subgraphs.utils.offheap;
+
+/**
+ * Set of longs in native memory (8 bytes per slot, at most half of the slots used). <br>
+ * Lookups may run concurrently once the set is loaded; adds must not.
+ */
+public class OffHeapLongSet extends OffHeapTable implements LongSet {
+
+	public OffHeapLongSet(){
+		this(0L);
+	}
+
+	/**
+	 * @param expectedSize The number of keys to size the table for, it grows if needed
+	 */
+	public OffHeapLongSet(long expectedSize){
+		super(expectedSize, false);
+	}
+
+	@Override
+	public boolean contains(long key){
+		if(key == 0L){
+			return hasZeroKey;
+		}
+		return !isFree(find(key));
+	}
+
+	@Override
+	public void add(long key){
+		if(key == 0L){
+			if(!hasZeroKey){
+				hasZeroKey = true;
+				++size;
+			}
+			return;
+		}
+		insert(key);
+	}
+}
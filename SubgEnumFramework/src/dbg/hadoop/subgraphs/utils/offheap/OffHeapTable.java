@@ -0,0 +1,144 @@
+package dbg.hadoop.subgraphs.utils.offheap;
+
+import dbg.hadoop.subgraphs.utils.bloomfilter.io.Memory;
+
+/**
+ * Open-addressing (linear probing) hash table of long keys in native memory. <br>
+ * A slot holds the key, followed by the value if the table has values.
+ * The key 0 marks a free slot, so the key 0 itself is kept out of the table.
+ */
+abstract class OffHeapTable {
+	private static final double LOAD_FACTOR = 0.5;
+	private static final long MIN_CAPACITY = 16L;
+
+	private final int slotShift; // 3: key only, 4: key and value
+	private Memory table = null;
+	private long capacity;
+	private long mask;
+	protected long size = 0L;
+	protected boolean hasZeroKey = false;
+	protected long zeroValue = 0L;
+
+	OffHeapTable(long expectedSize, boolean withValues){
+		this.slotShift = withValues ? 4 : 3;
+		long cap = MIN_CAPACITY;
+		while(cap * LOAD_FACTOR < expectedSize){
+			cap <<= 1;
+		}
+		allocate(cap);
+	}
+
+	private void allocate(long cap){
+		long bytes = cap << slotShift;
+		try{
+			table = Memory.allocate(bytes);
+		} catch(OutOfMemoryError e){
+			throw new RuntimeException("Out of native memory when allocating " + bytes + " bytes");
+		}
+		table.setMemory(0, bytes, (byte) 0);
+		capacity = cap;
+		mask = cap - 1;
+	}
+
+	/**
+	 * The murmur3 finalizer, a bijection on longs
+	 */
+	static long hash(long key){
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return key;
+	}
+
+	/**
+	 * @return The offset of the slot holding key (key != 0), or of the free slot where it belongs
+	 */
+	final long find(long key){
+		long slot = hash(key) & mask;
+		while(true){
+			long k = table.getLong(slot << slotShift);
+			if(k == key || k == 0L){
+				return slot << slotShift;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	final boolean isFree(long offset){
+		return table.getLong(offset) == 0L;
+	}
+
+	final long getValue(long offset){
+		return table.getLong(offset + 8);
+	}
+
+	final void setValue(long offset, long value){
+		table.setLong(offset + 8, value);
+	}
+
+	/**
+	 * Insert key (key != 0) if it is absent
+	 * @return The offset of its slot
+	 */
+	final long insert(long key){
+		long offset = find(key);
+		if(isFree(offset)){
+			if(size + 1 > capacity * LOAD_FACTOR){
+				rehash(capacity << 1);
+				offset = find(key);
+			}
+			table.setLong(offset, key);
+			++size;
+		}
+		return offset;
+	}
+
+	private void rehash(long newCapacity){
+		Memory old = table;
+		long oldCapacity = capacity;
+		allocate(newCapacity);
+		for(long slot = 0; slot < oldCapacity; ++slot){
+			long key = old.getLong(slot << slotShift);
+			if(key != 0L){
+				long offset = find(key);
+				table.setLong(offset, key);
+				if(slotShift == 4){
+					setValue(offset, old.getLong((slot << slotShift) + 8));
+				}
+			}
+		}
+		old.free();
+	}
+
+	final long capacity(){
+		return capacity;
+	}
+
+	/**
+	 * @return The key in the slot, 0 if it is free
+	 */
+	final long keyAt(long slot){
+		return table.getLong(slot << slotShift);
+	}
+
+	final long valueAt(long slot){
+		return (slotShift == 4) ? table.getLong((slot << slotShift) + 8) : 0L;
+	}
+
+	final boolean hasValues(){
+		return slotShift == 4;
+	}
+
+	public long size(){
+		return size;
+	}
+
+	public void close(){
+		if(table != null){
+			table.free();
+			table = null;
+		}
+	}
+}
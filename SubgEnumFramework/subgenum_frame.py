@@ -28,7 +28,11 @@ def subgenum_frame(self):
             'skip.chordalsquare=${skip_chordalsquare}', \
             'skip.square=${skip_square}', \
             'is.leftdeep=${left_deep}', \
-            'is.nonoverlapping=${nonoverlapping}'
+            'is.nonoverlapping=${nonoverlapping}', \
+            'enum.local.engine=${local_engine}', \
+            'enum.local.engine.threads=${local_engine_threads}', \
+            'enum.csr.input=${csr_input}', \
+            'enum.hvarray.compact=${hvarray_compact}'
             ]
   )
 
@@ -19,7 +19,8 @@ def preprocess(self):
             'enable.bloom.filter=${bf_enable}', \
             'bloom.filter.element.size=${bf_element_size}', \
             'bloom.filter.false.positive.rate=${bf_falsepositive}', \
-            'mapred.clique.size.threshold=${clique_size_thresh}']
+            'mapred.clique.size.threshold=${clique_size_thresh}', \
+            'enum.hypervertex.wide=${hypervertex_wide}']
   )
 
 if __name__ == '__main__':